@@ -21,6 +21,7 @@ import com.hivemq.cli.ioc.MqttCLI;
 import com.hivemq.cli.mqtt.ClientData;
 import com.hivemq.cli.mqtt.ClientKey;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.output.OutputFileWriters;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
@@ -88,7 +89,11 @@ public class MqttCLIMain {
                     }
                 }
             }
-            CompletableFuture.allOf(disconnectFutures.toArray(new CompletableFuture<?>[0])).join();
+            try {
+                CompletableFuture.allOf(disconnectFutures.toArray(new CompletableFuture<?>[0])).join();
+            } finally {
+                OutputFileWriters.closeAll();
+            }
         }
     }
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.BenchOptions;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.HelpOptions;
+import com.hivemq.cli.mqtt.Benchmark;
+import com.hivemq.cli.mqtt.BenchmarkStatistics;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.utils.LoggerUtils;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import javax.inject.Inject;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(name = "bench",
+                     versionProvider = MqttCLIMain.CLIVersionProvider.class,
+                     description = "Connect many clients which publish and receive messages and report connect rate, CONNACK latency and throughput.")
+public class BenchCommand implements Callable<Integer> {
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-l"},
+                        defaultValue = "false",
+                        description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)")
+    private boolean logToLogfile;
+
+    @CommandLine.Mixin
+    private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull BenchOptions benchOptions = new BenchOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull DebugOptions debugOptions = new DebugOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull HelpOptions helpOptions = new HelpOptions();
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+
+    @Inject
+    public BenchCommand(final @NotNull MqttClientExecutor mqttClientExecutor) {
+        this.mqttClientExecutor = mqttClientExecutor;
+    }
+
+    @Override
+    public @NotNull Integer call() {
+        String logLevel = "warn";
+        if (debugOptions.isDebug()) {
+            logLevel = "debug";
+        }
+        if (debugOptions.isVerbose()) {
+            logLevel = "trace";
+        }
+        LoggerUtils.setupConsoleLogging(logToLogfile, logLevel);
+
+        Logger.trace("Command {}", this);
+
+        connectOptions.setDefaultOptions();
+        connectOptions.logUnusedOptions();
+
+        final BenchmarkStatistics statistics;
+        try {
+            statistics = new Benchmark(mqttClientExecutor, connectOptions, benchOptions, System.out).run();
+        } catch (final Exception exception) {
+            LoggerUtils.logCommandError("Unable to run the benchmark", exception, debugOptions);
+            return 1;
+        }
+        statistics.printSummary(System.out);
+
+        return statistics.getConnectedClients() > 0 ? 0 : 1;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BenchCommand{" +
+                "logToLogfile=" +
+                logToLogfile +
+                ", connectOptions=" +
+                connectOptions +
+                ", benchOptions=" +
+                benchOptions +
+                ", debugOptions=" +
+                debugOptions +
+                ", helpOptions=" +
+                helpOptions +
+                ", mqttClientExecutor=" +
+                mqttClientExecutor +
+                '}';
+    }
+}
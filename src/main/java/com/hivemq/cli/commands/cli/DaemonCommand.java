@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.HelpOptions;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.daemon.DaemonEndpoint;
+import com.hivemq.cli.mqtt.daemon.PublishDaemon;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.cli.utils.PasswordUtils;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import javax.inject.Inject;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(name = "daemon",
+                     versionProvider = MqttCLIMain.CLIVersionProvider.class,
+                     description = "Keep the connections of 'mqtt pub --daemon' open between invocations.")
+public class DaemonCommand implements Callable<Integer> {
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-l"},
+                        defaultValue = "false",
+                        description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)")
+    private boolean logToLogfile;
+
+    private int port = 0;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--port"},
+                        description = "The port on the loopback interface for publish requests (default: any free port)")
+    private void port(final int port) {
+        if (port < 0 || port > 65535) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--port must be between 0 and 65535");
+        }
+        this.port = port;
+    }
+
+    @CommandLine.Mixin
+    private final @NotNull DebugOptions debugOptions = new DebugOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull HelpOptions helpOptions = new HelpOptions();
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+
+    @Inject
+    public DaemonCommand(final @NotNull MqttClientExecutor mqttClientExecutor) {
+        this.mqttClientExecutor = mqttClientExecutor;
+    }
+
+    @Override
+    public @NotNull Integer call() {
+        String logLevel = "warn";
+        if (debugOptions.isDebug()) {
+            logLevel = "debug";
+        }
+        if (debugOptions.isVerbose()) {
+            logLevel = "trace";
+        }
+        LoggerUtils.setupConsoleLogging(logToLogfile, logLevel);
+
+        Logger.trace("Command {}", this);
+
+        // the daemon runs detached from the terminal of the publishing commands
+        PasswordUtils.setInteractive(false);
+        try (final PublishDaemon daemon = new PublishDaemon(mqttClientExecutor, DaemonEndpoint.createToken())) {
+            final DaemonEndpoint endpoint = daemon.bind(port);
+            endpoint.write(DaemonEndpoint.DEFAULT_FILE);
+            DaemonEndpoint.DEFAULT_FILE.toFile().deleteOnExit();
+            System.out.println("Publish daemon listening on port " + endpoint.getPort());
+            daemon.serve();
+        } catch (final Exception exception) {
+            LoggerUtils.logCommandError("Unable to run the publish daemon", exception, debugOptions);
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DaemonCommand{" +
+                "logToLogfile=" +
+                logToLogfile +
+                ", port=" +
+                port +
+                ", debugOptions=" +
+                debugOptions +
+                ", helpOptions=" +
+                helpOptions +
+                ", mqttClientExecutor=" +
+                mqttClientExecutor +
+                '}';
+    }
+}
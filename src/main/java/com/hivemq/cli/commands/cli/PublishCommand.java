@@ -20,15 +20,28 @@ import com.hivemq.cli.MqttCLIMain;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.DebugOptions;
 import com.hivemq.cli.commands.options.HelpOptions;
+import com.hivemq.cli.commands.options.PublishLatencyOptions;
+import com.hivemq.cli.commands.options.PublishLoadOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.PublishStatistics;
+import com.hivemq.cli.mqtt.daemon.DaemonArguments;
+import com.hivemq.cli.mqtt.daemon.DaemonClient;
+import com.hivemq.cli.mqtt.daemon.DaemonEndpoint;
+import com.hivemq.cli.mqtt.daemon.DaemonResponse;
 import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.cli.utils.MessageStreamReader;
 import com.hivemq.client.mqtt.MqttClient;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
 import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 @CommandLine.Command(name = "pub",
@@ -37,18 +50,34 @@ import java.util.concurrent.Callable;
                      description = "Publish a message to a list of topics.")
 public class PublishCommand implements Callable<Integer> {
 
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-l"},
                         defaultValue = "false",
                         description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)")
     private boolean logToLogfile;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--daemon"},
+                        defaultValue = "false",
+                        description = "Publish over the kept open connection of a running 'mqtt daemon' (default: false)")
+    private boolean daemon;
+
     @CommandLine.Mixin
     private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
 
     @CommandLine.Mixin
     private final @NotNull PublishOptions publishOptions = new PublishOptions();
 
+    @CommandLine.Mixin
+    private final @NotNull PublishLoadOptions publishLoadOptions = new PublishLoadOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull PublishLatencyOptions publishLatencyOptions = new PublishLatencyOptions();
+
     @CommandLine.Mixin
     private final @NotNull DebugOptions debugOptions = new DebugOptions();
 
@@ -75,10 +104,26 @@ public class PublishCommand implements Callable<Integer> {
 
         Logger.trace("Command {}", this);
 
+        if (daemon) {
+            final Integer exitCode = publishViaDaemon();
+            if (exitCode != null) {
+                return exitCode;
+            }
+        }
+
         connectOptions.setDefaultOptions();
         connectOptions.logUnusedOptions();
         publishOptions.logUnusedOptions(connectOptions.getVersion());
         publishOptions.arrangeQosToMatchTopics();
+        publishLoadOptions.logUnusedOptions(publishOptions.getMessageStream() != null);
+        publishLatencyOptions.logUnusedOptions();
+
+        final String messageStream = publishOptions.getMessageStream();
+        if (messageStream != null && publishLoadOptions.isEnabled()) {
+            Logger.error("--message-stream can not be combined with --count or --duration");
+            return 1;
+        }
+        publishLoadOptions.compileTemplates(publishOptions.getTopics(), publishOptions.getMessage());
 
         final MqttClient client;
         try {
@@ -88,25 +133,121 @@ public class PublishCommand implements Callable<Integer> {
             return 1;
         }
 
+        if (messageStream != null) {
+            final PublishStatistics statistics;
+            try (final MessageStreamReader messageStreamReader = MessageStreamReader.open(messageStream,
+                    publishOptions.getMessageStreamFormat())) {
+                statistics =
+                        mqttClientExecutor.publish(client, publishOptions, publishLoadOptions, messageStreamReader);
+            } catch (final Exception exception) {
+                LoggerUtils.logCommandError("Unable to publish", exception, debugOptions);
+                return 1;
+            }
+            if (publishLatencyOptions.isEnabled()) {
+                statistics.printSummary(System.out);
+                if (!writeLatencyDistribution(statistics)) {
+                    return 1;
+                }
+            }
+            return statistics.getFailedPublishes() == 0 ? 0 : 1;
+        }
+
+        if (publishLoadOptions.isEnabled()) {
+            final PublishStatistics statistics;
+            try {
+                statistics = mqttClientExecutor.publish(client, publishOptions, publishLoadOptions);
+            } catch (final Exception exception) {
+                LoggerUtils.logCommandError("Unable to publish", exception, debugOptions);
+                return 1;
+            }
+            statistics.printSummary(System.out);
+            if (!writeLatencyDistribution(statistics)) {
+                return 1;
+            }
+            return statistics.getFailedPublishes() == 0 ? 0 : 1;
+        }
+
+        final PublishStatistics statistics = publishLatencyOptions.isEnabled() ? new PublishStatistics() : null;
         try {
-            mqttClientExecutor.publish(client, publishOptions);
+            mqttClientExecutor.publish(client, publishOptions, statistics);
         } catch (final Exception exception) {
             LoggerUtils.logCommandError("Unable to publish", exception, debugOptions);
             return 1;
         }
 
+        if (statistics != null) {
+            statistics.printSummary(System.out);
+            if (!writeLatencyDistribution(statistics)) {
+                return 1;
+            }
+        }
+
         return 0;
     }
 
+    /**
+     * @return the exit code or <code>null</code> if no daemon is running and the message has to be published directly
+     */
+    private @Nullable Integer publishViaDaemon() {
+        if (publishLoadOptions.isEnabled() || publishOptions.getMessageStream() != null ||
+                publishLatencyOptions.isEnabled()) {
+            Logger.error("--daemon can not be combined with --count, --duration, --message-stream or --latency");
+            return 1;
+        }
+        final List<String> arguments = DaemonArguments.withExplicitPassword(spec,
+                DaemonArguments.withAbsolutePaths(spec, spec.commandLine().getParseResult().originalArgs()),
+                connectOptions.getAuthenticationOptions().getPassword());
+        try {
+            final DaemonEndpoint endpoint = DaemonEndpoint.read(DaemonEndpoint.DEFAULT_FILE);
+            if (endpoint == null) {
+                Logger.warn("No publish daemon is running, publishing without it");
+                return null;
+            }
+            final DaemonResponse response = DaemonClient.publish(endpoint, arguments);
+            if (response.getExitCode() != 0) {
+                Logger.error("{}", response.getMessage());
+            }
+            return response.getExitCode();
+        } catch (final ConnectException exception) {
+            Logger.warn("The publish daemon is not reachable, publishing without it");
+            return null;
+        } catch (final IOException exception) {
+            LoggerUtils.logCommandError("Unable to publish via the daemon", exception, debugOptions);
+            return 1;
+        }
+    }
+
+    private boolean writeLatencyDistribution(final @NotNull PublishStatistics statistics) {
+        final File latencyFile = publishLatencyOptions.getLatencyFile();
+        if (latencyFile == null) {
+            return true;
+        }
+        try {
+            statistics.writeLatencyDistribution(latencyFile, publishLatencyOptions.getLatencyFormat());
+        } catch (final IOException exception) {
+            LoggerUtils.logCommandError("Unable to write latency distribution to " + latencyFile,
+                    exception,
+                    debugOptions);
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public @NotNull String toString() {
         return "PublishCommand{" +
                 "logToLogfile=" +
                 logToLogfile +
+                ", daemon=" +
+                daemon +
                 ", connectOptions=" +
                 connectOptions +
                 ", publishOptions=" +
                 publishOptions +
+                ", publishLoadOptions=" +
+                publishLoadOptions +
+                ", publishLatencyOptions=" +
+                publishLatencyOptions +
                 ", debugOptions=" +
                 debugOptions +
                 ", helpOptions=" + helpOptions +
@@ -19,22 +19,30 @@ package com.hivemq.cli.commands.cli;
 import com.hivemq.cli.MqttCLIMain;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.EndToEndLatencyOptions;
 import com.hivemq.cli.commands.options.HelpOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.commands.options.SubscribeStatisticsOptions;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.SubscribeStatistics;
+import com.hivemq.cli.mqtt.e2e.EndToEndLatencyTracker;
+import com.hivemq.cli.mqtt.output.OutputPipeline;
 import com.hivemq.cli.mqtt.exception.SigpipeException;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.client.mqtt.MqttClient;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 import picocli.CommandLine;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @CommandLine.Command(name = "sub",
                      versionProvider = MqttCLIMain.CLIVersionProvider.class,
@@ -43,9 +51,15 @@ import java.util.concurrent.Callable;
 public class SubscribeCommand implements Callable<Integer> {
 
     private static final int IDLE_TIME = 5000;
+    private static final @NotNull String SHARED_SUBSCRIPTION_PREFIX = "$share/";
     private final @NotNull List<String> deprecationWarnings = new ArrayList<>();
     private final @NotNull MqttClientExecutor mqttClientExecutor;
-    private @Nullable MqttClient subscribeClient;
+    private final @NotNull List<MqttClient> subscribeClients = new ArrayList<>();
+    private final @NotNull List<ExecutorService> callbackExecutors = new ArrayList<>();
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
 
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-l"},
@@ -63,12 +77,30 @@ public class SubscribeCommand implements Callable<Integer> {
         subscribeOptions.setPrintToSTDOUT(printToSTDOUT);
     }
 
+    private int parallel = 1;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--parallel"},
+                        description = "The amount of clients which subscribe with the same options, each with its own identifier and callback thread. Used to drain shared subscriptions (default: 1)")
+    private void parallel(final int parallel) {
+        if (parallel < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--parallel must be at least 1");
+        }
+        this.parallel = parallel;
+    }
+
     @CommandLine.Mixin
     private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
 
     @CommandLine.Mixin
     private final @NotNull SubscribeOptions subscribeOptions = new SubscribeOptions(deprecationWarnings);
 
+    @CommandLine.Mixin
+    private final @NotNull EndToEndLatencyOptions endToEndLatencyOptions = new EndToEndLatencyOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull SubscribeStatisticsOptions subscribeStatisticsOptions = new SubscribeStatisticsOptions();
+
     @CommandLine.Mixin
     private final @NotNull DebugOptions debugOptions = new DebugOptions();
 
@@ -100,23 +132,61 @@ public class SubscribeCommand implements Callable<Integer> {
         subscribeOptions.setDefaultOptions();
         subscribeOptions.logUnusedOptions(connectOptions.getVersion());
         subscribeOptions.arrangeQosToMatchTopics();
+        endToEndLatencyOptions.logUnusedOptions();
+        subscribeStatisticsOptions.logUnusedOptions();
 
         if (subscribeOptions.isOutputFileInvalid(subscribeOptions.getOutputFile())) {
             return 1;
         }
 
-        try {
-            subscribeClient = mqttClientExecutor.connect(connectOptions, subscribeOptions);
-        } catch (final Exception exception) {
-            LoggerUtils.logCommandError("Unable to connect", exception, debugOptions);
-            return 1;
+        if (endToEndLatencyOptions.isEnabled()) {
+            startEndToEndLatencySummary();
+        }
+
+        if (subscribeOptions.getCaptureFile() != null) {
+            // the capture replaces the received messages on stdout
+            subscribeOptions.setPrintToSTDOUT(false);
+        }
+
+        if (subscribeStatisticsOptions.isEnabled()) {
+            startStatisticsSummary();
+        }
+
+        if (parallel > 1) {
+            warnNotSharedTopics();
         }
 
         try {
-            mqttClientExecutor.subscribe(subscribeClient, subscribeOptions);
-        } catch (final Exception exception) {
-            LoggerUtils.logCommandError("Unable to subscribe", exception, debugOptions);
-            return 1;
+            return subscribeAndStay();
+        } finally {
+            callbackExecutors.forEach(ExecutorService::shutdown);
+        }
+    }
+
+    private int subscribeAndStay() {
+        final String identifier = connectOptions.getIdentifier() == null ? "" : connectOptions.getIdentifier();
+        for (int i = 0; i < parallel; i++) {
+            // an empty identifier lets the broker assign the identifiers (MQTT 5 only)
+            final String clientIdentifier = parallel == 1 || identifier.isEmpty() ? identifier : identifier + "-" + i;
+            final MqttClient subscribeClient;
+            try {
+                subscribeClient = mqttClientExecutor.connect(connectOptions, subscribeOptions, clientIdentifier);
+            } catch (final Exception exception) {
+                LoggerUtils.logCommandError("Unable to connect", exception, debugOptions);
+                return 1;
+            }
+            subscribeClients.add(subscribeClient);
+
+            try {
+                // all clients write to the same stdout and output file, their own callback thread only keeps one
+                // slow client from holding up the others
+                mqttClientExecutor.subscribe(subscribeClient,
+                        subscribeOptions,
+                        parallel > 1 ? createCallbackExecutor(i) : null);
+            } catch (final Exception exception) {
+                LoggerUtils.logCommandError("Unable to subscribe", exception, debugOptions);
+                return 1;
+            }
         }
 
         try {
@@ -131,8 +201,74 @@ public class SubscribeCommand implements Callable<Integer> {
         return 0;
     }
 
+    private void startEndToEndLatencySummary() {
+        final EndToEndLatencyTracker tracker = new EndToEndLatencyTracker();
+        subscribeOptions.setEndToEndLatencyTracker(tracker);
+
+        // The summary is printed to stderr to not interfere with the received messages on stdout
+        final ScheduledExecutorService summaryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "e2e-latency-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = endToEndLatencyOptions.getSummaryIntervalSeconds();
+        summaryScheduler.scheduleAtFixedRate(() -> tracker.printIntervalSummary(System.err),
+                interval,
+                interval,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            summaryScheduler.shutdownNow();
+            System.err.print("Total: ");
+            tracker.printTotalSummary(System.err);
+        }));
+    }
+
+    private void startStatisticsSummary() {
+        final SubscribeStatistics statistics = new SubscribeStatistics();
+        subscribeOptions.setSubscribeStatistics(statistics);
+        // the statistics replace the received messages on stdout
+        subscribeOptions.setPrintToSTDOUT(false);
+
+        final ScheduledExecutorService printingScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "subscribe-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final OutputPipeline outputPipeline = subscribeOptions.getOutputPipeline();
+        printingScheduler.scheduleAtFixedRate(() -> {
+            statistics.printProgress(System.out);
+            if (outputPipeline != null) {
+                outputPipeline.printProgress(System.out);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            printingScheduler.shutdownNow();
+            System.out.println();
+            statistics.printSummary(System.out, subscribeStatisticsOptions.getTopTopics());
+        }));
+    }
+
+    private void warnNotSharedTopics() {
+        for (final String topic : subscribeOptions.getTopics()) {
+            if (!topic.startsWith(SHARED_SUBSCRIPTION_PREFIX)) {
+                Logger.warn("Topic filter '{}' is not a shared subscription, each of the {} clients receives all of " +
+                        "its messages", topic, parallel);
+            }
+        }
+    }
+
+    private @NotNull Executor createCallbackExecutor(final int clientIndex) {
+        final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "subscribe-callback-" + clientIndex);
+            thread.setDaemon(true);
+            return thread;
+        });
+        callbackExecutors.add(callbackExecutor);
+        return callbackExecutor;
+    }
+
     private void stay() throws InterruptedException {
-        while (Objects.requireNonNull(subscribeClient).getState().isConnectedOrReconnect()) {
+        while (subscribeClients.stream().anyMatch(client -> client.getState().isConnectedOrReconnect())) {
             if (System.out.checkError()) {
                 throw new SigpipeException("Sigpipe signal detected.");
             }
@@ -145,14 +281,20 @@ public class SubscribeCommand implements Callable<Integer> {
         return "SubscribeCommand{" +
                 "mqttClientExecutor=" +
                 mqttClientExecutor +
-                ", subscribeClient=" +
-                subscribeClient +
+                ", subscribeClients=" +
+                subscribeClients +
                 ", logToLogfile=" +
                 logToLogfile +
+                ", parallel=" +
+                parallel +
                 ", connectOptions=" +
                 connectOptions +
                 ", subscribeOptions=" +
                 subscribeOptions +
+                ", endToEndLatencyOptions=" +
+                endToEndLatencyOptions +
+                ", subscribeStatisticsOptions=" +
+                subscribeStatisticsOptions +
                 ", debugOptions=" +
                 debugOptions +
                 ", helpOptions=" +
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import java.util.Arrays;
+
+/**
+ * Limits the concurrent requests to the HiveMQ REST API and adapts the limit to the latency of the broker.
+ * <p>
+ * The latencies are evaluated in windows of as many responses as the limit allows at once. While the 95th percentile of
+ * a window stays within {@link #LATENCY_TOLERANCE} of the lowest percentile seen so far, the limit is raised by the
+ * square root of the limit. If the percentile rises above it, the limit is lowered proportionally to the latency
+ * increase. An overload response (HiveMQ is replicating) halves the limit, at most once per window.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    static final int INITIAL_LIMIT = 20;
+    static final int MIN_LIMIT = 1;
+    static final int MAX_LIMIT = 500;
+    static final double LATENCY_TOLERANCE = 1.5;
+    private static final double MAX_DECREASE = 0.5;
+    // lets the baseline follow a permanent latency increase, e.g. a growing broker load unrelated to the export
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final long[] windowLatencies = new long[MAX_LIMIT];
+    private int windowCount = 0;
+    private int windowSize = INITIAL_LIMIT;
+    private boolean decreasedInWindow = false;
+    private double baselineNanos = 0;
+    private int limit = INITIAL_LIMIT;
+    private int minimumLimit = INITIAL_LIMIT;
+    private int maximumLimit = INITIAL_LIMIT;
+    private int inFlight = 0;
+    private long overloads = 0;
+
+    /**
+     * Blocks until another request may be sent.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    public synchronized void onResponse(final long latencyNanos) {
+        release();
+        windowLatencies[windowCount++] = latencyNanos;
+        if (windowCount >= windowSize) {
+            adapt();
+        }
+    }
+
+    public synchronized void onOverload() {
+        release();
+        overloads++;
+        if (!decreasedInWindow) {
+            decreasedInWindow = true;
+            setLimit((int) (limit * MAX_DECREASE));
+        }
+    }
+
+    /**
+     * Releases the request without adapting the limit, e.g. if the request failed without a response.
+     */
+    public synchronized void onFailure() {
+        release();
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    private void adapt() {
+        if (!decreasedInWindow) {
+            Arrays.sort(windowLatencies, 0, windowCount);
+            final long p95 = windowLatencies[(int) Math.ceil(windowCount * 0.95) - 1];
+            if (baselineNanos == 0 || p95 < baselineNanos) {
+                baselineNanos = p95;
+            } else {
+                baselineNanos += (p95 - baselineNanos) * BASELINE_DRIFT;
+            }
+            final double toleratedNanos = baselineNanos * LATENCY_TOLERANCE;
+            if (p95 <= toleratedNanos) {
+                setLimit(limit + Math.max(1, (int) Math.sqrt(limit)));
+            } else {
+                setLimit((int) (limit * Math.max(MAX_DECREASE, toleratedNanos / p95)));
+            }
+        }
+        windowCount = 0;
+        windowSize = limit;
+        decreasedInWindow = false;
+    }
+
+    private void setLimit(final int newLimit) {
+        limit = Math.max(MIN_LIMIT, Math.min(MAX_LIMIT, newLimit));
+        minimumLimit = Math.min(minimumLimit, limit);
+        maximumLimit = Math.max(maximumLimit, limit);
+        windowSize = Math.min(windowSize, limit);
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getMinimumLimit() {
+        return minimumLimit;
+    }
+
+    public synchronized int getMaximumLimit() {
+        return maximumLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getOverloads() {
+        return overloads;
+    }
+}
@@ -32,6 +32,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,7 +42,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class ClientDetailsCsvWriterTask implements Runnable {
+public class ClientDetailsCsvWriterTask implements ClientDetailsWriterTask {
 
     static final @NotNull String @NotNull [] EXPORT_CSV_HEADER = {
             "clientId",
@@ -77,12 +78,17 @@ public class ClientDetailsCsvWriterTask implements Runnable {
             "certificateCountry",
             "certificateState"};
 
+    private static final long CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     private final @NotNull AtomicLong writtenClientDetails = new AtomicLong(0);
     private final @NotNull CompletableFuture<Void> clientDetailsFuture;
     private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
     private final @NotNull File file;
     private final @NotNull CSVWriter csvWriter;
     private final @NotNull BufferedWriter bufferedFileWriter;
+    private final @Nullable ExportProgress exportProgress;
+    private final boolean resumed;
+    private long lastCheckpointNanos = System.nanoTime();
 
     public ClientDetailsCsvWriterTask(
             final @NotNull CompletableFuture<Void> clientDetailsFuture,
@@ -92,10 +98,46 @@ public class ClientDetailsCsvWriterTask implements Runnable {
             final char quoteCharacter,
             final char escapeCharacter,
             final @NotNull String lineEndCharacter) throws IOException {
+        this(clientDetailsFuture,
+                clientDetailsQueue,
+                file,
+                lineSeparator,
+                quoteCharacter,
+                escapeCharacter,
+                lineEndCharacter,
+                null,
+                null);
+    }
+
+    /**
+     * @param exportProgress if present, a checkpoint of it is written to the sidecar of the file periodically
+     * @param resumeFrom     if present, the file is truncated to the length of the checkpoint and appended to
+     */
+    public ClientDetailsCsvWriterTask(
+            final @NotNull CompletableFuture<Void> clientDetailsFuture,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final @NotNull File file,
+            final char lineSeparator,
+            final char quoteCharacter,
+            final char escapeCharacter,
+            final @NotNull String lineEndCharacter,
+            final @Nullable ExportProgress exportProgress,
+            final @Nullable ExportCheckpoint resumeFrom) throws IOException {
         this.clientDetailsFuture = clientDetailsFuture;
         this.clientDetailsQueue = clientDetailsQueue;
         this.file = file;
-        this.bufferedFileWriter = new BufferedWriter(new FileWriter(file, false));
+        this.exportProgress = exportProgress;
+        resumed = resumeFrom != null;
+        if (resumeFrom != null) {
+            if (file.length() < resumeFrom.getLength()) {
+                throw new IOException("File " + file + " is shorter than its checkpoint, it can not be resumed");
+            }
+            try (final RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+                truncated.setLength(resumeFrom.getLength());
+            }
+            writtenClientDetails.set(resumeFrom.getRows());
+        }
+        this.bufferedFileWriter = new BufferedWriter(new FileWriter(file, resumed));
 
         csvWriter = new CSVWriter(bufferedFileWriter, lineSeparator, quoteCharacter, escapeCharacter, lineEndCharacter);
     }
@@ -112,7 +154,9 @@ public class ClientDetailsCsvWriterTask implements Runnable {
         }));
 
         try {
-            writeHeader();
+            if (!resumed) {
+                writeHeader();
+            }
 
             while (!clientDetailsFuture.isDone() || !clientDetailsQueue.isEmpty()) {
 
@@ -121,8 +165,15 @@ public class ClientDetailsCsvWriterTask implements Runnable {
                 if (clientDetails != null) {
                     writeRow(clientDetails);
                     writtenClientDetails.incrementAndGet();
+                    if (exportProgress != null && clientDetails.getId() != null) {
+                        exportProgress.onClientCompleted(clientDetails.getId(), true);
+                    }
+                }
+                if (System.nanoTime() - lastCheckpointNanos >= CHECKPOINT_INTERVAL_NANOS) {
+                    writeCheckpoint();
                 }
             }
+            writeCheckpoint();
             csvWriter.close();
         } catch (final Exception e) {
             Logger.error(e, "Writing of CSV file failed");
@@ -131,10 +182,23 @@ public class ClientDetailsCsvWriterTask implements Runnable {
         Logger.debug("Finished writing {} client details to CSV file {}", writtenClientDetails, file.getAbsolutePath());
     }
 
+    @Override
     public long getWrittenClientDetails() {
         return writtenClientDetails.get();
     }
 
+    /**
+     * Flushes the written rows first, so the checkpoint never refers to rows which are not in the file.
+     */
+    private void writeCheckpoint() throws IOException {
+        lastCheckpointNanos = System.nanoTime();
+        if (exportProgress == null) {
+            return;
+        }
+        csvWriter.flush();
+        exportProgress.checkpoint(writtenClientDetails.get(), file.length()).write(ExportCheckpoint.sidecarOf(file));
+    }
+
     private void writeHeader() {
         csvWriter.writeNext(EXPORT_CSV_HEADER);
     }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiCertificateInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientRestrictions;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiConnectionDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiProxyInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTLV;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTlsInformation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the client details as newline delimited JSON, one object per line with the structure of the HiveMQ REST API.
+ * Missing values are omitted. The output is flushed whenever the queue of client details runs empty, so a consumer
+ * of a pipe receives the details as soon as they are retrieved.
+ */
+public class ClientDetailsNdjsonWriterTask implements ClientDetailsWriterTask {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final @NotNull AtomicLong writtenClientDetails = new AtomicLong(0);
+    private final @NotNull CompletableFuture<Void> clientDetailsFuture;
+    private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
+    private final @NotNull Writer writer;
+    private final @NotNull JsonWriter jsonWriter;
+    private final boolean closeOutput;
+
+    /**
+     * @param closeOutput <code>false</code> to only flush the output when done, e.g. for stdout
+     */
+    public ClientDetailsNdjsonWriterTask(
+            final @NotNull CompletableFuture<Void> clientDetailsFuture,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final @NotNull OutputStream output,
+            final boolean closeOutput) {
+        this.clientDetailsFuture = clientDetailsFuture;
+        this.clientDetailsQueue = clientDetailsQueue;
+        this.closeOutput = closeOutput;
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        jsonWriter = new JsonWriter(writer);
+        // the single writer is reused for all records, which are separate top-level values
+        jsonWriter.setStrictness(Strictness.LENIENT);
+        jsonWriter.setSerializeNulls(false);
+        jsonWriter.setHtmlSafe(false);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!clientDetailsFuture.isDone() || !clientDetailsQueue.isEmpty()) {
+
+                HivemqOpenapiClientDetails clientDetails = clientDetailsQueue.poll();
+                if (clientDetails == null) {
+                    writer.flush();
+                    clientDetails = clientDetailsQueue.poll(50, TimeUnit.MILLISECONDS);
+                }
+
+                if (clientDetails != null) {
+                    writeRecord(clientDetails);
+                    writtenClientDetails.incrementAndGet();
+                }
+            }
+            if (closeOutput) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        } catch (final Exception e) {
+            Logger.error(e, "Writing of NDJSON output failed");
+            throw new CompletionException(e);
+        }
+        Logger.debug("Finished writing {} client details as NDJSON", writtenClientDetails);
+    }
+
+    @Override
+    public long getWrittenClientDetails() {
+        return writtenClientDetails.get();
+    }
+
+    private void writeRecord(final @NotNull HivemqOpenapiClientDetails clientDetails) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("id").value(clientDetails.getId());
+        jsonWriter.name("connected").value(clientDetails.getConnected());
+        jsonWriter.name("sessionExpiryInterval").value(clientDetails.getSessionExpiryInterval());
+        jsonWriter.name("connectedAt").value(toJsonString(clientDetails.getConnectedAt()));
+        jsonWriter.name("messageQueueSize").value(clientDetails.getMessageQueueSize());
+        jsonWriter.name("willPresent").value(clientDetails.getWillPresent());
+
+        final HivemqOpenapiClientRestrictions restrictions = clientDetails.getRestrictions();
+        if (restrictions != null) {
+            jsonWriter.name("restrictions").beginObject();
+            jsonWriter.name("maxMessageSize").value(restrictions.getMaxMessageSize());
+            jsonWriter.name("maxQueueSize").value(restrictions.getMaxQueueSize());
+            jsonWriter.name("queuedMessageStrategy").value(restrictions.getQueuedMessageStrategy());
+            jsonWriter.endObject();
+        }
+
+        final HivemqOpenapiConnectionDetails connection = clientDetails.getConnection();
+        if (connection != null) {
+            writeConnection(connection);
+        }
+        jsonWriter.endObject();
+        writer.write('\n');
+    }
+
+    private void writeConnection(final @NotNull HivemqOpenapiConnectionDetails connection) throws IOException {
+        jsonWriter.name("connection").beginObject();
+        jsonWriter.name("sourceIp").value(connection.getSourceIp());
+
+        final HivemqOpenapiProxyInformation proxy = connection.getProxyInformation();
+        if (proxy != null) {
+            jsonWriter.name("proxyInformation").beginObject();
+            jsonWriter.name("sourceIp").value(proxy.getSourceIp());
+            jsonWriter.name("sourcePort").value(proxy.getSourcePort());
+            jsonWriter.name("destinationIp").value(proxy.getDestinationIp());
+            jsonWriter.name("destinationPort").value(proxy.getDestinationPort());
+            final List<HivemqOpenapiTLV> tlvs = proxy.getTlvs();
+            if (tlvs != null) {
+                jsonWriter.name("tlvs").beginArray();
+                for (final HivemqOpenapiTLV tlv : tlvs) {
+                    jsonWriter.beginObject();
+                    jsonWriter.name("key").value(tlv.getKey());
+                    jsonWriter.name("value").value(tlv.getValue());
+                    jsonWriter.endObject();
+                }
+                jsonWriter.endArray();
+            }
+            jsonWriter.endObject();
+        }
+
+        jsonWriter.name("mqttVersion").value(connection.getMqttVersion());
+        jsonWriter.name("connectedListenerId").value(connection.getConnectedListenerId());
+        jsonWriter.name("connectedNodeId").value(connection.getConnectedNodeId());
+        jsonWriter.name("keepAlive").value(connection.getKeepAlive());
+        jsonWriter.name("username").value(connection.getUsername());
+        final byte[] password = connection.getPassword();
+        jsonWriter.name("password").value(password != null ? Base64.getEncoder().encodeToString(password) : null);
+        jsonWriter.name("cleanStart").value(connection.getCleanStart());
+
+        final HivemqOpenapiTlsInformation tls = connection.getTlsInformation();
+        if (tls != null) {
+            jsonWriter.name("tlsInformation").beginObject();
+            jsonWriter.name("cipherSuite").value(tls.getCipherSuite());
+            jsonWriter.name("tlsVersion").value(tls.getTlsVersion());
+            final HivemqOpenapiCertificateInformation certificate = tls.getCertificateInformation();
+            if (certificate != null) {
+                jsonWriter.name("certificateInformation").beginObject();
+                jsonWriter.name("commonName").value(certificate.getCommonName());
+                jsonWriter.name("organization").value(certificate.getOrganization());
+                jsonWriter.name("organizationalUnit").value(certificate.getOrganizationalUnit());
+                jsonWriter.name("serial").value(certificate.getSerial());
+                jsonWriter.name("validFrom").value(toJsonString(certificate.getValidFrom()));
+                jsonWriter.name("validUntil").value(toJsonString(certificate.getValidUntil()));
+                jsonWriter.name("country").value(certificate.getCountry());
+                jsonWriter.name("state").value(certificate.getState());
+                jsonWriter.name("version").value(certificate.getVersion());
+                jsonWriter.endObject();
+            }
+            jsonWriter.endObject();
+        }
+        jsonWriter.endObject();
+    }
+
+    private static @Nullable String toJsonString(final @Nullable OffsetDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
+}
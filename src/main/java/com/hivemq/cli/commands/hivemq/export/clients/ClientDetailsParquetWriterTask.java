@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiCertificateInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientRestrictions;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiConnectionDetails;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiProxyInformation;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTLV;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiTlsInformation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.BINARY;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.BOOLEAN;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.INT32;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.INT64;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.STRING;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriter.ColumnType.TIMESTAMP_MILLIS;
+
+/**
+ * Writes the client details to a Parquet file with the same columns as the CSV export, but typed: numbers are stored
+ * as integers, flags as booleans, points in time as timestamps and the password as binary.
+ */
+public class ClientDetailsParquetWriterTask implements ClientDetailsWriterTask {
+
+    private static final @NotNull ParquetFileWriter.ColumnType @NotNull [] EXPORT_PARQUET_TYPES = {
+            STRING, // clientId
+            BOOLEAN, // connected
+            INT64, // sessionExpiryInterval
+            TIMESTAMP_MILLIS, // connectedAt
+            INT64, // messageQueueSize
+            BOOLEAN, // willPresent
+            INT64, // maxMessageSize
+            INT64, // maxQueueSize
+            STRING, // queuedMessageStrategy
+            STRING, // ip
+            STRING, // sourceIp
+            INT32, // sourcePort
+            STRING, // destinationIp
+            INT32, // destinationPort
+            STRING, // tlvs
+            STRING, // mqttVersion
+            STRING, // connectedListenerId
+            STRING, // connectedNodeId
+            INT32, // keepAlive
+            STRING, // username
+            BINARY, // password
+            BOOLEAN, // cleanStart
+            STRING, // cipherSuite
+            STRING, // tlsVersion
+            STRING, // certificateCommonName
+            STRING, // certificateOrganization
+            STRING, // certificateOrganizationalUnit
+            STRING, // certificateSerial
+            TIMESTAMP_MILLIS, // certificateValidFrom
+            TIMESTAMP_MILLIS, // certificateValidUntil
+            STRING, // certificateCountry
+            STRING}; // certificateState
+
+    private final @NotNull AtomicLong writtenClientDetails = new AtomicLong(0);
+    private final @NotNull CompletableFuture<Void> clientDetailsFuture;
+    private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
+    private final @NotNull File file;
+    private final @NotNull ParquetFileWriter parquetWriter;
+    private final @Nullable Object @NotNull [] row = new Object[EXPORT_PARQUET_TYPES.length];
+
+    public ClientDetailsParquetWriterTask(
+            final @NotNull CompletableFuture<Void> clientDetailsFuture,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final @NotNull File file) throws IOException {
+        this.clientDetailsFuture = clientDetailsFuture;
+        this.clientDetailsQueue = clientDetailsQueue;
+        this.file = file;
+
+        parquetWriter = new ParquetFileWriter(new BufferedOutputStream(new FileOutputStream(file, false)));
+        for (int i = 0; i < EXPORT_PARQUET_TYPES.length; i++) {
+            parquetWriter.addColumn(ClientDetailsCsvWriterTask.EXPORT_CSV_HEADER[i], EXPORT_PARQUET_TYPES[i]);
+        }
+    }
+
+    /**
+     * The footer of a Parquet file is written last, so an interrupted export leaves an unreadable file. Unlike the CSV
+     * export it can therefore not be checkpointed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!clientDetailsFuture.isDone() || !clientDetailsQueue.isEmpty()) {
+
+                final HivemqOpenapiClientDetails clientDetails = clientDetailsQueue.poll(50, TimeUnit.MILLISECONDS);
+
+                if (clientDetails != null) {
+                    writeRow(clientDetails);
+                    writtenClientDetails.incrementAndGet();
+                }
+            }
+            parquetWriter.close();
+        } catch (final Exception e) {
+            Logger.error(e, "Writing of Parquet file failed");
+            throw new CompletionException(e);
+        }
+        Logger.debug("Finished writing {} client details to Parquet file {}",
+                writtenClientDetails,
+                file.getAbsolutePath());
+    }
+
+    @Override
+    public long getWrittenClientDetails() {
+        return writtenClientDetails.get();
+    }
+
+    private void writeRow(final @NotNull HivemqOpenapiClientDetails clientDetails) throws IOException {
+        row[0] = clientDetails.getId();
+        row[1] = clientDetails.getConnected();
+        row[2] = clientDetails.getSessionExpiryInterval();
+        row[3] = toEpochMillis(clientDetails.getConnectedAt());
+        row[4] = clientDetails.getMessageQueueSize();
+        row[5] = clientDetails.getWillPresent();
+
+        final HivemqOpenapiClientRestrictions restrictions = clientDetails.getRestrictions();
+        row[6] = restrictions != null ? restrictions.getMaxMessageSize() : null;
+        row[7] = restrictions != null ? restrictions.getMaxQueueSize() : null;
+        row[8] = restrictions != null ? restrictions.getQueuedMessageStrategy() : null;
+
+        final HivemqOpenapiConnectionDetails connection = clientDetails.getConnection();
+        row[9] = connection != null ? connection.getSourceIp() : null;
+
+        final HivemqOpenapiProxyInformation proxy = connection != null ? connection.getProxyInformation() : null;
+        row[10] = proxy != null ? proxy.getSourceIp() : null;
+        row[11] = proxy != null ? proxy.getSourcePort() : null;
+        row[12] = proxy != null ? proxy.getDestinationIp() : null;
+        row[13] = proxy != null ? proxy.getDestinationPort() : null;
+        row[14] = proxy != null ? toTlvString(proxy.getTlvs()) : null;
+
+        row[15] = connection != null ? connection.getMqttVersion() : null;
+        row[16] = connection != null ? connection.getConnectedListenerId() : null;
+        row[17] = connection != null ? connection.getConnectedNodeId() : null;
+        row[18] = connection != null ? connection.getKeepAlive() : null;
+        row[19] = connection != null ? connection.getUsername() : null;
+        row[20] = connection != null ? connection.getPassword() : null;
+        row[21] = connection != null ? connection.getCleanStart() : null;
+
+        final HivemqOpenapiTlsInformation tls = connection != null ? connection.getTlsInformation() : null;
+        row[22] = tls != null ? tls.getCipherSuite() : null;
+        row[23] = tls != null ? tls.getTlsVersion() : null;
+
+        final HivemqOpenapiCertificateInformation certificate = tls != null ? tls.getCertificateInformation() : null;
+        row[24] = certificate != null ? certificate.getCommonName() : null;
+        row[25] = certificate != null ? certificate.getOrganization() : null;
+        row[26] = certificate != null ? certificate.getOrganizationalUnit() : null;
+        row[27] = certificate != null ? certificate.getSerial() : null;
+        row[28] = certificate != null ? toEpochMillis(certificate.getValidFrom()) : null;
+        row[29] = certificate != null ? toEpochMillis(certificate.getValidUntil()) : null;
+        row[30] = certificate != null ? certificate.getCountry() : null;
+        row[31] = certificate != null ? certificate.getState() : null;
+
+        parquetWriter.writeRow(row);
+    }
+
+    private static @Nullable Long toEpochMillis(final @Nullable OffsetDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant().toEpochMilli() : null;
+    }
+
+    private static @Nullable String toTlvString(final @Nullable List<HivemqOpenapiTLV> tlvs) {
+        if (tlvs == null) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (final HivemqOpenapiTLV tlv : tlvs) {
+            sb.append(tlv.getKey()).append("=");
+            final String value = tlv.getValue();
+            if (value != null) {
+                sb.append(value);
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+}
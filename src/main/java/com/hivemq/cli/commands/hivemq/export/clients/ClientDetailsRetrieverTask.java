@@ -21,7 +21,10 @@ import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientItem;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import com.hivemq.cli.rest.ClientsApiResponses;
+import com.hivemq.cli.rest.RoundTripTimeInterceptor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
 import java.util.List;
@@ -29,73 +32,114 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Retrieves the details of the client ids with as many concurrent requests as the {@link AdaptiveConcurrencyLimit}
+ * allows. Requests which are answered with {@link ClientsApiResponses#HIVEMQ_IN_REPLICATION} are retried with an
+ * exponential backoff.
+ */
 public class ClientDetailsRetrieverTask implements Runnable {
 
-    private final static int MAX_CONCURRENT_REQUESTS = 100;
+    private final static int MAX_ATTEMPTS = 6;
+    private final static long INITIAL_RETRY_DELAY_MILLIS = 100;
 
     private final @NotNull MqttClientsApi mqttClientsApi;
     private final @NotNull CompletableFuture<Void> clientIdsFuture;
     private final @NotNull BlockingQueue<String> clientIdsQueue;
     private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
-    private final @NotNull Semaphore clientDetailsInProgress;
+    private final @Nullable ExportProgress exportProgress;
+    private final @NotNull AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit();
+    private final @NotNull DelayQueue<Retry> retries = new DelayQueue<>();
     private final @NotNull AtomicBoolean failed = new AtomicBoolean(false);
+    // responses which released their request but are not yet handed to the client details queue
+    private final @NotNull AtomicInteger pendingDetails = new AtomicInteger(0);
 
     public ClientDetailsRetrieverTask(
             final @NotNull MqttClientsApi mqttClientsApi,
             final @NotNull CompletableFuture<Void> clientIdsFuture,
             final @NotNull BlockingQueue<String> clientIdsQueue,
             final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue) {
+        this(mqttClientsApi, clientIdsFuture, clientIdsQueue, clientDetailsQueue, null);
+    }
+
+    public ClientDetailsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull CompletableFuture<Void> clientIdsFuture,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
+            final @Nullable ExportProgress exportProgress) {
         this.mqttClientsApi = mqttClientsApi;
         this.clientIdsFuture = clientIdsFuture;
         this.clientIdsQueue = clientIdsQueue;
         this.clientDetailsQueue = clientDetailsQueue;
-        clientDetailsInProgress = new Semaphore(MAX_CONCURRENT_REQUESTS);
+        this.exportProgress = exportProgress;
     }
 
     @Override
     public void run() {
         try {
-            while (!clientIdsFuture.isDone() || !clientIdsQueue.isEmpty()) {
+            while (true) {
                 if (failed.get()) {
                     Logger.error("Retrieval of client details failed");
                     throw new CompletionException(new RuntimeException("Retrieval of client details failed"));
                 }
 
+                final Retry retry = retries.poll();
+                if (retry != null) {
+                    request(retry.clientId, retry.attempt);
+                    continue;
+                }
                 final String clientId = clientIdsQueue.poll(50, TimeUnit.MILLISECONDS);
                 if (clientId != null) {
-                    final ClientItemApiCallback clientItemApiCallback =
-                            new ClientItemApiCallback(clientDetailsQueue, clientDetailsInProgress, failed);
-                    clientDetailsInProgress.acquire();
-                    mqttClientsApi.getMqttClientDetailsAsync(clientId, clientItemApiCallback);
+                    request(clientId, 1);
+                    continue;
+                }
+                // Retries are scheduled before their request is released, so none can be missed once all are released
+                if (clientIdsFuture.isDone() && clientIdsQueue.isEmpty() && concurrencyLimit.getInFlight() == 0 &&
+                        pendingDetails.get() == 0 && retries.isEmpty()) {
+                    break;
                 }
             }
-
-            // Block until all callbacks are finished
-            clientDetailsInProgress.acquire(MAX_CONCURRENT_REQUESTS);
         } catch (final Exception e) {
             Logger.error(e, "Retrieval of client details failed");
             throw new CompletionException(e);
         }
-        Logger.debug("Finished retrieving client details");
+        Logger.debug("Finished retrieving client details, concurrency limit {} (between {} and {}), {} overloads",
+                concurrencyLimit.getLimit(),
+                concurrencyLimit.getMinimumLimit(),
+                concurrencyLimit.getMaximumLimit(),
+                concurrencyLimit.getOverloads());
+    }
+
+    private void request(final @NotNull String clientId, final int attempt) throws Exception {
+        concurrencyLimit.acquire();
+        final ClientItemApiCallback clientItemApiCallback = new ClientItemApiCallback(clientId, attempt);
+        try {
+            mqttClientsApi.getMqttClientDetailsAsync(clientId, clientItemApiCallback);
+        } catch (final ApiException e) {
+            concurrencyLimit.onFailure();
+            throw e;
+        }
+    }
+
+    public @NotNull AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
     }
 
-    private static class ClientItemApiCallback implements ApiCallback<HivemqOpenapiClientItem> {
+    private class ClientItemApiCallback implements ApiCallback<HivemqOpenapiClientItem> {
 
-        private final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue;
-        private final @NotNull Semaphore clientDetailsInProgress;
-        private final @NotNull AtomicBoolean failed;
+        private final @NotNull String clientId;
+        private final int attempt;
+        private final long startNanos = System.nanoTime();
 
-        public ClientItemApiCallback(
-                final @NotNull BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue,
-                final @NotNull Semaphore clientDetailsInProgress,
-                final @NotNull AtomicBoolean failed) {
-            this.clientDetailsQueue = clientDetailsQueue;
-            this.clientDetailsInProgress = clientDetailsInProgress;
-            this.failed = failed;
+        public ClientItemApiCallback(final @NotNull String clientId, final int attempt) {
+            this.clientId = clientId;
+            this.attempt = attempt;
         }
 
         @Override
@@ -104,13 +148,22 @@ public class ClientDetailsRetrieverTask implements Runnable {
                 final int statusCode,
                 final @NotNull Map<String, List<String>> responseHeaders) {
             final HivemqOpenapiClientDetails clientDetails = result.getClient();
-            if (clientDetails != null) {
-                try {
-                    clientDetailsQueue.put(clientDetails);
-                } catch (final InterruptedException ignored) {
+            if (clientDetails == null) {
+                if (exportProgress != null) {
+                    exportProgress.onClientCompleted(clientId, false);
                 }
+                concurrencyLimit.onResponse(getLatencyNanos(responseHeaders));
+                return;
+            }
+            // a slow writer blocks the queue, which must neither count as latency nor hold a request
+            pendingDetails.incrementAndGet();
+            concurrencyLimit.onResponse(getLatencyNanos(responseHeaders));
+            try {
+                clientDetailsQueue.put(clientDetails);
+            } catch (final InterruptedException ignored) {
+            } finally {
+                pendingDetails.decrementAndGet();
             }
-            clientDetailsInProgress.release();
         }
 
         @Override
@@ -119,11 +172,28 @@ public class ClientDetailsRetrieverTask implements Runnable {
                 final int statusCode,
                 final @NotNull Map<String, List<String>> responseHeaders) {
             //ignore 404 because MQTT client could be non-persistent and disconnected by now
-            if (e.getCode() != 404) {
+            if (e.getCode() == 404) {
+                if (exportProgress != null) {
+                    exportProgress.onClientCompleted(clientId, false);
+                }
+                concurrencyLimit.onResponse(getLatencyNanos(responseHeaders));
+            } else if (e.getCode() == ClientsApiResponses.HIVEMQ_IN_REPLICATION && attempt < MAX_ATTEMPTS) {
+                Logger.trace("HiveMQ is replicating, retrying client details of {}", clientId);
+                retries.add(new Retry(clientId, attempt + 1));
+                concurrencyLimit.onOverload();
+            } else {
                 Logger.trace(e, "Failed to retrieve client details");
                 failed.set(true);
+                concurrencyLimit.onFailure();
             }
-            clientDetailsInProgress.release();
+        }
+
+        /**
+         * The round trip on the network excludes the time the request waited for the rate limit.
+         */
+        private long getLatencyNanos(final @Nullable Map<String, List<String>> responseHeaders) {
+            final Long roundTripNanos = RoundTripTimeInterceptor.getRoundTripNanos(responseHeaders);
+            return roundTripNanos != null ? roundTripNanos : System.nanoTime() - startNanos;
         }
 
         @Override
@@ -134,4 +204,28 @@ public class ClientDetailsRetrieverTask implements Runnable {
         public void onDownloadProgress(final long bytesRead, final long contentLength, final boolean done) {
         }
     }
+
+    private static class Retry implements Delayed {
+
+        private final @NotNull String clientId;
+        private final int attempt;
+        private final long dueNanos;
+
+        Retry(final @NotNull String clientId, final int attempt) {
+            this.clientId = clientId;
+            this.attempt = attempt;
+            dueNanos = System.nanoTime() +
+                    TimeUnit.MILLISECONDS.toNanos(INITIAL_RETRY_DELAY_MILLIS << (attempt - 2));
+        }
+
+        @Override
+        public long getDelay(final @NotNull TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final @NotNull Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
 }
@@ -16,72 +16,135 @@
 
 package com.hivemq.cli.commands.hivemq.export.clients;
 
+import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClient;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientList;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiPaginationCursor;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ClientIdsRetrieverTask implements Runnable {
 
     private static final @NotNull Pattern CURSOR_PATTERN = Pattern.compile("cursor=([^&]*)");
+    private static final int PAGE_SIZE = 2500;
 
     private final @NotNull BlockingQueue<String> clientIdsQueue;
     private final @NotNull MqttClientsApi mqttClientsApi;
+    private final @Nullable ExportProgress exportProgress;
 
     private long receivedClientIds = 0;
 
     public ClientIdsRetrieverTask(
             final @NotNull MqttClientsApi mqttClientsApi, final @NotNull BlockingQueue<String> clientIdsQueue) {
+        this(mqttClientsApi, clientIdsQueue, null);
+    }
+
+    /**
+     * @param exportProgress if present, the retrieval starts at its cursor and only the client ids which are not yet
+     *                       exported are queued
+     */
+    public ClientIdsRetrieverTask(
+            final @NotNull MqttClientsApi mqttClientsApi,
+            final @NotNull BlockingQueue<String> clientIdsQueue,
+            final @Nullable ExportProgress exportProgress) {
         this.mqttClientsApi = mqttClientsApi;
         this.clientIdsQueue = clientIdsQueue;
+        this.exportProgress = exportProgress;
     }
 
+    /**
+     * The next page is requested as soon as the cursor of the current page is known, so its round trip overlaps with
+     * handing the client ids of the current page to the details retrieval, which blocks while the queue is full.
+     * The cursor of a page is only known from the previous page, so the pages can not be requested in parallel.
+     */
     @Override
     public void run() {
-        boolean hasNextCursor = true;
-        String nextCursor = null;
+        final ExecutorService pageExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "client-ids-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            while (hasNextCursor) {
-                final HivemqOpenapiClientList clientList;
-                clientList = mqttClientsApi.getAllMqttClients(2500, nextCursor);
-                final List<HivemqOpenapiClient> clients = clientList.getItems();
-                final HivemqOpenapiPaginationCursor links = clientList.getLinks();
+            String cursor = exportProgress != null ? exportProgress.getStartCursor() : null;
+            CompletableFuture<HivemqOpenapiClientList> nextPage =
+                    exportProgress == null || !exportProgress.isClientIdsComplete() ?
+                            requestPage(pageExecutor, cursor) :
+                            null;
+            while (nextPage != null) {
+                final HivemqOpenapiClientList clientList = awaitPage(nextPage);
+                final String nextCursor = getNextCursor(clientList.getLinks());
+                nextPage = nextCursor != null ? requestPage(pageExecutor, nextCursor) : null;
 
+                final List<HivemqOpenapiClient> clients = clientList.getItems();
+                final List<String> clientIds = new ArrayList<>();
                 if (clients != null) {
                     receivedClientIds += clients.size();
                     for (final HivemqOpenapiClient client : clients) {
                         if (client.getId() != null) {
-                            clientIdsQueue.put(client.getId());
+                            clientIds.add(client.getId());
                         }
                     }
                 }
-
-                if (links != null && links.getNext() != null) {
-                    final Matcher m = CURSOR_PATTERN.matcher(links.getNext());
-                    if (m.find()) {
-                        nextCursor = m.group(1);
-                    } else {
-                        hasNextCursor = false;
-                    }
-                } else {
-                    hasNextCursor = false;
+                final List<String> pendingClientIds =
+                        exportProgress != null ? exportProgress.onPage(cursor, nextCursor, clientIds) : clientIds;
+                for (final String clientId : pendingClientIds) {
+                    clientIdsQueue.put(clientId);
                 }
+                cursor = nextCursor;
             }
         } catch (final Exception ex) {
             Logger.error(ex, "Retrieval of client ids failed");
             throw new CompletionException(ex);
+        } finally {
+            pageExecutor.shutdownNow();
         }
         Logger.debug("Finished retrieving {} client ids", receivedClientIds);
     }
 
+    private @NotNull CompletableFuture<HivemqOpenapiClientList> requestPage(
+            final @NotNull ExecutorService pageExecutor, final @Nullable String cursor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return mqttClientsApi.getAllMqttClients(PAGE_SIZE, cursor);
+            } catch (final ApiException ex) {
+                throw new CompletionException(ex);
+            }
+        }, pageExecutor);
+    }
+
+    private static @NotNull HivemqOpenapiClientList awaitPage(
+            final @NotNull CompletableFuture<HivemqOpenapiClientList> page) throws Exception {
+        try {
+            return page.get();
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static @Nullable String getNextCursor(final @Nullable HivemqOpenapiPaginationCursor links) {
+        if (links == null || links.getNext() == null) {
+            return null;
+        }
+        final Matcher m = CURSOR_PATTERN.matcher(links.getNext());
+        return m.find() ? m.group(1) : null;
+    }
+
     public long getReceivedClientIds() {
         return receivedClientIds;
     }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The state of an export from which it can be resumed. It is stored in a sidecar file next to the output file.
+ * <p>
+ * The output file contains {@link #getRows()} rows in its first {@link #getLength()} bytes: the client details of all
+ * pages before the page requested with {@link #getCursor()} and the {@link #getWrittenClientIds()} of the following
+ * pages. Anything after the length may be incomplete and is truncated when the export is resumed.
+ */
+public class ExportCheckpoint {
+
+    private static final @NotNull String SIDECAR_SUFFIX = ".checkpoint";
+
+    private final @NotNull String url;
+    private final @Nullable String cursor;
+    private final boolean clientIdsComplete;
+    private final long rows;
+    private final long length;
+    private final @NotNull Set<String> writtenClientIds;
+
+    public ExportCheckpoint(
+            final @NotNull String url,
+            final @Nullable String cursor,
+            final boolean clientIdsComplete,
+            final long rows,
+            final long length,
+            final @NotNull Set<String> writtenClientIds) {
+        this.url = url;
+        this.cursor = cursor;
+        this.clientIdsComplete = clientIdsComplete;
+        this.rows = rows;
+        this.length = length;
+        this.writtenClientIds = writtenClientIds;
+    }
+
+    public static @NotNull File sidecarOf(final @NotNull File file) {
+        return new File(file.getPath() + SIDECAR_SUFFIX);
+    }
+
+    public static @NotNull ExportCheckpoint read(final @NotNull File sidecar) throws IOException {
+        String url = null;
+        String cursor = null;
+        boolean clientIdsComplete = false;
+        long rows = -1;
+        long length = -1;
+        final Set<String> writtenClientIds = new HashSet<>();
+        try (final Reader reader = Files.newBufferedReader(sidecar.toPath(), StandardCharsets.UTF_8);
+             final JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                final String name = json.nextName();
+                switch (name) {
+                    case "url":
+                        url = json.nextString();
+                        break;
+                    case "cursor":
+                        cursor = json.nextString();
+                        break;
+                    case "clientIdsComplete":
+                        clientIdsComplete = json.nextBoolean();
+                        break;
+                    case "rows":
+                        rows = json.nextLong();
+                        break;
+                    case "length":
+                        length = json.nextLong();
+                        break;
+                    case "writtenClientIds":
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            writtenClientIds.add(json.nextString());
+                        }
+                        json.endArray();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (final IllegalStateException e) {
+            throw new IOException("Malformed checkpoint " + sidecar + ": " + e.getMessage(), e);
+        }
+        if (url == null || rows < 0 || length < 0) {
+            throw new IOException("Incomplete checkpoint " + sidecar);
+        }
+        return new ExportCheckpoint(url, cursor, clientIdsComplete, rows, length, writtenClientIds);
+    }
+
+    /**
+     * Replaces the sidecar atomically, so an interrupted export never leaves a partially written checkpoint.
+     */
+    public void write(final @NotNull File sidecar) throws IOException {
+        final Path temporary = new File(sidecar.getPath() + ".tmp").toPath();
+        try (final Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8);
+             final JsonWriter json = new JsonWriter(writer)) {
+            json.beginObject();
+            json.name("url").value(url);
+            if (cursor != null) {
+                json.name("cursor").value(cursor);
+            }
+            json.name("clientIdsComplete").value(clientIdsComplete);
+            json.name("rows").value(rows);
+            json.name("length").value(length);
+            json.name("writtenClientIds").beginArray();
+            for (final String clientId : writtenClientIds) {
+                json.value(clientId);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        Files.move(temporary, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public @NotNull String getUrl() {
+        return url;
+    }
+
+    public @Nullable String getCursor() {
+        return cursor;
+    }
+
+    public boolean isClientIdsComplete() {
+        return clientIdsComplete;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public @NotNull Set<String> getWrittenClientIds() {
+        return writtenClientIds;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ExportCheckpoint{" +
+                "url='" +
+                url +
+                '\'' +
+                ", cursor='" +
+                cursor +
+                '\'' +
+                ", clientIdsComplete=" +
+                clientIdsComplete +
+                ", rows=" +
+                rows +
+                ", length=" +
+                length +
+                ", writtenClientIds=" +
+                writtenClientIds.size() +
+                '}';
+    }
+}
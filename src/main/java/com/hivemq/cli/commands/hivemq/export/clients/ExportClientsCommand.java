@@ -26,6 +26,7 @@ import com.hivemq.cli.MqttCLIMain;
 import com.hivemq.cli.openapi.ApiException;
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import com.hivemq.cli.rest.ClientsApiResponses;
 import com.hivemq.cli.rest.HiveMQRestService;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.opencsv.CSVWriter;
@@ -37,6 +38,8 @@ import picocli.CommandLine;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -59,7 +62,9 @@ import java.util.function.BiFunction;
 public class ExportClientsCommand implements Callable<Integer> {
 
     public enum OutputFormat {
-        csv
+        csv,
+        parquet,
+        ndjson
     }
 
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
@@ -70,7 +75,7 @@ public class ExportClientsCommand implements Callable<Integer> {
     private @NotNull String url;
 
     @CommandLine.Option(names = {"-f", "--file"},
-                        description = "The file to write the output to (defaults to a timestamped file in the current working directory)",
+                        description = "The file to write the output to, '-' for stdout (ndjson only) (defaults to a timestamped file in the current working directory)",
                         order = 2)
     private @Nullable File file;
 
@@ -84,7 +89,7 @@ public class ExportClientsCommand implements Callable<Integer> {
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
     @CommandLine.Option(names = {"--format"},
                         defaultValue = "csv",
-                        description = "The export output format (default csv)",
+                        description = "The export output format: csv, parquet or ndjson (default csv)",
                         order = 4)
     private @NotNull OutputFormat format;
 
@@ -120,16 +125,24 @@ public class ExportClientsCommand implements Callable<Integer> {
                         order = 8)
     private @NotNull String csvLineEndCharacter;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--resume"},
+                        defaultValue = "false",
+                        description = "Continue an interrupted export to the given file from its last checkpoint (default false)",
+                        order = 9)
+    private boolean resume;
+
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-l"},
                         defaultValue = "false",
                         description = "Log to $HOME/.mqtt-cli/logs (Configurable through $HOME/.mqtt-cli/config.properties)",
-                        order = 9)
+                        order = 10)
     private void initLogging(final boolean logToLogfile) {
         LoggerUtils.turnOffConsoleLogging(logToLogfile);
     }
 
     private final static @NotNull String DEFAULT_FILE_NAME = "hivemq_client_details";
+    private final static @NotNull String STDOUT = "-";
     private final static int CLIENT_IDS_QUEUE_LIMIT = 100_000;
     private final static int CLIENT_DETAILS_QUEUE_LIMIT = 10_000;
 
@@ -141,9 +154,6 @@ public class ExportClientsCommand implements Callable<Integer> {
     public @NotNull Integer call() throws IOException, InterruptedException, ExecutionException {
         Logger.trace("Command {}", this);
 
-        // For now only CSV is supported as output format
-        assert format == OutputFormat.csv;
-
         // Check if given URL is valid
         final HttpUrl httpUrl = HttpUrl.parse(url);
         if (httpUrl == null) {
@@ -152,15 +162,67 @@ public class ExportClientsCommand implements Callable<Integer> {
             return -1;
         }
 
+        if (isStdout() && format != OutputFormat.ndjson) {
+            Logger.error("Only the ndjson format can be written to stdout");
+            System.err.println("Only the ndjson format can be written to stdout");
+            return -1;
+        }
+
+        // A resumed export continues the given file from the checkpoint in its sidecar
+        ExportCheckpoint resumeFrom = null;
+        if (resume) {
+            if (format != OutputFormat.csv) {
+                Logger.error("--resume is only supported for the csv format");
+                System.err.println("--resume is only supported for the csv format");
+                return -1;
+            }
+            if (file == null) {
+                Logger.error("--resume requires the --file of the export to resume");
+                System.err.println("--resume requires the --file of the export to resume");
+                return -1;
+            }
+            final File sidecar = ExportCheckpoint.sidecarOf(file);
+            if (!sidecar.isFile()) {
+                Logger.error("No checkpoint {} found to resume the export to {}", sidecar, file);
+                System.err.println("No checkpoint " + sidecar + " found to resume the export to " + file);
+                return -1;
+            }
+            try {
+                resumeFrom = ExportCheckpoint.read(sidecar);
+            } catch (final IOException e) {
+                Logger.error(e, "Could not read checkpoint {}", sidecar);
+                System.err.println("Could not read checkpoint " + sidecar + ": " + e.getMessage());
+                return -1;
+            }
+            if (!resumeFrom.getUrl().equals(url)) {
+                Logger.error("The export to {} was started for {} instead of {}", file, resumeFrom.getUrl(), url);
+                System.err.println("The export to " + file + " was started for " + resumeFrom.getUrl() +
+                        " instead of " + url);
+                return -1;
+            }
+            Logger.info("Resuming export from {}", resumeFrom);
+        }
+        // A Parquet file is only readable once its footer is written, so it can not be resumed
+        final ExportProgress exportProgress;
+        if (resumeFrom != null) {
+            exportProgress = new ExportProgress(resumeFrom);
+        } else if (format == OutputFormat.csv) {
+            exportProgress = new ExportProgress(url);
+        } else {
+            exportProgress = null;
+        }
+
         // If no file is given create a new file with a current timestamp
         final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
         if (file == null) {
-            final String fileType = OutputFormat.csv.name();
+            final String fileType = format.name();
             file = new File(DEFAULT_FILE_NAME + "_" + timestamp + "." + fileType);
         }
 
         // Setup rest service and queues
-        final MqttClientsApi mqttClientsApi = new HiveMQRestService().getMqttClientsApi(url, rateLimit);
+        final MqttClientsApi mqttClientsApi = new HiveMQRestService().getMqttClientsApi(url,
+                rateLimit,
+                AdaptiveConcurrencyLimit.MAX_LIMIT);
         final BlockingQueue<String> clientIdsQueue = new LinkedBlockingQueue<>(CLIENT_IDS_QUEUE_LIMIT);
         final BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue =
                 new LinkedBlockingQueue<>(CLIENT_DETAILS_QUEUE_LIMIT);
@@ -169,14 +231,15 @@ public class ExportClientsCommand implements Callable<Integer> {
 
         // Start retrieving client ids
         final ClientIdsRetrieverTask clientIdsRetrieverTask =
-                new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue);
+                new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue, exportProgress);
         final CompletableFuture<Void> clientIdsRetrieverFuture = CompletableFuture.runAsync(clientIdsRetrieverTask);
 
         // Start retrieving client details
         final ClientDetailsRetrieverTask clientDetailsRetrieverTask = new ClientDetailsRetrieverTask(mqttClientsApi,
                 clientIdsRetrieverFuture,
                 clientIdsQueue,
-                clientDetailsQueue);
+                clientDetailsQueue,
+                exportProgress);
         final CompletableFuture<Void> clientDetailsRetrieverFuture =
                 CompletableFuture.runAsync(clientDetailsRetrieverTask);
 
@@ -191,30 +254,49 @@ public class ExportClientsCommand implements Callable<Integer> {
         }
 
         // Start writing client details
-        final ClientDetailsCsvWriterTask clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(
-                clientDetailsRetrieverFuture,
-                clientDetailsQueue,
-                file,
-                csvSeparator,
-                csvQuoteCharacter,
-                csvEscapeChar,
-                csvLineEndCharacter);
-        final CompletableFuture<Void> clientDetailsCsvWriterFuture =
-                CompletableFuture.runAsync(clientDetailsCsvWriterTask);
-
-        // Start printing
+        final ClientDetailsWriterTask clientDetailsWriterTask;
+        if (format == OutputFormat.parquet) {
+            clientDetailsWriterTask =
+                    new ClientDetailsParquetWriterTask(clientDetailsRetrieverFuture, clientDetailsQueue, file);
+        } else if (format == OutputFormat.ndjson) {
+            clientDetailsWriterTask = isStdout() ?
+                    new ClientDetailsNdjsonWriterTask(clientDetailsRetrieverFuture,
+                            clientDetailsQueue,
+                            new FileOutputStream(FileDescriptor.out),
+                            false) :
+                    new ClientDetailsNdjsonWriterTask(clientDetailsRetrieverFuture,
+                            clientDetailsQueue,
+                            new FileOutputStream(file),
+                            true);
+        } else {
+            clientDetailsWriterTask = new ClientDetailsCsvWriterTask(clientDetailsRetrieverFuture,
+                    clientDetailsQueue,
+                    file,
+                    csvSeparator,
+                    csvQuoteCharacter,
+                    csvEscapeChar,
+                    csvLineEndCharacter,
+                    exportProgress,
+                    resumeFrom);
+        }
+        final CompletableFuture<Void> clientDetailsWriterFuture = CompletableFuture.runAsync(clientDetailsWriterTask);
+
+        // Start printing, unless the client details are written to stdout
         final ScheduledExecutorService printingScheduler = Executors.newScheduledThreadPool(1);
-        printingScheduler.scheduleWithFixedDelay(new PrintingTask(clientIdsRetrieverTask,
-                clientIdsRetrieverFuture,
-                clientDetailsCsvWriterTask), 100, 500, TimeUnit.MILLISECONDS);
+        if (!isStdout()) {
+            printingScheduler.scheduleWithFixedDelay(new PrintingTask(clientIdsRetrieverTask,
+                    clientIdsRetrieverFuture,
+                    clientDetailsRetrieverTask,
+                    clientDetailsWriterTask), 100, 500, TimeUnit.MILLISECONDS);
+        }
 
 
         // Handle completion of all futures
         final CompletableFuture<Void> exportFuture = CompletableFuture.allOf(clientIdsRetrieverFuture,
                 clientDetailsRetrieverFuture,
-                clientDetailsCsvWriterFuture);
+                clientDetailsWriterFuture);
         final CompletableFuture<Integer> exportResultFuture =
-                exportFuture.handle(new ExportCompletedHandler(clientDetailsCsvWriterTask, printingScheduler));
+                exportFuture.handle(new ExportCompletedHandler(clientDetailsWriterTask, printingScheduler));
 
         // Join all future
         final Integer exitCode = exportResultFuture.get();
@@ -224,6 +306,10 @@ public class ExportClientsCommand implements Callable<Integer> {
         return exitCode;
     }
 
+    private boolean isStdout() {
+        return file != null && STDOUT.equals(file.getPath());
+    }
+
     @Override
     public @NotNull String toString() {
         return "ExportClientsCommand{" +
@@ -245,6 +331,8 @@ public class ExportClientsCommand implements Callable<Integer> {
                 ", csvLineEndCharacter='" +
                 csvLineEndCharacter +
                 '\'' +
+                ", resume=" +
+                resume +
                 '}';
     }
 
@@ -252,45 +340,46 @@ public class ExportClientsCommand implements Callable<Integer> {
 
         private final @NotNull ClientIdsRetrieverTask clientIdsRetrieverTask;
         private final @NotNull CompletableFuture<Void> clientIdsRetrieverFuture;
-        private final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask;
+        private final @NotNull ClientDetailsRetrieverTask clientDetailsRetrieverTask;
+        private final @NotNull ClientDetailsWriterTask clientDetailsWriterTask;
         private long lastReported = -1;
 
         public PrintingTask(
                 final @NotNull ClientIdsRetrieverTask clientIdsRetrieverTask,
                 final @NotNull CompletableFuture<Void> clientIdsRetrieverFuture,
-                final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask) {
+                final @NotNull ClientDetailsRetrieverTask clientDetailsRetrieverTask,
+                final @NotNull ClientDetailsWriterTask clientDetailsWriterTask) {
             this.clientIdsRetrieverTask = clientIdsRetrieverTask;
             this.clientIdsRetrieverFuture = clientIdsRetrieverFuture;
-            this.clientDetailsCsvWriterTask = clientDetailsCsvWriterTask;
+            this.clientDetailsRetrieverTask = clientDetailsRetrieverTask;
+            this.clientDetailsWriterTask = clientDetailsWriterTask;
         }
 
         public void run() {
-            final long newValue = clientDetailsCsvWriterTask.getWrittenClientDetails();
+            final long newValue = clientDetailsWriterTask.getWrittenClientDetails();
             if (newValue != lastReported) {
                 lastReported = newValue;
+                System.out.append("\rExporting client details: ").append(String.valueOf(lastReported));
                 if (clientIdsRetrieverFuture.isDone()) {
-                    final long receivedClientIds = clientIdsRetrieverTask.getReceivedClientIds();
-                    System.out.append("\rExporting client details: ")
-                            .append(String.valueOf(lastReported))
-                            .append(" / ")
-                            .append(String.valueOf(receivedClientIds))
-                            .flush();
-                } else {
-                    System.out.append("\rExporting client details: ").append(String.valueOf(lastReported)).flush();
+                    System.out.append(" / ").append(String.valueOf(clientIdsRetrieverTask.getReceivedClientIds()));
                 }
+                System.out.append(" (concurrent requests: ")
+                        .append(String.valueOf(clientDetailsRetrieverTask.getConcurrencyLimit().getLimit()))
+                        .append(")   ")
+                        .flush();
             }
         }
     }
 
     private class ExportCompletedHandler implements BiFunction<Void, Throwable, Integer> {
 
-        private final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask;
+        private final @NotNull ClientDetailsWriterTask clientDetailsWriterTask;
         private final @NotNull ScheduledExecutorService printingScheduler;
 
         public ExportCompletedHandler(
-                final @NotNull ClientDetailsCsvWriterTask clientDetailsCsvWriterTask,
+                final @NotNull ClientDetailsWriterTask clientDetailsWriterTask,
                 final @NotNull ScheduledExecutorService printingScheduler) {
-            this.clientDetailsCsvWriterTask = clientDetailsCsvWriterTask;
+            this.clientDetailsWriterTask = clientDetailsWriterTask;
             this.printingScheduler = printingScheduler;
         }
 
@@ -321,19 +410,39 @@ public class ExportClientsCommand implements Callable<Integer> {
                             Throwables.getRootCause(throwable).getMessage());
                 }
 
-                if (clientDetailsCsvWriterTask.getWrittenClientDetails() > 0) {
+                if (resume &&
+                        throwable.getCause() instanceof ApiException &&
+                        ((ApiException) throwable.getCause()).getCode() ==
+                                ClientsApiResponses.CURSOR_NOT_VALID_ANYMORE) {
+                    System.err.println("The checkpoint of the export has expired, please start a new export");
+                }
+
+                if (isStdout()) {
+                    System.err.println("Wrote " + clientDetailsWriterTask.getWrittenClientDetails() +
+                            " client details to stdout");
+                } else if (clientDetailsWriterTask.getWrittenClientDetails() > 0) {
                     System.out.println("Wrote " +
-                            clientDetailsCsvWriterTask.getWrittenClientDetails() +
+                            clientDetailsWriterTask.getWrittenClientDetails() +
                             " client details to " +
                             Objects.requireNonNull(file).getPath());
+                    if (ExportCheckpoint.sidecarOf(Objects.requireNonNull(file)).isFile()) {
+                        System.out.println("Continue the export with: --resume --file " + file.getPath());
+                    }
                 } else {
                     Objects.requireNonNull(file).delete();
+                    ExportCheckpoint.sidecarOf(Objects.requireNonNull(file)).delete();
                 }
 
                 return -1; // Export failed
+            } else if (isStdout()) {
+                System.err.println("Successfully exported " +
+                        clientDetailsWriterTask.getWrittenClientDetails() +
+                        " client details to stdout");
+                return 0; // Export was successful
             } else {
+                ExportCheckpoint.sidecarOf(Objects.requireNonNull(file)).delete();
                 System.out.println("\rSuccessfully exported " +
-                        clientDetailsCsvWriterTask.getWrittenClientDetails() +
+                        clientDetailsWriterTask.getWrittenClientDetails() +
                         " client details to " +
                         Objects.requireNonNull(file).getPath());
                 return 0; // Export was successful
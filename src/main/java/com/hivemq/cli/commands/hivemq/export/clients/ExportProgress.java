@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which pages of client ids are completely exported to create {@link ExportCheckpoint}s.
+ * <p>
+ * The client details are retrieved concurrently, so the rows of consecutive pages are interleaved in the output file.
+ * A checkpoint therefore points to the oldest page that is not completely exported and lists the client ids of it and
+ * the following pages that are already written, so they are skipped when the export is resumed.
+ */
+public class ExportProgress {
+
+    private final @NotNull String url;
+    private final @NotNull Deque<Page> pages = new ArrayDeque<>();
+    private final @NotNull Map<String, Page> pendingClientIds = new HashMap<>();
+    private final @NotNull Set<String> skippedClientIds;
+    private @Nullable String nextCursor;
+    private boolean clientIdsComplete;
+
+    public ExportProgress(final @NotNull String url) {
+        this.url = url;
+        skippedClientIds = new HashSet<>();
+    }
+
+    /**
+     * Continues the progress of the checkpoint. Its written client ids are skipped when their page is retrieved again.
+     */
+    public ExportProgress(final @NotNull ExportCheckpoint checkpoint) {
+        url = checkpoint.getUrl();
+        skippedClientIds = new HashSet<>(checkpoint.getWrittenClientIds());
+        nextCursor = checkpoint.getCursor();
+        clientIdsComplete = checkpoint.isClientIdsComplete();
+    }
+
+    /**
+     * @return the cursor from which the client ids are retrieved, <code>null</code> for the first page
+     */
+    public synchronized @Nullable String getStartCursor() {
+        return nextCursor;
+    }
+
+    public synchronized boolean isClientIdsComplete() {
+        return clientIdsComplete;
+    }
+
+    /**
+     * Registers a page before its client ids are retrieved.
+     *
+     * @param cursor     the cursor the page was requested with
+     * @param nextCursor the cursor of the following page, <code>null</code> for the last page
+     * @return the client ids of the page which are not yet written
+     */
+    public synchronized @NotNull List<String> onPage(
+            final @Nullable String cursor, final @Nullable String nextCursor, final @NotNull List<String> clientIds) {
+        final Page page = new Page(cursor);
+        final List<String> pendingIds = new ArrayList<>(clientIds.size());
+        for (final String clientId : clientIds) {
+            if (skippedClientIds.remove(clientId)) {
+                page.writtenClientIds.add(clientId);
+            } else if (pendingClientIds.putIfAbsent(clientId, page) == null) {
+                page.pending++;
+                pendingIds.add(clientId);
+            }
+        }
+        pages.addLast(page);
+        this.nextCursor = nextCursor;
+        clientIdsComplete = nextCursor == null;
+        removeCompletedPages();
+        return pendingIds;
+    }
+
+    /**
+     * @param written <code>false</code> if the client has no details anymore, e.g. because it disconnected
+     */
+    public synchronized void onClientCompleted(final @NotNull String clientId, final boolean written) {
+        final Page page = pendingClientIds.remove(clientId);
+        if (page == null) {
+            return;
+        }
+        page.pending--;
+        if (written) {
+            page.writtenClientIds.add(clientId);
+        }
+        removeCompletedPages();
+    }
+
+    public synchronized @NotNull ExportCheckpoint checkpoint(final long rows, final long length) {
+        final Set<String> writtenClientIds = new HashSet<>(skippedClientIds);
+        for (final Page page : pages) {
+            writtenClientIds.addAll(page.writtenClientIds);
+        }
+        final Page oldest = pages.peekFirst();
+        if (oldest != null) {
+            return new ExportCheckpoint(url, oldest.cursor, false, rows, length, writtenClientIds);
+        }
+        return new ExportCheckpoint(url, nextCursor, clientIdsComplete, rows, length, writtenClientIds);
+    }
+
+    private void removeCompletedPages() {
+        while (!pages.isEmpty() && pages.peekFirst().pending == 0) {
+            pages.removeFirst();
+        }
+    }
+
+    private static class Page {
+
+        private final @Nullable String cursor;
+        private final @NotNull Set<String> writtenClientIds = new HashSet<>();
+        private int pending = 0;
+
+        Page(final @Nullable String cursor) {
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a Parquet file with a flat schema of optional columns.
+ * <p>
+ * The rows are buffered column by column and written in row groups of {@link #ROW_GROUP_SIZE} rows. Each column of a
+ * row group is written as a single data page with PLAIN encoded values and GZIP compression, which every Parquet reader
+ * supports. The metadata is encoded with the Thrift compact protocol as defined by the Parquet format specification.
+ */
+class ParquetFileWriter implements Closeable {
+
+    enum ColumnType {
+        BOOLEAN(0, NO_CONVERTED_TYPE),
+        INT32(1, NO_CONVERTED_TYPE),
+        INT64(2, NO_CONVERTED_TYPE),
+        TIMESTAMP_MILLIS(2, 9),
+        BINARY(6, NO_CONVERTED_TYPE),
+        STRING(6, 0);
+
+        private final int physicalType;
+        private final int convertedType;
+
+        ColumnType(final int physicalType, final int convertedType) {
+            this.physicalType = physicalType;
+            this.convertedType = convertedType;
+        }
+    }
+
+    static final int ROW_GROUP_SIZE = 50_000;
+
+    private static final int NO_CONVERTED_TYPE = -1;
+    private static final byte @NotNull [] MAGIC = {'P', 'A', 'R', '1'};
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_GZIP = 2;
+    private static final int PAGE_TYPE_DATA = 0;
+
+    private final @NotNull OutputStream output;
+    private final @NotNull List<Column> columns = new ArrayList<>();
+    private final @NotNull List<byte[]> rowGroups = new ArrayList<>();
+    private long position = 0;
+    private int rowGroupRows = 0;
+    private long rows = 0;
+
+    ParquetFileWriter(final @NotNull OutputStream output) throws IOException {
+        this.output = output;
+        write(MAGIC);
+    }
+
+    void addColumn(final @NotNull String name, final @NotNull ColumnType type) {
+        if (rows > 0 || rowGroupRows > 0) {
+            throw new IllegalStateException("Columns must be added before the first row");
+        }
+        columns.add(new Column(name, type));
+    }
+
+    /**
+     * @param values the values of the columns in the order they were added, <code>null</code> for a missing value.
+     *               {@link ColumnType#TIMESTAMP_MILLIS} values are epoch milliseconds.
+     */
+    void writeRow(final @Nullable Object @NotNull ... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values but got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            columns.get(i).add(values[i]);
+        }
+        if (++rowGroupRows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    long getRows() {
+        return rows + rowGroupRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowGroupRows > 0) {
+                writeRowGroup();
+            }
+            final byte[] footer = fileMetaData();
+            write(footer);
+            write(new byte[]{
+                    (byte) footer.length,
+                    (byte) (footer.length >>> 8),
+                    (byte) (footer.length >>> 16),
+                    (byte) (footer.length >>> 24)});
+            write(MAGIC);
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        final ThriftWriter rowGroup = new ThriftWriter();
+        rowGroup.listField(1, ThriftWriter.STRUCT, columns.size());
+        long totalByteSize = 0;
+        for (final Column column : columns) {
+            final byte[] page = column.page(rowGroupRows);
+            final byte[] compressed = gzip(page);
+            final ThriftWriter pageHeader = new ThriftWriter();
+            pageHeader.i32Field(1, PAGE_TYPE_DATA);
+            pageHeader.i32Field(2, page.length);
+            pageHeader.i32Field(3, compressed.length);
+            pageHeader.beginStructField(5);
+            pageHeader.i32Field(1, rowGroupRows);
+            pageHeader.i32Field(2, ENCODING_PLAIN);
+            pageHeader.i32Field(3, ENCODING_RLE);
+            pageHeader.i32Field(4, ENCODING_RLE);
+            pageHeader.endStruct();
+            pageHeader.endStruct();
+            final byte[] header = pageHeader.toByteArray();
+
+            final long dataPageOffset = position;
+            write(header);
+            write(compressed);
+            totalByteSize += header.length + page.length;
+
+            // ColumnChunk
+            rowGroup.beginStruct();
+            rowGroup.i64Field(2, dataPageOffset);
+            rowGroup.beginStructField(3);
+            rowGroup.i32Field(1, column.type.physicalType);
+            rowGroup.listField(2, ThriftWriter.I32, 2);
+            rowGroup.i32(ENCODING_PLAIN);
+            rowGroup.i32(ENCODING_RLE);
+            rowGroup.listField(3, ThriftWriter.BINARY, 1);
+            rowGroup.string(column.name);
+            rowGroup.i32Field(4, CODEC_GZIP);
+            rowGroup.i64Field(5, rowGroupRows);
+            rowGroup.i64Field(6, header.length + page.length);
+            rowGroup.i64Field(7, header.length + compressed.length);
+            rowGroup.i64Field(9, dataPageOffset);
+            rowGroup.endStruct();
+            rowGroup.endStruct();
+            column.reset();
+        }
+        rowGroup.i64Field(2, totalByteSize);
+        rowGroup.i64Field(3, rowGroupRows);
+        rowGroup.endStruct();
+        rowGroups.add(rowGroup.toByteArray());
+        rows += rowGroupRows;
+        rowGroupRows = 0;
+    }
+
+    private byte @NotNull [] fileMetaData() {
+        final ThriftWriter metaData = new ThriftWriter();
+        metaData.i32Field(1, 1);
+        metaData.listField(2, ThriftWriter.STRUCT, columns.size() + 1);
+        metaData.beginStruct();
+        metaData.stringField(4, "schema");
+        metaData.i32Field(5, columns.size());
+        metaData.endStruct();
+        for (final Column column : columns) {
+            metaData.beginStruct();
+            metaData.i32Field(1, column.type.physicalType);
+            metaData.i32Field(3, REPETITION_OPTIONAL);
+            metaData.stringField(4, column.name);
+            if (column.type.convertedType != NO_CONVERTED_TYPE) {
+                metaData.i32Field(6, column.type.convertedType);
+            }
+            metaData.endStruct();
+        }
+        metaData.i64Field(3, rows);
+        metaData.listField(4, ThriftWriter.STRUCT, rowGroups.size());
+        for (final byte[] rowGroup : rowGroups) {
+            metaData.raw(rowGroup);
+        }
+        metaData.stringField(6, "mqtt-cli");
+        metaData.endStruct();
+        return metaData.toByteArray();
+    }
+
+    private void write(final byte @NotNull [] bytes) throws IOException {
+        output.write(bytes);
+        position += bytes.length;
+    }
+
+    private static byte @NotNull [] gzip(final byte @NotNull [] bytes) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static class Column {
+
+        private final @NotNull String name;
+        private final @NotNull ColumnType type;
+        private final @NotNull LittleEndianBuffer values = new LittleEndianBuffer();
+        private final @NotNull BitBuffer definitionLevels = new BitBuffer();
+        private final @NotNull BitBuffer booleans = new BitBuffer();
+
+        Column(final @NotNull String name, final @NotNull ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        void add(final @Nullable Object value) {
+            definitionLevels.add(value != null);
+            if (value == null) {
+                return;
+            }
+            switch (type) {
+                case BOOLEAN:
+                    booleans.add((Boolean) value);
+                    break;
+                case INT32:
+                    values.int32((Integer) value);
+                    break;
+                case INT64:
+                case TIMESTAMP_MILLIS:
+                    values.int64((Long) value);
+                    break;
+                case BINARY:
+                    values.int32(((byte[]) value).length);
+                    values.writeBytes((byte[]) value);
+                    break;
+                case STRING:
+                    final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    values.int32(bytes.length);
+                    values.writeBytes(bytes);
+                    break;
+            }
+        }
+
+        /**
+         * The definition levels are a single bit-packed run of the RLE/bit-packing hybrid encoding, prefixed with their
+         * length. The values follow PLAIN encoded, only present values are stored.
+         */
+        byte @NotNull [] page(final int count) {
+            final LittleEndianBuffer page = new LittleEndianBuffer();
+            final int groups = (count + 7) / 8;
+            final LittleEndianBuffer levels = new LittleEndianBuffer();
+            levels.varint(groups << 1 | 1);
+            definitionLevels.writeTo(levels, groups);
+            page.int32(levels.size());
+            page.append(levels);
+            if (type == ColumnType.BOOLEAN) {
+                booleans.writeTo(page, (booleans.size + 7) / 8);
+            } else {
+                page.append(values);
+            }
+            return page.toByteArray();
+        }
+
+        void reset() {
+            values.reset();
+            definitionLevels.reset();
+            booleans.reset();
+        }
+    }
+
+    private static class BitBuffer {
+
+        private byte @NotNull [] bits = new byte[1024];
+        private int size = 0;
+
+        void add(final boolean bit) {
+            if (size / 8 == bits.length) {
+                bits = Arrays.copyOf(bits, bits.length * 2);
+            }
+            if (bit) {
+                bits[size / 8] |= 1 << (size % 8);
+            }
+            size++;
+        }
+
+        void writeTo(final @NotNull ByteArrayOutputStream output, final int bytes) {
+            output.write(bits, 0, bytes);
+        }
+
+        void reset() {
+            Arrays.fill(bits, 0, (size + 7) / 8, (byte) 0);
+            size = 0;
+        }
+    }
+
+    private static class LittleEndianBuffer extends ByteArrayOutputStream {
+
+        void int32(final int value) {
+            write(value);
+            write(value >>> 8);
+            write(value >>> 16);
+            write(value >>> 24);
+        }
+
+        void int64(final long value) {
+            int32((int) value);
+            int32((int) (value >>> 32));
+        }
+
+        void append(final @NotNull LittleEndianBuffer other) {
+            write(other.buf, 0, other.count);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+
+    /**
+     * The subset of the Thrift compact protocol which is needed for the Parquet metadata.
+     */
+    private static class ThriftWriter {
+
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final @NotNull LittleEndianBuffer buffer = new LittleEndianBuffer();
+        private final @NotNull List<Integer> lastFieldIds = new ArrayList<>();
+        private int lastFieldId = 0;
+
+        void i32Field(final int id, final int value) {
+            fieldHeader(I32, id);
+            i32(value);
+        }
+
+        void i64Field(final int id, final long value) {
+            fieldHeader(I64, id);
+            buffer.varint(value << 1 ^ value >> 63);
+        }
+
+        void stringField(final int id, final @NotNull String value) {
+            fieldHeader(BINARY, id);
+            string(value);
+        }
+
+        void listField(final int id, final int elementType, final int size) {
+            fieldHeader(LIST, id);
+            if (size < 15) {
+                buffer.write(size << 4 | elementType);
+            } else {
+                buffer.write(0xF0 | elementType);
+                buffer.varint(size);
+            }
+        }
+
+        void beginStructField(final int id) {
+            fieldHeader(STRUCT, id);
+            beginStruct();
+        }
+
+        /**
+         * Begins a struct which is an element of a list.
+         */
+        void beginStruct() {
+            lastFieldIds.add(lastFieldId);
+            lastFieldId = 0;
+        }
+
+        void endStruct() {
+            buffer.write(0);
+            if (!lastFieldIds.isEmpty()) {
+                lastFieldId = lastFieldIds.remove(lastFieldIds.size() - 1);
+            }
+        }
+
+        void i32(final int value) {
+            buffer.varint(Integer.toUnsignedLong(value << 1 ^ value >> 31));
+        }
+
+        void string(final @NotNull String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.varint(bytes.length);
+            buffer.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Appends an already encoded struct, e.g. an element of a list.
+         */
+        void raw(final byte @NotNull [] struct) {
+            buffer.write(struct, 0, struct.length);
+        }
+
+        byte @NotNull [] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        private void fieldHeader(final int type, final int id) {
+            if (id > lastFieldId && id - lastFieldId <= 15) {
+                buffer.write((id - lastFieldId) << 4 | type);
+            } else {
+                buffer.write(type);
+                i32(id);
+            }
+            lastFieldId = id;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.converters.MqttQosConverter;
+import com.hivemq.cli.mqtt.template.MessageTemplate;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import picocli.CommandLine;
+
+public class BenchOptions {
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    private int publishers = 10;
+    private int subscribers = 1;
+    private double connectRate = 100;
+    private @Nullable Double publishRate = 1.0;
+    private int messageSize = 64;
+    private @Nullable String payloadTemplate;
+    private @Nullable MessageTemplate compiledPayloadTemplate;
+    private long durationSeconds = 10;
+    private int maxInFlight = 1000;
+    private @Nullable Integer threads;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
+    @CommandLine.Option(names = {"-t", "--topic"},
+                        defaultValue = "bench",
+                        description = "The topic prefix, publishers publish to '<topic>/<client>' and subscribers subscribe to '<topic>/#' (default: bench)")
+    private @NotNull String topic;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"}) //will be initialized via default value
+    @CommandLine.Option(names = {"-q", "--qos"},
+                        converter = MqttQosConverter.class,
+                        defaultValue = "0",
+                        description = "Quality of service of the publishes and subscriptions (default: 0)")
+    private @NotNull MqttQos qos;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-c", "--clients"},
+                        description = "The amount of publishing clients (default: 10)")
+    private void publishers(final int publishers) {
+        if (publishers < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--clients must not be negative");
+        }
+        this.publishers = publishers;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--subscribers"},
+                        description = "The amount of subscribing clients, each receives the messages of all publishers (default: 1)")
+    private void subscribers(final int subscribers) {
+        if (subscribers < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--subscribers must not be negative");
+        }
+        this.subscribers = subscribers;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--connect-rate"},
+                        description = "The amount of connection attempts per second while ramping up the clients (default: 100)")
+    private void connectRate(final double connectRate) {
+        if (connectRate <= 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--connect-rate must be greater than 0");
+        }
+        this.connectRate = connectRate;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--publish-rate"},
+                        description = "The amount of messages per second of every publisher, 0 for unlimited (default: 1)")
+    private void publishRate(final double publishRate) {
+        if (publishRate < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--publish-rate must not be negative");
+        }
+        this.publishRate = publishRate == 0 ? null : publishRate;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--message-size"}, description = "The payload size in bytes (default: 64)")
+    private void messageSize(final int messageSize) {
+        if (messageSize < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--message-size must not be negative");
+        }
+        this.messageSize = messageSize;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--payload-template"},
+                        description = "A payload template which is rendered per message instead of a payload of --message-size bytes, see the templates of mqtt pub")
+    private void payloadTemplate(final @NotNull String payloadTemplate) {
+        try {
+            compiledPayloadTemplate = MessageTemplate.compile(payloadTemplate);
+        } catch (final IllegalArgumentException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--payload-template: " + e.getMessage());
+        }
+        this.payloadTemplate = payloadTemplate;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--duration"},
+                        description = "The time in seconds to publish messages after all clients are connected (default: 10)")
+    private void durationSeconds(final long durationSeconds) {
+        if (durationSeconds < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--duration must not be negative");
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-in-flight"},
+                        description = "The maximum amount of not yet acknowledged messages over all publishers (default: 1000)")
+    private void maxInFlight(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--max-in-flight must be greater than 0");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--threads"},
+                        description = "The amount of netty event loop threads which are shared by all clients (default: 2 * available processors)")
+    private void threads(final int threads) {
+        if (threads < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--threads must be greater than 0");
+        }
+        this.threads = threads;
+    }
+
+    public @NotNull String getTopic() {
+        return topic;
+    }
+
+    public @NotNull MqttQos getQos() {
+        return qos;
+    }
+
+    public int getPublishers() {
+        return publishers;
+    }
+
+    public int getSubscribers() {
+        return subscribers;
+    }
+
+    public double getConnectRate() {
+        return connectRate;
+    }
+
+    public @Nullable Double getPublishRate() {
+        return publishRate;
+    }
+
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    public @Nullable MessageTemplate getPayloadTemplate() {
+        return compiledPayloadTemplate;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public @Nullable Integer getThreads() {
+        return threads;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BenchOptions{" +
+                "topic='" +
+                topic +
+                '\'' +
+                ", qos=" +
+                qos +
+                ", publishers=" +
+                publishers +
+                ", subscribers=" +
+                subscribers +
+                ", connectRate=" +
+                connectRate +
+                ", publishRate=" +
+                publishRate +
+                ", messageSize=" +
+                messageSize +
+                ", payloadTemplate='" +
+                payloadTemplate +
+                '\'' +
+                ", durationSeconds=" +
+                durationSeconds +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", threads=" +
+                threads +
+                '}';
+    }
+}
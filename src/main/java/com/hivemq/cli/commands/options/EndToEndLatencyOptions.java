@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+public class EndToEndLatencyOptions {
+
+    private static final long DEFAULT_SUMMARY_INTERVAL_SECONDS = 5;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--e2e"},
+                        defaultValue = "false",
+                        description = "Measure the end-to-end latency and check the sequence of publishes sent with 'mqtt pub --e2e' (default: false)")
+    private boolean enabled;
+
+    private @Nullable Long summaryIntervalSeconds;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--e2e-interval"},
+                        description = "The interval in seconds in which the end-to-end latency summary is printed (default: " +
+                                DEFAULT_SUMMARY_INTERVAL_SECONDS +
+                                ")")
+    private void summaryIntervalSeconds(final long summaryIntervalSeconds) {
+        if (summaryIntervalSeconds < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--e2e-interval must be greater than 0");
+        }
+        this.summaryIntervalSeconds = summaryIntervalSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSummaryIntervalSeconds() {
+        return summaryIntervalSeconds != null ? summaryIntervalSeconds : DEFAULT_SUMMARY_INTERVAL_SECONDS;
+    }
+
+    public void logUnusedOptions() {
+        if (!enabled && summaryIntervalSeconds != null) {
+            Logger.warn("End-to-end latency summary interval was set but is unused without --e2e");
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "EndToEndLatencyOptions{" +
+                "enabled=" +
+                enabled +
+                ", summaryIntervalSeconds=" +
+                summaryIntervalSeconds +
+                '}';
+    }
+}
@@ -17,8 +17,9 @@
 package com.hivemq.cli.commands.options;
 
 import com.hivemq.cli.converters.ByteBufferConverter;
-import com.hivemq.cli.converters.FileToByteBufferConverter;
+import com.hivemq.cli.converters.MappedFileToByteBufferConverter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import picocli.CommandLine;
 
 import java.nio.ByteBuffer;
@@ -45,21 +46,34 @@ public class MessagePayloadOptions {
 
     @SuppressWarnings("unused")
     @CommandLine.Option(names = {"-m:file", "--message-file"},
-                        converter = FileToByteBufferConverter.class,
+                        converter = MappedFileToByteBufferConverter.class,
                         description = "The message read in from a file")
     private void setMessageFromFile(final @NotNull ByteBuffer messageFromFile) {
         messageBuffer = messageFromFile;
     }
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-m:stream", "--message-stream"},
+                        description = "Publish every record of a file, or of stdin if '-' is given, as a separate message")
+    private void setMessageStream(final @NotNull String messageStream) {
+        this.messageStream = messageStream;
+    }
+
     @SuppressWarnings("NotNullFieldNotInitialized")
     private @NotNull ByteBuffer messageBuffer;
 
+    private @Nullable String messageStream;
+
     public @NotNull ByteBuffer getMessageBuffer() {
         return messageBuffer;
     }
 
+    public @Nullable String getMessageStream() {
+        return messageStream;
+    }
+
     @Override
     public @NotNull String toString() {
-        return "MessagePayloadOptions{" + "messageBuffer=" + messageBuffer + '}';
+        return "MessagePayloadOptions{" + "messageBuffer=" + messageBuffer + ", messageStream=" + messageStream + '}';
     }
 }
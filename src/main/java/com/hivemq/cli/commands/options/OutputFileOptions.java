@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.converters.ByteSizeConverter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+public class OutputFileOptions {
+
+    public enum FsyncPolicy {
+        never,
+        flush,
+        close
+    }
+
+    public enum BackpressurePolicy {
+        block,
+        drop
+    }
+
+    public enum Compression {
+        none,
+        gzip
+    }
+
+    private static final int DEFAULT_QUEUE_SIZE = 10_000;
+    private static final int DEFAULT_FLUSH_SIZE = 64 * 1024;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    private @Nullable Integer queueSize;
+    private @Nullable Integer flushSize;
+    private @Nullable Long flushIntervalMillis;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-queue-size"},
+                        description = "The maximum amount of received messages waiting to be written to the output file (default: " +
+                                DEFAULT_QUEUE_SIZE +
+                                ")")
+    private void queueSize(final int queueSize) {
+        if (queueSize < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--output-queue-size must be greater than 0");
+        }
+        this.queueSize = queueSize;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-flush-size"},
+                        description = "The amount of bytes which are buffered before they are written to the output file (default: " +
+                                DEFAULT_FLUSH_SIZE +
+                                ")")
+    private void flushSize(final int flushSize) {
+        if (flushSize < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--output-flush-size must be greater than 0");
+        }
+        this.flushSize = flushSize;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-flush-interval"},
+                        description = "The maximum time in milliseconds buffered messages wait before they are written to the output file (default: " +
+                                DEFAULT_FLUSH_INTERVAL_MILLIS +
+                                ")")
+    private void flushIntervalMillis(final long flushIntervalMillis) {
+        if (flushIntervalMillis < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--output-flush-interval must not be negative");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-fsync"},
+                        description = "When the output file is synced to the storage device: never, flush (after every write) or close (default: close)")
+    private @Nullable FsyncPolicy fsyncPolicy;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-backpressure"},
+                        description = "What happens to received messages if the output file queue is full: block (wait until there is space, delays the acknowledgement) or drop (default: block)")
+    private @Nullable BackpressurePolicy backpressurePolicy;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-rotate-size"},
+                        converter = ByteSizeConverter.class,
+                        description = "Rotate the output file once it reaches this size, e.g. 100MB")
+    private @Nullable Long rotateSize;
+
+    private @Nullable Long rotateIntervalSeconds;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-rotate-interval"},
+                        description = "Rotate the output file after this time in seconds")
+    private void rotateIntervalSeconds(final long rotateIntervalSeconds) {
+        if (rotateIntervalSeconds < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--output-rotate-interval must be greater than 0");
+        }
+        this.rotateIntervalSeconds = rotateIntervalSeconds;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-compress"},
+                        description = "The compression of rotated output files: none or gzip (default: none)")
+    private @Nullable Compression compression;
+
+    private @Nullable Integer retainedFiles;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--output-retain"},
+                        description = "The amount of rotated output files to keep, older ones are deleted (default: all)")
+    private void retainedFiles(final int retainedFiles) {
+        if (retainedFiles < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--output-retain must be greater than 0");
+        }
+        this.retainedFiles = retainedFiles;
+    }
+
+    public int getQueueSize() {
+        return queueSize != null ? queueSize : DEFAULT_QUEUE_SIZE;
+    }
+
+    public int getFlushSize() {
+        return flushSize != null ? flushSize : DEFAULT_FLUSH_SIZE;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis != null ? flushIntervalMillis : DEFAULT_FLUSH_INTERVAL_MILLIS;
+    }
+
+    public @NotNull FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy != null ? fsyncPolicy : FsyncPolicy.close;
+    }
+
+    public @NotNull BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy != null ? backpressurePolicy : BackpressurePolicy.block;
+    }
+
+    public @Nullable Long getRotateSize() {
+        return rotateSize;
+    }
+
+    public @Nullable Long getRotateIntervalSeconds() {
+        return rotateIntervalSeconds;
+    }
+
+    public boolean isRotationEnabled() {
+        return rotateSize != null || rotateIntervalSeconds != null;
+    }
+
+    public @NotNull Compression getCompression() {
+        return compression != null ? compression : Compression.none;
+    }
+
+    public @Nullable Integer getRetainedFiles() {
+        return retainedFiles;
+    }
+
+    public void logUnusedOptions() {
+        if (!isRotationEnabled()) {
+            if (compression != null) {
+                Logger.warn("Output file compression was set but is unused without --output-rotate-size or " +
+                        "--output-rotate-interval");
+            }
+            if (retainedFiles != null) {
+                Logger.warn("Retained output files were set but are unused without --output-rotate-size or " +
+                        "--output-rotate-interval");
+            }
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "OutputFileOptions{" +
+                "queueSize=" +
+                queueSize +
+                ", flushSize=" +
+                flushSize +
+                ", flushIntervalMillis=" +
+                flushIntervalMillis +
+                ", fsyncPolicy=" +
+                fsyncPolicy +
+                ", backpressurePolicy=" +
+                backpressurePolicy +
+                ", rotateSize=" +
+                rotateSize +
+                ", rotateIntervalSeconds=" +
+                rotateIntervalSeconds +
+                ", compression=" +
+                compression +
+                ", retainedFiles=" +
+                retainedFiles +
+                '}';
+    }
+}
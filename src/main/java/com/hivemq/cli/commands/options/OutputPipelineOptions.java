@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+public class OutputPipelineOptions {
+
+    public enum AckPolicy {
+        enqueued,
+        written
+    }
+
+    private static final int DEFAULT_QUEUE_SIZE = 10_000;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline"},
+                        defaultValue = "false",
+                        description = "Print and write the received messages on a separate thread, so slow output does not delay receiving messages (default: false)")
+    private boolean enabled;
+
+    private @Nullable Integer queueSize;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline-queue-size"},
+                        description = "The maximum amount of received messages waiting to be printed and written (default: " +
+                                DEFAULT_QUEUE_SIZE +
+                                ")")
+    private void queueSize(final int queueSize) {
+        if (queueSize < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--pipeline-queue-size must be greater than 0");
+        }
+        this.queueSize = queueSize;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline-ack"},
+                        description = "When received messages are acknowledged: enqueued (as soon as they are queued) or written (after they are printed and written to the output file) (default: written)")
+    private @Nullable AckPolicy ackPolicy;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--pipeline-backpressure"},
+                        description = "What happens to received messages if the pipeline queue is full: block (wait until there is space) or drop (default: block)")
+    private @Nullable OutputFileOptions.BackpressurePolicy backpressurePolicy;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueueSize() {
+        return queueSize != null ? queueSize : DEFAULT_QUEUE_SIZE;
+    }
+
+    public @NotNull AckPolicy getAckPolicy() {
+        return ackPolicy != null ? ackPolicy : AckPolicy.written;
+    }
+
+    public @NotNull OutputFileOptions.BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy != null ? backpressurePolicy : OutputFileOptions.BackpressurePolicy.block;
+    }
+
+    public void logUnusedOptions() {
+        if (!enabled && (queueSize != null || ackPolicy != null || backpressurePolicy != null)) {
+            Logger.warn("Pipeline options were set but are unused without --pipeline");
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "OutputPipelineOptions{" +
+                "enabled=" +
+                enabled +
+                ", queueSize=" +
+                queueSize +
+                ", ackPolicy=" +
+                ackPolicy +
+                ", backpressurePolicy=" +
+                backpressurePolicy +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import java.io.File;
+
+public class PublishLatencyOptions {
+
+    public enum OutputFormat {
+        json,
+        hgrm
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--latency"},
+                        defaultValue = "false",
+                        description = "Print the acknowledgement latency percentiles after publishing (default: false)")
+    private boolean latency;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--latency-file"},
+                        description = "The file to write the full acknowledgement latency distribution to")
+    private @Nullable File latencyFile;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--latency-format"},
+                        description = "The format of the latency file: json or hgrm (HdrHistogram percentile distribution) (default: json)")
+    private @Nullable OutputFormat latencyFormat;
+
+    public boolean isEnabled() {
+        return latency || latencyFile != null;
+    }
+
+    public @Nullable File getLatencyFile() {
+        return latencyFile;
+    }
+
+    public @NotNull OutputFormat getLatencyFormat() {
+        return latencyFormat != null ? latencyFormat : OutputFormat.json;
+    }
+
+    public void logUnusedOptions() {
+        if (latencyFile == null && latencyFormat != null) {
+            Logger.warn("Latency format was set but is unused without --latency-file");
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "PublishLatencyOptions{" +
+                "latency=" +
+                latency +
+                ", latencyFile=" +
+                latencyFile +
+                ", latencyFormat=" +
+                latencyFormat +
+                '}';
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import com.hivemq.cli.mqtt.template.MessageTemplate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+public class PublishLoadOptions {
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    private @Nullable Long count;
+    private @Nullable Long durationSeconds;
+    private @Nullable Double rate;
+    private @Nullable Integer maxInFlight;
+    private @NotNull MessageTemplate @Nullable [] topicTemplates;
+    private @Nullable MessageTemplate payloadTemplate;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--template"},
+                        defaultValue = "false",
+                        description = "Render the ${seq}, ${timestamp}, ${int:MIN:MAX}, ${float:MIN:MAX[:DECIMALS]}, ${client} and ${uuid} placeholders of the topics and the message per message in load mode (default: false)")
+    private boolean template;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--count"},
+                        description = "The amount of messages to publish, distributed round-robin over the topics (enables the load mode)")
+    private void count(final long count) {
+        if (count < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--count must be greater than 0");
+        }
+        this.count = count;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--duration"},
+                        description = "The time in seconds to keep publishing messages (enables the load mode)")
+    private void durationSeconds(final long durationSeconds) {
+        if (durationSeconds < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--duration must be greater than 0");
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--rate"},
+                        description = "The target rate in messages per second in load mode or with --message-stream (default: unlimited)")
+    private void rate(final double rate) {
+        if (rate <= 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--rate must be greater than 0");
+        }
+        this.rate = rate;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-in-flight"},
+                        description = "The maximum amount of not yet acknowledged messages in load mode or with --message-stream (default: the receive maximum of the broker, 100 for MQTT 3)")
+    private void maxInFlight(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--max-in-flight must be greater than 0");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    public boolean isEnabled() {
+        return count != null || durationSeconds != null;
+    }
+
+    public @Nullable Long getCount() {
+        return count;
+    }
+
+    public @Nullable Long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public @Nullable Double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the maximum in-flight messages or <code>null</code> if the receive maximum of the broker is used
+     */
+    public @Nullable Integer getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public boolean isTemplate() {
+        return template;
+    }
+
+    /**
+     * Compiles the topics and the message as templates if --template is set in load mode, so invalid templates are
+     * reported before connecting.
+     *
+     * @throws CommandLine.ParameterException if a template is invalid or the message is not valid UTF-8
+     */
+    public void compileTemplates(final @NotNull String @NotNull [] topics, final @NotNull ByteBuffer message) {
+        if (!template || !isEnabled()) {
+            return;
+        }
+        final MessageTemplate[] topicTemplates = new MessageTemplate[topics.length];
+        for (int i = 0; i < topics.length; i++) {
+            try {
+                topicTemplates[i] = MessageTemplate.compile(topics[i]);
+            } catch (final IllegalArgumentException e) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--template: " + e.getMessage());
+            }
+        }
+        final String payload;
+        try {
+            payload = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(message.duplicate())
+                    .toString();
+        } catch (final CharacterCodingException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--template: The message is not valid UTF-8 and can not be used as a template");
+        }
+        try {
+            payloadTemplate = MessageTemplate.compile(payload);
+        } catch (final IllegalArgumentException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--template: " + e.getMessage());
+        }
+        this.topicTemplates = topicTemplates;
+    }
+
+    /**
+     * @return the compiled templates of the topics or <code>null</code> if no templates were compiled
+     */
+    public @NotNull MessageTemplate @Nullable [] getTopicTemplates() {
+        return topicTemplates;
+    }
+
+    /**
+     * @return the compiled template of the message or <code>null</code> if no templates were compiled
+     */
+    public @Nullable MessageTemplate getPayloadTemplate() {
+        return payloadTemplate;
+    }
+
+    public void logUnusedOptions(final boolean isMessageStream) {
+        if (!isEnabled() && template) {
+            Logger.warn("Templates were enabled but are unused without --count or --duration");
+        }
+        if (!isEnabled() && !isMessageStream) {
+            if (rate != null) {
+                Logger.warn("Publish rate was set but is unused without --count, --duration or --message-stream");
+            }
+            if (maxInFlight != null) {
+                Logger.warn(
+                        "Maximum in-flight messages were set but are unused without --count, --duration or --message-stream");
+            }
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "PublishLoadOptions{" +
+                "count=" +
+                count +
+                ", durationSeconds=" +
+                durationSeconds +
+                ", rate=" +
+                rate +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", template=" +
+                template +
+                '}';
+    }
+}
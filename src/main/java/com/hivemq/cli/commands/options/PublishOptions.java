@@ -37,6 +37,11 @@ import java.util.Arrays;
 
 public class PublishOptions {
 
+    public enum MessageStreamFormat {
+        lines,
+        prefixed
+    }
+
     @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
     @CommandLine.Option(names = {"-t", "--topic"}, required = true, description = "The topics to publish to")
     private @NotNull String @NotNull [] topics;
@@ -91,6 +96,21 @@ public class PublishOptions {
                         description = "A user property of the publish message")
     private @Nullable Mqtt5UserProperty @Nullable [] userProperties;
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--e2e"},
+                        defaultValue = "false",
+                        description = "Embed a send timestamp and a sequence number for the end-to-end latency measurement of a subscriber with --e2e (MQTT 5: as user properties, MQTT 3: in front of the payload) (default: false)")
+    private boolean endToEnd;
+
+    private @Nullable MessageStreamFormat messageStreamFormat;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--message-stream-format"},
+                        description = "The format of the records of --message-stream: 'lines' for newline-delimited records or 'prefixed' for records preceded by their length as 4 byte big-endian integer (default: lines)")
+    private void messageStreamFormat(final @NotNull MessageStreamFormat messageStreamFormat) {
+        this.messageStreamFormat = messageStreamFormat;
+    }
+
     public @NotNull String @NotNull [] getTopics() {
         return topics;
     }
@@ -103,6 +123,14 @@ public class PublishOptions {
         return message.getMessageBuffer();
     }
 
+    public @Nullable String getMessageStream() {
+        return message.getMessageStream();
+    }
+
+    public @NotNull MessageStreamFormat getMessageStreamFormat() {
+        return messageStreamFormat != null ? messageStreamFormat : MessageStreamFormat.lines;
+    }
+
     public @Nullable Boolean getRetain() {
         return retain;
     }
@@ -131,7 +159,14 @@ public class PublishOptions {
         return MqttUtils.convertToMqtt5UserProperties(userProperties);
     }
 
+    public boolean isEndToEnd() {
+        return endToEnd;
+    }
+
     public void logUnusedOptions(final @NotNull MqttVersion mqttVersion) {
+        if (messageStreamFormat != null && getMessageStream() == null) {
+            Logger.warn("Message stream format was set but is unused without --message-stream");
+        }
         if (mqttVersion == MqttVersion.MQTT_3_1_1) {
             if (messageExpiryInterval != null) {
                 Logger.warn("Publish message expiry was set but is unused in MQTT Version {}", MqttVersion.MQTT_3_1_1);
@@ -186,7 +221,10 @@ public class PublishOptions {
                 correlationData +
                 ", userProperties=" +
                 Arrays.toString(userProperties) +
+                ", endToEnd=" +
+                endToEnd +
+                ", messageStreamFormat=" +
+                messageStreamFormat +
                 '}';
     }
 }
-
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import picocli.CommandLine;
+
+import java.util.Locale;
+
+public class ReplayOptions {
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    private @Nullable Double speed = 1.0;
+    private int connections = 1;
+    private int maxInFlight = 1000;
+    private long skipSeconds = 0;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Option(names = {"-f", "--file"},
+                        required = true,
+                        description = "The capture file to replay, '-' reads from stdin")
+    private @NotNull String file;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--speed"},
+                        description = "The replay speed relative to the recorded timing, e.g. '2x' or '0.5x', 'max' publishes as fast as possible (default: 1x)")
+    private void speed(final @NotNull String speed) {
+        final String value = speed.trim().toLowerCase(Locale.ROOT);
+        if ("max".equals(value)) {
+            this.speed = null;
+            return;
+        }
+        final double multiplier;
+        try {
+            multiplier = Double.parseDouble(value.endsWith("x") ? value.substring(0, value.length() - 1) : value);
+        } catch (final NumberFormatException e) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--speed must be a multiplier like '2x' or 'max' but was '" + speed + "'");
+        }
+        if (!(multiplier > 0) || Double.isInfinite(multiplier)) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--speed must be greater than 0");
+        }
+        this.speed = multiplier;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--connections"},
+                        description = "The amount of connections the publishes are spread over, each topic is always published by the same connection (default: 1)")
+    private void connections(final int connections) {
+        if (connections < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--connections must be greater than 0");
+        }
+        this.connections = connections;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--max-in-flight"},
+                        description = "The maximum amount of not yet acknowledged messages over all connections (default: 1000)")
+    private void maxInFlight(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--max-in-flight must be greater than 0");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--skip"},
+                        description = "The time in seconds after the first message of the capture which is skipped, binary captures with an index seek directly to it (default: 0)")
+    private void skipSeconds(final long skipSeconds) {
+        if (skipSeconds < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--skip must not be negative");
+        }
+        this.skipSeconds = skipSeconds;
+    }
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-b", "--base64"},
+                        defaultValue = "false",
+                        description = "Whether the payloads of a JSON capture are Base64 encoded, as written by 'sub --base64' (default: false)")
+    private boolean base64;
+
+    public @NotNull String getFile() {
+        return file;
+    }
+
+    /**
+     * @return the speed multiplier or <code>null</code> if the publishes are replayed as fast as possible
+     */
+    public @Nullable Double getSpeed() {
+        return speed;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getSkipSeconds() {
+        return skipSeconds;
+    }
+
+    public boolean isBase64() {
+        return base64;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ReplayOptions{" +
+                "file='" +
+                file +
+                '\'' +
+                ", speed=" +
+                speed +
+                ", connections=" +
+                connections +
+                ", maxInFlight=" +
+                maxInFlight +
+                ", skipSeconds=" +
+                skipSeconds +
+                ", base64=" +
+                base64 +
+                '}';
+    }
+}
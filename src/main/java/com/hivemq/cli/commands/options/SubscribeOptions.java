@@ -20,6 +20,10 @@ import com.hivemq.cli.DefaultCLIProperties;
 import com.hivemq.cli.MqttCLIMain;
 import com.hivemq.cli.converters.Mqtt5UserPropertyConverter;
 import com.hivemq.cli.converters.MqttQosConverter;
+import com.hivemq.cli.mqtt.SubscribeStatistics;
+import com.hivemq.cli.mqtt.e2e.EndToEndLatencyTracker;
+import com.hivemq.cli.mqtt.output.OutputFileWriters;
+import com.hivemq.cli.mqtt.output.OutputPipeline;
 import com.hivemq.cli.utils.MqttUtils;
 import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
@@ -122,6 +126,17 @@ public class SubscribeOptions {
         this.outputFile = outputFileLegacy;
     }
 
+    @CommandLine.Mixin
+    private final @NotNull OutputFileOptions outputFileOptions = new OutputFileOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull OutputPipelineOptions outputPipelineOptions = new OutputPipelineOptions();
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--capture"},
+                        description = "A binary capture file to which the received publishes are written with their receive time and all MQTT 5 properties, e.g. for 'mqtt replay'")
+    private @Nullable File captureFile;
+
     private boolean isEncodePayloadInBase64 = false;
 
     @SuppressWarnings("unused")
@@ -180,6 +195,12 @@ public class SubscribeOptions {
         jsonOutput = true;
     }
 
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--ndjson"},
+                        defaultValue = "false",
+                        description = "Print the received publishes in compact JSON format, one publish per line (default: false)")
+    private boolean ndjsonOutput;
+
     private boolean showTopics = false;
 
     @SuppressWarnings("unused")
@@ -210,6 +231,9 @@ public class SubscribeOptions {
     }
 
     private boolean printToSTDOUT = false;
+    private @Nullable EndToEndLatencyTracker endToEndLatencyTracker = null;
+    private @Nullable SubscribeStatistics subscribeStatistics = null;
+    private @Nullable OutputPipeline outputPipeline = null;
 
     public SubscribeOptions(final @NotNull List<String> deprecationWarnings) {
         this.deprecationWarnings = deprecationWarnings;
@@ -228,6 +252,28 @@ public class SubscribeOptions {
         return outputFile;
     }
 
+    public @NotNull OutputFileOptions getOutputFileOptions() {
+        return outputFileOptions;
+    }
+
+    public @NotNull OutputPipelineOptions getOutputPipelineOptions() {
+        return outputPipelineOptions;
+    }
+
+    /**
+     * @return the pipeline shared by all subscriptions with these options or <code>null</code> if it is not enabled
+     */
+    public synchronized @Nullable OutputPipeline getOutputPipeline() {
+        if (outputPipeline == null && outputPipelineOptions.isEnabled()) {
+            outputPipeline = OutputFileWriters.createPipeline(outputPipelineOptions);
+        }
+        return outputPipeline;
+    }
+
+    public @Nullable File getCaptureFile() {
+        return captureFile;
+    }
+
     public boolean isPrintToSTDOUT() {
         return printToSTDOUT;
     }
@@ -237,7 +283,11 @@ public class SubscribeOptions {
     }
 
     public boolean isJsonOutput() {
-        return jsonOutput;
+        return jsonOutput || ndjsonOutput;
+    }
+
+    public boolean isNdjsonOutput() {
+        return ndjsonOutput;
     }
 
     public @Nullable Mqtt5UserProperties getUserProperties() {
@@ -256,6 +306,22 @@ public class SubscribeOptions {
         this.printToSTDOUT = printToSTDOUT;
     }
 
+    public @Nullable EndToEndLatencyTracker getEndToEndLatencyTracker() {
+        return endToEndLatencyTracker;
+    }
+
+    public void setEndToEndLatencyTracker(final @Nullable EndToEndLatencyTracker endToEndLatencyTracker) {
+        this.endToEndLatencyTracker = endToEndLatencyTracker;
+    }
+
+    public @Nullable SubscribeStatistics getSubscribeStatistics() {
+        return subscribeStatistics;
+    }
+
+    public void setSubscribeStatistics(final @Nullable SubscribeStatistics subscribeStatistics) {
+        this.subscribeStatistics = subscribeStatistics;
+    }
+
     public boolean isOutputFileInvalid(final @Nullable File outputFile) {
         if (outputFile == null) {
             // option --outputToFile was not used
@@ -283,6 +349,10 @@ public class SubscribeOptions {
     }
 
     public void logUnusedOptions(final @NotNull MqttVersion mqttVersion) {
+        if (outputFile != null) {
+            outputFileOptions.logUnusedOptions();
+        }
+        outputPipelineOptions.logUnusedOptions();
         if (mqttVersion == MqttVersion.MQTT_3_1_1) {
             if (userProperties != null) {
                 Logger.warn("Subscribe user properties were set but are unused in MQTT version {}",
@@ -312,11 +382,19 @@ public class SubscribeOptions {
                 Arrays.toString(userProperties) +
                 ", outputFile=" +
                 outputFile +
+                ", outputFileOptions=" +
+                outputFileOptions +
+                ", outputPipelineOptions=" +
+                outputPipelineOptions +
+                ", captureFile=" +
+                captureFile +
                 ", printToSTDOUT=" +
                 printToSTDOUT +
                 ", base64=" + isEncodePayloadInBase64 +
                 ", jsonOutput=" +
                 jsonOutput +
+                ", ndjsonOutput=" +
+                ndjsonOutput +
                 ", showTopics=" +
                 showTopics +
                 '}';
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.options;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+public class SubscribeStatisticsOptions {
+
+    private static final int DEFAULT_TOP_TOPICS = 10;
+
+    @SuppressWarnings({"NotNullFieldNotInitialized", "unused"})
+    @CommandLine.Spec
+    private @NotNull CommandLine.Model.CommandSpec spec;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--stats"},
+                        defaultValue = "false",
+                        description = "Print message statistics instead of the received messages (default: false)")
+    private boolean enabled;
+
+    private @Nullable Integer topTopics;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--stats-top"},
+                        description = "The amount of topics with the most messages listed in the statistics summary (default: " +
+                                DEFAULT_TOP_TOPICS +
+                                ")")
+    private void topTopics(final int topTopics) {
+        if (topTopics < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--stats-top must not be negative");
+        }
+        this.topTopics = topTopics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getTopTopics() {
+        return topTopics != null ? topTopics : DEFAULT_TOP_TOPICS;
+    }
+
+    public void logUnusedOptions() {
+        if (!enabled && topTopics != null) {
+            Logger.warn("Statistics top topics were set but are unused without --stats");
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "SubscribeStatisticsOptions{" + "enabled=" + enabled + ", topTopics=" + topTopics + '}';
+    }
+}
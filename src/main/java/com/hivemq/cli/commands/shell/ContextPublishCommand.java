@@ -16,9 +16,11 @@
 
 package com.hivemq.cli.commands.shell;
 
+import com.hivemq.cli.commands.options.PublishLoadOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.mqtt.MqttClientExecutor;
 import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.cli.utils.MessageStreamReader;
 import org.jetbrains.annotations.NotNull;
 import org.tinylog.Logger;
 import picocli.CommandLine;
@@ -48,8 +50,24 @@ public class ContextPublishCommand extends ShellContextCommand implements Callab
             publishOptions.logUnusedOptions(contextClient.getConfig().getMqttVersion());
             publishOptions.arrangeQosToMatchTopics();
 
+            final String messageStream = publishOptions.getMessageStream();
+            if (MessageStreamReader.STDIN.equals(messageStream)) {
+                Logger.error("Publishing a message stream from stdin is not supported in the shell");
+                return 1;
+            }
+
             try {
-                mqttClientExecutor.publish(contextClient, publishOptions);
+                if (messageStream != null) {
+                    try (final MessageStreamReader messageStreamReader = MessageStreamReader.open(messageStream,
+                            publishOptions.getMessageStreamFormat())) {
+                        mqttClientExecutor.publish(contextClient,
+                                publishOptions,
+                                new PublishLoadOptions(),
+                                messageStreamReader);
+                    }
+                } else {
+                    mqttClientExecutor.publish(contextClient, publishOptions);
+                }
             } catch (final Exception ex) {
                 LoggerUtils.logShellError("Unable to publish", ex);
                 return 1;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+import java.util.Locale;
+
+/**
+ * Converts a size in bytes with an optional unit (KB, MB or GB, based on 1024) to bytes.
+ */
+public class ByteSizeConverter implements CommandLine.ITypeConverter<Long> {
+
+    static final @NotNull String WRONG_INPUT_MESSAGE =
+            "Value must be a positive amount of bytes with an optional unit KB, MB or GB (e.g. 100MB)";
+
+    @Override
+    public @NotNull Long convert(final @NotNull String s) throws Exception {
+        final String value = s.trim().toUpperCase(Locale.ROOT);
+        final long multiplier;
+        final String number;
+        if (value.endsWith("KB")) {
+            multiplier = 1024L;
+            number = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("MB")) {
+            multiplier = 1024L * 1024;
+            number = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("GB")) {
+            multiplier = 1024L * 1024 * 1024;
+            number = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("B")) {
+            multiplier = 1;
+            number = value.substring(0, value.length() - 1);
+        } else {
+            multiplier = 1;
+            number = value;
+        }
+        try {
+            final long bytes = Math.multiplyExact(Long.parseLong(number.trim()), multiplier);
+            if (bytes <= 0) {
+                throw new Exception(WRONG_INPUT_MESSAGE);
+            }
+            return bytes;
+        } catch (final NumberFormatException | ArithmeticException e) {
+            throw new Exception(WRONG_INPUT_MESSAGE);
+        }
+    }
+}
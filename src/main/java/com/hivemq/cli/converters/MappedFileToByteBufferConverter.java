@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Maps a payload file read-only into memory instead of reading it onto the heap, so large payloads are paged in by
+ * the operating system while they are written to the socket.
+ */
+public class MappedFileToByteBufferConverter implements CommandLine.ITypeConverter<ByteBuffer> {
+
+    // the maximum payload of a PUBLISH packet
+    static final long MAXIMUM_FILE_SIZE = 268_435_455;
+
+    @Override
+    public @NotNull ByteBuffer convert(final @NotNull String fileName) throws Exception {
+        final Path path = Paths.get(fileName);
+        if (!Files.isReadable(path)) {
+            throw new FileNotFoundException("File not found or not readable: " + fileName);
+        }
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > MAXIMUM_FILE_SIZE) {
+                throw new IllegalArgumentException("File size " + size + " exceeds the maximum payload size of " +
+                        MAXIMUM_FILE_SIZE);
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
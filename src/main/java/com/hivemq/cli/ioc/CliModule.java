@@ -23,7 +23,10 @@ import com.hivemq.cli.DefaultCLIProperties;
 import com.hivemq.cli.commandline.CommandErrorMessageHandler;
 import com.hivemq.cli.commandline.CommandLineConfig;
 import com.hivemq.cli.commands.MqttCLICommand;
+import com.hivemq.cli.commands.cli.BenchCommand;
+import com.hivemq.cli.commands.cli.DaemonCommand;
 import com.hivemq.cli.commands.cli.PublishCommand;
+import com.hivemq.cli.commands.cli.ReplayCommand;
 import com.hivemq.cli.commands.cli.SubscribeCommand;
 import com.hivemq.cli.commands.cli.TestBrokerCommand;
 import com.hivemq.cli.commands.shell.ShellCommand;
@@ -61,6 +64,9 @@ class CliModule {
             final @NotNull SubscribeCommand subscribeCommand,
             final @NotNull ShellCommand shellCommand,
             final @NotNull TestBrokerCommand testBrokerCommand,
+            final @NotNull BenchCommand benchCommand,
+            final @NotNull ReplayCommand replayCommand,
+            final @NotNull DaemonCommand daemonCommand,
             final @NotNull @Named("hivemq-cli") CommandLine hivemqCliCommandLine,
             final @NotNull @Named("swarm-cli") CommandLine swarmCLICommand,
             final @NotNull CommandLineConfig config,
@@ -69,6 +75,9 @@ class CliModule {
                 .addSubcommand(subscribeCommand)
                 .addSubcommand(shellCommand)
                 .addSubcommand(testBrokerCommand)
+                .addSubcommand(benchCommand)
+                .addSubcommand(replayCommand)
+                .addSubcommand(daemonCommand)
                 .addSubcommand(hivemqCliCommandLine)
                 .addSubcommand(swarmCLICommand)
                 .setColorScheme(config.getColorScheme())
@@ -16,18 +16,25 @@
 
 package com.hivemq.cli.mqtt;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.hivemq.cli.commands.options.AuthenticationOptions;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.ConnectRestrictionOptions;
 import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.PublishLoadOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
 import com.hivemq.cli.commands.options.UnsubscribeOptions;
 import com.hivemq.cli.commands.options.WillOptions;
+import com.hivemq.cli.mqtt.template.MessageTemplate;
 import com.hivemq.cli.utils.IntersectionUtil;
+import com.hivemq.cli.utils.MessageStreamReader;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientBuilder;
+import com.hivemq.client.mqtt.MqttClientExecutorConfig;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
 import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
@@ -39,6 +46,8 @@ import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3ConnectBuilder;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
 import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectBuilder;
@@ -52,18 +61,30 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.tinylog.Logger;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 abstract class AbstractMqttClientExecutor {
 
+    // the maximum packet size of the MQTT protocol
+    private static final int MAXIMUM_PACKET_SIZE = 268_435_460;
+    // the in-flight window if the broker does not limit it (MQTT 3)
+    private static final int DEFAULT_MAX_IN_FLIGHT = 100;
     private static final @NotNull Map<ClientKey, ClientData> clientKeyToClientData = new ConcurrentHashMap<>();
 
     abstract void mqtt5Connect(
@@ -72,29 +93,33 @@ abstract class AbstractMqttClientExecutor {
     abstract void mqtt3Connect(
             final @NotNull Mqtt3Client client, final @NotNull Mqtt3Connect connectMessage);
 
-    abstract void mqtt5Subscribe(
+    abstract @NotNull CompletableFuture<?> mqtt5Subscribe(
             final @NotNull Mqtt5Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable Executor callbackExecutor);
 
-    abstract void mqtt3Subscribe(
+    abstract @NotNull CompletableFuture<?> mqtt3Subscribe(
             final @NotNull Mqtt3Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable Executor callbackExecutor);
 
-    abstract void mqtt5Publish(
+    abstract @NotNull CompletableFuture<?> mqtt5Publish(
             final @NotNull Mqtt5Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload);
 
-    abstract void mqtt3Publish(
+    abstract @NotNull CompletableFuture<?> mqtt3Publish(
             final @NotNull Mqtt3Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos);
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload);
 
     abstract void mqtt5Unsubscribe(
             final @NotNull Mqtt5Client client, final @NotNull UnsubscribeOptions unsubscribeOptions);
@@ -115,8 +140,19 @@ abstract class AbstractMqttClientExecutor {
     public @NotNull MqttClient connect(
             final @NotNull ConnectOptions connectOptions, final @Nullable SubscribeOptions subscribeOptions)
             throws Exception {
+        return connect(connectOptions, subscribeOptions, connectOptions.getIdentifier());
+    }
+
+    /**
+     * Connects a client with the given identifier instead of the identifier of the connect options, so multiple
+     * clients can be connected with the same options.
+     */
+    public @NotNull MqttClient connect(
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable SubscribeOptions subscribeOptions,
+            final @Nullable String identifier) throws Exception {
 
-        final ClientKey clientKey = ClientKey.of(connectOptions.getIdentifier(), connectOptions.getHost());
+        final ClientKey clientKey = ClientKey.of(identifier, connectOptions.getHost());
         if (isConnected(clientKey)) {
             Logger.debug("Client is already connected ({})", clientKey);
             Logger.info("Using already connected  ({})", clientKey);
@@ -125,45 +161,178 @@ abstract class AbstractMqttClientExecutor {
 
         switch (connectOptions.getVersion()) {
             case MQTT_5_0:
-                return connectMqtt5Client(connectOptions, subscribeOptions);
+                return connectMqtt5Client(connectOptions, subscribeOptions, identifier);
+            case MQTT_3_1_1:
+                return connectMqtt3Client(connectOptions, subscribeOptions, identifier);
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        connectOptions.getVersion());
+        }
+    }
+
+    /**
+     * Connects a client without blocking and without registering it as a client of the CLI or the shell, so many
+     * clients can be connected at once. All clients which use the same executor config share its netty event loops.
+     *
+     * @return a future which completes with the connected client after the CONNACK was received
+     */
+    public @NotNull CompletableFuture<MqttClient> connectAsync(
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @NotNull String identifier,
+            final @NotNull MqttClientExecutorConfig executorConfig) {
+        final MqttClientBuilder clientBuilder = MqttClient.builder()
+                .webSocketConfig(connectOptions.getWebSocketConfig())
+                .serverHost(connectOptions.getHost())
+                .serverPort(connectOptions.getPort())
+                .sslConfig(sslConfig)
+                .identifier(identifier)
+                .executorConfig(executorConfig);
+
+        switch (connectOptions.getVersion()) {
+            case MQTT_5_0:
+                final Mqtt5Client mqtt5Client = clientBuilder.useMqttVersion5().build();
+                return mqtt5Client.toAsync()
+                        .connect(createMqtt5Connect(connectOptions))
+                        .thenApply(connAck -> mqtt5Client);
             case MQTT_3_1_1:
-                return connectMqtt3Client(connectOptions, subscribeOptions);
+                final Mqtt3Client mqtt3Client = clientBuilder.useMqttVersion3().build();
+                return mqtt3Client.toAsync()
+                        .connect(createMqtt3Connect(connectOptions))
+                        .thenApply(connAck -> mqtt3Client);
             default:
                 throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
                         connectOptions.getVersion());
         }
     }
 
+    /**
+     * Subscribes to all topics of the subscribe options at once. The topic filters are batched into as few SUBSCRIBE
+     * packets as the maximum packet size of the broker allows, which are all sent before the SUBACKs are awaited.
+     */
     public void subscribe(final @NotNull MqttClient client, final @NotNull SubscribeOptions subscribeOptions) {
-        for (int i = 0; i < subscribeOptions.getTopics().length; i++) {
-            final String topic = subscribeOptions.getTopics()[i];
-
-            // This check only works as subscribes are implemented blocking.
-            // Otherwise, we would need to check the topics before they are iterated
-            // as they are added to the client data after a successful subscribe.
-            final List<MqttTopicFilter> intersectingFilters =
-                    checkForSharedTopicDuplicate(clientKeyToClientData.get(ClientKey.of(client)).getSubscribedTopics(),
-                            topic);
-            // Client{clientIdentifier='hmq_RcrDi_18591249', hostname='broker.hivemq.com'} -> {ClientData@3806}
-            // Client{clientIdentifier='hmq_RcrDi_18591249', hostname='broker.hivemq.com'}
+        subscribe(client, subscribeOptions, null);
+    }
+
+    /**
+     * @param callbackExecutor the executor the received publishes are handled on, or <code>null</code> to handle them
+     *                         on the netty thread of the client
+     */
+    public void subscribe(
+            final @NotNull MqttClient client,
+            final @NotNull SubscribeOptions subscribeOptions,
+            final @Nullable Executor callbackExecutor) {
+        final String[] topics = subscribeOptions.getTopics();
+        final Set<MqttTopicFilter> subscribedFilters =
+                new HashSet<>(clientKeyToClientData.get(ClientKey.of(client)).getSubscribedTopics());
+        final List<MqttQos> qos = new ArrayList<>(topics.length);
+        for (int i = 0; i < topics.length; i++) {
+            final String topic = topics[i];
+
+            final List<MqttTopicFilter> intersectingFilters = checkForSharedTopicDuplicate(subscribedFilters, topic);
             if (!intersectingFilters.isEmpty()) {
                 Logger.warn("WARN: New subscription to '{}' intersects with already existing subscription(s) {}",
                         topic,
                         intersectingFilters);
             }
+            subscribedFilters.add(MqttTopicFilter.of(topic));
 
             final int qosI = i < subscribeOptions.getQos().length ? i : subscribeOptions.getQos().length - 1;
-            final MqttQos qos = subscribeOptions.getQos()[qosI];
+            qos.add(subscribeOptions.getQos()[qosI]);
+        }
 
-            switch (client.getConfig().getMqttVersion()) {
-                case MQTT_5_0:
-                    mqtt5Subscribe((Mqtt5Client) client, subscribeOptions, topic, qos);
-                    break;
-                case MQTT_3_1_1:
-                    mqtt3Subscribe((Mqtt3Client) client, subscribeOptions, topic, qos);
-                    break;
+        final List<String> topicList = Arrays.asList(topics);
+        final List<CompletableFuture<?>> subscribeFutures = new ArrayList<>();
+        int chunkStart = 0;
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                final Mqtt5Client mqtt5Client = (Mqtt5Client) client;
+                final int maximumPacketSize = mqtt5Client.getConfig()
+                        .getConnectionConfig()
+                        .map(connectionConfig -> connectionConfig.getRestrictionsForClient()
+                                .getSendMaximumPacketSize())
+                        .orElse(MAXIMUM_PACKET_SIZE);
+                final int propertiesLength = encodedPropertiesLength(subscribeOptions.getUserProperties());
+                for (final int chunkSize : chunkTopicFilters(topicList, propertiesLength, maximumPacketSize)) {
+                    subscribeFutures.add(mqtt5Subscribe(mqtt5Client,
+                            subscribeOptions,
+                            topicList.subList(chunkStart, chunkStart + chunkSize),
+                            qos.subList(chunkStart, chunkStart + chunkSize),
+                            callbackExecutor));
+                    chunkStart += chunkSize;
+                }
+                break;
+            case MQTT_3_1_1:
+                for (final int chunkSize : chunkTopicFilters(topicList, 0, MAXIMUM_PACKET_SIZE)) {
+                    subscribeFutures.add(mqtt3Subscribe((Mqtt3Client) client,
+                            subscribeOptions,
+                            topicList.subList(chunkStart, chunkStart + chunkSize),
+                            qos.subList(chunkStart, chunkStart + chunkSize),
+                            callbackExecutor));
+                    chunkStart += chunkSize;
+                }
+                break;
+        }
+        CompletableFuture.allOf(subscribeFutures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Splits the topic filters into consecutive chunks whose SUBSCRIBE packets do not exceed the maximum packet size.
+     *
+     * @param propertiesLength the encoded length of the properties including their length prefix (0 for MQTT 3)
+     * @return the amount of topic filters of each chunk
+     */
+    @VisibleForTesting
+    static @NotNull List<Integer> chunkTopicFilters(
+            final @NotNull List<String> topicFilters, final int propertiesLength, final int maximumPacketSize) {
+        final List<Integer> chunkSizes = new ArrayList<>();
+        // packet identifier and properties
+        final int variableHeaderLength = 2 + propertiesLength;
+        int remainingLength = variableHeaderLength;
+        int chunkSize = 0;
+        for (final String topicFilter : topicFilters) {
+            // length prefixed topic filter and subscription options
+            final int subscriptionLength = 2 + topicFilter.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (chunkSize > 0 && encodedPacketSize(remainingLength + subscriptionLength) > maximumPacketSize) {
+                chunkSizes.add(chunkSize);
+                remainingLength = variableHeaderLength;
+                chunkSize = 0;
             }
+            remainingLength += subscriptionLength;
+            chunkSize++;
+        }
+        if (chunkSize > 0) {
+            chunkSizes.add(chunkSize);
         }
+        return chunkSizes;
+    }
+
+    @VisibleForTesting
+    static int encodedPropertiesLength(final @Nullable Mqtt5UserProperties userProperties) {
+        int propertiesLength = 0;
+        if (userProperties != null) {
+            for (final Mqtt5UserProperty userProperty : userProperties.asList()) {
+                // property identifier and length prefixed name and value
+                propertiesLength += 1 + 2 + userProperty.getName().toByteBuffer().remaining() + 2 +
+                        userProperty.getValue().toByteBuffer().remaining();
+            }
+        }
+        return variableByteIntegerLength(propertiesLength) + propertiesLength;
+    }
+
+    private static int encodedPacketSize(final int remainingLength) {
+        return 1 + variableByteIntegerLength(remainingLength) + remainingLength;
+    }
+
+    private static int variableByteIntegerLength(final int value) {
+        if (value < 128) {
+            return 1;
+        } else if (value < 16_384) {
+            return 2;
+        } else if (value < 2_097_152) {
+            return 3;
+        }
+        return 4;
     }
 
     @VisibleForTesting
@@ -194,20 +363,247 @@ abstract class AbstractMqttClientExecutor {
         return intersectingFilters;
     }
 
-    public void publish(final @NotNull MqttClient client, final @NotNull PublishOptions publishOptions) {
+    public void publish(final @NotNull MqttClient client, final @NotNull PublishOptions publishOptions)
+            throws InterruptedException {
+        publish(client, publishOptions, (PublishStatistics) null);
+    }
+
+    /**
+     * Publishes the message to all topics, as many at once as the in-flight window of the broker allows.
+     *
+     * @throws java.util.concurrent.CompletionException if a publish failed
+     */
+    public void publish(
+            final @NotNull MqttClient client,
+            final @NotNull PublishOptions publishOptions,
+            final @Nullable PublishStatistics statistics) throws InterruptedException {
+        final InFlightWindow window = new InFlightWindow(inFlightWindowSize(client, null), statistics);
+        final TopicAliasEstimator topicAliases = TopicAliasEstimator.of(client, statistics);
+        final List<CompletableFuture<?>> publishFutures = new ArrayList<>(publishOptions.getTopics().length);
         for (int i = 0; i < publishOptions.getTopics().length; i++) {
             final String topic = publishOptions.getTopics()[i];
             final int qosI = i < publishOptions.getQos().length ? i : publishOptions.getQos().length - 1;
             final MqttQos qos = publishOptions.getQos()[qosI];
+            publishFutures.add(publishInFlight(client,
+                    publishOptions,
+                    topic,
+                    qos,
+                    publishOptions.getMessage(),
+                    window,
+                    topicAliases,
+                    statistics));
+        }
+        window.awaitCompleted();
+        if (statistics != null) {
+            statistics.finish();
+        }
+        CompletableFuture.allOf(publishFutures.toArray(new CompletableFuture<?>[0])).join();
+    }
 
-            switch (client.getConfig().getMqttVersion()) {
-                case MQTT_5_0:
-                    mqtt5Publish((Mqtt5Client) client, publishOptions, topic, qos);
-                    break;
-                case MQTT_3_1_1:
-                    mqtt3Publish((Mqtt3Client) client, publishOptions, topic, qos);
-                    break;
+    /**
+     * The in-flight window is the receive maximum of the CONNACK limited by the send maximum of the client, so the
+     * broker always has as many publishes to acknowledge as it accepts. MQTT 3 has no receive maximum.
+     *
+     * @param maxInFlight the configured window or <code>null</code> to use the receive maximum
+     */
+    @VisibleForTesting
+    static int inFlightWindowSize(final @NotNull MqttClient client, final @Nullable Integer maxInFlight) {
+        if (maxInFlight != null) {
+            return maxInFlight;
+        }
+        if (client.getConfig().getMqttVersion() == MqttVersion.MQTT_5_0) {
+            return ((Mqtt5Client) client).getConfig()
+                    .getConnectionConfig()
+                    .map(connectionConfig -> connectionConfig.getRestrictionsForClient().getSendMaximum())
+                    .orElse(DEFAULT_MAX_IN_FLIGHT);
+        }
+        return DEFAULT_MAX_IN_FLIGHT;
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    public @NotNull PublishStatistics publish(
+            final @NotNull MqttClient client,
+            final @NotNull PublishOptions publishOptions,
+            final @NotNull PublishLoadOptions publishLoadOptions) throws InterruptedException {
+        final Long count = publishLoadOptions.getCount();
+        final Long durationSeconds = publishLoadOptions.getDurationSeconds();
+        final Double rate = publishLoadOptions.getRate();
+
+        final RateLimiter rateLimiter = rate != null ? RateLimiter.create(rate) : null;
+        final PublishStatistics statistics = new PublishStatistics();
+        final InFlightWindow window =
+                new InFlightWindow(inFlightWindowSize(client, publishLoadOptions.getMaxInFlight()), statistics);
+        final TopicAliasEstimator topicAliases = TopicAliasEstimator.of(client, statistics);
+        final long deadlineNanos =
+                durationSeconds != null ? System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds) : 0;
+        final MessageTemplate[] topicTemplates = publishLoadOptions.getTopicTemplates();
+        final MessageTemplate payloadTemplate = publishLoadOptions.getPayloadTemplate();
+        final LoadTemplates templates = topicTemplates != null && payloadTemplate != null ?
+                new LoadTemplates(publishOptions.getTopics(), topicTemplates, payloadTemplate) : null;
+
+        long sent = 0;
+        while ((count == null || sent < count) && (durationSeconds == null || System.nanoTime() - deadlineNanos < 0)) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+
+            final int topicIndex = (int) (sent % publishOptions.getTopics().length);
+            if (templates == null) {
+                publishInFlight(client,
+                        publishOptions,
+                        publishOptions.getTopics()[topicIndex],
+                        publishOptions.getQos()[topicIndex],
+                        publishOptions.getMessage(),
+                        window,
+                        topicAliases,
+                        statistics);
+            } else {
+                final ByteBuffer payload = templates.renderPayload(sent);
+                publishInFlight(client,
+                        publishOptions,
+                        templates.renderTopic(topicIndex, sent),
+                        publishOptions.getQos()[topicIndex],
+                        payload,
+                        window,
+                        topicAliases,
+                        statistics).whenComplete((publishResult, throwable) -> templates.release(payload));
+            }
+            sent++;
+        }
+
+        window.awaitCompleted();
+        statistics.finish();
+        return statistics;
+    }
+
+    /**
+     * The templates of the load mode, compiled by {@link PublishLoadOptions#compileTemplates}. The client references the payload until the publish completes, so the
+     * payloads are rendered into buffers which are reused once their publishes completed.
+     */
+    private static class LoadTemplates {
+
+        private final @NotNull String @NotNull [] topicNames;
+        private final @NotNull MessageTemplate @NotNull [] topics;
+        private final @NotNull MessageTemplate payload;
+        private final @NotNull Queue<ByteBuffer> payloadBuffers = new ConcurrentLinkedQueue<>();
+
+        LoadTemplates(
+                final @NotNull String @NotNull [] topicNames,
+                final @NotNull MessageTemplate @NotNull [] topics,
+                final @NotNull MessageTemplate payload) {
+            this.topicNames = topicNames;
+            this.topics = topics;
+            this.payload = payload;
+        }
+
+        @NotNull String renderTopic(final int topicIndex, final long sequence) {
+            final MessageTemplate topic = topics[topicIndex];
+            return topic.isConstant() ? topicNames[topicIndex] : topic.renderString(sequence, 0);
+        }
+
+        @NotNull ByteBuffer renderPayload(final long sequence) {
+            ByteBuffer buffer = payloadBuffers.poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(payload.getMaximumLength());
+            }
+            buffer.clear();
+            buffer.limit(payload.render(buffer.array(), sequence, 0));
+            return buffer;
+        }
+
+        void release(final @NotNull ByteBuffer buffer) {
+            payloadBuffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Publishes every record of the message stream to all topics over the same connection. The stream is only read
+     * as fast as the publishes are acknowledged, limited by the maximum in-flight publishes and the optional rate.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    public @NotNull PublishStatistics publish(
+            final @NotNull MqttClient client,
+            final @NotNull PublishOptions publishOptions,
+            final @NotNull PublishLoadOptions publishLoadOptions,
+            final @NotNull MessageStreamReader messageStreamReader) throws IOException, InterruptedException {
+        final Double rate = publishLoadOptions.getRate();
+
+        final RateLimiter rateLimiter = rate != null ? RateLimiter.create(rate) : null;
+        final PublishStatistics statistics = new PublishStatistics();
+        final InFlightWindow window =
+                new InFlightWindow(inFlightWindowSize(client, publishLoadOptions.getMaxInFlight()), statistics);
+        final TopicAliasEstimator topicAliases = TopicAliasEstimator.of(client, statistics);
+
+        try {
+            ByteBuffer payload;
+            while ((payload = messageStreamReader.next()) != null) {
+                for (int i = 0; i < publishOptions.getTopics().length; i++) {
+                    if (rateLimiter != null) {
+                        rateLimiter.acquire();
+                    }
+                    publishInFlight(client,
+                            publishOptions,
+                            publishOptions.getTopics()[i],
+                            publishOptions.getQos()[i],
+                            payload,
+                            window,
+                            topicAliases,
+                            statistics);
+                }
+            }
+        } finally {
+            window.awaitCompleted();
+            statistics.finish();
+        }
+        return statistics;
+    }
+
+    private @NotNull CompletableFuture<?> publishInFlight(
+            final @NotNull MqttClient client,
+            final @NotNull PublishOptions publishOptions,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload,
+            final @NotNull InFlightWindow window,
+            final @Nullable TopicAliasEstimator topicAliases,
+            final @Nullable PublishStatistics statistics) throws InterruptedException {
+        window.acquire();
+        final long sentNanos = System.nanoTime();
+        final CompletableFuture<?> publishFuture;
+        try {
+            publishFuture = sendPublish(client, publishOptions, topic, qos, payload);
+        } catch (final RuntimeException e) {
+            window.release();
+            throw e;
+        }
+        if (statistics != null) {
+            statistics.onSent();
+        }
+        if (topicAliases != null) {
+            topicAliases.onPublish(topic);
+        }
+        return publishFuture.whenComplete((publishResult, throwable) -> {
+            if (statistics != null) {
+                statistics.onCompleted(sentNanos, throwable == null);
             }
+            window.release();
+        });
+    }
+
+    private @NotNull CompletableFuture<?> sendPublish(
+            final @NotNull MqttClient client,
+            final @NotNull PublishOptions publishOptions,
+            final @NotNull String topic,
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return mqtt5Publish((Mqtt5Client) client, publishOptions, topic, qos, payload);
+            case MQTT_3_1_1:
+                return mqtt3Publish((Mqtt3Client) client, publishOptions, topic, qos, payload);
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
         }
     }
 
@@ -267,9 +663,10 @@ abstract class AbstractMqttClientExecutor {
     }
 
     private @NotNull Mqtt5Client connectMqtt5Client(
-            final @NotNull ConnectOptions connectOptions, final @Nullable SubscribeOptions subscribeOptions)
-            throws Exception {
-        final MqttClientBuilder clientBuilder = createBuilder(connectOptions);
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable SubscribeOptions subscribeOptions,
+            final @Nullable String identifier) throws Exception {
+        final MqttClientBuilder clientBuilder = createBuilder(connectOptions, identifier);
         final Mqtt5Client client = clientBuilder.useMqttVersion5()
                 .advancedConfig()
                 .interceptors()
@@ -280,6 +677,42 @@ abstract class AbstractMqttClientExecutor {
                 .applyInterceptors()
                 .applyAdvancedConfig()
                 .build();
+        client.toAsync()
+                .publishes(MqttGlobalPublishFilter.REMAINING,
+                        buildRemainingMqtt5PublishesCallback(subscribeOptions, client),
+                        true);
+
+        mqtt5Connect(client, createMqtt5Connect(connectOptions));
+
+        final ClientData clientData = new ClientData(client);
+
+        clientKeyToClientData.put(ClientKey.of(client), clientData);
+
+        return client;
+    }
+
+    private @NotNull Mqtt3Client connectMqtt3Client(
+            final @NotNull ConnectOptions connectOptions,
+            final @Nullable SubscribeOptions subscribeOptions,
+            final @Nullable String identifier) throws Exception {
+        final MqttClientBuilder clientBuilder = createBuilder(connectOptions, identifier);
+        final Mqtt3Client client = clientBuilder.useMqttVersion3().build();
+
+        client.toAsync()
+                .publishes(MqttGlobalPublishFilter.REMAINING,
+                        buildRemainingMqtt3PublishesCallback(subscribeOptions, client),
+                        true);
+
+        mqtt3Connect(client, createMqtt3Connect(connectOptions));
+
+        final ClientData clientData = new ClientData(client);
+
+        clientKeyToClientData.put(ClientKey.of(client), clientData);
+
+        return client;
+    }
+
+    private @NotNull Mqtt5Connect createMqtt5Connect(final @NotNull ConnectOptions connectOptions) {
         final Mqtt5Publish willPublish = createMqtt5WillPublish(connectOptions.getWillOptions());
         final Mqtt5ConnectRestrictions connectRestrictions =
                 createMqtt5ConnectRestrictions(connectOptions.getConnectRestrictionOptions());
@@ -312,27 +745,10 @@ abstract class AbstractMqttClientExecutor {
 
         //noinspection ResultOfMethodCallIgnored
         connectBuilder.simpleAuth(buildMqtt5Authentication(connectOptions.getAuthenticationOptions()));
-
-        client.toAsync()
-                .publishes(MqttGlobalPublishFilter.REMAINING,
-                        buildRemainingMqtt5PublishesCallback(subscribeOptions, client),
-                        true);
-
-        mqtt5Connect(client, connectBuilder.build());
-
-        final ClientData clientData = new ClientData(client);
-
-        clientKeyToClientData.put(ClientKey.of(client), clientData);
-
-        return client;
+        return connectBuilder.build();
     }
 
-    private @NotNull Mqtt3Client connectMqtt3Client(
-            final @NotNull ConnectOptions connectOptions, final @Nullable SubscribeOptions subscribeOptions)
-            throws Exception {
-        final MqttClientBuilder clientBuilder = createBuilder(connectOptions);
-        final Mqtt3Client client = clientBuilder.useMqttVersion3().build();
-
+    private @NotNull Mqtt3Connect createMqtt3Connect(final @NotNull ConnectOptions connectOptions) {
         final Mqtt3Publish willPublish = createMqtt3WillPublish(connectOptions.getWillOptions());
 
         final Mqtt3ConnectBuilder connectBuilder = Mqtt3Connect.builder().willPublish(willPublish);
@@ -348,19 +764,7 @@ abstract class AbstractMqttClientExecutor {
 
         //noinspection ResultOfMethodCallIgnored
         connectBuilder.simpleAuth(buildMqtt3Authentication(connectOptions.getAuthenticationOptions()));
-
-        client.toAsync()
-                .publishes(MqttGlobalPublishFilter.REMAINING,
-                        buildRemainingMqtt3PublishesCallback(subscribeOptions, client),
-                        true);
-
-        mqtt3Connect(client, connectBuilder.build());
-
-        final ClientData clientData = new ClientData(client);
-
-        clientKeyToClientData.put(ClientKey.of(client), clientData);
-
-        return client;
+        return connectBuilder.build();
     }
 
     private @Nullable Mqtt5Publish createMqtt5WillPublish(final @NotNull WillOptions willOptions) {
@@ -458,14 +862,15 @@ abstract class AbstractMqttClientExecutor {
         return restrictionsBuilder.build();
     }
 
-    private @NotNull MqttClientBuilder createBuilder(final @NotNull ConnectOptions connectOptions) throws Exception {
+    private @NotNull MqttClientBuilder createBuilder(
+            final @NotNull ConnectOptions connectOptions, final @Nullable String identifier) throws Exception {
         return MqttClient.builder()
                 .addDisconnectedListener(new ContextClientDisconnectListener())
                 .webSocketConfig(connectOptions.getWebSocketConfig())
                 .serverHost(connectOptions.getHost())
                 .serverPort(connectOptions.getPort())
                 .sslConfig(connectOptions.buildSslConfig())
-                .identifier(connectOptions.getIdentifier());
+                .identifier(identifier);
     }
 
     private @Nullable Mqtt5SimpleAuth buildMqtt5Authentication(final @NotNull AuthenticationOptions authenticationOptions) {
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.hivemq.cli.commands.options.BenchOptions;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.mqtt.template.MessageTemplate;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientExecutorConfig;
+import com.hivemq.client.mqtt.MqttClientExecutorConfigBuilder;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Connects many clients at a controlled rate, lets the publishers publish to '&lt;topic&gt;/&lt;client&gt;' and the
+ * subscribers receive all of these messages via '&lt;topic&gt;/#'. All clients share the same netty event loops.
+ */
+public class Benchmark {
+
+    private static final long RECEIVE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+    private final @NotNull ConnectOptions connectOptions;
+    private final @NotNull BenchOptions benchOptions;
+    private final @NotNull PrintStream out;
+
+    public Benchmark(
+            final @NotNull MqttClientExecutor mqttClientExecutor,
+            final @NotNull ConnectOptions connectOptions,
+            final @NotNull BenchOptions benchOptions,
+            final @NotNull PrintStream out) {
+        this.mqttClientExecutor = mqttClientExecutor;
+        this.connectOptions = connectOptions;
+        this.benchOptions = benchOptions;
+        this.out = out;
+    }
+
+    public @NotNull BenchmarkStatistics run() throws Exception {
+        final MqttClientSslConfig sslConfig = connectOptions.buildSslConfig();
+        final ExecutorService nettyExecutor =
+                Executors.newCachedThreadPool(MultiClientSupport.daemonThreadFactory("bench-netty"));
+        final MqttClientExecutorConfigBuilder executorConfigBuilder =
+                MqttClientExecutorConfig.builder().nettyExecutor(nettyExecutor);
+        if (benchOptions.getThreads() != null) {
+            //noinspection ResultOfMethodCallIgnored
+            executorConfigBuilder.nettyThreads(benchOptions.getThreads());
+        }
+        final MqttClientExecutorConfig executorConfig = executorConfigBuilder.build();
+
+        final BenchmarkStatistics statistics =
+                new BenchmarkStatistics(benchOptions.getSubscribers() + benchOptions.getPublishers());
+        final ScheduledExecutorService progressScheduler =
+                Executors.newSingleThreadScheduledExecutor(MultiClientSupport.daemonThreadFactory("bench-progress"));
+        progressScheduler.scheduleAtFixedRate(new ProgressTask(statistics), 1, 1, TimeUnit.SECONDS);
+
+        final List<MqttClient> subscribers = new ArrayList<>();
+        final List<MqttClient> publishers = new ArrayList<>();
+        try {
+            connectClients(sslConfig, executorConfig, statistics, subscribers, publishers);
+            subscribe(subscribers, statistics);
+            publish(publishers, statistics);
+            awaitReceivedPublishes(statistics);
+        } finally {
+            progressScheduler.shutdownNow();
+            MultiClientSupport.disconnect(subscribers);
+            MultiClientSupport.disconnect(publishers);
+            nettyExecutor.shutdown();
+        }
+        return statistics;
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private void connectClients(
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @NotNull MqttClientExecutorConfig executorConfig,
+            final @NotNull BenchmarkStatistics statistics,
+            final @NotNull List<MqttClient> subscribers,
+            final @NotNull List<MqttClient> publishers) {
+        final RateLimiter connectRateLimiter = RateLimiter.create(benchOptions.getConnectRate());
+        final List<CompletableFuture<MqttClient>> subscriberFutures = new ArrayList<>();
+        final List<CompletableFuture<MqttClient>> publisherFutures = new ArrayList<>();
+        for (int i = 0; i < benchOptions.getSubscribers(); i++) {
+            connectRateLimiter.acquire();
+            subscriberFutures.add(connectClient(sslConfig, executorConfig, statistics, "sub-" + i));
+        }
+        for (int i = 0; i < benchOptions.getPublishers(); i++) {
+            connectRateLimiter.acquire();
+            publisherFutures.add(connectClient(sslConfig, executorConfig, statistics, "pub-" + i));
+        }
+        collectConnectedClients(subscriberFutures, subscribers);
+        collectConnectedClients(publisherFutures, publishers);
+        statistics.finishConnects();
+    }
+
+    private @NotNull CompletableFuture<MqttClient> connectClient(
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @NotNull MqttClientExecutorConfig executorConfig,
+            final @NotNull BenchmarkStatistics statistics,
+            final @NotNull String suffix) {
+        // an empty identifier lets the broker assign the identifiers (MQTT 5 only)
+        final String identifier = connectOptions.getIdentifier() == null || connectOptions.getIdentifier().isEmpty() ?
+                "" :
+                connectOptions.getIdentifier() + "-" + suffix;
+        final long connectNanos = System.nanoTime();
+        return mqttClientExecutor.connectAsync(connectOptions, sslConfig, identifier, executorConfig)
+                .whenComplete((client, throwable) -> {
+                    statistics.onConnected(connectNanos, throwable == null);
+                    if (throwable != null) {
+                        Logger.debug(throwable, "Benchmark client '{}' failed to connect", identifier);
+                    }
+                });
+    }
+
+    private static void collectConnectedClients(
+            final @NotNull List<CompletableFuture<MqttClient>> connectFutures,
+            final @NotNull List<MqttClient> clients) {
+        for (final CompletableFuture<MqttClient> connectFuture : connectFutures) {
+            final MqttClient client = connectFuture.handle((c, throwable) -> c).join();
+            if (client != null) {
+                clients.add(client);
+            }
+        }
+    }
+
+    private void subscribe(final @NotNull List<MqttClient> subscribers, final @NotNull BenchmarkStatistics statistics) {
+        final String topicFilter = benchOptions.getTopic() + "/#";
+        final MqttQos qos = benchOptions.getQos();
+        final List<CompletableFuture<?>> subscribeFutures = new ArrayList<>();
+        for (final MqttClient client : subscribers) {
+            switch (client.getConfig().getMqttVersion()) {
+                case MQTT_5_0:
+                    subscribeFutures.add(((Mqtt5Client) client).toAsync()
+                            .subscribeWith()
+                            .topicFilter(topicFilter)
+                            .qos(qos)
+                            .callback(publish -> statistics.onReceived())
+                            .send());
+                    break;
+                case MQTT_3_1_1:
+                    subscribeFutures.add(((Mqtt3Client) client).toAsync()
+                            .subscribeWith()
+                            .topicFilter(topicFilter)
+                            .qos(qos)
+                            .callback(publish -> statistics.onReceived())
+                            .send());
+                    break;
+            }
+        }
+        CompletableFuture.allOf(subscribeFutures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private void publish(final @NotNull List<MqttClient> publishers, final @NotNull BenchmarkStatistics statistics)
+            throws InterruptedException {
+        if (publishers.isEmpty() || benchOptions.getDurationSeconds() == 0) {
+            return;
+        }
+        final List<Supplier<CompletableFuture<?>>> publishActions = createPublishActions(publishers);
+        final Double publishRate = benchOptions.getPublishRate();
+        final RateLimiter rateLimiter =
+                publishRate != null ? RateLimiter.create(publishRate * publishActions.size()) : null;
+        final int maxInFlight = benchOptions.getMaxInFlight();
+        final Semaphore inFlightPublishes = new Semaphore(maxInFlight);
+
+        final PublishStatistics publishStatistics = statistics.startPublishing();
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(benchOptions.getDurationSeconds());
+        int next = 0;
+        while (System.nanoTime() - deadlineNanos < 0) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            inFlightPublishes.acquire();
+            final long sentNanos = System.nanoTime();
+            publishStatistics.onSent();
+            publishActions.get(next).get().whenComplete((publishResult, throwable) -> {
+                publishStatistics.onCompleted(sentNanos, throwable == null);
+                inFlightPublishes.release();
+            });
+            next = (next + 1) % publishActions.size();
+        }
+
+        // Wait until all outstanding publishes are acknowledged or failed
+        inFlightPublishes.acquire(maxInFlight);
+        publishStatistics.finish();
+    }
+
+    /**
+     * The publishes are built once per client and reused, so publishing does not allocate new messages. With a payload
+     * template the payloads are rendered into buffers which are reused once their publishes completed.
+     */
+    private @NotNull List<Supplier<CompletableFuture<?>>> createPublishActions(
+            final @NotNull List<MqttClient> publishers) {
+        final MessageTemplate payloadTemplate = benchOptions.getPayloadTemplate();
+        if (payloadTemplate != null) {
+            return createTemplatePublishActions(publishers, payloadTemplate);
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(benchOptions.getMessageSize());
+        final List<Supplier<CompletableFuture<?>>> publishActions = new ArrayList<>();
+        for (int i = 0; i < publishers.size(); i++) {
+            final MqttClient client = publishers.get(i);
+            final String topic = benchOptions.getTopic() + "/" + i;
+            switch (client.getConfig().getMqttVersion()) {
+                case MQTT_5_0:
+                    final Mqtt5AsyncClient mqtt5Client = ((Mqtt5Client) client).toAsync();
+                    final Mqtt5Publish mqtt5Publish =
+                            Mqtt5Publish.builder().topic(topic).qos(benchOptions.getQos()).payload(payload).build();
+                    publishActions.add(() -> mqtt5Client.publish(mqtt5Publish));
+                    break;
+                case MQTT_3_1_1:
+                    final Mqtt3AsyncClient mqtt3Client = ((Mqtt3Client) client).toAsync();
+                    final Mqtt3Publish mqtt3Publish =
+                            Mqtt3Publish.builder().topic(topic).qos(benchOptions.getQos()).payload(payload).build();
+                    publishActions.add(() -> mqtt3Client.publish(mqtt3Publish));
+                    break;
+            }
+        }
+        return publishActions;
+    }
+
+    private @NotNull List<Supplier<CompletableFuture<?>>> createTemplatePublishActions(
+            final @NotNull List<MqttClient> publishers, final @NotNull MessageTemplate payloadTemplate) {
+        final Queue<ByteBuffer> payloadBuffers = new ConcurrentLinkedQueue<>();
+        final List<Supplier<CompletableFuture<?>>> publishActions = new ArrayList<>();
+        for (int i = 0; i < publishers.size(); i++) {
+            final MqttClient client = publishers.get(i);
+            final int clientIndex = i;
+            final String topic = benchOptions.getTopic() + "/" + i;
+            final long[] sequence = {0};
+            publishActions.add(() -> {
+                ByteBuffer payload = payloadBuffers.poll();
+                if (payload == null) {
+                    payload = ByteBuffer.allocate(payloadTemplate.getMaximumLength());
+                }
+                payload.clear();
+                payload.limit(payloadTemplate.render(payload.array(), sequence[0]++, clientIndex));
+                final ByteBuffer releasedPayload = payload;
+                return publish(client, topic, payload).whenComplete((publishResult, throwable) ->
+                        payloadBuffers.offer(releasedPayload));
+            });
+        }
+        return publishActions;
+    }
+
+    private @NotNull CompletableFuture<?> publish(
+            final @NotNull MqttClient client, final @NotNull String topic, final @NotNull ByteBuffer payload) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return ((Mqtt5Client) client).toAsync()
+                        .publish(Mqtt5Publish.builder()
+                                .topic(topic)
+                                .qos(benchOptions.getQos())
+                                .payload(payload)
+                                .build());
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync()
+                        .publish(Mqtt3Publish.builder()
+                                .topic(topic)
+                                .qos(benchOptions.getQos())
+                                .payload(payload)
+                                .build());
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private void awaitReceivedPublishes(final @NotNull BenchmarkStatistics statistics) throws InterruptedException {
+        final PublishStatistics publishStatistics = statistics.getPublishStatistics();
+        if (publishStatistics == null) {
+            return;
+        }
+        final long expectedPublishes = publishStatistics.getAcknowledgedPublishes() * benchOptions.getSubscribers();
+        long lastReceived = -1;
+        long lastProgressNanos = System.nanoTime();
+        // QoS 0 messages may be dropped, so only wait as long as messages are still arriving
+        while (statistics.getReceivedPublishes() < expectedPublishes &&
+                System.nanoTime() - lastProgressNanos < RECEIVE_TIMEOUT_NANOS) {
+            final long received = statistics.getReceivedPublishes();
+            if (received != lastReceived) {
+                lastReceived = received;
+                lastProgressNanos = System.nanoTime();
+            }
+            //noinspection BusyWait
+            Thread.sleep(100);
+        }
+    }
+
+    private class ProgressTask extends MultiClientSupport.ProgressTask {
+
+        private final @NotNull BenchmarkStatistics statistics;
+        private long lastConnected = 0;
+        private long lastPublished = 0;
+        private long lastReceived = 0;
+
+        ProgressTask(final @NotNull BenchmarkStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        void printProgress(final double seconds) {
+            final long connected = statistics.getConnectedClients();
+            final long received = statistics.getReceivedPublishes();
+            final PublishStatistics publishStatistics = statistics.getPublishStatistics();
+            if (publishStatistics == null) {
+                out.printf(Locale.ROOT,
+                        "Connected %d/%d clients (%.1f connects/s), %d failed%n",
+                        connected,
+                        statistics.getClients(),
+                        (connected - lastConnected) / seconds,
+                        statistics.getFailedConnects());
+            } else {
+                final long published = publishStatistics.getAcknowledgedPublishes();
+                out.printf(Locale.ROOT,
+                        "Published %d (%.1f msgs/s), received %d (%.1f msgs/s), %d failed%n",
+                        published,
+                        (published - lastPublished) / seconds,
+                        received,
+                        (received - lastReceived) / seconds,
+                        publishStatistics.getFailedPublishes());
+                lastPublished = published;
+            }
+            lastConnected = connected;
+            lastReceived = received;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.utils.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BenchmarkStatistics {
+
+    private final int clients;
+    private final @NotNull LatencyHistogram connAckLatency = new LatencyHistogram();
+    private final @NotNull AtomicLong connectedClients = new AtomicLong();
+    private final @NotNull AtomicLong failedConnects = new AtomicLong();
+    private final @NotNull AtomicLong receivedPublishes = new AtomicLong();
+    private final long connectStartNanos = System.nanoTime();
+    private volatile long connectEndNanos = -1;
+    private volatile @Nullable PublishStatistics publishStatistics;
+
+    BenchmarkStatistics(final int clients) {
+        this.clients = clients;
+    }
+
+    void onConnected(final long connectNanos, final boolean success) {
+        if (success) {
+            connAckLatency.recordValue(System.nanoTime() - connectNanos);
+            connectedClients.incrementAndGet();
+        } else {
+            failedConnects.incrementAndGet();
+        }
+    }
+
+    void finishConnects() {
+        connectEndNanos = System.nanoTime();
+    }
+
+    void onReceived() {
+        receivedPublishes.incrementAndGet();
+    }
+
+    @NotNull PublishStatistics startPublishing() {
+        final PublishStatistics publishStatistics = new PublishStatistics();
+        this.publishStatistics = publishStatistics;
+        return publishStatistics;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public long getConnectedClients() {
+        return connectedClients.get();
+    }
+
+    public long getFailedConnects() {
+        return failedConnects.get();
+    }
+
+    public long getReceivedPublishes() {
+        return receivedPublishes.get();
+    }
+
+    public @NotNull LatencyHistogram getConnAckLatency() {
+        return connAckLatency;
+    }
+
+    public @Nullable PublishStatistics getPublishStatistics() {
+        return publishStatistics;
+    }
+
+    public long getConnectElapsedNanos() {
+        final long end = connectEndNanos;
+        return (end == -1 ? System.nanoTime() : end) - connectStartNanos;
+    }
+
+    public double getConnectsPerSecond() {
+        final long elapsedNanos = getConnectElapsedNanos();
+        return elapsedNanos == 0 ? 0 : connectedClients.get() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public void printSummary(final @NotNull PrintStream out) {
+        out.printf(Locale.ROOT,
+                "Connected %d of %d clients in %.3f s (%.1f connects/s), %d failed%n",
+                getConnectedClients(),
+                clients,
+                getConnectElapsedNanos() / 1_000_000_000.0,
+                getConnectsPerSecond(),
+                getFailedConnects());
+        out.println("CONNACK latency (ms): " + connAckLatency.toSummaryString());
+        final PublishStatistics publishStatistics = this.publishStatistics;
+        if (publishStatistics != null) {
+            publishStatistics.printSummary(out);
+            final long elapsedNanos = publishStatistics.getElapsedNanos();
+            out.printf(Locale.ROOT,
+                    "Received %d messages (%.1f msgs/s)%n",
+                    getReceivedPublishes(),
+                    elapsedNanos == 0 ? 0 : getReceivedPublishes() * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.hivemq.cli.mqtt;
 
+import com.hivemq.cli.mqtt.e2e.EndToEndStamper;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
 import org.jetbrains.annotations.NotNull;
@@ -29,11 +30,13 @@ public class ClientData {
     private final @NotNull MqttClient mqttClient;
     private final @NotNull LocalDateTime creationTime;
     private final @NotNull Set<MqttTopicFilter> subscribedTopics;
+    private final @NotNull EndToEndStamper endToEndStamper;
 
     public ClientData(final @NotNull MqttClient mqttClient) {
         this.mqttClient = mqttClient;
         this.creationTime = LocalDateTime.now();
         this.subscribedTopics = new HashSet<>();
+        this.endToEndStamper = new EndToEndStamper();
     }
 
     public void addSubscription(final @NotNull MqttTopicFilter topic) {
@@ -56,6 +59,10 @@ public class ClientData {
         return subscribedTopics;
     }
 
+    public @NotNull EndToEndStamper getEndToEndStamper() {
+        return endToEndStamper;
+    }
+
     public @NotNull MqttClient getClient() {
         return this.mqttClient;
     }
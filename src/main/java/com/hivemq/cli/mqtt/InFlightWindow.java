@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the publishes which are sent but not yet acknowledged. The time the window is full, so sending stalls until
+ * an acknowledgement frees a slot, is recorded in the statistics.
+ */
+class InFlightWindow {
+
+    private final int size;
+    private final @NotNull Semaphore slots;
+    private final @Nullable PublishStatistics statistics;
+
+    InFlightWindow(final int size, final @Nullable PublishStatistics statistics) {
+        this.size = size;
+        slots = new Semaphore(size);
+        this.statistics = statistics;
+        if (statistics != null) {
+            statistics.onInFlightWindow(size);
+        }
+    }
+
+    void acquire() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            return;
+        }
+        final long stallStartNanos = System.nanoTime();
+        slots.acquire();
+        if (statistics != null) {
+            statistics.onStalled(System.nanoTime() - stallStartNanos);
+        }
+    }
+
+    void release() {
+        slots.release();
+    }
+
+    /**
+     * Waits until all publishes are acknowledged or failed. The window can not be used afterwards.
+     */
+    void awaitCompleted() throws InterruptedException {
+        slots.acquire(size);
+    }
+
+    int getSize() {
+        return size;
+    }
+}
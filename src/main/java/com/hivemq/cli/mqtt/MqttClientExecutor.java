@@ -21,6 +21,7 @@ import com.hivemq.cli.commands.options.DisconnectOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
 import com.hivemq.cli.commands.options.UnsubscribeOptions;
+import com.hivemq.cli.mqtt.e2e.EndToEndStamp;
 import com.hivemq.cli.utils.LoggerUtils;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
@@ -32,7 +33,9 @@ import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3PublishBuilder;
 import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscribe;
-import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscription;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAck;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAckReturnCode;
 import com.hivemq.client.mqtt.mqtt3.message.unsubscribe.Mqtt3Unsubscribe;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.exceptions.Mqtt5ConnAckException;
@@ -46,18 +49,28 @@ import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscription;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAck;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAckReasonCode;
 import com.hivemq.client.mqtt.mqtt5.message.unsubscribe.Mqtt5Unsubscribe;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Singleton
 public class MqttClientExecutor extends AbstractMqttClientExecutor {
 
+    static final int PAYLOAD_PREVIEW_LENGTH = 256;
+
     @Inject
     MqttClientExecutor() {
     }
@@ -95,13 +108,18 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
         Logger.debug("{} received CONNACK\n    {}", clientLogPrefix, connAck);
     }
 
-    void mqtt5Subscribe(
+    @NotNull CompletableFuture<?> mqtt5Subscribe(
             final @NotNull Mqtt5Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable Executor callbackExecutor) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
-        final Mqtt5SubscribeBuilder.Start.Complete builder = Mqtt5Subscribe.builder().topicFilter(topic).qos(qos);
+        final List<Mqtt5Subscription> subscriptions = new ArrayList<>(topics.size());
+        for (int i = 0; i < topics.size(); i++) {
+            subscriptions.add(Mqtt5Subscription.builder().topicFilter(topics.get(i)).qos(qos.get(i)).build());
+        }
+        final Mqtt5SubscribeBuilder.Complete builder = Mqtt5Subscribe.builder().addSubscriptions(subscriptions);
 
         if (subscribeOptions.getUserProperties() != null) {
             //noinspection ResultOfMethodCallIgnored
@@ -112,74 +130,126 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
 
         Logger.debug("{} sending SUBSCRIBE\n    {}", clientLogPrefix, subscribeMessage);
 
-        client.toAsync()
-                .subscribe(subscribeMessage, new SubscribeMqtt5PublishCallback(subscribeOptions, client), true)
-                .whenComplete((subAck, throwable) -> {
-                    if (throwable != null) {
-                        if (throwable instanceof Mqtt5SubAckException) {
-                            Logger.debug("{} received SUBACK\n    {}",
-                                    clientLogPrefix,
-                                    ((Mqtt5SubAckException) throwable).getMqttMessage());
+        final SubscribeMqtt5PublishCallback callback = new SubscribeMqtt5PublishCallback(subscribeOptions, client);
+        final CompletableFuture<Mqtt5SubAck> subAckFuture = callbackExecutor != null ?
+                client.toAsync().subscribe(subscribeMessage, callback, callbackExecutor, true) :
+                client.toAsync().subscribe(subscribeMessage, callback, true);
+        return subAckFuture
+                .handle((subAck, throwable) -> {
+                    final List<Mqtt5SubAckReasonCode> reasonCodes;
+                    if (throwable == null) {
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
+                        reasonCodes = subAck.getReasonCodes();
+                    } else if (throwable instanceof Mqtt5SubAckException) {
+                        final Mqtt5SubAck errorSubAck = ((Mqtt5SubAckException) throwable).getMqttMessage();
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, errorSubAck);
+                        reasonCodes = errorSubAck.getReasonCodes();
+                    } else {
+                        reasonCodes = null;
+                    }
+
+                    int rejectedTopics = 0;
+                    for (int i = 0; i < topics.size(); i++) {
+                        final String topic = topics.get(i);
+                        final String error;
+                        if (reasonCodes != null && reasonCodes.size() == topics.size()) {
+                            error = reasonCodes.get(i).isError() ? reasonCodes.get(i).toString() : null;
+                        } else if (throwable != null) {
+                            error = Throwables.getRootCause(throwable).getMessage();
+                        } else {
+                            error = "SUBACK does not match SUBSCRIBE";
+                        }
+                        if (error == null) {
+                            getClientDataMap().get(ClientKey.of(client)).addSubscription(MqttTopicFilter.of(topic));
+                        } else {
+                            Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}", clientLogPrefix, topic, error);
+                            rejectedTopics++;
                         }
-                        Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
-                                clientLogPrefix,
-                                topic,
-                                Throwables.getRootCause(throwable).getMessage());
+                    }
+                    if (throwable != null) {
                         Logger.trace(throwable);
-                    } else {
-                        final ClientKey clientKey = ClientKey.of(client);
-                        getClientDataMap().get(clientKey).addSubscription(MqttTopicFilter.of(topic));
-                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
                     }
-                })
-                .join();
+                    return checkSubscribed(topics, rejectedTopics);
+                });
     }
 
-    void mqtt3Subscribe(
+    @NotNull CompletableFuture<?> mqtt3Subscribe(
             final @NotNull Mqtt3Client client,
             final @NotNull SubscribeOptions subscribeOptions,
-            final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull List<String> topics,
+            final @NotNull List<MqttQos> qos,
+            final @Nullable Executor callbackExecutor) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
-        final Mqtt3SubscribeBuilder.Start.Complete builder = Mqtt3Subscribe.builder().topicFilter(topic).qos(qos);
-        final Mqtt3Subscribe subscribeMessage = builder.build();
+        final List<Mqtt3Subscription> subscriptions = new ArrayList<>(topics.size());
+        for (int i = 0; i < topics.size(); i++) {
+            subscriptions.add(Mqtt3Subscription.builder().topicFilter(topics.get(i)).qos(qos.get(i)).build());
+        }
+        final Mqtt3Subscribe subscribeMessage = Mqtt3Subscribe.builder().addSubscriptions(subscriptions).build();
 
         Logger.debug("{} sending SUBSCRIBE\n    {}", clientLogPrefix, subscribeMessage);
 
-        client.toAsync()
-                .subscribe(subscribeMessage, new SubscribeMqtt3PublishCallback(subscribeOptions, client), true)
-                .whenComplete((subAck, throwable) -> {
-                    if (throwable != null) {
-                        if (throwable instanceof Mqtt3SubAckException) {
-                            Logger.debug("{} received SUBACK\n    {}",
-                                    clientLogPrefix,
-                                    ((Mqtt3SubAckException) throwable).getMqttMessage());
-                        }
-                        Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}",
-                                clientLogPrefix,
-                                topic,
-                                Throwables.getRootCause(throwable).getMessage());
-                        Logger.trace(throwable);
+        final SubscribeMqtt3PublishCallback callback = new SubscribeMqtt3PublishCallback(subscribeOptions, client);
+        final CompletableFuture<Mqtt3SubAck> subAckFuture = callbackExecutor != null ?
+                client.toAsync().subscribe(subscribeMessage, callback, callbackExecutor, true) :
+                client.toAsync().subscribe(subscribeMessage, callback, true);
+        return subAckFuture
+                .handle((subAck, throwable) -> {
+                    final List<Mqtt3SubAckReturnCode> returnCodes;
+                    if (throwable == null) {
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
+                        returnCodes = subAck.getReturnCodes();
+                    } else if (throwable instanceof Mqtt3SubAckException) {
+                        final Mqtt3SubAck errorSubAck = ((Mqtt3SubAckException) throwable).getMqttMessage();
+                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, errorSubAck);
+                        returnCodes = errorSubAck.getReturnCodes();
                     } else {
-                        getClientDataMap().get(ClientKey.of(client)).addSubscription(MqttTopicFilter.of(topic));
+                        returnCodes = null;
+                    }
 
-                        Logger.debug("{} received SUBACK\n    {}", clientLogPrefix, subAck);
+                    int rejectedTopics = 0;
+                    for (int i = 0; i < topics.size(); i++) {
+                        final String topic = topics.get(i);
+                        final String error;
+                        if (returnCodes != null && returnCodes.size() == topics.size()) {
+                            error = returnCodes.get(i).isError() ? returnCodes.get(i).toString() : null;
+                        } else if (throwable != null) {
+                            error = Throwables.getRootCause(throwable).getMessage();
+                        } else {
+                            error = "SUBACK does not match SUBSCRIBE";
+                        }
+                        if (error == null) {
+                            getClientDataMap().get(ClientKey.of(client)).addSubscription(MqttTopicFilter.of(topic));
+                        } else {
+                            Logger.error("{} failed SUBSCRIBE to TOPIC '{}': {}", clientLogPrefix, topic, error);
+                            rejectedTopics++;
+                        }
                     }
-                })
-                .join();
+                    if (throwable != null) {
+                        Logger.trace(throwable);
+                    }
+                    return checkSubscribed(topics, rejectedTopics);
+                });
+    }
+
+    private static @NotNull List<String> checkSubscribed(final @NotNull List<String> topics, final int rejectedTopics) {
+        if (rejectedTopics > 0) {
+            throw new IllegalStateException(rejectedTopics + " of " + topics.size() + " topic filters were rejected");
+        }
+        return topics;
     }
 
-    void mqtt5Publish(
+    @NotNull CompletableFuture<?> mqtt5Publish(
             final @NotNull Mqtt5Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
 
         final Mqtt5PublishBuilder.Complete publishBuilder = Mqtt5Publish.builder()
                 .topic(topic)
                 .qos(qos)
-                .payload(publishOptions.getMessage())
+                .payload(payload)
                 .payloadFormatIndicator(publishOptions.getPayloadFormatIndicator())
                 .contentType(publishOptions.getContentType())
                 .responseTopic(publishOptions.getResponseTopic())
@@ -197,15 +267,23 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
             //noinspection ResultOfMethodCallIgnored
             publishBuilder.userProperties(publishOptions.getUserProperties());
         }
+        if (publishOptions.isEndToEnd()) {
+            final EndToEndStamp stamp =
+                    getClientDataMap().get(ClientKey.of(client)).getEndToEndStamper().next(topic);
+            //noinspection ResultOfMethodCallIgnored
+            publishBuilder.userProperties(stamp.addToUserProperties(publishOptions.getUserProperties()));
+        }
 
         final Mqtt5Publish publishMessage = publishBuilder.build();
 
-        Logger.debug("{} sending PUBLISH ('{}')\n    {}",
-                clientLogPrefix,
-                bufferToString(publishOptions.getMessage()),
-                publishMessage);
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} sending PUBLISH ('{}')\n    {}",
+                    clientLogPrefix,
+                    payloadPreview(payload),
+                    publishMessage);
+        }
 
-        client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
+        return client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
             if (throwable != null) {
                 Logger.error("{} failed PUBLISH to TOPIC '{}': {}",
                         clientLogPrefix,
@@ -215,32 +293,41 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
             } else {
                 Logger.debug("{} finish PUBLISH\n    {}", clientLogPrefix, publishResult);
             }
-        }).join();
+        });
     }
 
-    void mqtt3Publish(
+    @NotNull CompletableFuture<?> mqtt3Publish(
             final @NotNull Mqtt3Client client,
             final @NotNull PublishOptions publishOptions,
             final @NotNull String topic,
-            final @NotNull MqttQos qos) {
+            final @NotNull MqttQos qos,
+            final @NotNull ByteBuffer payload) {
         final String clientLogPrefix = LoggerUtils.getClientPrefix(client.getConfig());
 
         final Mqtt3PublishBuilder.Complete publishBuilder =
-                Mqtt3Publish.builder().topic(topic).qos(qos).payload(publishOptions.getMessage());
+                Mqtt3Publish.builder().topic(topic).qos(qos).payload(payload);
 
         if (publishOptions.getRetain() != null) {
             //noinspection ResultOfMethodCallIgnored
             publishBuilder.retain(publishOptions.getRetain());
         }
+        if (publishOptions.isEndToEnd()) {
+            final EndToEndStamp stamp =
+                    getClientDataMap().get(ClientKey.of(client)).getEndToEndStamper().next(topic);
+            //noinspection ResultOfMethodCallIgnored
+            publishBuilder.payload(stamp.prependToPayload(payload));
+        }
 
         final Mqtt3Publish publishMessage = publishBuilder.build();
 
-        Logger.debug("{} sending PUBLISH ('{}')\n    {}",
-                clientLogPrefix,
-                bufferToString(publishOptions.getMessage()),
-                publishMessage);
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("{} sending PUBLISH ('{}')\n    {}",
+                    clientLogPrefix,
+                    payloadPreview(payload),
+                    publishMessage);
+        }
 
-        client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
+        return client.toAsync().publish(publishMessage).whenComplete((publishResult, throwable) -> {
             if (throwable != null) {
                 Logger.error("{} failed PUBLISH to TOPIC '{}': {}",
                         clientLogPrefix,
@@ -250,7 +337,7 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
             } else {
                 Logger.debug("{} finish PUBLISH\n    {}", clientLogPrefix, publishResult);
             }
-        }).join();
+        });
     }
 
     @Override
@@ -340,7 +427,17 @@ public class MqttClientExecutor extends AbstractMqttClientExecutor {
         client.toBlocking().disconnect();
     }
 
-    private @NotNull String bufferToString(final @NotNull ByteBuffer b) {
-        return new String(b.array(), StandardCharsets.UTF_8);
+    /**
+     * Decodes at most {@value #PAYLOAD_PREVIEW_LENGTH} bytes, so logging neither requires a heap backed payload nor
+     * copies a large one.
+     */
+    static @NotNull String payloadPreview(final @NotNull ByteBuffer payload) {
+        final ByteBuffer preview = payload.duplicate();
+        final int remaining = preview.remaining();
+        if (remaining <= PAYLOAD_PREVIEW_LENGTH) {
+            return StandardCharsets.UTF_8.decode(preview).toString();
+        }
+        preview.limit(preview.position() + PAYLOAD_PREVIEW_LENGTH);
+        return StandardCharsets.UTF_8.decode(preview) + "... (" + remaining + " bytes)";
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared parts of the commands which run many clients on their own netty threads, {@link Benchmark} and
+ * {@link Replay}.
+ */
+final class MultiClientSupport {
+
+    private MultiClientSupport() {
+    }
+
+    /**
+     * Disconnects all clients and waits until all disconnects are done, failed disconnects are ignored.
+     */
+    static void disconnect(final @NotNull List<MqttClient> clients) {
+        final List<CompletableFuture<?>> disconnectFutures = new ArrayList<>();
+        for (final MqttClient client : clients) {
+            switch (client.getConfig().getMqttVersion()) {
+                case MQTT_5_0:
+                    disconnectFutures.add(((Mqtt5Client) client).toAsync().disconnect());
+                    break;
+                case MQTT_3_1_1:
+                    disconnectFutures.add(((Mqtt3Client) client).toAsync().disconnect());
+                    break;
+            }
+        }
+        CompletableFuture.allOf(disconnectFutures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, throwable) -> null)
+                .join();
+    }
+
+    static @NotNull ThreadFactory daemonThreadFactory(final @NotNull String name) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Prints the progress when it is run periodically, the rates are calculated over the time since the last run.
+     */
+    abstract static class ProgressTask implements Runnable {
+
+        private long lastNanos = System.nanoTime();
+
+        @Override
+        public void run() {
+            final long now = System.nanoTime();
+            final double seconds = (now - lastNanos) / 1_000_000_000.0;
+            lastNanos = now;
+            printProgress(seconds);
+        }
+
+        abstract void printProgress(double seconds);
+    }
+}
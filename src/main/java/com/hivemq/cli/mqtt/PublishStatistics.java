@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.google.gson.stream.JsonWriter;
+import com.hivemq.cli.commands.options.PublishLatencyOptions;
+import com.hivemq.cli.utils.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PublishStatistics {
+
+    private final @NotNull LatencyHistogram acknowledgementLatency = new LatencyHistogram();
+    private final @NotNull AtomicLong sentPublishes = new AtomicLong();
+    private final @NotNull AtomicLong acknowledgedPublishes = new AtomicLong();
+    private final @NotNull AtomicLong failedPublishes = new AtomicLong();
+    private final @NotNull AtomicLong stalledNanos = new AtomicLong();
+    private volatile int inFlightWindow = 0;
+    private final @NotNull AtomicLong aliasedPublishes = new AtomicLong();
+    private final @NotNull AtomicLong topicAliasSavedBytes = new AtomicLong();
+    private volatile int topicAliasMaximum = 0;
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = -1;
+
+    void onSent() {
+        sentPublishes.incrementAndGet();
+    }
+
+    void onCompleted(final long sentNanos, final boolean success) {
+        if (success) {
+            acknowledgementLatency.recordValue(System.nanoTime() - sentNanos);
+            acknowledgedPublishes.incrementAndGet();
+        } else {
+            failedPublishes.incrementAndGet();
+        }
+    }
+
+    void onInFlightWindow(final int size) {
+        inFlightWindow = size;
+    }
+
+    void onStalled(final long nanos) {
+        stalledNanos.addAndGet(nanos);
+    }
+
+    void onTopicAliasMaximum(final int topicAliasMaximum) {
+        this.topicAliasMaximum = topicAliasMaximum;
+    }
+
+    void onTopicAlias(final boolean aliased, final int savedBytes) {
+        if (aliased) {
+            aliasedPublishes.incrementAndGet();
+        }
+        topicAliasSavedBytes.addAndGet(savedBytes);
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public @NotNull LatencyHistogram getAcknowledgementLatency() {
+        return acknowledgementLatency;
+    }
+
+    public long getSentPublishes() {
+        return sentPublishes.get();
+    }
+
+    public long getAcknowledgedPublishes() {
+        return acknowledgedPublishes.get();
+    }
+
+    public long getFailedPublishes() {
+        return failedPublishes.get();
+    }
+
+    /**
+     * @return the time sending stalled because the in-flight window was full
+     */
+    public long getStalledNanos() {
+        return stalledNanos.get();
+    }
+
+    public int getInFlightWindow() {
+        return inFlightWindow;
+    }
+
+    /**
+     * @return the publishes which a least recently used cache of topic aliases would send with an alias, see
+     *         {@link TopicAliasEstimator}
+     */
+    public long getAliasedPublishes() {
+        return aliasedPublishes.get();
+    }
+
+    /**
+     * @return the estimated bytes topic aliases saved, see {@link TopicAliasEstimator}
+     */
+    public long getTopicAliasSavedBytes() {
+        return topicAliasSavedBytes.get();
+    }
+
+    public long getElapsedNanos() {
+        final long end = endNanos;
+        return (end == -1 ? System.nanoTime() : end) - startNanos;
+    }
+
+    public double getPublishesPerSecond() {
+        final long elapsedNanos = getElapsedNanos();
+        return elapsedNanos == 0 ? 0 : acknowledgedPublishes.get() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public void printSummary(final @NotNull PrintStream out) {
+        out.printf(Locale.ROOT,
+                "Published %d messages in %.3f s (%.1f msgs/s), %d acknowledged, %d failed%n",
+                getSentPublishes(),
+                getElapsedNanos() / 1_000_000_000.0,
+                getPublishesPerSecond(),
+                getAcknowledgedPublishes(),
+                getFailedPublishes());
+        out.println("Acknowledgement latency (ms): " + acknowledgementLatency.toSummaryString());
+        if (inFlightWindow > 0) {
+            final long elapsedNanos = getElapsedNanos();
+            out.printf(Locale.ROOT,
+                    "In-flight window %d, stalled waiting for acknowledgements for %.3f s (%.1f%%)%n",
+                    inFlightWindow,
+                    getStalledNanos() / 1_000_000_000.0,
+                    elapsedNanos == 0 ? 0 : getStalledNanos() * 100.0 / elapsedNanos);
+        }
+        if (topicAliasMaximum > 0) {
+            out.printf(Locale.ROOT,
+                    "Topic aliases (maximum %d, LRU estimate): %d of %d messages would use an alias, which would " +
+                            "save about %d bytes%n",
+                    topicAliasMaximum,
+                    getAliasedPublishes(),
+                    getSentPublishes(),
+                    getTopicAliasSavedBytes());
+        }
+    }
+
+    public void writeLatencyDistribution(
+            final @NotNull File file, final @NotNull PublishLatencyOptions.OutputFormat format) throws IOException {
+        try (final BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            switch (format) {
+                case json:
+                    final JsonWriter jsonWriter = new JsonWriter(writer);
+                    jsonWriter.setIndent("  ");
+                    acknowledgementLatency.writeJson(jsonWriter);
+                    break;
+                case hgrm:
+                    acknowledgementLatency.outputPercentileDistribution(new PrintWriter(writer));
+                    break;
+            }
+        }
+    }
+}
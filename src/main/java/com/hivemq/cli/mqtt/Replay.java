@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.ReplayOptions;
+import com.hivemq.cli.mqtt.capture.CaptureReader;
+import com.hivemq.cli.mqtt.capture.CapturedPublish;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientExecutorConfig;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Republishes a capture with the recorded time between the publishes, scaled by the speed multiplier. The publishes
+ * are spread over a pool of connections by their topic, so the order of the publishes per topic is kept.
+ */
+public class Replay {
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+    private final @NotNull ConnectOptions connectOptions;
+    private final @NotNull ReplayOptions replayOptions;
+    private final @NotNull PrintStream out;
+
+    public Replay(
+            final @NotNull MqttClientExecutor mqttClientExecutor,
+            final @NotNull ConnectOptions connectOptions,
+            final @NotNull ReplayOptions replayOptions,
+            final @NotNull PrintStream out) {
+        this.mqttClientExecutor = mqttClientExecutor;
+        this.connectOptions = connectOptions;
+        this.replayOptions = replayOptions;
+        this.out = out;
+    }
+
+    public @NotNull ReplayStatistics run() throws Exception {
+        final MqttClientSslConfig sslConfig = connectOptions.buildSslConfig();
+        final ExecutorService nettyExecutor =
+                Executors.newCachedThreadPool(MultiClientSupport.daemonThreadFactory("replay-netty"));
+        final MqttClientExecutorConfig executorConfig =
+                MqttClientExecutorConfig.builder().nettyExecutor(nettyExecutor).build();
+
+        final ReplayStatistics statistics = new ReplayStatistics();
+        final List<MqttClient> clients = new ArrayList<>();
+        final ScheduledExecutorService progressScheduler =
+                Executors.newSingleThreadScheduledExecutor(MultiClientSupport.daemonThreadFactory("replay-progress"));
+        try (final CaptureReader captureReader = CaptureReader.open(replayOptions.getFile(),
+                replayOptions.isBase64(),
+                TimeUnit.SECONDS.toMicros(replayOptions.getSkipSeconds()))) {
+            connectClients(sslConfig, executorConfig, clients);
+            progressScheduler.scheduleAtFixedRate(new ProgressTask(statistics.getPublishStatistics()),
+                    1,
+                    1,
+                    TimeUnit.SECONDS);
+            replay(captureReader, clients, statistics);
+        } finally {
+            progressScheduler.shutdownNow();
+            MultiClientSupport.disconnect(clients);
+            nettyExecutor.shutdown();
+        }
+        return statistics;
+    }
+
+    private void connectClients(
+            final @Nullable MqttClientSslConfig sslConfig,
+            final @NotNull MqttClientExecutorConfig executorConfig,
+            final @NotNull List<MqttClient> clients) {
+        final int connections = replayOptions.getConnections();
+        final String identifier = connectOptions.getIdentifier() == null ? "" : connectOptions.getIdentifier();
+        final List<CompletableFuture<MqttClient>> connectFutures = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            // an empty identifier lets the broker assign the identifiers (MQTT 5 only)
+            final String clientIdentifier = connections == 1 || identifier.isEmpty() ? identifier : identifier + "-" + i;
+            connectFutures.add(mqttClientExecutor.connectAsync(connectOptions,
+                    sslConfig,
+                    clientIdentifier,
+                    executorConfig));
+        }
+        // collect the connected clients first, so they are disconnected if another connect failed
+        for (final CompletableFuture<MqttClient> connectFuture : connectFutures) {
+            final MqttClient client = connectFuture.handle((c, throwable) -> c).join();
+            if (client != null) {
+                clients.add(client);
+            }
+        }
+        // rethrows the failure of the first failed connect
+        CompletableFuture.allOf(connectFutures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void replay(
+            final @NotNull CaptureReader captureReader,
+            final @NotNull List<MqttClient> clients,
+            final @NotNull ReplayStatistics statistics) throws Exception {
+        final Double speed = replayOptions.getSpeed();
+        final int maxInFlight = replayOptions.getMaxInFlight();
+        final Semaphore inFlightPublishes = new Semaphore(maxInFlight);
+        final PublishStatistics publishStatistics = statistics.getPublishStatistics();
+
+        long firstTimestampMicros = CapturedPublish.UNKNOWN_TIMESTAMP;
+        long startNanos = 0;
+        CapturedPublish publish;
+        while ((publish = captureReader.next()) != null) {
+            final long timestampMicros = publish.getTimestampMicros();
+            if (speed != null && timestampMicros != CapturedPublish.UNKNOWN_TIMESTAMP) {
+                if (firstTimestampMicros == CapturedPublish.UNKNOWN_TIMESTAMP) {
+                    firstTimestampMicros = timestampMicros;
+                    startNanos = System.nanoTime();
+                }
+                final long scheduledNanos =
+                        startNanos + scheduledOffsetNanos(timestampMicros - firstTimestampMicros, speed);
+                sleepUntil(scheduledNanos);
+                statistics.onScheduled(System.nanoTime() - scheduledNanos);
+            }
+
+            inFlightPublishes.acquire();
+            final MqttClient client = clients.get(Math.floorMod(publish.getTopic().hashCode(), clients.size()));
+            final long sentNanos = System.nanoTime();
+            publishStatistics.onSent();
+            publish(client, publish).whenComplete((publishResult, throwable) -> {
+                publishStatistics.onCompleted(sentNanos, throwable == null);
+                if (throwable != null) {
+                    Logger.debug(throwable, "Replayed PUBLISH failed");
+                }
+                inFlightPublishes.release();
+            });
+        }
+
+        // Wait until all outstanding publishes are acknowledged or failed
+        inFlightPublishes.acquire(maxInFlight);
+        publishStatistics.finish();
+    }
+
+    /**
+     * Publishes recorded out of order are sent immediately.
+     */
+    static long scheduledOffsetNanos(final long recordedOffsetMicros, final double speed) {
+        return Math.max(0, (long) (recordedOffsetMicros * 1_000 / speed));
+    }
+
+    private static void sleepUntil(final long deadlineNanos) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    private static @NotNull CompletableFuture<?> publish(
+            final @NotNull MqttClient client, final @NotNull CapturedPublish publish) {
+        switch (client.getConfig().getMqttVersion()) {
+            case MQTT_5_0:
+                return ((Mqtt5Client) client).toAsync().publish(publish.toMqtt5Publish());
+            case MQTT_3_1_1:
+                return ((Mqtt3Client) client).toAsync().publish(publish.toMqtt3Publish());
+            default:
+                throw new IllegalStateException("The MQTT Version specified is not supported. Version was " +
+                        client.getConfig().getMqttVersion());
+        }
+    }
+
+    private class ProgressTask extends MultiClientSupport.ProgressTask {
+
+        private final @NotNull PublishStatistics statistics;
+        private long lastPublished = 0;
+
+        ProgressTask(final @NotNull PublishStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        void printProgress(final double seconds) {
+            final long published = statistics.getAcknowledgedPublishes();
+            out.printf(Locale.ROOT,
+                    "Replayed %d (%.1f msgs/s), %d failed%n",
+                    published,
+                    (published - lastPublished) / seconds,
+                    statistics.getFailedPublishes());
+            lastPublished = published;
+        }
+    }
+}
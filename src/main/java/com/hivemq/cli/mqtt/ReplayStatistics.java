@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.utils.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+
+public class ReplayStatistics {
+
+    private final @NotNull PublishStatistics publishStatistics = new PublishStatistics();
+    private final @NotNull LatencyHistogram scheduleLag = new LatencyHistogram();
+
+    /**
+     * @param lagNanos how much later than scheduled by the recorded timing a publish was sent
+     */
+    void onScheduled(final long lagNanos) {
+        scheduleLag.recordValue(Math.max(0, lagNanos));
+    }
+
+    public @NotNull PublishStatistics getPublishStatistics() {
+        return publishStatistics;
+    }
+
+    public @NotNull LatencyHistogram getScheduleLag() {
+        return scheduleLag;
+    }
+
+    public void printSummary(final @NotNull PrintStream out) {
+        publishStatistics.printSummary(out);
+        if (scheduleLag.getTotalCount() > 0) {
+            out.println("Schedule lag (ms): " + scheduleLag.toSummaryString());
+        }
+    }
+}
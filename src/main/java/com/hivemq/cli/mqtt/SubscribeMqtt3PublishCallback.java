@@ -17,9 +17,15 @@
 package com.hivemq.cli.mqtt;
 
 import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.mqtt.capture.BinaryCaptureWriter;
+import com.hivemq.cli.mqtt.e2e.EndToEndLatencyTracker;
+import com.hivemq.cli.mqtt.e2e.EndToEndStamp;
+import com.hivemq.cli.mqtt.output.AsyncFileWriter;
+import com.hivemq.cli.mqtt.output.OutputFileWriters;
+import com.hivemq.cli.mqtt.output.OutputPipeline;
 import com.hivemq.cli.utils.LoggerUtils;
-import com.hivemq.cli.utils.MqttPublishUtils;
-import com.hivemq.cli.utils.json.JsonMqttPublish;
+import com.hivemq.cli.utils.PayloadFormatter;
+import com.hivemq.cli.utils.json.JsonMqttPublishWriter;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import org.jetbrains.annotations.NotNull;
@@ -27,62 +33,143 @@ import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 
 public class SubscribeMqtt3PublishCallback implements Consumer<Mqtt3Publish> {
 
-    private final @Nullable File outputFile;
+    private final @Nullable AsyncFileWriter outputFileWriter;
+    private final @Nullable BinaryCaptureWriter captureWriter;
     private final @NotNull Mqtt3Client client;
     private final boolean printToStdout;
-    private final boolean isBase64;
-    private final boolean isJsonOutput;
+    private final @NotNull PayloadFormatter payloadFormatter;
+    private final @Nullable JsonMqttPublishWriter jsonWriter;
     private final boolean showTopics;
+    private final @Nullable EndToEndLatencyTracker endToEndLatencyTracker;
+    private final @Nullable SubscribeStatistics subscribeStatistics;
+    private final @Nullable OutputPipeline outputPipeline;
 
     SubscribeMqtt3PublishCallback(final @NotNull SubscribeOptions subscribeOptions, final @NotNull Mqtt3Client client) {
         printToStdout = subscribeOptions.isPrintToSTDOUT();
-        outputFile = subscribeOptions.getOutputFile();
-        isBase64 = subscribeOptions.isEncodePayloadInBase64();
-        isJsonOutput = subscribeOptions.isJsonOutput();
+        final File outputFile = subscribeOptions.getOutputFile();
+        outputFileWriter = outputFile != null ?
+                OutputFileWriters.get(outputFile, subscribeOptions.getOutputFileOptions()) :
+                null;
+        final File captureFile = subscribeOptions.getCaptureFile();
+        captureWriter = captureFile != null ? OutputFileWriters.getCaptureWriter(captureFile) : null;
+        final boolean isBase64 = subscribeOptions.isEncodePayloadInBase64();
+        payloadFormatter = new PayloadFormatter(isBase64);
+        jsonWriter = subscribeOptions.isJsonOutput() ?
+                new JsonMqttPublishWriter(isBase64, subscribeOptions.isNdjsonOutput()) :
+                null;
         showTopics = subscribeOptions.isShowTopics();
+        endToEndLatencyTracker = subscribeOptions.getEndToEndLatencyTracker();
+        subscribeStatistics = subscribeOptions.getSubscribeStatistics();
+        outputPipeline = subscribeOptions.getOutputPipeline();
         this.client = client;
     }
 
     @Override
     public void accept(final @NotNull Mqtt3Publish mqtt3Publish) {
+        boolean acknowledgedByPipeline = false;
         try {
-            String message;
+            if (subscribeStatistics != null) {
+                subscribeStatistics.record(mqtt3Publish.getTopic().toString(),
+                        mqtt3Publish.getPayload().map(ByteBuffer::remaining).orElse(0),
+                        mqtt3Publish.getQos(),
+                        mqtt3Publish.isRetain());
+            }
+
+            if (captureWriter != null) {
+                // the capture contains the publish as received, including an end-to-end stamp
+                captureWriter.write(mqtt3Publish);
+            }
+
+            final Mqtt3Publish outputPublish;
             try {
-                if (isJsonOutput) {
-                    message = new JsonMqttPublish(mqtt3Publish, isBase64).toString();
+                if (endToEndLatencyTracker != null) {
+                    outputPublish = recordEndToEndLatency(endToEndLatencyTracker, mqtt3Publish);
                 } else {
-                    message = MqttPublishUtils.formatPayload(mqtt3Publish.getPayloadAsBytes(), isBase64);
+                    outputPublish = mqtt3Publish;
                 }
 
-                if (showTopics) {
-                    message = mqtt3Publish.getTopic() + ": " + message;
+                if (Logger.isDebugEnabled()) {
+                    Logger.debug("{} received PUBLISH ('{}')\n    {}",
+                            LoggerUtils.getClientPrefix(client.getConfig()),
+                            mqtt3Publish.getPayload()
+                                    .map(payload -> StandardCharsets.UTF_8.decode(payload).toString())
+                                    .orElse(""),
+                            mqtt3Publish);
                 }
-
-                Logger.debug("{} received PUBLISH ('{}')\n    {}",
-                        LoggerUtils.getClientPrefix(client.getConfig()),
-                        new String(mqtt3Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
-                        mqtt3Publish);
             } catch (final Exception e) {
                 Logger.error("An error occurred while processing an incoming PUBLISH.", e);
                 return;
             }
 
-            if (outputFile != null) {
-                MqttPublishUtils.printToFile(outputFile, message);
+            if (!printToStdout && outputFileWriter == null) {
+                // nothing is printed or written, e.g. in the statistics or capture mode
+                return;
             }
 
-            if (printToStdout) {
-                System.out.println(message);
+            if (outputPipeline != null) {
+                // the pipeline acknowledges the publish according to its ack policy
+                acknowledgedByPipeline = true;
+                outputPipeline.submit(onWritten -> output(outputPublish, onWritten), mqtt3Publish::acknowledge);
+                return;
             }
-
+            output(outputPublish, null);
         } finally {
-            //Necessary to ensure log ordering
-            mqtt3Publish.acknowledge();
+            if (!acknowledgedByPipeline) {
+                //Necessary to ensure log ordering
+                mqtt3Publish.acknowledge();
+            }
+        }
+    }
+
+    /**
+     * @param onWritten called once the message is printed and written to the output file
+     */
+    private void output(final @NotNull Mqtt3Publish outputPublish, final @Nullable Runnable onWritten) {
+        final String message;
+        try {
+            final String formattedPublish;
+            if (jsonWriter != null) {
+                formattedPublish = jsonWriter.write(outputPublish);
+            } else {
+                formattedPublish = payloadFormatter.format(outputPublish.getPayload());
+            }
+            message = showTopics ? outputPublish.getTopic() + ": " + formattedPublish : formattedPublish;
+        } catch (final Exception e) {
+            Logger.error("An error occurred while processing an incoming PUBLISH.", e);
+            if (onWritten != null) {
+                onWritten.run();
+            }
+            return;
+        }
+
+        if (printToStdout) {
+            System.out.println(message);
+        }
+
+        if (outputFileWriter != null) {
+            outputFileWriter.writeLine(message, onWritten);
+        } else if (onWritten != null) {
+            onWritten.run();
+        }
+    }
+
+    /**
+     * @return the publish without the end-to-end stamp in the payload, so the stamp is not part of the output
+     */
+    private static @NotNull Mqtt3Publish recordEndToEndLatency(
+            final @NotNull EndToEndLatencyTracker tracker, final @NotNull Mqtt3Publish mqtt3Publish) {
+        final ByteBuffer payload = mqtt3Publish.getPayload().orElse(null);
+        final EndToEndStamp stamp = payload != null ? EndToEndStamp.fromPayload(payload) : null;
+        if (stamp == null) {
+            return mqtt3Publish;
         }
+        tracker.record(stamp, mqtt3Publish.getTopic().toString());
+        return mqtt3Publish.extend().payload(EndToEndStamp.skipHeader(payload)).build();
     }
 }
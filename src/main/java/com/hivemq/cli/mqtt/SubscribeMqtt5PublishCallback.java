@@ -17,9 +17,15 @@
 package com.hivemq.cli.mqtt;
 
 import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.mqtt.capture.BinaryCaptureWriter;
+import com.hivemq.cli.mqtt.e2e.EndToEndLatencyTracker;
+import com.hivemq.cli.mqtt.e2e.EndToEndStamp;
+import com.hivemq.cli.mqtt.output.AsyncFileWriter;
+import com.hivemq.cli.mqtt.output.OutputFileWriters;
+import com.hivemq.cli.mqtt.output.OutputPipeline;
 import com.hivemq.cli.utils.LoggerUtils;
-import com.hivemq.cli.utils.MqttPublishUtils;
-import com.hivemq.cli.utils.json.JsonMqttPublish;
+import com.hivemq.cli.utils.PayloadFormatter;
+import com.hivemq.cli.utils.json.JsonMqttPublishWriter;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import org.jetbrains.annotations.NotNull;
@@ -27,62 +33,148 @@ import org.jetbrains.annotations.Nullable;
 import org.tinylog.Logger;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 
 public class SubscribeMqtt5PublishCallback implements Consumer<Mqtt5Publish> {
 
-    private final @Nullable File outputFile;
+    private final @Nullable AsyncFileWriter outputFileWriter;
+    private final @Nullable BinaryCaptureWriter captureWriter;
     private final @NotNull Mqtt5Client client;
     private final boolean printToStdout;
-    private final boolean isBase64;
-    private final boolean isJsonOutput;
+    private final @NotNull PayloadFormatter payloadFormatter;
+    private final @Nullable JsonMqttPublishWriter jsonWriter;
     private final boolean showTopics;
+    private final @Nullable EndToEndLatencyTracker endToEndLatencyTracker;
+    private final @Nullable SubscribeStatistics subscribeStatistics;
+    private final @Nullable OutputPipeline outputPipeline;
 
     SubscribeMqtt5PublishCallback(final @NotNull SubscribeOptions subscribeOptions, final @NotNull Mqtt5Client client) {
         printToStdout = subscribeOptions.isPrintToSTDOUT();
-        outputFile = subscribeOptions.getOutputFile();
-        isBase64 = subscribeOptions.isEncodePayloadInBase64();
-        isJsonOutput = subscribeOptions.isJsonOutput();
+        final File outputFile = subscribeOptions.getOutputFile();
+        outputFileWriter = outputFile != null ?
+                OutputFileWriters.get(outputFile, subscribeOptions.getOutputFileOptions()) :
+                null;
+        final File captureFile = subscribeOptions.getCaptureFile();
+        captureWriter = captureFile != null ? OutputFileWriters.getCaptureWriter(captureFile) : null;
+        final boolean isBase64 = subscribeOptions.isEncodePayloadInBase64();
+        payloadFormatter = new PayloadFormatter(isBase64);
+        jsonWriter = subscribeOptions.isJsonOutput() ?
+                new JsonMqttPublishWriter(isBase64, subscribeOptions.isNdjsonOutput()) :
+                null;
         showTopics = subscribeOptions.isShowTopics();
+        endToEndLatencyTracker = subscribeOptions.getEndToEndLatencyTracker();
+        subscribeStatistics = subscribeOptions.getSubscribeStatistics();
+        outputPipeline = subscribeOptions.getOutputPipeline();
         this.client = client;
     }
 
     @Override
     public void accept(final @NotNull Mqtt5Publish mqtt5Publish) {
+        boolean acknowledgedByPipeline = false;
         try {
-            String message;
+            if (subscribeStatistics != null) {
+                subscribeStatistics.record(mqtt5Publish.getTopic().toString(),
+                        mqtt5Publish.getPayload().map(ByteBuffer::remaining).orElse(0),
+                        mqtt5Publish.getQos(),
+                        mqtt5Publish.isRetain());
+            }
+
+            if (captureWriter != null) {
+                // the capture contains the publish as received, including an end-to-end stamp
+                captureWriter.write(mqtt5Publish);
+            }
+
+            final Mqtt5Publish outputPublish;
             try {
-                if (isJsonOutput) {
-                    message = new JsonMqttPublish(mqtt5Publish, isBase64).toString();
+                if (endToEndLatencyTracker != null) {
+                    outputPublish = recordEndToEndLatency(endToEndLatencyTracker, mqtt5Publish);
                 } else {
-                    message = MqttPublishUtils.formatPayload(mqtt5Publish.getPayloadAsBytes(), isBase64);
+                    outputPublish = mqtt5Publish;
                 }
 
-                if (showTopics) {
-                    message = mqtt5Publish.getTopic() + ": " + message;
+                if (Logger.isDebugEnabled()) {
+                    Logger.debug("{} received PUBLISH ('{}')\n    {}",
+                            LoggerUtils.getClientPrefix(client.getConfig()),
+                            mqtt5Publish.getPayload()
+                                    .map(payload -> StandardCharsets.UTF_8.decode(payload).toString())
+                                    .orElse(""),
+                            mqtt5Publish);
                 }
-
-                Logger.debug("{} received PUBLISH ('{}')\n    {}",
-                        LoggerUtils.getClientPrefix(client.getConfig()),
-                        new String(mqtt5Publish.getPayloadAsBytes(), StandardCharsets.UTF_8),
-                        mqtt5Publish);
             } catch (final Exception e) {
                 Logger.error("An error occurred while processing an incoming PUBLISH.", e);
                 return;
             }
 
-            if (outputFile != null) {
-                MqttPublishUtils.printToFile(outputFile, message);
+            if (!printToStdout && outputFileWriter == null) {
+                // nothing is printed or written, e.g. in the statistics or capture mode
+                return;
             }
 
-            if (printToStdout) {
-                System.out.println(message);
+            if (outputPipeline != null) {
+                // the pipeline acknowledges the publish according to its ack policy
+                acknowledgedByPipeline = true;
+                outputPipeline.submit(onWritten -> output(outputPublish, onWritten), mqtt5Publish::acknowledge);
+                return;
             }
-
+            output(outputPublish, null);
         } finally {
-            //Necessary to ensure log ordering
-            mqtt5Publish.acknowledge();
+            if (!acknowledgedByPipeline) {
+                //Necessary to ensure log ordering
+                mqtt5Publish.acknowledge();
+            }
+        }
+    }
+
+    /**
+     * @param onWritten called once the message is printed and written to the output file
+     */
+    private void output(final @NotNull Mqtt5Publish outputPublish, final @Nullable Runnable onWritten) {
+        final String message;
+        try {
+            final String formattedPublish;
+            if (jsonWriter != null) {
+                formattedPublish = jsonWriter.write(outputPublish);
+            } else {
+                formattedPublish = payloadFormatter.format(outputPublish.getPayload());
+            }
+            message = showTopics ? outputPublish.getTopic() + ": " + formattedPublish : formattedPublish;
+        } catch (final Exception e) {
+            Logger.error("An error occurred while processing an incoming PUBLISH.", e);
+            if (onWritten != null) {
+                onWritten.run();
+            }
+            return;
+        }
+
+        if (printToStdout) {
+            System.out.println(message);
+        }
+
+        if (outputFileWriter != null) {
+            outputFileWriter.writeLine(message, onWritten);
+        } else if (onWritten != null) {
+            onWritten.run();
+        }
+    }
+
+    /**
+     * @return the publish without the end-to-end stamp in the payload, so the stamp is not part of the output
+     */
+    private static @NotNull Mqtt5Publish recordEndToEndLatency(
+            final @NotNull EndToEndLatencyTracker tracker, final @NotNull Mqtt5Publish mqtt5Publish) {
+        final EndToEndStamp propertiesStamp = EndToEndStamp.fromUserProperties(mqtt5Publish.getUserProperties());
+        if (propertiesStamp != null) {
+            tracker.record(propertiesStamp, mqtt5Publish.getTopic().toString());
+            return mqtt5Publish;
+        }
+        final ByteBuffer payload = mqtt5Publish.getPayload().orElse(null);
+        final EndToEndStamp payloadStamp = payload != null ? EndToEndStamp.fromPayload(payload) : null;
+        if (payloadStamp == null) {
+            return mqtt5Publish;
         }
+        tracker.record(payloadStamp, mqtt5Publish.getTopic().toString());
+        return mqtt5Publish.extend().payload(EndToEndStamp.skipHeader(payload)).build();
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.cli.utils.LatencyHistogram;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the received publishes in total and per topic for the statistics mode of the subscribe command.
+ * Publishes can be recorded concurrently, the summaries are printed by a single thread.
+ */
+public class SubscribeStatistics {
+
+    // bounds the memory for wide topic trees, publishes to further topics are only counted in total
+    static final int MAX_TRACKED_TOPICS = 100_000;
+    static final @NotNull String OTHER_TOPICS = "(other topics)";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double BYTES_PER_KB = 1024.0;
+
+    private final @NotNull Map<String, TopicStatistics> topics = new ConcurrentHashMap<>();
+    private final @NotNull TopicStatistics total = new TopicStatistics();
+    private final @NotNull LongAdder @NotNull [] qosCounts =
+            {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final @NotNull LatencyHistogram payloadSizes = new LatencyHistogram();
+    private final long startNanos = System.nanoTime();
+    private long intervalStartNanos = startNanos;
+    private long intervalStartMessages = 0;
+    private long intervalStartBytes = 0;
+
+    public void record(
+            final @NotNull String topic, final int payloadSize, final @NotNull MqttQos qos, final boolean retain) {
+        total.record(payloadSize, retain);
+        qosCounts[qos.getCode()].increment();
+        payloadSizes.recordValue(payloadSize);
+
+        TopicStatistics topicStatistics = topics.get(topic);
+        if (topicStatistics == null) {
+            topicStatistics = topics.size() < MAX_TRACKED_TOPICS ?
+                    topics.computeIfAbsent(topic, key -> new TopicStatistics()) :
+                    topics.computeIfAbsent(OTHER_TOPICS, key -> new TopicStatistics());
+        }
+        topicStatistics.record(payloadSize, retain);
+    }
+
+    public long getMessages() {
+        return total.messages.sum();
+    }
+
+    public long getBytes() {
+        return total.bytes.sum();
+    }
+
+    public long getRetained() {
+        return total.retained.sum();
+    }
+
+    public long getMessages(final @NotNull MqttQos qos) {
+        return qosCounts[qos.getCode()].sum();
+    }
+
+    public int getTopicCount() {
+        return topics.size();
+    }
+
+    public @NotNull LatencyHistogram getPayloadSizes() {
+        return payloadSizes;
+    }
+
+    /**
+     * Overwrites the current line with the totals and the rates since the last call.
+     */
+    public void printProgress(final @NotNull PrintStream out) {
+        final long now = System.nanoTime();
+        final long messages = getMessages();
+        final long bytes = getBytes();
+        final double seconds = Math.max(1, now - intervalStartNanos) / NANOS_PER_SECOND;
+        final double messageRate = (messages - intervalStartMessages) / seconds;
+        final double kilobyteRate = (bytes - intervalStartBytes) / BYTES_PER_KB / seconds;
+        intervalStartNanos = now;
+        intervalStartMessages = messages;
+        intervalStartBytes = bytes;
+        out.append(String.format(Locale.ROOT,
+                "\rReceived %d messages (%.1f msgs/s, %.1f KB/s) on %d topics",
+                messages,
+                messageRate,
+                kilobyteRate,
+                getTopicCount())).flush();
+    }
+
+    public void printSummary(final @NotNull PrintStream out, final int topTopics) {
+        final double seconds = Math.max(1, System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        out.printf(Locale.ROOT,
+                "Received %d messages in %.3f s (%.1f msgs/s, %.1f KB/s) on %d topics%n",
+                getMessages(),
+                seconds,
+                getMessages() / seconds,
+                getBytes() / BYTES_PER_KB / seconds,
+                getTopicCount());
+        out.printf(Locale.ROOT,
+                "QoS 0: %d, QoS 1: %d, QoS 2: %d, retained: %d%n",
+                getMessages(MqttQos.AT_MOST_ONCE),
+                getMessages(MqttQos.AT_LEAST_ONCE),
+                getMessages(MqttQos.EXACTLY_ONCE),
+                getRetained());
+        out.printf(Locale.ROOT,
+                "Payload size (bytes): min=%d mean=%.1f p50=%d p90=%d p99=%d max=%d%n",
+                payloadSizes.getMin(),
+                payloadSizes.getMean(),
+                payloadSizes.getValueAtPercentile(50),
+                payloadSizes.getValueAtPercentile(90),
+                payloadSizes.getValueAtPercentile(99),
+                payloadSizes.getMax());
+
+        final List<Map.Entry<String, TopicStatistics>> topTopicList = getTopTopics(topTopics);
+        if (topTopicList.isEmpty()) {
+            return;
+        }
+        out.printf(Locale.ROOT, "%12s %12s %12s %10s  %s%n", "Messages", "Msgs/s", "KB", "Retained", "Topic");
+        for (final Map.Entry<String, TopicStatistics> entry : topTopicList) {
+            final TopicStatistics topicStatistics = entry.getValue();
+            final long messages = topicStatistics.getMessages();
+            out.printf(Locale.ROOT,
+                    "%12d %12.1f %12.1f %10d  %s%n",
+                    messages,
+                    messages / seconds,
+                    topicStatistics.bytes.sum() / BYTES_PER_KB,
+                    topicStatistics.retained.sum(),
+                    entry.getKey());
+        }
+    }
+
+    @NotNull List<Map.Entry<String, TopicStatistics>> getTopTopics(final int limit) {
+        final List<Map.Entry<String, TopicStatistics>> entries = new ArrayList<>(topics.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, TopicStatistics> entry) -> entry.getValue()
+                .getMessages()).reversed().thenComparing(Map.Entry::getKey));
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    static class TopicStatistics {
+
+        private final @NotNull LongAdder messages = new LongAdder();
+        private final @NotNull LongAdder bytes = new LongAdder();
+        private final @NotNull LongAdder retained = new LongAdder();
+
+        void record(final int payloadSize, final boolean retain) {
+            messages.increment();
+            bytes.add(payloadSize);
+            if (retain) {
+                retained.increment();
+            }
+        }
+
+        long getMessages() {
+            return messages.sum();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttVersion;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimates the bytes which topic aliases save for the publishes of a connection.
+ * <p>
+ * The client assigns topic aliases itself, up to the topic alias maximum negotiated with the broker, and does not
+ * expose which publishes were sent with an alias. The estimate models the aliases as a least recently used cache of
+ * that size: a publish to a cached topic is sent with an empty topic and the alias, a publish to another topic is sent
+ * with the topic and a new alias which replaces the least recently used one. The client itself does not evict the least
+ * recently used alias but weighs how often a topic was used against the cost of overwriting its alias, so its real
+ * aliases and savings can differ from this estimate. Not thread-safe.
+ */
+class TopicAliasEstimator {
+
+    // identifier and two byte value of the topic alias property
+    private static final int ALIAS_PROPERTY_LENGTH = 3;
+
+    private final @NotNull PublishStatistics statistics;
+    // topic to its encoded length, in access order
+    private final @NotNull LinkedHashMap<String, Integer> aliases;
+
+    TopicAliasEstimator(final int topicAliasMaximum, final @NotNull PublishStatistics statistics) {
+        this.statistics = statistics;
+        aliases = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final @NotNull Map.Entry<String, Integer> eldest) {
+                return size() > topicAliasMaximum;
+            }
+        };
+        statistics.onTopicAliasMaximum(topicAliasMaximum);
+    }
+
+    /**
+     * @return the estimator for the negotiated topic alias maximum or <code>null</code> if the connection does not use
+     *         topic aliases
+     */
+    static @Nullable TopicAliasEstimator of(
+            final @NotNull MqttClient client, final @Nullable PublishStatistics statistics) {
+        if (statistics == null || client.getConfig().getMqttVersion() != MqttVersion.MQTT_5_0) {
+            return null;
+        }
+        final int topicAliasMaximum = ((Mqtt5Client) client).getConfig()
+                .getConnectionConfig()
+                .map(connectionConfig -> connectionConfig.getRestrictionsForClient().getSendTopicAliasMaximum())
+                .orElse(0);
+        return topicAliasMaximum > 0 ? new TopicAliasEstimator(topicAliasMaximum, statistics) : null;
+    }
+
+    void onPublish(final @NotNull String topic) {
+        final Integer cachedLength = aliases.get(topic);
+        if (cachedLength != null) {
+            statistics.onTopicAlias(true, cachedLength - ALIAS_PROPERTY_LENGTH);
+            return;
+        }
+        final int topicLength = topic.getBytes(StandardCharsets.UTF_8).length;
+        // an alias for a topic shorter than the alias property does not pay off
+        if (topicLength > ALIAS_PROPERTY_LENGTH) {
+            aliases.put(topic, topicLength);
+            statistics.onTopicAlias(false, -ALIAS_PROPERTY_LENGTH);
+        }
+    }
+}
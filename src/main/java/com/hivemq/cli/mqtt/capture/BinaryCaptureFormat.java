@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The binary capture format stores publishes with their full MQTT 5 metadata. All numbers are big endian, strings
+ * are UTF-8 prefixed by their length as unsigned short.
+ * <pre>
+ * header:  int magic 'MQCP', byte version
+ * record:  int length of the following fields
+ *          long timestamp in microseconds since the epoch
+ *          byte flags (bits 0-1 qos, retain, content type, payload format indicator, message expiry interval,
+ *                      response topic, correlation data)
+ *          string topic
+ *          [string content type] [byte payload format indicator] [int message expiry interval]
+ *          [string response topic] [int length, bytes correlation data]
+ *          int user property count, (string name, string value) per user property
+ *          int length, bytes payload
+ * </pre>
+ * The length prefix of the records allows to skip records without decoding them.
+ */
+final class BinaryCaptureFormat {
+
+    static final int MAGIC = 0x4D514350;
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = 5;
+
+    static final int FLAG_QOS_MASK = 0x03;
+    static final int FLAG_RETAIN = 0x04;
+    static final int FLAG_CONTENT_TYPE = 0x08;
+    static final int FLAG_PAYLOAD_FORMAT_INDICATOR = 0x10;
+    static final int FLAG_MESSAGE_EXPIRY_INTERVAL = 0x20;
+    static final int FLAG_RESPONSE_TOPIC = 0x40;
+    static final int FLAG_CORRELATION_DATA = 0x80;
+
+    private BinaryCaptureFormat() {
+    }
+
+    /**
+     * Checks for the magic number without consuming the input.
+     */
+    static boolean startsWithHeader(final @NotNull InputStream input) throws IOException {
+        input.mark(4);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                final int read = input.read();
+                if (read == -1) {
+                    return false;
+                }
+                magic = magic << 8 | read;
+            }
+            return magic == MAGIC;
+        } finally {
+            input.reset();
+        }
+    }
+}
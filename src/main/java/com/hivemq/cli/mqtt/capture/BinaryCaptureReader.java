@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserPropertiesBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads captures in the {@link BinaryCaptureFormat}. The payload of a returned publish shares the memory of its
+ * record, so the record is not copied again.
+ */
+public class BinaryCaptureReader implements CaptureReader {
+
+    // the maximum size of a PUBLISH packet
+    private static final int MAXIMUM_RECORD_LENGTH = 268_435_455;
+
+    private final @NotNull DataInputStream input;
+    private long records = 0;
+    private long offset = BinaryCaptureFormat.HEADER_LENGTH;
+
+    public BinaryCaptureReader(final @NotNull InputStream input) throws IOException {
+        this.input = new DataInputStream(input);
+        final int magic = this.input.readInt();
+        if (magic != BinaryCaptureFormat.MAGIC) {
+            throw new IOException("Not a binary capture, unknown magic number " + Integer.toHexString(magic));
+        }
+        final byte version = this.input.readByte();
+        if (version != BinaryCaptureFormat.VERSION) {
+            throw new IOException("Unsupported binary capture version " + version);
+        }
+    }
+
+    @Override
+    public @Nullable CapturedPublish next() throws IOException {
+        final int first = input.read();
+        if (first == -1) {
+            return null;
+        }
+        final int length = first << 24 | input.readUnsignedByte() << 16 | input.readUnsignedShort();
+        if (length < 0 || length > MAXIMUM_RECORD_LENGTH) {
+            throw new IOException("Invalid length " + length + " of capture record " + records);
+        }
+        final byte[] record = new byte[length];
+        try {
+            input.readFully(record);
+        } catch (final EOFException e) {
+            throw new EOFException("Truncated capture record " + records);
+        }
+        offset += 4 + length;
+        try {
+            return decode(ByteBuffer.wrap(record));
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Invalid capture record " + records, e);
+        } finally {
+            records++;
+        }
+    }
+
+    /**
+     * Skips forward to a record offset, e.g. found in the {@link CaptureIndex}.
+     */
+    public void seek(final long recordOffset) throws IOException {
+        while (offset < recordOffset) {
+            final long skipped = input.skip(recordOffset - offset);
+            if (skipped <= 0) {
+                throw new EOFException("Cannot seek to offset " + recordOffset + " behind the end of the capture");
+            }
+            offset += skipped;
+        }
+    }
+
+    static @NotNull CapturedPublish decode(final @NotNull ByteBuffer record) {
+        final long timestampMicros = record.getLong();
+        final int flags = record.get() & 0xFF;
+        final MqttQos qos = MqttQos.fromCode(flags & BinaryCaptureFormat.FLAG_QOS_MASK);
+        if (qos == null) {
+            throw new IllegalArgumentException("Invalid QoS " + (flags & BinaryCaptureFormat.FLAG_QOS_MASK));
+        }
+        final String topic = getString(record);
+        final String contentType =
+                (flags & BinaryCaptureFormat.FLAG_CONTENT_TYPE) != 0 ? getString(record) : null;
+        final Mqtt5PayloadFormatIndicator payloadFormatIndicator =
+                (flags & BinaryCaptureFormat.FLAG_PAYLOAD_FORMAT_INDICATOR) != 0 ?
+                        Mqtt5PayloadFormatIndicator.fromCode(record.get()) :
+                        null;
+        final Long messageExpiryInterval =
+                (flags & BinaryCaptureFormat.FLAG_MESSAGE_EXPIRY_INTERVAL) != 0 ?
+                        record.getInt() & 0xFFFF_FFFFL :
+                        null;
+        final String responseTopic =
+                (flags & BinaryCaptureFormat.FLAG_RESPONSE_TOPIC) != 0 ? getString(record) : null;
+        final ByteBuffer correlationData =
+                (flags & BinaryCaptureFormat.FLAG_CORRELATION_DATA) != 0 ? getBytes(record) : null;
+        final int userPropertyCount = record.getInt();
+        final Mqtt5UserPropertiesBuilder userProperties = Mqtt5UserProperties.builder();
+        for (int i = 0; i < userPropertyCount; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            userProperties.add(getString(record), getString(record));
+        }
+        final ByteBuffer payload = getBytes(record);
+        return new CapturedPublish(timestampMicros,
+                topic,
+                payload,
+                qos,
+                (flags & BinaryCaptureFormat.FLAG_RETAIN) != 0,
+                contentType,
+                payloadFormatIndicator,
+                messageExpiryInterval,
+                responseTopic,
+                correlationData,
+                userProperties.build());
+    }
+
+    private static @NotNull String getString(final @NotNull ByteBuffer record) {
+        final int length = record.getShort() & 0xFFFF;
+        if (length > record.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final String string = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return string;
+    }
+
+    private static @NotNull ByteBuffer getBytes(final @NotNull ByteBuffer record) {
+        final int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final ByteBuffer bytes = record.slice();
+        bytes.limit(length);
+        record.position(record.position() + length);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttUtf8String;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes received publishes in the {@link BinaryCaptureFormat} together with a {@link CaptureIndex}.
+ * <p>
+ * Publishes are encoded directly into a buffer which is written through a {@link FileChannel} when it is full, so
+ * a publish costs no allocation besides the views of its strings. Buffered publishes are written by a separate thread
+ * every flush interval, also when no further publishes arrive, and when the writer is closed. An existing capture is
+ * appended to.
+ */
+public class BinaryCaptureWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    static final long FLUSH_INTERVAL_MILLIS = 1000;
+    // an index entry is added at least every this many records or microseconds
+    static final int INDEX_INTERVAL_RECORDS = 1000;
+    static final long INDEX_INTERVAL_MICROS = 1_000_000;
+
+    private final @NotNull Path file;
+    private final @NotNull FileChannel channel;
+    private final @NotNull CaptureIndex.Writer indexWriter;
+    private final @NotNull ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final @NotNull ScheduledExecutorService flushScheduler;
+    // microseconds since the epoch with the resolution of the monotonic clock
+    private final long clockOffsetMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) -
+            TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+    private long position;
+    private long recordsSinceIndexEntry = INDEX_INTERVAL_RECORDS;
+    private long lastIndexEntryMicros = Long.MIN_VALUE;
+    private long writtenRecords;
+    private boolean closed;
+    private boolean failed;
+
+    public BinaryCaptureWriter(final @NotNull Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            position = channel.size();
+            if (position == 0) {
+                buffer.putInt(BinaryCaptureFormat.MAGIC).put(BinaryCaptureFormat.VERSION);
+            } else {
+                final ByteBuffer header = ByteBuffer.allocate(BinaryCaptureFormat.HEADER_LENGTH);
+                channel.read(header, 0);
+                if (header.hasRemaining() || header.getInt(0) != BinaryCaptureFormat.MAGIC ||
+                        header.get(4) != BinaryCaptureFormat.VERSION) {
+                    throw new IOException("Cannot append to " + file + " as it is not a binary capture");
+                }
+            }
+            channel.position(position);
+            indexWriter = new CaptureIndex.Writer(CaptureIndex.indexFileOf(file));
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "capture-flush-" + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleAtFixedRate(this::scheduledFlush,
+                FLUSH_INTERVAL_MILLIS,
+                FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void write(final @NotNull Mqtt5Publish publish) {
+        final Mqtt5PayloadFormatIndicator payloadFormatIndicator = publish.getPayloadFormatIndicator().orElse(null);
+        write(currentTimeMicros(),
+                publish.getTopic(),
+                publish.getQos(),
+                publish.isRetain(),
+                publish.getContentType().orElse(null),
+                payloadFormatIndicator != null ? payloadFormatIndicator.getCode() : -1,
+                publish.getMessageExpiryInterval().isPresent() ? publish.getMessageExpiryInterval().getAsLong() : -1,
+                publish.getResponseTopic().orElse(null),
+                publish.getCorrelationData().orElse(null),
+                publish.getUserProperties().asList(),
+                publish.getPayload().orElse(null));
+    }
+
+    public synchronized void write(final @NotNull Mqtt3Publish publish) {
+        write(currentTimeMicros(),
+                publish.getTopic(),
+                publish.getQos(),
+                publish.isRetain(),
+                null,
+                -1,
+                -1,
+                null,
+                null,
+                Collections.emptyList(),
+                publish.getPayload().orElse(null));
+    }
+
+    public synchronized long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     * Writes all buffered publishes and closes the capture and its index.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushScheduler.shutdown();
+        flush();
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (final IOException e) {
+            Logger.error("Cannot close capture file {}: {}", file.toAbsolutePath(), e.getMessage());
+        }
+        try {
+            indexWriter.close();
+        } catch (final IOException e) {
+            Logger.error("Cannot close capture index of {}: {}", file.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    long currentTimeMicros() {
+        return clockOffsetMicros + TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+    }
+
+    private void write(
+            final long timestampMicros,
+            final @NotNull MqttUtf8String topic,
+            final @NotNull MqttQos qos,
+            final boolean retain,
+            final @Nullable MqttUtf8String contentType,
+            final int payloadFormatIndicator,
+            final long messageExpiryInterval,
+            final @Nullable MqttUtf8String responseTopic,
+            final @Nullable ByteBuffer correlationData,
+            final @NotNull List<? extends Mqtt5UserProperty> userProperties,
+            final @Nullable ByteBuffer payload) {
+        if (closed) {
+            return;
+        }
+        final ByteBuffer topicBytes = topic.toByteBuffer();
+        final ByteBuffer contentTypeBytes = contentType != null ? contentType.toByteBuffer() : null;
+        final ByteBuffer responseTopicBytes = responseTopic != null ? responseTopic.toByteBuffer() : null;
+
+        int flags = qos.getCode();
+        int length = 8 + 1 + 2 + topicBytes.remaining() + 4 + 4 + (payload != null ? payload.remaining() : 0);
+        if (retain) {
+            flags |= BinaryCaptureFormat.FLAG_RETAIN;
+        }
+        if (contentTypeBytes != null) {
+            flags |= BinaryCaptureFormat.FLAG_CONTENT_TYPE;
+            length += 2 + contentTypeBytes.remaining();
+        }
+        if (payloadFormatIndicator != -1) {
+            flags |= BinaryCaptureFormat.FLAG_PAYLOAD_FORMAT_INDICATOR;
+            length += 1;
+        }
+        if (messageExpiryInterval != -1) {
+            flags |= BinaryCaptureFormat.FLAG_MESSAGE_EXPIRY_INTERVAL;
+            length += 4;
+        }
+        if (responseTopicBytes != null) {
+            flags |= BinaryCaptureFormat.FLAG_RESPONSE_TOPIC;
+            length += 2 + responseTopicBytes.remaining();
+        }
+        if (correlationData != null) {
+            flags |= BinaryCaptureFormat.FLAG_CORRELATION_DATA;
+            length += 4 + correlationData.remaining();
+        }
+        for (final Mqtt5UserProperty userProperty : userProperties) {
+            length += 2 + userProperty.getName().toByteBuffer().remaining() + 2 +
+                    userProperty.getValue().toByteBuffer().remaining();
+        }
+
+        final ByteBuffer target = reserve(4 + length);
+        final long recordPosition = position + buffer.position();
+        target.putInt(length).putLong(timestampMicros).put((byte) flags);
+        putString(target, topicBytes);
+        if (contentTypeBytes != null) {
+            putString(target, contentTypeBytes);
+        }
+        if (payloadFormatIndicator != -1) {
+            target.put((byte) payloadFormatIndicator);
+        }
+        if (messageExpiryInterval != -1) {
+            target.putInt((int) messageExpiryInterval);
+        }
+        if (responseTopicBytes != null) {
+            putString(target, responseTopicBytes);
+        }
+        if (correlationData != null) {
+            putBytes(target, correlationData);
+        }
+        target.putInt(userProperties.size());
+        for (final Mqtt5UserProperty userProperty : userProperties) {
+            putString(target, userProperty.getName().toByteBuffer());
+            putString(target, userProperty.getValue().toByteBuffer());
+        }
+        if (payload != null) {
+            putBytes(target, payload);
+        } else {
+            target.putInt(0);
+        }
+        if (target != buffer) {
+            target.flip();
+            writeFully(target);
+        }
+
+        writtenRecords++;
+        if (++recordsSinceIndexEntry >= INDEX_INTERVAL_RECORDS ||
+                timestampMicros - lastIndexEntryMicros >= INDEX_INTERVAL_MICROS) {
+            addIndexEntry(timestampMicros, recordPosition);
+        }
+    }
+
+    /**
+     * @return the buffer if the record fits into it, otherwise a separate buffer for a record larger than the buffer
+     */
+    private @NotNull ByteBuffer reserve(final int recordLength) {
+        if (recordLength > buffer.remaining()) {
+            flush();
+            if (recordLength > buffer.capacity()) {
+                return ByteBuffer.allocate(recordLength);
+            }
+        }
+        return buffer;
+    }
+
+    private void addIndexEntry(final long timestampMicros, final long recordPosition) {
+        recordsSinceIndexEntry = 0;
+        lastIndexEntryMicros = timestampMicros;
+        try {
+            indexWriter.add(timestampMicros, recordPosition);
+        } catch (final IOException e) {
+            Logger.error("Cannot write capture index of {}: {}", file.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private synchronized void scheduledFlush() {
+        if (!closed) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        try {
+            // the index must not point behind the written records
+            indexWriter.flush();
+        } catch (final IOException e) {
+            Logger.error("Cannot write capture index of {}: {}", file.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private void writeFully(final @NotNull ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                position += channel.write(source);
+            }
+        } catch (final IOException e) {
+            if (!failed) {
+                failed = true;
+                Logger.error("Cannot write to capture file {}: {}", file.toAbsolutePath(), e.getMessage());
+            }
+            source.position(source.limit());
+        }
+    }
+
+    private static void putString(final @NotNull ByteBuffer target, final @NotNull ByteBuffer string) {
+        target.putShort((short) string.remaining()).put(string.duplicate());
+    }
+
+    private static void putBytes(final @NotNull ByteBuffer target, final @NotNull ByteBuffer bytes) {
+        target.putInt(bytes.remaining()).put(bytes.duplicate());
+    }
+}
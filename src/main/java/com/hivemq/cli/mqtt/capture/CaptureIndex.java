@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The index of a binary capture maps receive timestamps to the file offsets of the records, so a replay can seek to
+ * a point in time without decoding the records before it. It is stored next to the capture with the suffix
+ * {@value #SUFFIX}.
+ * <pre>
+ * header:  int magic 'MQCI', byte version
+ * entry:   long timestamp in microseconds since the epoch, long offset of the record in the capture
+ * </pre>
+ * The entries are ordered by both timestamp and offset.
+ */
+public class CaptureIndex {
+
+    public static final @NotNull String SUFFIX = ".idx";
+
+    static final int MAGIC = 0x4D514349;
+    static final byte VERSION = 1;
+
+    private final long @NotNull [] timestamps;
+    private final long @NotNull [] offsets;
+    private final int size;
+
+    private CaptureIndex(final long @NotNull [] timestamps, final long @NotNull [] offsets, final int size) {
+        this.timestamps = timestamps;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    public static @NotNull Path indexFileOf(final @NotNull Path capture) {
+        return capture.resolveSibling(capture.getFileName() + SUFFIX);
+    }
+
+    /**
+     * @return the index of the capture or <code>null</code> if it does not exist, is invalid or empty
+     */
+    public static @Nullable CaptureIndex read(final @NotNull Path capture) throws IOException {
+        final Path indexFile = indexFileOf(capture);
+        if (!Files.isReadable(indexFile)) {
+            return null;
+        }
+        try (final InputStream input = Files.newInputStream(indexFile)) {
+            final DataInputStream dataInput = new DataInputStream(new BufferedInputStream(input));
+            if (dataInput.readInt() != MAGIC || dataInput.readByte() != VERSION) {
+                return null;
+            }
+            long[] timestamps = new long[64];
+            long[] offsets = new long[64];
+            int size = 0;
+            while (true) {
+                final long timestamp;
+                final long offset;
+                try {
+                    timestamp = dataInput.readLong();
+                    offset = dataInput.readLong();
+                } catch (final EOFException e) {
+                    // a partially written last entry is ignored
+                    break;
+                }
+                if (size == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                timestamps[size] = timestamp;
+                offsets[size] = offset;
+                size++;
+            }
+            return size == 0 ? null : new CaptureIndex(timestamps, offsets, size);
+        } catch (final EOFException e) {
+            return null;
+        }
+    }
+
+    public long getFirstTimestampMicros() {
+        return timestamps[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the offset of the last indexed record received before the timestamp, so no record received at or
+     *         after the timestamp is before the offset
+     */
+    public long findOffset(final long timestampMicros) {
+        int low = 0;
+        int high = size - 1;
+        int found = 0;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestampMicros) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return offsets[found];
+    }
+
+    static class Writer implements Closeable {
+
+        private final @NotNull DataOutputStream output;
+
+        Writer(final @NotNull Path indexFile) throws IOException {
+            final boolean isNew = !Files.exists(indexFile) || Files.size(indexFile) == 0;
+            output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)));
+            if (isNew) {
+                output.writeInt(MAGIC);
+                output.writeByte(VERSION);
+            }
+        }
+
+        void add(final long timestampMicros, final long offset) throws IOException {
+            output.writeLong(timestampMicros);
+            output.writeLong(offset);
+        }
+
+        void flush() throws IOException {
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads the publishes of a capture file one after another.
+ */
+public interface CaptureReader extends Closeable {
+
+    @NotNull String STDIN = "-";
+
+    /**
+     * @return the next publish or <code>null</code> if the end of the capture is reached
+     */
+    @Nullable CapturedPublish next() throws IOException;
+
+    static @NotNull CaptureReader open(final @NotNull String source, final boolean isBase64) throws IOException {
+        return open(source, isBase64, 0);
+    }
+
+    /**
+     * Opens a capture file or stdin if the source is {@value #STDIN}. The binary format is detected by its magic
+     * number, everything else is read as JSON as written by 'mqtt sub --json-output' or '--ndjson'.
+     *
+     * @param isBase64   whether the payloads of a JSON capture are Base64 encoded
+     * @param skipMicros the time after the first publish during which received publishes are skipped, a binary
+     *                   capture file with an index seeks to the first publish after it
+     */
+    static @NotNull CaptureReader open(final @NotNull String source, final boolean isBase64, final long skipMicros)
+            throws IOException {
+        final InputStream input;
+        final @Nullable Path path;
+        if (STDIN.equals(source)) {
+            path = null;
+            input = new FilterInputStream(System.in) {
+                @Override
+                public void close() {
+                }
+            };
+        } else {
+            path = Paths.get(source);
+            if (!Files.isReadable(path)) {
+                throw new FileNotFoundException("File not found or not readable: " + source);
+            }
+            input = Files.newInputStream(path);
+        }
+        final BufferedInputStream bufferedInput = new BufferedInputStream(input, 64 * 1024);
+        try {
+            if (!BinaryCaptureFormat.startsWithHeader(bufferedInput)) {
+                final CaptureReader reader = new JsonCaptureReader(bufferedInput, isBase64);
+                return skipMicros > 0 ? new SkippingCaptureReader(reader, skipMicros) : reader;
+            }
+            final BinaryCaptureReader reader = new BinaryCaptureReader(bufferedInput);
+            if (skipMicros <= 0) {
+                return reader;
+            }
+            final CaptureIndex index = path != null ? CaptureIndex.read(path) : null;
+            if (index == null) {
+                return new SkippingCaptureReader(reader, skipMicros);
+            }
+            final long skipUntilMicros = index.getFirstTimestampMicros() + skipMicros;
+            reader.seek(index.findOffset(skipUntilMicros));
+            return new SkippingCaptureReader(reader, index.getFirstTimestampMicros(), skipMicros);
+        } catch (final IOException | RuntimeException e) {
+            bufferedInput.close();
+            throw e;
+        }
+    }
+}
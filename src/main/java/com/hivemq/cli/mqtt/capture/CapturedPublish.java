@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A publish read from a capture file together with the time it was received.
+ */
+public class CapturedPublish {
+
+    public static final long UNKNOWN_TIMESTAMP = Long.MIN_VALUE;
+
+    private final long timestampMicros;
+    private final @NotNull String topic;
+    private final @NotNull ByteBuffer payload;
+    private final @NotNull MqttQos qos;
+    private final boolean retain;
+    private final @Nullable String contentType;
+    private final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator;
+    private final @Nullable Long messageExpiryInterval;
+    private final @Nullable String responseTopic;
+    private final @Nullable ByteBuffer correlationData;
+    private final @NotNull Mqtt5UserProperties userProperties;
+
+    public CapturedPublish(
+            final long timestampMicros,
+            final @NotNull String topic,
+            final @NotNull ByteBuffer payload,
+            final @NotNull MqttQos qos,
+            final boolean retain,
+            final @Nullable String contentType,
+            final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator,
+            final @Nullable Long messageExpiryInterval,
+            final @Nullable String responseTopic,
+            final @Nullable ByteBuffer correlationData,
+            final @NotNull Mqtt5UserProperties userProperties) {
+        this.timestampMicros = timestampMicros;
+        this.topic = topic;
+        this.payload = payload;
+        this.qos = qos;
+        this.retain = retain;
+        this.contentType = contentType;
+        this.payloadFormatIndicator = payloadFormatIndicator;
+        this.messageExpiryInterval = messageExpiryInterval;
+        this.responseTopic = responseTopic;
+        this.correlationData = correlationData;
+        this.userProperties = userProperties;
+    }
+
+    /**
+     * @return the receive time in microseconds since the epoch or {@link #UNKNOWN_TIMESTAMP}
+     */
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    public @NotNull String getTopic() {
+        return topic;
+    }
+
+    public @NotNull ByteBuffer getPayload() {
+        return payload;
+    }
+
+    public @NotNull MqttQos getQos() {
+        return qos;
+    }
+
+    public boolean isRetain() {
+        return retain;
+    }
+
+    public @Nullable String getContentType() {
+        return contentType;
+    }
+
+    public @Nullable Mqtt5PayloadFormatIndicator getPayloadFormatIndicator() {
+        return payloadFormatIndicator;
+    }
+
+    public @Nullable Long getMessageExpiryInterval() {
+        return messageExpiryInterval;
+    }
+
+    public @Nullable String getResponseTopic() {
+        return responseTopic;
+    }
+
+    public @Nullable ByteBuffer getCorrelationData() {
+        return correlationData;
+    }
+
+    public @NotNull Mqtt5UserProperties getUserProperties() {
+        return userProperties;
+    }
+
+    public @NotNull Mqtt5Publish toMqtt5Publish() {
+        final Mqtt5PublishBuilder.Complete publishBuilder = Mqtt5Publish.builder()
+                .topic(topic)
+                .qos(qos)
+                .payload(payload)
+                .retain(retain)
+                .contentType(contentType)
+                .payloadFormatIndicator(payloadFormatIndicator)
+                .responseTopic(responseTopic)
+                .correlationData(correlationData)
+                .userProperties(userProperties);
+        if (messageExpiryInterval != null) {
+            //noinspection ResultOfMethodCallIgnored
+            publishBuilder.messageExpiryInterval(messageExpiryInterval);
+        }
+        return publishBuilder.build();
+    }
+
+    /**
+     * MQTT 3 publishes can not carry the MQTT 5 properties, so they are dropped.
+     */
+    public @NotNull Mqtt3Publish toMqtt3Publish() {
+        return Mqtt3Publish.builder().topic(topic).qos(qos).payload(payload).retain(retain).build();
+    }
+}
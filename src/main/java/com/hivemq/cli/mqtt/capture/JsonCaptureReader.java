@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.hivemq.cli.utils.json.JsonMqttPublishWriter;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserPropertiesBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Reads the JSON objects written by the subscribe command, either one per line or pretty printed. The receive time
+ * of these objects only has a resolution of seconds. Payloads which were valid JSON are republished in compact form.
+ */
+public class JsonCaptureReader implements CaptureReader {
+
+    private final @NotNull JsonReader jsonReader;
+    private final boolean isBase64;
+    private long records = 0;
+
+    public JsonCaptureReader(final @NotNull InputStream input, final boolean isBase64) {
+        jsonReader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        // allows multiple top level values
+        jsonReader.setStrictness(Strictness.LENIENT);
+        this.isBase64 = isBase64;
+    }
+
+    @Override
+    public @Nullable CapturedPublish next() throws IOException {
+        try {
+            if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+                return null;
+            }
+            final JsonElement element = JsonParser.parseReader(jsonReader);
+            if (!element.isJsonObject()) {
+                throw new JsonParseException("Expected a JSON object but was " + element);
+            }
+            return decode(element.getAsJsonObject());
+        } catch (final RuntimeException e) {
+            // malformed JSON as well as missing or mistyped fields
+            throw new IOException("Invalid capture record " + records + ": " + e.getMessage(), e);
+        } finally {
+            records++;
+        }
+    }
+
+    private @NotNull CapturedPublish decode(final @NotNull JsonObject object) {
+        final String topic = getString(object, "topic");
+        if (topic == null) {
+            throw new JsonParseException("Missing topic");
+        }
+        final String qos = getString(object, "qos");
+        final String receivedAt = getString(object, "receivedAt");
+        final String payloadFormatIndicator = getString(object, "payloadFormatIndicator");
+        final JsonElement messageExpiryInterval = object.get("messageExpiryInterval");
+        final String correlationData = getString(object, "correlationData");
+        return new CapturedPublish(receivedAt != null ? toMicros(receivedAt) : CapturedPublish.UNKNOWN_TIMESTAMP,
+                topic,
+                decodePayload(object.get("payload")),
+                qos != null ? MqttQos.valueOf(qos) : MqttQos.AT_MOST_ONCE,
+                object.has("retain") && object.get("retain").getAsBoolean(),
+                getString(object, "contentType"),
+                payloadFormatIndicator != null ? Mqtt5PayloadFormatIndicator.valueOf(payloadFormatIndicator) : null,
+                messageExpiryInterval != null ? messageExpiryInterval.getAsLong() : null,
+                getString(object, "responseTopic"),
+                correlationData != null ? ByteBuffer.wrap(correlationData.getBytes(StandardCharsets.UTF_8)) : null,
+                decodeUserProperties(object.get("userProperties")));
+    }
+
+    private @NotNull ByteBuffer decodePayload(final @Nullable JsonElement payload) {
+        if (payload == null || payload.isJsonNull()) {
+            return ByteBuffer.allocate(0);
+        }
+        if (payload.isJsonPrimitive() && payload.getAsJsonPrimitive().isString()) {
+            final String payloadString = payload.getAsString();
+            return ByteBuffer.wrap(isBase64 ?
+                    Base64.getDecoder().decode(payloadString) :
+                    payloadString.getBytes(StandardCharsets.UTF_8));
+        }
+        return ByteBuffer.wrap(payload.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static @NotNull Mqtt5UserProperties decodeUserProperties(final @Nullable JsonElement userProperties) {
+        if (userProperties == null || userProperties.isJsonNull()) {
+            return Mqtt5UserProperties.of();
+        }
+        final Mqtt5UserPropertiesBuilder builder = Mqtt5UserProperties.builder();
+        for (final JsonElement userProperty : userProperties.getAsJsonArray()) {
+            final JsonObject userPropertyObject = userProperty.getAsJsonObject();
+            //noinspection ResultOfMethodCallIgnored
+            builder.add(userPropertyObject.get("name").getAsString(), userPropertyObject.get("value").getAsString());
+        }
+        return builder.build();
+    }
+
+    private static @Nullable String getString(final @NotNull JsonObject object, final @NotNull String name) {
+        final JsonElement element = object.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static long toMicros(final @NotNull String receivedAt) {
+        return LocalDateTime.parse(receivedAt, JsonMqttPublishWriter.RECEIVED_AT_FORMATTER)
+                .atZone(ZoneId.systemDefault())
+                .toEpochSecond() * 1_000_000L;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonReader.close();
+    }
+}
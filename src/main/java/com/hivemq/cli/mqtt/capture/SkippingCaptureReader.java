@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Skips the publishes received within a time after the first publish of a capture. Publishes without a timestamp
+ * are not skipped.
+ */
+class SkippingCaptureReader implements CaptureReader {
+
+    private final @NotNull CaptureReader reader;
+    private final long skipMicros;
+    private long skipUntilMicros;
+    private boolean skipping = true;
+
+    SkippingCaptureReader(final @NotNull CaptureReader reader, final long skipMicros) {
+        this(reader, CapturedPublish.UNKNOWN_TIMESTAMP, skipMicros);
+    }
+
+    /**
+     * @param firstTimestampMicros the timestamp of the first publish if the reader is already positioned after it
+     */
+    SkippingCaptureReader(
+            final @NotNull CaptureReader reader, final long firstTimestampMicros, final long skipMicros) {
+        this.reader = reader;
+        this.skipMicros = skipMicros;
+        skipUntilMicros = firstTimestampMicros == CapturedPublish.UNKNOWN_TIMESTAMP ?
+                CapturedPublish.UNKNOWN_TIMESTAMP :
+                firstTimestampMicros + skipMicros;
+    }
+
+    @Override
+    public @Nullable CapturedPublish next() throws IOException {
+        if (!skipping) {
+            return reader.next();
+        }
+        CapturedPublish publish;
+        while ((publish = reader.next()) != null) {
+            final long timestampMicros = publish.getTimestampMicros();
+            if (timestampMicros == CapturedPublish.UNKNOWN_TIMESTAMP) {
+                return publish;
+            }
+            if (skipUntilMicros == CapturedPublish.UNKNOWN_TIMESTAMP) {
+                skipUntilMicros = timestampMicros + skipMicros;
+            }
+            if (timestampMicros >= skipUntilMicros) {
+                skipping = false;
+                return publish;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.daemon;
+
+import com.hivemq.cli.converters.MappedFileToByteBufferConverter;
+import com.hivemq.cli.converters.PasswordFileToByteBufferConverter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The daemon parses the forwarded arguments in its own process. Relative paths would be resolved against its working
+ * directory and passwords read from its environment or its console, so both are resolved by the publishing command
+ * before the arguments are forwarded.
+ */
+public final class DaemonArguments {
+
+    private static final @NotNull List<String> PASSWORD_OPTION_NAMES = List.of("--password", "-pw:env", "-pw:file");
+
+    private DaemonArguments() {
+    }
+
+    public static @NotNull List<String> withAbsolutePaths(
+            final @NotNull CommandLine.Model.CommandSpec spec, final @NotNull List<String> arguments) {
+        final Set<String> pathOptionNames = new HashSet<>();
+        for (final CommandLine.Model.OptionSpec option : spec.options()) {
+            if (isPathOption(option)) {
+                pathOptionNames.addAll(List.of(option.names()));
+            }
+        }
+
+        final List<String> absoluteArguments = new ArrayList<>(arguments.size());
+        for (int i = 0; i < arguments.size(); i++) {
+            final String argument = arguments.get(i);
+            final int separator = argument.indexOf('=');
+            if (separator > 0 && pathOptionNames.contains(argument.substring(0, separator))) {
+                absoluteArguments.add(argument.substring(0, separator + 1) +
+                        toAbsolutePath(argument.substring(separator + 1)));
+            } else if (pathOptionNames.contains(argument) && i + 1 < arguments.size()) {
+                absoluteArguments.add(argument);
+                absoluteArguments.add(toAbsolutePath(arguments.get(++i)));
+            } else {
+                absoluteArguments.add(argument);
+            }
+        }
+        return absoluteArguments;
+    }
+
+    /**
+     * Replaces the password options, including an interactive <code>-pw</code> without a value, by the password which
+     * the publishing command already resolved.
+     *
+     * @param password the password of the publishing command or <code>null</code> if none was given
+     */
+    public static @NotNull List<String> withExplicitPassword(
+            final @NotNull CommandLine.Model.CommandSpec spec,
+            final @NotNull List<String> arguments,
+            final @Nullable ByteBuffer password) {
+        final Map<String, CommandLine.Model.OptionSpec> passwordOptions = new HashMap<>();
+        for (final String passwordOptionName : PASSWORD_OPTION_NAMES) {
+            final CommandLine.Model.OptionSpec option = spec.findOption(passwordOptionName);
+            if (option != null) {
+                for (final String name : option.names()) {
+                    passwordOptions.put(name, option);
+                }
+            }
+        }
+
+        final List<String> explicitArguments = new ArrayList<>(arguments.size() + 1);
+        for (int i = 0; i < arguments.size(); i++) {
+            final String argument = arguments.get(i);
+            final CommandLine.Model.OptionSpec option = passwordOptions.get(argument);
+            if (option == null) {
+                final int separator = argument.indexOf('=');
+                if (separator <= 0 || !passwordOptions.containsKey(argument.substring(0, separator))) {
+                    explicitArguments.add(argument);
+                }
+            } else if (i + 1 < arguments.size() && option.arity().max() > 0 &&
+                    (option.arity().min() > 0 || !isOption(spec, arguments.get(i + 1)))) {
+                // skips the value of the option
+                i++;
+            }
+        }
+        if (password != null) {
+            explicitArguments.add("--password=" + StandardCharsets.UTF_8.decode(password.duplicate()));
+        }
+        return explicitArguments;
+    }
+
+    private static boolean isOption(final @NotNull CommandLine.Model.CommandSpec spec, final @NotNull String argument) {
+        final int separator = argument.indexOf('=');
+        return spec.findOption(separator > 0 ? argument.substring(0, separator) : argument) != null &&
+                argument.startsWith("-");
+    }
+
+    private static boolean isPathOption(final @NotNull CommandLine.Model.OptionSpec option) {
+        if (Path.class.equals(option.type()) || File.class.equals(option.type())) {
+            return true;
+        }
+        for (final CommandLine.ITypeConverter<?> converter : option.converters()) {
+            if (converter instanceof MappedFileToByteBufferConverter ||
+                    converter instanceof PasswordFileToByteBufferConverter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @NotNull String toAbsolutePath(final @NotNull String path) {
+        return Paths.get(path).toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Sends the arguments of <code>mqtt pub</code> to a running publish daemon.
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    public static @NotNull DaemonResponse publish(
+            final @NotNull DaemonEndpoint endpoint, final @NotNull List<String> arguments) throws IOException {
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), endpoint.getPort())) {
+            socket.setTcpNoDelay(true);
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DaemonProtocol.writeRequest(output, endpoint.getToken(), arguments);
+            return DaemonProtocol.readResponse(input);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+
+/**
+ * The port and the access token of a running publish daemon. They are written to a file which only the user can read,
+ * so only the user who started the daemon can publish through it.
+ */
+public class DaemonEndpoint {
+
+    public static final @NotNull Path DEFAULT_FILE =
+            Paths.get(System.getProperty("user.home")).resolve(".mqtt-cli").resolve("daemon");
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final int port;
+    private final @NotNull String token;
+
+    DaemonEndpoint(final int port, final @NotNull String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    public static @NotNull String createToken() {
+        final byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+        for (final byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return token.toString();
+    }
+
+    /**
+     * @return the endpoint or <code>null</code> if no daemon is running
+     */
+    public static @Nullable DaemonEndpoint read(final @NotNull Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        final String[] fields = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split(" ");
+        if (fields.length != 2) {
+            throw new IOException("Invalid daemon file " + file);
+        }
+        try {
+            return new DaemonEndpoint(Integer.parseInt(fields[0]), fields[1]);
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid daemon file " + file);
+        }
+    }
+
+    public void write(final @NotNull Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.deleteIfExists(file);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(file,
+                (port + " " + token + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @NotNull String getToken() {
+        return token;
+    }
+}
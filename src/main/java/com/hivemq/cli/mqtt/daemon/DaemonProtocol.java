@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request is the access token followed by the arguments of <code>mqtt pub</code>, the response is the exit code
+ * followed by a message. Strings are written as their length and their UTF-8 bytes.
+ */
+final class DaemonProtocol {
+
+    static final int MAX_ARGUMENTS = 1024;
+    // a message of the maximum payload size plus its option
+    static final int MAX_STRING_LENGTH = 268_435_455 + 1024;
+
+    private DaemonProtocol() {
+    }
+
+    static void writeRequest(
+            final @NotNull DataOutputStream output,
+            final @NotNull String token,
+            final @NotNull List<String> arguments) throws IOException {
+        writeString(output, token);
+        output.writeInt(arguments.size());
+        for (final String argument : arguments) {
+            writeString(output, argument);
+        }
+        output.flush();
+    }
+
+    static @NotNull String readToken(final @NotNull DataInputStream input, final int maxLength) throws IOException {
+        return readString(input, maxLength);
+    }
+
+    /**
+     * Only called after the token was checked, so unauthorized clients can not make the daemon allocate memory.
+     */
+    static @NotNull List<String> readArguments(final @NotNull DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid amount of arguments " + count);
+        }
+        final List<String> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            arguments.add(readString(input, MAX_STRING_LENGTH));
+        }
+        return arguments;
+    }
+
+    static void writeResponse(final @NotNull DataOutputStream output, final @NotNull DaemonResponse response)
+            throws IOException {
+        output.writeInt(response.getExitCode());
+        writeString(output, response.getMessage());
+        output.flush();
+    }
+
+    static @NotNull DaemonResponse readResponse(final @NotNull DataInputStream input) throws IOException {
+        final int exitCode = input.readInt();
+        return new DaemonResponse(exitCode, readString(input, MAX_STRING_LENGTH));
+    }
+
+    private static void writeString(final @NotNull DataOutputStream output, final @NotNull String value)
+            throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static @NotNull String readString(final @NotNull DataInputStream input, final int maxLength)
+            throws IOException {
+        final int length = input.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
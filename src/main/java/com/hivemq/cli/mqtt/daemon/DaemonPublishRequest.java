@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DebugOptions;
+import com.hivemq.cli.commands.options.PublishOptions;
+import org.jetbrains.annotations.NotNull;
+import picocli.CommandLine;
+
+/**
+ * The options of <code>mqtt pub</code> which a publish daemon supports. Logging and debug options are accepted but
+ * apply to the invoking command only.
+ */
+@CommandLine.Command(name = "pub")
+class DaemonPublishRequest {
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"-l"}, defaultValue = "false")
+    private boolean logToLogfile;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Option(names = {"--daemon"}, defaultValue = "false")
+    private boolean daemon;
+
+    @CommandLine.Mixin
+    private final @NotNull ConnectOptions connectOptions = new ConnectOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull PublishOptions publishOptions = new PublishOptions();
+
+    @CommandLine.Mixin
+    private final @NotNull DebugOptions debugOptions = new DebugOptions();
+
+    @NotNull ConnectOptions getConnectOptions() {
+        return connectOptions;
+    }
+
+    @NotNull PublishOptions getPublishOptions() {
+        return publishOptions;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+
+public class DaemonResponse {
+
+    static final @NotNull DaemonResponse SUCCESS = new DaemonResponse(0, "");
+
+    private final int exitCode;
+    private final @NotNull String message;
+
+    DaemonResponse(final int exitCode, final @NotNull String message) {
+        this.exitCode = exitCode;
+        this.message = message;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return the error message or an empty string if the publish succeeded
+     */
+    public @NotNull String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.PublishOptions;
+import com.hivemq.cli.mqtt.ClientKey;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.client.mqtt.MqttClient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the connections of <code>mqtt pub</code> requests open, so later requests with the same client identifier and
+ * host publish over the already connected client instead of connecting again. The connect options of the first request
+ * of a client are used for its connection. Requests are only accepted from the loopback interface and with the
+ * access token of the daemon.
+ */
+public class PublishDaemon implements Closeable {
+
+    private static final int REQUEST_TIMEOUT_MILLIS = 30_000;
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor;
+    private final @NotNull String token;
+    private final @NotNull Map<ClientKey, DaemonConnection> clients = new ConcurrentHashMap<>();
+    private final @NotNull ExecutorService requestExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "daemon-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private @Nullable ServerSocket serverSocket;
+
+    public PublishDaemon(final @NotNull MqttClientExecutor mqttClientExecutor, final @NotNull String token) {
+        this.mqttClientExecutor = mqttClientExecutor;
+        this.token = token;
+    }
+
+    /**
+     * @param port the port or 0 to use any free port
+     * @return the endpoint of the daemon
+     */
+    public @NotNull DaemonEndpoint bind(final int port) throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.serverSocket = serverSocket;
+        return new DaemonEndpoint(serverSocket.getLocalPort(), token);
+    }
+
+    /**
+     * Accepts requests until the daemon is closed.
+     */
+    public void serve() throws IOException {
+        final ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket == null) {
+            throw new IllegalStateException("The daemon is not bound");
+        }
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (final SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            requestExecutor.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(final @NotNull Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final String requestToken = DaemonProtocol.readToken(input, token.length());
+            if (!MessageDigest.isEqual(requestToken.getBytes(StandardCharsets.UTF_8),
+                    token.getBytes(StandardCharsets.UTF_8))) {
+                Logger.warn("Rejected daemon request with an invalid token");
+                DaemonProtocol.writeResponse(output, new DaemonResponse(1, "Invalid daemon token"));
+                return;
+            }
+            DaemonProtocol.writeResponse(output, publish(DaemonProtocol.readArguments(input)));
+        } catch (final IOException e) {
+            Logger.debug(e, "Daemon request failed");
+        }
+    }
+
+    @NotNull DaemonResponse publish(final @NotNull List<String> arguments) {
+        final DaemonPublishRequest request = new DaemonPublishRequest();
+        final CommandLine commandLine = new CommandLine(request).setCaseInsensitiveEnumValuesAllowed(true);
+        final CommandLine.ParseResult parseResult;
+        try {
+            parseResult = commandLine.parseArgs(arguments.toArray(new String[0]));
+        } catch (final CommandLine.ParameterException e) {
+            return new DaemonResponse(2, e.getMessage());
+        }
+        final ConnectOptions connectOptions = request.getConnectOptions();
+        final PublishOptions publishOptions = request.getPublishOptions();
+        final String identifier = connectOptions.getIdentifier();
+        connectOptions.setDefaultOptions();
+        connectOptions.logUnusedOptions();
+        publishOptions.logUnusedOptions(connectOptions.getVersion());
+        publishOptions.arrangeQosToMatchTopics();
+
+        try {
+            final MqttClient client = getClient(ClientKey.of(identifier, connectOptions.getHost()),
+                    connectArguments(commandLine.getCommandSpec(), parseResult),
+                    connectOptions);
+            mqttClientExecutor.publish(client, publishOptions);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new DaemonResponse(1, "Interrupted while publishing");
+        } catch (final Exception e) {
+            Logger.error(e, "Unable to publish");
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new DaemonResponse(1, "Unable to publish: " + cause.getMessage());
+        }
+        return DaemonResponse.SUCCESS;
+    }
+
+    /**
+     * Only requests for the same client wait for its connect, the requests for other clients are served meanwhile.
+     *
+     * @param clientKey        the key of the requested identifier, which is <code>null</code> if the identifier was not
+     *                         set
+     * @param connectArguments the connect options of the request, a kept open client is only reused for the same ones
+     */
+    private @NotNull MqttClient getClient(
+            final @NotNull ClientKey clientKey,
+            final @NotNull List<String> connectArguments,
+            final @NotNull ConnectOptions connectOptions) throws Exception {
+        while (true) {
+            final DaemonConnection requested = new DaemonConnection(connectArguments);
+            final AtomicReference<DaemonConnection> replaced = new AtomicReference<>();
+            final DaemonConnection connection = clients.compute(clientKey, (key, current) -> {
+                if (current != null && (current.isReusableFor(connectArguments) || !current.client.isDone())) {
+                    return current;
+                }
+                replaced.set(current);
+                return requested;
+            });
+
+            if (connection == requested) {
+                return connect(clientKey, requested, replaced.get(), connectOptions);
+            }
+            if (connection.connectArguments.equals(connectArguments)) {
+                try {
+                    return connection.client.get();
+                } catch (final ExecutionException e) {
+                    // the connect of another request with the same options failed
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            // another request reconnects the client with other options, it is replaced once that connect completed
+            try {
+                connection.client.get();
+            } catch (final ExecutionException ignored) {
+            }
+        }
+    }
+
+    private @NotNull MqttClient connect(
+            final @NotNull ClientKey clientKey,
+            final @NotNull DaemonConnection connection,
+            final @Nullable DaemonConnection replaced,
+            final @NotNull ConnectOptions connectOptions) throws Exception {
+        try {
+            if (replaced != null && !replaced.client.isCompletedExceptionally()) {
+                final MqttClient replacedClient = replaced.client.join();
+                if (replacedClient.getState().isConnectedOrReconnect()) {
+                    Logger.info("Reconnecting {} as the connect options of the daemon request changed", clientKey);
+                    mqttClientExecutor.disconnect(replacedClient, new DisconnectOptions());
+                }
+            }
+            final MqttClient connectedClient = mqttClientExecutor.connect(connectOptions);
+            connection.client.complete(connectedClient);
+            Logger.info("Connected {} for daemon requests", ClientKey.of(connectedClient));
+            return connectedClient;
+        } catch (final Exception e) {
+            clients.remove(clientKey, connection);
+            connection.client.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the matched connect, authentication, TLS and will options of the request with their values, sorted so
+     *         that the order of the arguments does not matter
+     */
+    private static @NotNull List<String> connectArguments(
+            final @NotNull CommandLine.Model.CommandSpec spec, final @NotNull CommandLine.ParseResult parseResult) {
+        final Set<String> connectOptionNames = new HashSet<>();
+        for (final CommandLine.Model.OptionSpec option : spec.mixins().get("connectOptions").options()) {
+            connectOptionNames.add(option.longestName());
+        }
+        final List<String> connectArguments = new ArrayList<>();
+        for (final CommandLine.Model.OptionSpec option : new LinkedHashSet<>(parseResult.matchedOptions())) {
+            if (connectOptionNames.contains(option.longestName())) {
+                connectArguments.add(option.longestName() + "=" + option.originalStringValues());
+            }
+        }
+        Collections.sort(connectArguments);
+        return connectArguments;
+    }
+
+    @Override
+    public void close() throws IOException {
+        requestExecutor.shutdownNow();
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    private static class DaemonConnection {
+
+        private final @NotNull List<String> connectArguments;
+        private final @NotNull CompletableFuture<MqttClient> client = new CompletableFuture<>();
+
+        private DaemonConnection(final @NotNull List<String> connectArguments) {
+            this.connectArguments = connectArguments;
+        }
+
+        /**
+         * @return <code>true</code> if the client is connected or still connecting with the same connect options
+         */
+        boolean isReusableFor(final @NotNull List<String> connectArguments) {
+            if (!this.connectArguments.equals(connectArguments) || client.isCompletedExceptionally()) {
+                return false;
+            }
+            return !client.isDone() || client.join().getState().isConnectedOrReconnect();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.e2e;
+
+import com.hivemq.cli.utils.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records the end-to-end latency of stamped publishes and checks their sequence numbers per publisher and topic for
+ * gaps, duplicates and reordering.
+ */
+public class EndToEndLatencyTracker {
+
+    // sequence numbers of gaps which are remembered per stream to tell late (reordered) publishes from duplicates
+    static final int MAX_TRACKED_GAPS = 10_000;
+
+    private final @NotNull Map<StreamKey, SequenceState> streams = new ConcurrentHashMap<>();
+    private final @NotNull LatencyHistogram totalLatency = new LatencyHistogram();
+    private final @NotNull AtomicReference<LatencyHistogram> intervalLatency =
+            new AtomicReference<>(new LatencyHistogram());
+    private final @NotNull AtomicLong received = new AtomicLong();
+    private final @NotNull AtomicLong missing = new AtomicLong();
+    private final @NotNull AtomicLong duplicates = new AtomicLong();
+    private final @NotNull AtomicLong reordered = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private long intervalStartNanos = startNanos;
+    private long intervalStartReceived = 0;
+
+    public void record(final @NotNull EndToEndStamp stamp, final @NotNull String topic) {
+        record(stamp, topic, EndToEndStamp.currentTimeNanos());
+    }
+
+    void record(final @NotNull EndToEndStamp stamp, final @NotNull String topic, final long receivedTimeNanos) {
+        // negative latencies can only be caused by clock skew between the hosts and are recorded as 0
+        final long latency = receivedTimeNanos - stamp.getTimestampNanos();
+        totalLatency.recordValue(latency);
+        intervalLatency.get().recordValue(latency);
+        received.incrementAndGet();
+
+        final SequenceState state =
+                streams.computeIfAbsent(new StreamKey(stamp.getPublisherId(), topic), key -> new SequenceState());
+        final long gap = state.onSequence(stamp.getSequence());
+        if (gap > 0) {
+            missing.addAndGet(gap);
+        } else if (gap == SequenceState.REORDERED) {
+            missing.decrementAndGet();
+            reordered.incrementAndGet();
+        } else if (gap == SequenceState.DUPLICATE) {
+            duplicates.incrementAndGet();
+        }
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getMissing() {
+        return missing.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getReordered() {
+        return reordered.get();
+    }
+
+    public @NotNull LatencyHistogram getTotalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * Prints the counters and the latency distribution of the publishes received since the last interval summary.
+     */
+    public synchronized void printIntervalSummary(final @NotNull PrintStream out) {
+        final long now = System.nanoTime();
+        final long receivedNow = received.get();
+        final LatencyHistogram latency = intervalLatency.getAndSet(new LatencyHistogram());
+        final double rate =
+                (receivedNow - intervalStartReceived) * 1_000_000_000.0 / Math.max(1, now - intervalStartNanos);
+        intervalStartNanos = now;
+        intervalStartReceived = receivedNow;
+        printSummary(out, rate, latency);
+    }
+
+    public synchronized void printTotalSummary(final @NotNull PrintStream out) {
+        final double rate = received.get() * 1_000_000_000.0 / Math.max(1, System.nanoTime() - startNanos);
+        printSummary(out, rate, totalLatency);
+    }
+
+    private void printSummary(
+            final @NotNull PrintStream out, final double rate, final @NotNull LatencyHistogram latency) {
+        out.printf(Locale.ROOT,
+                "Received %d (%.1f msgs/s), %d missing, %d duplicates, %d reordered, end-to-end latency (ms): %s%n",
+                received.get(),
+                rate,
+                missing.get(),
+                duplicates.get(),
+                reordered.get(),
+                latency.toSummaryString());
+    }
+
+    private static class StreamKey {
+
+        private final long publisherId;
+        private final @NotNull String topic;
+
+        StreamKey(final long publisherId, final @NotNull String topic) {
+            this.publisherId = publisherId;
+            this.topic = topic;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final StreamKey streamKey = (StreamKey) o;
+            return publisherId == streamKey.publisherId && topic.equals(streamKey.topic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(publisherId, topic);
+        }
+    }
+
+    static class SequenceState {
+
+        static final long IN_ORDER = 0;
+        static final long REORDERED = -1;
+        static final long DUPLICATE = -2;
+
+        private final @NotNull TreeSet<Long> gaps = new TreeSet<>();
+        private long nextSequence = -1;
+
+        /**
+         * @return the amount of newly missing sequence numbers, {@link #IN_ORDER}, {@link #REORDERED} or
+         *         {@link #DUPLICATE}
+         */
+        synchronized long onSequence(final long sequence) {
+            if (nextSequence == -1 || sequence == nextSequence) {
+                // the first publish of a stream defines the start, as the subscription may start at any time
+                nextSequence = sequence + 1;
+                return IN_ORDER;
+            }
+            if (sequence > nextSequence) {
+                final long gap = sequence - nextSequence;
+                for (long missingSequence = Math.max(nextSequence, sequence - MAX_TRACKED_GAPS);
+                     missingSequence < sequence;
+                     missingSequence++) {
+                    gaps.add(missingSequence);
+                }
+                while (gaps.size() > MAX_TRACKED_GAPS) {
+                    gaps.pollFirst();
+                }
+                nextSequence = sequence + 1;
+                return gap;
+            }
+            return gaps.remove(sequence) ? REORDERED : DUPLICATE;
+        }
+    }
+}
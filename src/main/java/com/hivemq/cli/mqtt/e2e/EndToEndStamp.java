@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.e2e;
+
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * The publisher id, sequence number and send timestamp which are embedded into a PUBLISH to measure the end-to-end
+ * latency on the subscriber side. The stamp is either transported as MQTT 5 user properties or as a binary header in
+ * front of the payload.
+ */
+public class EndToEndStamp {
+
+    public static final @NotNull String PUBLISHER_PROPERTY = "e2e-publisher";
+    public static final @NotNull String SEQUENCE_PROPERTY = "e2e-sequence";
+    public static final @NotNull String TIMESTAMP_PROPERTY = "e2e-timestamp";
+
+    // "E2E" followed by the header version
+    private static final int HEADER_MAGIC = 0x45_32_45_01;
+    public static final int HEADER_LENGTH = Integer.BYTES + 3 * Long.BYTES;
+
+    private final long publisherId;
+    private final long sequence;
+    private final long timestampNanos;
+
+    public EndToEndStamp(final long publisherId, final long sequence, final long timestampNanos) {
+        this.publisherId = publisherId;
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+    }
+
+    /**
+     * @return the wall clock time in nanoseconds since the epoch, which (unlike {@link System#nanoTime()}) can be
+     *         compared between processes on the same or on clock-synchronized hosts
+     */
+    public static long currentTimeNanos() {
+        final Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    public static @Nullable EndToEndStamp fromUserProperties(final @NotNull Mqtt5UserProperties userProperties) {
+        String publisher = null;
+        String sequence = null;
+        String timestamp = null;
+        for (final Mqtt5UserProperty userProperty : userProperties.asList()) {
+            final String name = userProperty.getName().toString();
+            switch (name) {
+                case PUBLISHER_PROPERTY:
+                    publisher = userProperty.getValue().toString();
+                    break;
+                case SEQUENCE_PROPERTY:
+                    sequence = userProperty.getValue().toString();
+                    break;
+                case TIMESTAMP_PROPERTY:
+                    timestamp = userProperty.getValue().toString();
+                    break;
+            }
+        }
+        if (publisher == null || sequence == null || timestamp == null) {
+            return null;
+        }
+        try {
+            return new EndToEndStamp(Long.parseUnsignedLong(publisher, 16),
+                    Long.parseLong(sequence),
+                    Long.parseLong(timestamp));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the stamp from the header of the payload or <code>null</code> if the payload has no header. The position
+     *         of the buffer is not changed.
+     */
+    public static @Nullable EndToEndStamp fromPayload(final @NotNull ByteBuffer payload) {
+        if (payload.remaining() < HEADER_LENGTH) {
+            return null;
+        }
+        final int position = payload.position();
+        if (payload.getInt(position) != HEADER_MAGIC) {
+            return null;
+        }
+        return new EndToEndStamp(payload.getLong(position + Integer.BYTES),
+                payload.getLong(position + Integer.BYTES + Long.BYTES),
+                payload.getLong(position + Integer.BYTES + 2 * Long.BYTES));
+    }
+
+    /**
+     * @return a view of the payload without the stamp header, the payload must start with a header
+     */
+    public static @NotNull ByteBuffer skipHeader(final @NotNull ByteBuffer payload) {
+        final ByteBuffer duplicate = payload.duplicate();
+        duplicate.position(duplicate.position() + HEADER_LENGTH);
+        return duplicate.slice();
+    }
+
+    public @NotNull Mqtt5UserProperties addToUserProperties(final @Nullable Mqtt5UserProperties userProperties) {
+        return (userProperties != null ? userProperties.extend() : Mqtt5UserProperties.builder()).add(
+                        PUBLISHER_PROPERTY,
+                        Long.toHexString(publisherId))
+                .add(SEQUENCE_PROPERTY, Long.toString(sequence))
+                .add(TIMESTAMP_PROPERTY, Long.toString(timestampNanos))
+                .build();
+    }
+
+    public @NotNull ByteBuffer prependToPayload(final @Nullable ByteBuffer payload) {
+        final ByteBuffer stampedPayload =
+                ByteBuffer.allocate(HEADER_LENGTH + (payload != null ? payload.remaining() : 0));
+        stampedPayload.putInt(HEADER_MAGIC).putLong(publisherId).putLong(sequence).putLong(timestampNanos);
+        if (payload != null) {
+            stampedPayload.put(payload.duplicate());
+        }
+        return stampedPayload.flip();
+    }
+
+    public long getPublisherId() {
+        return publisherId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "EndToEndStamp{" +
+                "publisherId=" +
+                Long.toHexString(publisherId) +
+                ", sequence=" +
+                sequence +
+                ", timestampNanos=" +
+                timestampNanos +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.e2e;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the stamps of a single publisher. Sequence numbers are counted per topic, so a subscriber can detect gaps
+ * even if it only receives a subset of the topics.
+ */
+public class EndToEndStamper {
+
+    private final long publisherId;
+    private final @NotNull Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    public EndToEndStamper() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    EndToEndStamper(final long publisherId) {
+        this.publisherId = publisherId;
+    }
+
+    public @NotNull EndToEndStamp next(final @NotNull String topic) {
+        final long sequence = sequences.computeIfAbsent(topic, t -> new AtomicLong()).getAndIncrement();
+        return new EndToEndStamp(publisherId, sequence, EndToEndStamp.currentTimeNanos());
+    }
+
+    public long getPublisherId() {
+        return publisherId;
+    }
+}
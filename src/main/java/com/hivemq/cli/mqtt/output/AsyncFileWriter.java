@@ -0,0 +1,334 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputFileOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes lines to a file on a dedicated writer thread, so the threads receiving messages do not wait for file I/O.
+ * <p>
+ * Lines are queued in a bounded queue and written in batches of up to the flush size through a long-lived
+ * {@link FileChannel}. Buffered lines are written at the latest after the flush interval. If the queue is full, the
+ * backpressure policy decides whether the caller waits or the line is dropped and counted. If rotation is enabled,
+ * the file is rotated between two writes, so lines are never split across files.
+ * <p>
+ * A line can be queued with a callback, which is called on the writer thread once the line is written to the file
+ * (and synced if the fsync policy is flush), or dropped.
+ */
+public class AsyncFileWriter implements Closeable {
+
+    private static final @NotNull Record CLOSE_MARKER = new Record(new byte[0], null);
+    private static final byte @NotNull [] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final long IDLE_POLL_MILLIS = 1000;
+
+    private final @NotNull File file;
+    private final @NotNull OutputFileOptions.FsyncPolicy fsyncPolicy;
+    private final @NotNull OutputFileOptions.BackpressurePolicy backpressurePolicy;
+    private final long flushIntervalNanos;
+    private final @NotNull BlockingQueue<Record> queue;
+    private final @NotNull ByteBuffer buffer;
+    // the callbacks of the lines in the buffer
+    private final @NotNull List<Runnable> bufferedCallbacks = new ArrayList<>();
+    private final @NotNull AtomicLong writtenLines = new AtomicLong();
+    private final @NotNull AtomicLong droppedLines = new AtomicLong();
+    private final @NotNull Thread writerThread;
+    private final @Nullable OutputFileRotation rotation;
+    private volatile boolean closed = false;
+    private @NotNull FileChannel channel;
+    private long segmentBytes;
+
+    public AsyncFileWriter(final @NotNull File file, final @NotNull OutputFileOptions options) throws IOException {
+        this.file = file;
+        fsyncPolicy = options.getFsyncPolicy();
+        backpressurePolicy = options.getBackpressurePolicy();
+        flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getFlushIntervalMillis());
+        queue = new ArrayBlockingQueue<>(options.getQueueSize());
+        buffer = ByteBuffer.allocateDirect(options.getFlushSize());
+        rotation = options.isRotationEnabled() ? new OutputFileRotation(file, options) : null;
+        channel = openChannel();
+        writerThread = new Thread(this::run, "output-file-writer-" + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void writeLine(final @NotNull String line) {
+        writeLine(line, null);
+    }
+
+    /**
+     * @param onWritten called once the line is written or dropped
+     */
+    public void writeLine(final @NotNull String line, final @Nullable Runnable onWritten) {
+        final byte[] lineBytes = line.getBytes(StandardCharsets.UTF_8);
+        final byte[] record = new byte[lineBytes.length + LINE_SEPARATOR.length];
+        System.arraycopy(lineBytes, 0, record, 0, lineBytes.length);
+        System.arraycopy(LINE_SEPARATOR, 0, record, lineBytes.length, LINE_SEPARATOR.length);
+        write(record, onWritten);
+    }
+
+    /**
+     * Queues the bytes to be written to the file. The array must not be modified afterwards.
+     */
+    public void write(final byte @NotNull [] record) {
+        write(record, null);
+    }
+
+    private void write(final byte @NotNull [] bytes, final @Nullable Runnable onWritten) {
+        if (closed) {
+            drop(onWritten);
+            return;
+        }
+        final Record record = new Record(bytes, onWritten);
+        switch (backpressurePolicy) {
+            case block:
+                try {
+                    queue.put(record);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(onWritten);
+                }
+                break;
+            case drop:
+                if (!queue.offer(record)) {
+                    if (droppedLines.get() == 0) {
+                        Logger.warn("Output file queue for {} is full, received messages are dropped",
+                                file.getAbsolutePath());
+                    }
+                    drop(onWritten);
+                }
+                break;
+        }
+    }
+
+    private void drop(final @Nullable Runnable onWritten) {
+        droppedLines.incrementAndGet();
+        if (onWritten != null) {
+            onWritten.run();
+        }
+    }
+
+    public long getWrittenLines() {
+        return writtenLines.get();
+    }
+
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    public int getQueuedLines() {
+        return queue.size();
+    }
+
+    /**
+     * Writes all queued lines and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE_MARKER);
+            writerThread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedLines.get() > 0) {
+            Logger.warn("Dropped {} received messages which could not be written to output file {}",
+                    droppedLines.get(),
+                    file.getAbsolutePath());
+        }
+    }
+
+    private void run() {
+        long flushDeadline = 0;
+        try {
+            while (true) {
+                final Record record;
+                if (buffer.position() == 0) {
+                    record = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } else {
+                    record = queue.poll(flushDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+                if (record == CLOSE_MARKER) {
+                    break;
+                }
+                if (record != null) {
+                    if (buffer.position() == 0) {
+                        flushDeadline = System.nanoTime() + flushIntervalNanos;
+                    }
+                    append(record);
+                    writtenLines.incrementAndGet();
+                }
+                if (buffer.position() > 0 && System.nanoTime() - flushDeadline >= 0) {
+                    flush();
+                }
+                if (rotation != null && rotation.isIntervalElapsed()) {
+                    flush();
+                    rotate();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        closeChannel();
+        if (rotation != null) {
+            rotation.close();
+        }
+    }
+
+    private void append(final @NotNull Record record) {
+        if (record.bytes.length > buffer.remaining()) {
+            flush();
+            if (record.bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(record.bytes));
+                if (fsyncPolicy == OutputFileOptions.FsyncPolicy.flush) {
+                    force();
+                }
+                if (record.onWritten != null) {
+                    record.onWritten.run();
+                }
+                return;
+            }
+        }
+        buffer.put(record.bytes);
+        if (record.onWritten != null) {
+            bufferedCallbacks.add(record.onWritten);
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        if (fsyncPolicy == OutputFileOptions.FsyncPolicy.flush) {
+            force();
+        }
+        // lines which could not be written are logged, their callbacks are called anyway
+        for (final Runnable callback : bufferedCallbacks) {
+            callback.run();
+        }
+        bufferedCallbacks.clear();
+    }
+
+    private void writeFully(final @NotNull ByteBuffer source) {
+        try {
+            reopenIfDeleted();
+            if (rotation != null && rotation.isSizeExceeded(segmentBytes, source.remaining())) {
+                rotate();
+            }
+            while (source.hasRemaining()) {
+                segmentBytes += channel.write(source);
+            }
+        } catch (final IOException e) {
+            Logger.error("Cannot write to output file {}: {}", file.getAbsolutePath(), e.getMessage());
+            source.position(source.limit());
+        }
+    }
+
+    private void force() {
+        try {
+            channel.force(false);
+        } catch (final IOException e) {
+            Logger.error("Cannot sync output file {}: {}", file.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private void rotate() {
+        // empty segments are not rotated, only the interval starts again
+        if (segmentBytes > 0) {
+            closeChannel();
+            try {
+                Objects.requireNonNull(rotation).rotate();
+            } catch (final IOException e) {
+                Logger.error("Cannot rotate output file {}: {}", file.getAbsolutePath(), e.getMessage());
+            }
+            try {
+                channel = openChannel();
+            } catch (final IOException e) {
+                Logger.error("Cannot open output file {}: {}", file.getAbsolutePath(), e.getMessage());
+            }
+        }
+        Objects.requireNonNull(rotation).onNewSegment();
+    }
+
+    private void reopenIfDeleted() throws IOException {
+        // Re-create a deleted output file if it was deleted manually
+        if (!file.exists()) {
+            closeChannel();
+            channel = openChannel();
+            Logger.debug("Re-created deleted output file {}", file.getAbsolutePath());
+        }
+    }
+
+    private @NotNull FileChannel openChannel() throws IOException {
+        final FileChannel fileChannel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentBytes = fileChannel.size();
+        return fileChannel;
+    }
+
+    private void closeChannel() {
+        try {
+            if (fsyncPolicy != OutputFileOptions.FsyncPolicy.never) {
+                channel.force(true);
+            }
+            channel.close();
+        } catch (final IOException e) {
+            Logger.error("Cannot close output file {}: {}", file.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private static class Record {
+
+        private final byte @NotNull [] bytes;
+        private final @Nullable Runnable onWritten;
+
+        Record(final byte @NotNull [] bytes, final @Nullable Runnable onWritten) {
+            this.bytes = bytes;
+            this.onWritten = onWritten;
+        }
+    }
+}
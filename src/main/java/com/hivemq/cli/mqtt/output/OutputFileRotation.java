@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputFileOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.tinylog.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decides when an output file is rotated and handles the rotated files. A rotated file is renamed to
+ * '&lt;file&gt;.&lt;timestamp&gt;'. Compression and the deletion of old rotated files run on a separate thread, so
+ * they do not delay the writing of new messages.
+ */
+class OutputFileRotation {
+
+    private static final @NotNull DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final @NotNull String GZIP_SUFFIX = ".gz";
+
+    private final @NotNull File file;
+    private final @Nullable Long rotateSize;
+    private final long rotateIntervalNanos;
+    private final @NotNull OutputFileOptions.Compression compression;
+    private final @Nullable Integer retainedFiles;
+    private final @NotNull ExecutorService maintenanceExecutor;
+    private long segmentStartNanos = System.nanoTime();
+
+    OutputFileRotation(final @NotNull File file, final @NotNull OutputFileOptions options) {
+        this.file = file;
+        rotateSize = options.getRotateSize();
+        final Long rotateIntervalSeconds = options.getRotateIntervalSeconds();
+        rotateIntervalNanos = rotateIntervalSeconds != null ? TimeUnit.SECONDS.toNanos(rotateIntervalSeconds) : 0;
+        compression = options.getCompression();
+        retainedFiles = options.getRetainedFiles();
+        maintenanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "output-file-rotation-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    boolean isSizeExceeded(final long segmentBytes, final long additionalBytes) {
+        return rotateSize != null && segmentBytes > 0 && segmentBytes + additionalBytes > rotateSize;
+    }
+
+    boolean isIntervalElapsed() {
+        return rotateIntervalNanos > 0 && System.nanoTime() - segmentStartNanos >= rotateIntervalNanos;
+    }
+
+    void onNewSegment() {
+        segmentStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Renames the (closed) output file and schedules its compression and the deletion of expired rotated files.
+     */
+    void rotate() throws IOException {
+        final Path rotatedPath = nextRotatedPath();
+        Files.move(file.toPath(), rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+        Logger.debug("Rotated output file {} to {}", file.getAbsolutePath(), rotatedPath);
+        maintenanceExecutor.execute(() -> {
+            if (compression == OutputFileOptions.Compression.gzip) {
+                compress(rotatedPath);
+            }
+            if (retainedFiles != null) {
+                deleteExpiredFiles(file, retainedFiles);
+            }
+        });
+    }
+
+    /**
+     * Waits until all scheduled compressions and deletions are done.
+     */
+    void close() {
+        maintenanceExecutor.shutdown();
+        try {
+            if (!maintenanceExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                Logger.warn("Compression of rotated output files of {} did not finish", file.getAbsolutePath());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private @NotNull Path nextRotatedPath() {
+        final String rotatedName = file.getName() + "." + TIMESTAMP_FORMATTER.format(LocalDateTime.now());
+        Path rotatedPath = file.toPath().resolveSibling(rotatedName);
+        for (int i = 1; Files.exists(rotatedPath) || Files.exists(Path.of(rotatedPath + GZIP_SUFFIX)); i++) {
+            rotatedPath = file.toPath().resolveSibling(rotatedName + "-" + i);
+        }
+        return rotatedPath;
+    }
+
+    private static void compress(final @NotNull Path path) {
+        final Path compressedPath = Path.of(path + GZIP_SUFFIX);
+        try (final InputStream in = Files.newInputStream(path);
+             final OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedPath), 64 * 1024)) {
+            in.transferTo(out);
+        } catch (final IOException e) {
+            Logger.error("Cannot compress rotated output file {}: {}", path, e.getMessage());
+            return;
+        }
+        try {
+            Files.delete(path);
+        } catch (final IOException e) {
+            Logger.error("Cannot delete compressed output file {}: {}", path, e.getMessage());
+        }
+    }
+
+    @VisibleForTesting
+    static void deleteExpiredFiles(final @NotNull File file, final int retainedFiles) {
+        final List<File> rotatedFiles = listRotatedFiles(file);
+        // the timestamp in the names orders the rotated files from oldest to newest
+        for (int i = 0; i < rotatedFiles.size() - retainedFiles; i++) {
+            final File expiredFile = rotatedFiles.get(i);
+            if (expiredFile.delete()) {
+                Logger.debug("Deleted expired output file {}", expiredFile.getAbsolutePath());
+            } else {
+                Logger.error("Cannot delete expired output file {}", expiredFile.getAbsolutePath());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static @NotNull List<File> listRotatedFiles(final @NotNull File file) {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        final String prefix = file.getName() + ".";
+        final File[] rotatedFiles = directory.listFiles((dir, name) -> name.startsWith(prefix) &&
+                name.length() > prefix.length() &&
+                Character.isDigit(name.charAt(prefix.length())));
+        if (rotatedFiles == null) {
+            return List.of();
+        }
+        final List<File> sortedFiles = new ArrayList<>(Arrays.asList(rotatedFiles));
+        sortedFiles.sort(Comparator.comparing(rotatedFile -> stripGzipSuffix(rotatedFile.getName())));
+        return sortedFiles;
+    }
+
+    private static @NotNull String stripGzipSuffix(final @NotNull String name) {
+        return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+}
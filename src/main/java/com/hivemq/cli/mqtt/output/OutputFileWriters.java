@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputFileOptions;
+import com.hivemq.cli.commands.options.OutputPipelineOptions;
+import com.hivemq.cli.mqtt.capture.BinaryCaptureWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares one {@link AsyncFileWriter} per output file and one {@link BinaryCaptureWriter} per capture file between all
+ * subscriptions writing to it, and keeps track of the {@link OutputPipeline}s which write to them.
+ */
+public final class OutputFileWriters {
+
+    private static final @NotNull Map<File, AsyncFileWriter> writers = new HashMap<>();
+    private static final @NotNull Map<File, BinaryCaptureWriter> captureWriters = new HashMap<>();
+    private static final @NotNull List<OutputPipeline> pipelines = new ArrayList<>();
+
+    private OutputFileWriters() {
+    }
+
+    public static synchronized @NotNull AsyncFileWriter get(
+            final @NotNull File file, final @NotNull OutputFileOptions options) {
+        return writers.computeIfAbsent(file.getAbsoluteFile(), absoluteFile -> {
+            try {
+                return new AsyncFileWriter(absoluteFile, options);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Cannot open output file " + absoluteFile, e);
+            }
+        });
+    }
+
+    public static synchronized @NotNull BinaryCaptureWriter getCaptureWriter(final @NotNull File file) {
+        return captureWriters.computeIfAbsent(file.getAbsoluteFile(), absoluteFile -> {
+            try {
+                return new BinaryCaptureWriter(absoluteFile.toPath());
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Cannot open capture file " + absoluteFile, e);
+            }
+        });
+    }
+
+    public static synchronized @NotNull OutputPipeline createPipeline(final @NotNull OutputPipelineOptions options) {
+        final OutputPipeline pipeline = new OutputPipeline(options);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    /**
+     * Writes all queued messages and closes all output and capture files.
+     */
+    public static void closeAll() {
+        final List<OutputPipeline> pipelinesToClose;
+        final List<AsyncFileWriter> writersToClose;
+        final List<BinaryCaptureWriter> captureWritersToClose;
+        synchronized (OutputFileWriters.class) {
+            pipelinesToClose = new ArrayList<>(pipelines);
+            pipelines.clear();
+            writersToClose = new ArrayList<>(writers.values());
+            writers.clear();
+            captureWritersToClose = new ArrayList<>(captureWriters.values());
+            captureWriters.clear();
+        }
+        // the pipelines write their queued messages to the output files
+        for (final OutputPipeline pipeline : pipelinesToClose) {
+            pipeline.close();
+        }
+        for (final AsyncFileWriter writer : writersToClose) {
+            writer.close();
+        }
+        for (final BinaryCaptureWriter captureWriter : captureWritersToClose) {
+            captureWriter.close();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputFileOptions;
+import com.hivemq.cli.commands.options.OutputPipelineOptions;
+import org.jetbrains.annotations.NotNull;
+import org.tinylog.Logger;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Prints and writes received messages on a dedicated thread, so the threads receiving messages do not wait for a slow
+ * terminal or disk.
+ * <p>
+ * Messages are queued in a bounded queue and output in the order they were queued, so all subscriptions sharing the
+ * pipeline are merged into one sink. Depending on the ack policy a message is acknowledged as soon as it is queued or
+ * after it was output. If the queue is full, the backpressure policy decides whether the receiving thread waits or the
+ * message is dropped. Dropped messages are acknowledged anyway, so the broker does not stop sending.
+ */
+public class OutputPipeline implements Closeable {
+
+    /**
+     * Prints and writes one message.
+     */
+    @FunctionalInterface
+    public interface Output {
+
+        /**
+         * @param onWritten must be called once the message is output, e.g. after the output file was written
+         */
+        void write(@NotNull Runnable onWritten);
+    }
+
+    private static final @NotNull Runnable NO_OP = () -> {
+    };
+    private static final @NotNull Entry CLOSE_MARKER = new Entry(onWritten -> {
+    }, NO_OP);
+
+    private final @NotNull OutputPipelineOptions.AckPolicy ackPolicy;
+    private final @NotNull OutputFileOptions.BackpressurePolicy backpressurePolicy;
+    private final int queueSize;
+    private final @NotNull BlockingQueue<Entry> queue;
+    private final @NotNull AtomicLong writtenMessages = new AtomicLong();
+    private final @NotNull AtomicLong droppedMessages = new AtomicLong();
+    private final @NotNull LongAccumulator maximumQueueDepth = new LongAccumulator(Math::max, 0);
+    private final @NotNull Thread writerThread;
+    private volatile boolean closed = false;
+
+    public OutputPipeline(final @NotNull OutputPipelineOptions options) {
+        ackPolicy = options.getAckPolicy();
+        backpressurePolicy = options.getBackpressurePolicy();
+        queueSize = options.getQueueSize();
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writerThread = new Thread(this::run, "output-pipeline");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a received message.
+     *
+     * @param output      prints and writes the message on the pipeline thread
+     * @param acknowledge acknowledges the message
+     */
+    public void submit(final @NotNull Output output, final @NotNull Runnable acknowledge) {
+        if (closed) {
+            drop(acknowledge);
+            return;
+        }
+        final boolean ackOnWritten = ackPolicy == OutputPipelineOptions.AckPolicy.written;
+        final Entry entry = new Entry(output, ackOnWritten ? acknowledge : NO_OP);
+        switch (backpressurePolicy) {
+            case block:
+                try {
+                    queue.put(entry);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(acknowledge);
+                    return;
+                }
+                break;
+            case drop:
+                if (!queue.offer(entry)) {
+                    if (droppedMessages.get() == 0) {
+                        Logger.warn("Output pipeline queue is full, received messages are dropped");
+                    }
+                    drop(acknowledge);
+                    return;
+                }
+                break;
+        }
+        maximumQueueDepth.accumulate(queue.size());
+        if (!ackOnWritten) {
+            acknowledge.run();
+        }
+    }
+
+    public long getWrittenMessages() {
+        return writtenMessages.get();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    public int getQueuedMessages() {
+        return queue.size();
+    }
+
+    public long getMaximumQueueDepth() {
+        return maximumQueueDepth.get();
+    }
+
+    /**
+     * Appends the queue depth and the dropped messages to the current line.
+     */
+    public void printProgress(final @NotNull PrintStream out) {
+        out.append(String.format(Locale.ROOT,
+                ", pipeline queue %d/%d, %d dropped",
+                getQueuedMessages(),
+                queueSize,
+                getDroppedMessages())).flush();
+    }
+
+    /**
+     * Outputs all queued messages and stops the pipeline thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE_MARKER);
+            writerThread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedMessages.get() > 0) {
+            Logger.warn("Dropped {} received messages as the output pipeline queue was full (maximum depth {} of {})",
+                    droppedMessages.get(),
+                    getMaximumQueueDepth(),
+                    queueSize);
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                final Entry entry = queue.take();
+                if (entry == CLOSE_MARKER) {
+                    break;
+                }
+                try {
+                    entry.output.write(entry.acknowledge);
+                } catch (final Exception e) {
+                    Logger.error("An error occurred while writing a received message.", e);
+                }
+                writtenMessages.incrementAndGet();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drop(final @NotNull Runnable acknowledge) {
+        droppedMessages.incrementAndGet();
+        acknowledge.run();
+    }
+
+    private static class Entry {
+
+        private final @NotNull Output output;
+        private final @NotNull Runnable acknowledge;
+
+        Entry(final @NotNull Output output, final @NotNull Runnable acknowledge) {
+            this.output = output;
+            this.acknowledge = acknowledge;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.template;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A topic or payload template with <code>${...}</code> placeholders which are rendered per message:
+ * <ul>
+ *     <li><code>${seq}</code> the sequence number of the message, starting at 0</li>
+ *     <li><code>${timestamp}</code> the current time in milliseconds since the epoch</li>
+ *     <li><code>${int:MIN:MAX}</code> a random integer between MIN and MAX, both inclusive</li>
+ *     <li><code>${float:MIN:MAX[:DECIMALS]}</code> a random number between MIN and MAX with 2 or DECIMALS decimals</li>
+ *     <li><code>${client}</code> the index of the publishing client, starting at 0</li>
+ *     <li><code>${uuid}</code> a random UUID</li>
+ * </ul>
+ * The template is parsed once, rendering writes the UTF-8 bytes directly into a given buffer and does not allocate.
+ */
+public class MessageTemplate {
+
+    private static final @NotNull String PLACEHOLDER_START = "${";
+    private static final int DEFAULT_DECIMALS = 2;
+    private static final int MAX_DECIMALS = 9;
+    // digits and sign of Long.MIN_VALUE
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final int UUID_LENGTH = 36;
+    private static final byte @NotNull [] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // 2^53, the integers above can not all be represented by a double
+    private static final double MAX_EXACT_DOUBLE = 9_007_199_254_740_992d;
+    private static final long @NotNull [] POWERS_OF_TEN = new long[MAX_DECIMALS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final @NotNull Part @NotNull [] parts;
+    private final int maximumLength;
+    private final boolean constant;
+
+    private MessageTemplate(final @NotNull List<Part> parts) {
+        this.parts = parts.toArray(new Part[0]);
+        int maximumLength = 0;
+        boolean constant = true;
+        for (final Part part : parts) {
+            maximumLength += part.getMaximumLength();
+            constant &= part instanceof Literal;
+        }
+        this.maximumLength = maximumLength;
+        this.constant = constant;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a placeholder is unknown, not closed or has invalid arguments
+     */
+    public static @NotNull MessageTemplate compile(final @NotNull String template) {
+        final List<Part> parts = new ArrayList<>();
+        int index = 0;
+        while (index < template.length()) {
+            final int start = template.indexOf(PLACEHOLDER_START, index);
+            if (start == -1) {
+                parts.add(new Literal(template.substring(index)));
+                break;
+            }
+            if (start > index) {
+                parts.add(new Literal(template.substring(index, start)));
+            }
+            final int end = template.indexOf('}', start);
+            if (end == -1) {
+                throw new IllegalArgumentException("Placeholder at index " + start + " of template '" + template +
+                        "' is not closed");
+            }
+            parts.add(parsePlaceholder(template.substring(start + PLACEHOLDER_START.length(), end)));
+            index = end + 1;
+        }
+        return new MessageTemplate(parts);
+    }
+
+    private static @NotNull Part parsePlaceholder(final @NotNull String placeholder) {
+        final String[] arguments = placeholder.split(":", -1);
+        switch (arguments[0]) {
+            case "seq":
+                checkArgumentCount(placeholder, arguments, 1, 1);
+                return new Sequence();
+            case "timestamp":
+                checkArgumentCount(placeholder, arguments, 1, 1);
+                return new Timestamp();
+            case "client":
+                checkArgumentCount(placeholder, arguments, 1, 1);
+                return new ClientIndex();
+            case "uuid":
+                checkArgumentCount(placeholder, arguments, 1, 1);
+                return new RandomUuid();
+            case "int": {
+                checkArgumentCount(placeholder, arguments, 3, 3);
+                final long min = parseLong(placeholder, arguments[1]);
+                final long max = parseLong(placeholder, arguments[2]);
+                if (min > max || max == Long.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid range in placeholder ${" + placeholder + "}");
+                }
+                return new RandomInt(min, max);
+            }
+            case "float": {
+                checkArgumentCount(placeholder, arguments, 3, 4);
+                final double min = parseDouble(placeholder, arguments[1]);
+                final double max = parseDouble(placeholder, arguments[2]);
+                final int decimals =
+                        arguments.length == 4 ? (int) parseLong(placeholder, arguments[3]) : DEFAULT_DECIMALS;
+                if (decimals < 0 || decimals > MAX_DECIMALS) {
+                    throw new IllegalArgumentException("Decimals in placeholder ${" + placeholder +
+                            "} must be between 0 and " + MAX_DECIMALS);
+                }
+                // the values scaled by the decimals are rounded to a long, they have to be exact integers as a double
+                if (!(min <= max) ||
+                        Math.max(Math.abs(min), Math.abs(max)) * POWERS_OF_TEN[decimals] >= MAX_EXACT_DOUBLE) {
+                    throw new IllegalArgumentException("Invalid range in placeholder ${" + placeholder +
+                            "}, the values scaled by the decimals must be less than 2^53");
+                }
+                return new RandomFloat(min, max, decimals);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown placeholder ${" + placeholder +
+                        "}, supported are seq, timestamp, int, float, client and uuid");
+        }
+    }
+
+    private static void checkArgumentCount(
+            final @NotNull String placeholder, final @NotNull String @NotNull [] arguments, final int min, final int max) {
+        if (arguments.length < min || arguments.length > max) {
+            throw new IllegalArgumentException("Wrong amount of arguments in placeholder ${" + placeholder + "}");
+        }
+    }
+
+    private static long parseLong(final @NotNull String placeholder, final @NotNull String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + value + "' in placeholder ${" + placeholder + "}");
+        }
+    }
+
+    private static double parseDouble(final @NotNull String placeholder, final @NotNull String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + value + "' in placeholder ${" + placeholder + "}");
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the template has no placeholders and always renders the same bytes
+     */
+    public boolean isConstant() {
+        return constant;
+    }
+
+    /**
+     * @return the maximum amount of bytes a rendered message can have
+     */
+    public int getMaximumLength() {
+        return maximumLength;
+    }
+
+    /**
+     * @param target a buffer with at least {@link #getMaximumLength()} bytes
+     * @return the amount of bytes written to the beginning of the buffer
+     */
+    public int render(final byte @NotNull [] target, final long sequence, final int clientIndex) {
+        int offset = 0;
+        for (final Part part : parts) {
+            offset = part.write(target, offset, sequence, clientIndex);
+        }
+        return offset;
+    }
+
+    public @NotNull String renderString(final long sequence, final int clientIndex) {
+        final byte[] target = new byte[maximumLength];
+        return new String(target, 0, render(target, sequence, clientIndex), StandardCharsets.UTF_8);
+    }
+
+    static int writeLong(final byte @NotNull [] target, int offset, final long value) {
+        if (value == Long.MIN_VALUE) {
+            final byte[] digits = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(digits, 0, target, offset, digits.length);
+            return offset + digits.length;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            target[offset++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return offset + digits;
+    }
+
+    private interface Part {
+
+        int getMaximumLength();
+
+        int write(byte @NotNull [] target, int offset, long sequence, int clientIndex);
+    }
+
+    private static class Literal implements Part {
+
+        private final byte @NotNull [] bytes;
+
+        Literal(final @NotNull String text) {
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int getMaximumLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            System.arraycopy(bytes, 0, target, offset, bytes.length);
+            return offset + bytes.length;
+        }
+    }
+
+    private static class Sequence implements Part {
+
+        @Override
+        public int getMaximumLength() {
+            return MAX_LONG_LENGTH;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            return writeLong(target, offset, sequence);
+        }
+    }
+
+    private static class Timestamp implements Part {
+
+        @Override
+        public int getMaximumLength() {
+            return MAX_LONG_LENGTH;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            return writeLong(target, offset, System.currentTimeMillis());
+        }
+    }
+
+    private static class ClientIndex implements Part {
+
+        @Override
+        public int getMaximumLength() {
+            return MAX_LONG_LENGTH;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            return writeLong(target, offset, clientIndex);
+        }
+    }
+
+    private static class RandomInt implements Part {
+
+        private final long min;
+        private final long max;
+
+        RandomInt(final long min, final long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int getMaximumLength() {
+            return MAX_LONG_LENGTH;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            return writeLong(target, offset, ThreadLocalRandom.current().nextLong(min, max + 1));
+        }
+    }
+
+    private static class RandomFloat implements Part {
+
+        private final double min;
+        private final double max;
+        private final int decimals;
+
+        RandomFloat(final double min, final double max, final int decimals) {
+            this.min = min;
+            this.max = max;
+            this.decimals = decimals;
+        }
+
+        @Override
+        public int getMaximumLength() {
+            return MAX_LONG_LENGTH + 1 + decimals;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, int offset, final long sequence, final int clientIndex) {
+            final double value = min == max ? min : ThreadLocalRandom.current().nextDouble(min, max);
+            final long scaled = Math.round(value * POWERS_OF_TEN[decimals]);
+            if (scaled < 0) {
+                target[offset++] = '-';
+            }
+            final long absolute = Math.abs(scaled);
+            offset = writeLong(target, offset, absolute / POWERS_OF_TEN[decimals]);
+            if (decimals == 0) {
+                return offset;
+            }
+            target[offset++] = '.';
+            long fraction = absolute % POWERS_OF_TEN[decimals];
+            for (int i = offset + decimals - 1; i >= offset; i--) {
+                target[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            return offset + decimals;
+        }
+    }
+
+    private static class RandomUuid implements Part {
+
+        @Override
+        public int getMaximumLength() {
+            return UUID_LENGTH;
+        }
+
+        @Override
+        public int write(final byte @NotNull [] target, final int offset, final long sequence, final int clientIndex) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            // version 4 and IETF variant like UUID.randomUUID()
+            final long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+            final long leastSignificantBits = (random.nextLong() & ~(0xC0L << 56)) | (0x80L << 56);
+            int position = writeHex(target, offset, mostSignificantBits >>> 32, 8);
+            target[position++] = '-';
+            position = writeHex(target, position, mostSignificantBits >>> 16, 4);
+            target[position++] = '-';
+            position = writeHex(target, position, mostSignificantBits, 4);
+            target[position++] = '-';
+            position = writeHex(target, position, leastSignificantBits >>> 48, 4);
+            target[position++] = '-';
+            return writeHex(target, position, leastSignificantBits, 12);
+        }
+
+        private static int writeHex(final byte @NotNull [] target, final int offset, long value, final int digits) {
+            for (int i = offset + digits - 1; i >= offset; i--) {
+                target[i] = HEX_DIGITS[(int) (value & 0xF)];
+                value >>>= 4;
+            }
+            return offset + digits;
+        }
+    }
+}
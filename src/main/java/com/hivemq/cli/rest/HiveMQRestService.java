@@ -26,6 +26,8 @@ import com.hivemq.cli.openapi.hivemq.DataHubSchemasApi;
 import com.hivemq.cli.openapi.hivemq.DataHubScriptsApi;
 import com.hivemq.cli.openapi.hivemq.DataHubStateApi;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import org.jetbrains.annotations.NotNull;
 
@@ -48,6 +50,21 @@ public class HiveMQRestService {
         return new MqttClientsApi(apiClient);
     }
 
+    /**
+     * Allows as many asynchronous requests at once as the caller limits itself to. The round trip of each request is
+     * reported in the {@link RoundTripTimeInterceptor#HEADER} header.
+     */
+    public @NotNull MqttClientsApi getMqttClientsApi(
+            final @NotNull String host, final double requestPerSecondLimit, final int maxConcurrentRequests) {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxConcurrentRequests);
+        dispatcher.setMaxRequestsPerHost(maxConcurrentRequests);
+        final OkHttpClient.Builder okHttpClient = okHttpClientBuilder(requestPerSecondLimit).dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxConcurrentRequests, 5, TimeUnit.MINUTES))
+                .addNetworkInterceptor(new RoundTripTimeInterceptor());
+        return new MqttClientsApi(buildApiClient(host, okHttpClient.build()));
+    }
+
     public @NotNull DataHubDataPoliciesApi getDataPoliciesApi(
             final @NotNull String host, final double requestPerSecondLimit) {
         final ApiClient apiClient = buildApiClient(host, requestPerSecondLimit);
@@ -79,9 +96,16 @@ public class HiveMQRestService {
     }
 
     private static @NotNull ApiClient buildApiClient(final @NotNull String host, final double requestsPerSecondLimit) {
-        final OkHttpClient okHttpClient = new OkHttpClient.Builder().connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .addInterceptor(new RateLimitInterceptor(requestsPerSecondLimit))
-                .build();
+        return buildApiClient(host, okHttpClientBuilder(requestsPerSecondLimit).build());
+    }
+
+    private static @NotNull OkHttpClient.Builder okHttpClientBuilder(final double requestsPerSecondLimit) {
+        return new OkHttpClient.Builder().connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .addInterceptor(new RateLimitInterceptor(requestsPerSecondLimit));
+    }
+
+    private static @NotNull ApiClient buildApiClient(
+            final @NotNull String host, final @NotNull OkHttpClient okHttpClient) {
         final ApiClient apiClient = Configuration.getDefaultApiClient();
         apiClient.setHttpClient(okHttpClient);
         apiClient.setBasePath(host);
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.rest;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the round trip of a request on the network, excluding the time the call waited for the dispatcher or the
+ * {@link RateLimitInterceptor}, and adds it to the response as the {@link #HEADER} header.
+ * <p>
+ * It must be added as a network interceptor, so it runs after the application interceptors.
+ */
+public class RoundTripTimeInterceptor implements Interceptor {
+
+    // lower case as OkHttp reports the response headers to the API callbacks with lower case names
+    public static final @NotNull String HEADER = "x-mqtt-cli-round-trip-nanos";
+
+    @Override
+    public @NotNull Response intercept(final @NotNull Chain chain) throws IOException {
+        final long startNanos = System.nanoTime();
+        final Response response = chain.proceed(chain.request());
+        return response.newBuilder().header(HEADER, Long.toString(System.nanoTime() - startNanos)).build();
+    }
+
+    /**
+     * @return the round trip in nanoseconds or <code>null</code> if the headers do not contain it
+     */
+    public static @Nullable Long getRoundTripNanos(final @Nullable Map<String, List<String>> responseHeaders) {
+        if (responseHeaders == null) {
+            return null;
+        }
+        final List<String> values = responseHeaders.get(HEADER);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(values.get(0));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+}
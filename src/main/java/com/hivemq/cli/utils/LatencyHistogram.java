@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram for latencies in nanoseconds.
+ * Every power of two is divided into 256 linear sub-buckets, so recorded values are kept with a relative error of
+ * less than 0.4%. Values can be recorded concurrently, percentiles should be read after recording has finished.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // ~4.9 hours in nanoseconds
+    private static final long HIGHEST_TRACKABLE_VALUE = (1L << 44) - 1;
+    private static final int PERCENTILE_TICKS_PER_HALF_DISTANCE = 5;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final @NotNull AtomicLongArray counts = new AtomicLongArray(indexOf(HIGHEST_TRACKABLE_VALUE) + 1);
+    private final @NotNull AtomicLong totalCount = new AtomicLong();
+    private final @NotNull AtomicLong totalValue = new AtomicLong();
+    private final @NotNull AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final @NotNull AtomicLong maxValue = new AtomicLong(0);
+
+    public void recordValue(final long value) {
+        final long clampedValue = Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE);
+        counts.incrementAndGet(indexOf(clampedValue));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(clampedValue);
+        minValue.accumulateAndGet(clampedValue, Math::min);
+        maxValue.accumulateAndGet(clampedValue, Math::max);
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMin() {
+        return totalCount.get() == 0 ? 0 : minValue.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        final long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    public long getValueAtPercentile(final double percentile) {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final double boundedPercentile = Math.min(Math.max(percentile, 0), 100);
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(boundedPercentile / 100 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulativeCount += counts.get(i);
+            if (cumulativeCount >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public double getStdDeviation() {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final double mean = getMean();
+        double squaredDeviationSum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            final long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                final double deviation = medianEquivalentValue(i) - mean;
+                squaredDeviationSum += deviation * deviation * bucketCount;
+            }
+        }
+        return Math.sqrt(squaredDeviationSum / count);
+    }
+
+    public long getCountAtOrBelow(final long value) {
+        final int maxIndex = indexOf(Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE));
+        long cumulativeCount = 0;
+        for (int i = 0; i <= maxIndex; i++) {
+            cumulativeCount += counts.get(i);
+        }
+        return cumulativeCount;
+    }
+
+    public @NotNull String toSummaryString() {
+        return String.format(Locale.ROOT,
+                "min=%.3f mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f",
+                toMillis(getMin()),
+                getMean() / NANOS_PER_MILLI,
+                toMillis(getValueAtPercentile(50)),
+                toMillis(getValueAtPercentile(90)),
+                toMillis(getValueAtPercentile(99)),
+                toMillis(getValueAtPercentile(99.9)),
+                toMillis(getMax()));
+    }
+
+    /**
+     * Writes the percentile distribution in milliseconds in the text format of HdrHistogram (.hgrm), which can be
+     * plotted with the HdrHistogram plotter.
+     */
+    public void outputPercentileDistribution(final @NotNull PrintWriter out) throws IOException {
+        out.println("       Value     Percentile TotalCount 1/(1-Percentile)");
+        out.println();
+        forEachPercentileStep((value, percentile, cumulativeCount) -> {
+            if (percentile < 100) {
+                out.printf(Locale.ROOT,
+                        "%12.3f %2.12f %10d %14.2f%n",
+                        toMillis(value),
+                        percentile / 100,
+                        cumulativeCount,
+                        1 / (1 - percentile / 100));
+            } else {
+                out.printf(Locale.ROOT, "%12.3f %2.12f %10d%n", toMillis(value), 1.0, cumulativeCount);
+            }
+        });
+        out.printf(Locale.ROOT,
+                "#[Mean    = %12.3f, StdDeviation   = %12.3f]%n",
+                getMean() / NANOS_PER_MILLI,
+                getStdDeviation() / NANOS_PER_MILLI);
+        out.printf(Locale.ROOT, "#[Max     = %12.3f, Total count    = %12d]%n", toMillis(getMax()), getTotalCount());
+        out.printf(Locale.ROOT,
+                "#[Buckets = %12d, SubBuckets     = %12d]%n",
+                counts.length() / SUB_BUCKET_COUNT,
+                SUB_BUCKET_COUNT);
+        out.flush();
+        if (out.checkError()) {
+            throw new IOException("Unable to write the percentile distribution");
+        }
+    }
+
+    /**
+     * Writes the summary and the percentile distribution in milliseconds as a JSON object.
+     */
+    public void writeJson(final @NotNull JsonWriter jsonWriter) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("unit").value("ms");
+        jsonWriter.name("totalCount").value(getTotalCount());
+        jsonWriter.name("min").value(toMillis(getMin()));
+        jsonWriter.name("mean").value(getMean() / NANOS_PER_MILLI);
+        jsonWriter.name("stdDeviation").value(getStdDeviation() / NANOS_PER_MILLI);
+        jsonWriter.name("max").value(toMillis(getMax()));
+        jsonWriter.name("percentiles").beginObject();
+        for (final double percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+            jsonWriter.name(String.valueOf(percentile)).value(toMillis(getValueAtPercentile(percentile)));
+        }
+        jsonWriter.endObject();
+        jsonWriter.name("distribution").beginArray();
+        forEachPercentileStep((value, percentile, cumulativeCount) -> {
+            jsonWriter.beginObject();
+            jsonWriter.name("value").value(toMillis(value));
+            jsonWriter.name("percentile").value(percentile);
+            jsonWriter.name("totalCount").value(cumulativeCount);
+            jsonWriter.endObject();
+        });
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    /**
+     * Iterates the distribution in percentile steps that halve the distance to 100% every
+     * {@value #PERCENTILE_TICKS_PER_HALF_DISTANCE} steps, like the percentile output of HdrHistogram.
+     */
+    private void forEachPercentileStep(final @NotNull PercentileStepConsumer consumer) throws IOException {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return;
+        }
+        double percentile = 0;
+        while (percentile < 100) {
+            final long value = getValueAtPercentile(percentile);
+            final long cumulativeCount = getCountAtOrBelow(value);
+            if (cumulativeCount >= count) {
+                break;
+            }
+            consumer.accept(value, percentile, cumulativeCount);
+            final int halvings = (int) (Math.log(100 / (100 - percentile)) / Math.log(2));
+            percentile += 100.0 / ((long) PERCENTILE_TICKS_PER_HALF_DISTANCE << Math.min(halvings + 1, 52));
+        }
+        consumer.accept(getMax(), 100, count);
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long medianEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long lowestEquivalentValue = (index - ((long) shift << SUB_BUCKET_BITS)) << shift;
+        return lowestEquivalentValue + ((1L << shift) >>> 1);
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    @FunctionalInterface
+    private interface PercentileStepConsumer {
+
+        void accept(long value, double percentile, long cumulativeCount) throws IOException;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.hivemq.cli.commands.options.PublishOptions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Reads the payloads of a message stream record by record, so a stream of any size can be published without reading
+ * it into memory at once.
+ */
+public class MessageStreamReader implements Closeable {
+
+    public static final @NotNull String STDIN = "-";
+
+    // the maximum payload of a PUBLISH packet
+    static final int MAXIMUM_RECORD_LENGTH = 268_435_455;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final @NotNull InputStream input;
+    private final @NotNull PublishOptions.MessageStreamFormat format;
+    private byte @NotNull [] lineBuffer = new byte[256];
+
+    public MessageStreamReader(
+            final @NotNull InputStream input, final @NotNull PublishOptions.MessageStreamFormat format) {
+        this.input = new BufferedInputStream(input, BUFFER_SIZE);
+        this.format = format;
+    }
+
+    /**
+     * Opens a file or stdin if the source is {@value #STDIN}. Closing the reader does not close stdin.
+     */
+    public static @NotNull MessageStreamReader open(
+            final @NotNull String source, final @NotNull PublishOptions.MessageStreamFormat format)
+            throws IOException {
+        if (STDIN.equals(source)) {
+            return new MessageStreamReader(new FilterInputStream(System.in) {
+                @Override
+                public void close() {
+                }
+            }, format);
+        }
+        final Path path = Paths.get(source);
+        if (!Files.isReadable(path)) {
+            throw new FileNotFoundException("File not found or not readable: " + source);
+        }
+        return new MessageStreamReader(Files.newInputStream(path), format);
+    }
+
+    /**
+     * @return the payload of the next record or <code>null</code> if the end of the stream is reached
+     */
+    public @Nullable ByteBuffer next() throws IOException {
+        switch (format) {
+            case lines:
+                return nextLine();
+            case prefixed:
+                return nextPrefixed();
+            default:
+                throw new IllegalStateException("Unknown message stream format " + format);
+        }
+    }
+
+    /**
+     * Lines are separated by '\n', a preceding '\r' is removed. Empty lines are skipped.
+     */
+    private @Nullable ByteBuffer nextLine() throws IOException {
+        while (true) {
+            int length = 0;
+            int read;
+            while ((read = input.read()) != -1 && read != '\n') {
+                if (length == MAXIMUM_RECORD_LENGTH) {
+                    throw new IOException("Line exceeds the maximum payload size of " + MAXIMUM_RECORD_LENGTH);
+                }
+                if (length == lineBuffer.length) {
+                    lineBuffer = Arrays.copyOf(lineBuffer, (int) Math.min(lineBuffer.length * 2L,
+                            MAXIMUM_RECORD_LENGTH));
+                }
+                lineBuffer[length++] = (byte) read;
+            }
+            if (length > 0 && lineBuffer[length - 1] == '\r') {
+                length--;
+            }
+            if (length > 0) {
+                return ByteBuffer.wrap(Arrays.copyOf(lineBuffer, length));
+            }
+            if (read == -1) {
+                return null;
+            }
+        }
+    }
+
+    private @Nullable ByteBuffer nextPrefixed() throws IOException {
+        final int first = input.read();
+        if (first == -1) {
+            return null;
+        }
+        final long length = (long) first << 24 | (long) readByte() << 16 | readByte() << 8 | readByte();
+        if (length > MAXIMUM_RECORD_LENGTH) {
+            throw new IOException("Record length " + length + " exceeds the maximum payload size of " +
+                    MAXIMUM_RECORD_LENGTH);
+        }
+        final byte[] payload = new byte[(int) length];
+        int offset = 0;
+        while (offset < payload.length) {
+            final int read = input.read(payload, offset, payload.length - offset);
+            if (read == -1) {
+                throw new EOFException("Truncated record, expected " + length + " bytes but got " + offset);
+            }
+            offset += read;
+        }
+        return ByteBuffer.wrap(payload);
+    }
+
+    private int readByte() throws IOException {
+        final int read = input.read();
+        if (read == -1) {
+            throw new EOFException("Truncated record length");
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
@@ -25,6 +25,16 @@ import java.io.InputStreamReader;
 
 public class PasswordUtils {
 
+    private static volatile boolean interactive = true;
+
+    /**
+     * @param interactive <code>false</code> if a password has to be given with its option as nobody can answer a
+     *                    prompt, e.g. in the publish daemon
+     */
+    public static void setInteractive(final boolean interactive) {
+        PasswordUtils.interactive = interactive;
+    }
+
     public static char @NotNull [] readPassword(final @NotNull String @NotNull ... args) throws IOException {
         if (args.length > 1) {
             throw new IllegalArgumentException();
@@ -33,6 +43,10 @@ public class PasswordUtils {
         if (args.length == 1) {
             promptMessage = args[0];
         }
+        if (!interactive) {
+            throw new IOException("Unable to prompt for the password ('" + promptMessage.trim() +
+                    "'), pass it with its option instead");
+        }
 
         final Console console = System.console();
         if (console != null) {
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Formats payloads the same way as {@link MqttPublishUtils#formatPayload(byte[], boolean)}, but reads them directly
+ * from the payload buffer and decodes or encodes them into a reused character buffer. The only allocation per payload
+ * is the resulting string, so an instance must not be used concurrently.
+ */
+public class PayloadFormatter {
+
+    private static final char @NotNull [] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final boolean isBase64;
+    private final @NotNull CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private @NotNull CharBuffer chars = CharBuffer.allocate(INITIAL_CAPACITY);
+
+    public PayloadFormatter(final boolean isBase64) {
+        this.isBase64 = isBase64;
+    }
+
+    public @NotNull String format(final @NotNull Optional<ByteBuffer> payload) {
+        return payload.map(this::format).orElse("");
+    }
+
+    public @NotNull String format(final @NotNull ByteBuffer payload) {
+        if (isBase64) {
+            encodeBase64(payload);
+        } else {
+            decodeUtf8(payload);
+        }
+        return new String(chars.array(), 0, chars.position());
+    }
+
+    private void decodeUtf8(final @NotNull ByteBuffer payload) {
+        // the decoder must not move the position of the buffer that belongs to the publish
+        final ByteBuffer input = payload.duplicate();
+        ensureCapacity((int) (input.remaining() * (double) utf8Decoder.maxCharsPerByte()));
+        utf8Decoder.reset();
+        CoderResult result = utf8Decoder.decode(input, chars, true);
+        if (result.isUnderflow()) {
+            result = utf8Decoder.flush(chars);
+        }
+        if (!result.isUnderflow()) {
+            throw new IllegalStateException("Unable to decode payload: " + result);
+        }
+    }
+
+    private void encodeBase64(final @NotNull ByteBuffer payload) {
+        final int start = payload.position();
+        final int length = payload.remaining();
+        ensureCapacity((length + 2) / 3 * 4);
+        final char[] out = chars.array();
+        int outIndex = 0;
+        int index = start;
+        final int fullGroupsEnd = start + length / 3 * 3;
+        while (index < fullGroupsEnd) {
+            final int bits = (payload.get(index++) & 0xFF) << 16 | (payload.get(index++) & 0xFF) << 8 |
+                    (payload.get(index++) & 0xFF);
+            out[outIndex++] = BASE64_ALPHABET[bits >>> 18 & 0x3F];
+            out[outIndex++] = BASE64_ALPHABET[bits >>> 12 & 0x3F];
+            out[outIndex++] = BASE64_ALPHABET[bits >>> 6 & 0x3F];
+            out[outIndex++] = BASE64_ALPHABET[bits & 0x3F];
+        }
+        final int remainder = start + length - index;
+        if (remainder > 0) {
+            final int bits = (payload.get(index) & 0xFF) << 16 |
+                    (remainder == 2 ? (payload.get(index + 1) & 0xFF) << 8 : 0);
+            out[outIndex++] = BASE64_ALPHABET[bits >>> 18 & 0x3F];
+            out[outIndex++] = BASE64_ALPHABET[bits >>> 12 & 0x3F];
+            out[outIndex++] = remainder == 2 ? BASE64_ALPHABET[bits >>> 6 & 0x3F] : '=';
+            out[outIndex++] = '=';
+        }
+        chars.position(outIndex);
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(Math.max(capacity, chars.capacity() * 2));
+        } else {
+            chars.clear();
+        }
+    }
+}
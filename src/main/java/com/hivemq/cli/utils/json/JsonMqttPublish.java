@@ -19,7 +19,6 @@ package com.hivemq.cli.utils.json;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSyntaxException;
 import com.hivemq.cli.utils.MqttPublishUtils;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttTopic;
@@ -32,8 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDateTime;
 
 @SuppressWarnings({"unused", "FieldCanBeLocal"})
 public class JsonMqttPublish extends JsonFormatted {
@@ -84,17 +82,13 @@ public class JsonMqttPublish extends JsonFormatted {
     private @NotNull JsonElement payloadToJson(final byte @NotNull [] payload, final boolean isBase64) {
         final String payloadString = MqttPublishUtils.formatPayload(payload, isBase64);
 
-        JsonElement payloadJson;
-        try {
-            payloadJson = JsonParser.parseString(payloadString);
-        } catch (final JsonSyntaxException e) {
-            payloadJson = new JsonPrimitive(payloadString);
+        if (!isBase64 && JsonMqttPublishWriter.isJson(payloadString)) {
+            return JsonParser.parseString(payloadString);
         }
-
-        return payloadJson;
+        return new JsonPrimitive(payloadString);
     }
 
     private @NotNull String getReceivedAt() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        return JsonMqttPublishWriter.RECEIVED_AT_FORMATTER.format(LocalDateTime.now());
     }
 }
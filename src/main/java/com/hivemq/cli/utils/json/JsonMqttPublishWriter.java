@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils.json;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.hivemq.cli.utils.PayloadFormatter;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streams received publishes as JSON with the same fields as {@link JsonMqttPublish}, without building an object
+ * graph per message. The output buffer and writer are reused, so an instance must not be used concurrently.
+ */
+public class JsonMqttPublishWriter {
+
+    public static final @NotNull DateTimeFormatter RECEIVED_AT_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final boolean isBase64;
+    private final boolean compact;
+    private final @NotNull PayloadFormatter payloadFormatter;
+    private final @NotNull StringWriter buffer = new StringWriter(256);
+    private @NotNull JsonWriter jsonWriter;
+    private long receivedAtSecond = Long.MIN_VALUE;
+    private @NotNull String receivedAt = "";
+
+    public JsonMqttPublishWriter(final boolean isBase64, final boolean compact) {
+        this.isBase64 = isBase64;
+        this.compact = compact;
+        payloadFormatter = new PayloadFormatter(isBase64);
+        jsonWriter = createJsonWriter();
+    }
+
+    public @NotNull String write(final @NotNull Mqtt3Publish publish) {
+        try {
+            beginPublish(publish.getTopic().toString(),
+                    publish.getPayload(),
+                    publish.getQos(),
+                    publish.isRetain());
+            jsonWriter.endObject();
+            return finish();
+        } catch (final IOException | RuntimeException e) {
+            throw reset(e);
+        }
+    }
+
+    public @NotNull String write(final @NotNull Mqtt5Publish publish) {
+        try {
+            beginPublish(publish.getTopic().toString(),
+                    publish.getPayload(),
+                    publish.getQos(),
+                    publish.isRetain());
+            if (publish.getContentType().isPresent()) {
+                jsonWriter.name("contentType").value(publish.getContentType().get().toString());
+            }
+            if (publish.getPayloadFormatIndicator().isPresent()) {
+                jsonWriter.name("payloadFormatIndicator").value(publish.getPayloadFormatIndicator().get().name());
+            }
+            if (publish.getMessageExpiryInterval().isPresent()) {
+                jsonWriter.name("messageExpiryInterval").value(publish.getMessageExpiryInterval().getAsLong());
+            }
+            if (publish.getResponseTopic().isPresent()) {
+                jsonWriter.name("responseTopic").value(publish.getResponseTopic().get().toString());
+            }
+            if (publish.getCorrelationData().isPresent()) {
+                final ByteBuffer correlationData = publish.getCorrelationData().get();
+                jsonWriter.name("correlationData").value(StandardCharsets.UTF_8.decode(correlationData).toString());
+            }
+            writeUserProperties(publish.getUserProperties());
+            jsonWriter.endObject();
+            return finish();
+        } catch (final IOException | RuntimeException e) {
+            throw reset(e);
+        }
+    }
+
+    private void beginPublish(
+            final @NotNull String topic,
+            final @NotNull Optional<ByteBuffer> payload,
+            final @NotNull MqttQos qos,
+            final boolean retain) throws IOException {
+        buffer.getBuffer().setLength(0);
+        jsonWriter.beginObject();
+        jsonWriter.name("topic").value(topic);
+        jsonWriter.name("payload");
+        final String payloadString = payloadFormatter.format(payload);
+        if (isBase64 || !isJson(payloadString)) {
+            jsonWriter.value(payloadString);
+        } else {
+            copyJson(payloadString);
+        }
+        jsonWriter.name("qos").value(qos.name());
+        jsonWriter.name("receivedAt").value(getReceivedAt());
+        jsonWriter.name("retain").value(retain);
+    }
+
+    private void writeUserProperties(final @NotNull Mqtt5UserProperties userProperties) throws IOException {
+        final List<? extends Mqtt5UserProperty> userPropertyList = userProperties.asList();
+        if (userPropertyList.isEmpty()) {
+            return;
+        }
+        jsonWriter.name("userProperties").beginArray();
+        for (final Mqtt5UserProperty userProperty : userPropertyList) {
+            jsonWriter.beginObject();
+            jsonWriter.name("name").value(userProperty.getName().toString());
+            jsonWriter.name("value").value(userProperty.getValue().toString());
+            jsonWriter.endObject();
+        }
+        jsonWriter.endArray();
+    }
+
+    private @NotNull String finish() throws IOException {
+        jsonWriter.flush();
+        return buffer.toString();
+    }
+
+    private @NotNull RuntimeException reset(final @NotNull Exception e) {
+        // the writer is in an undefined state after a failure, so it is not reused
+        jsonWriter = createJsonWriter();
+        if (e instanceof IOException) {
+            return new UncheckedIOException((IOException) e);
+        }
+        return (RuntimeException) e;
+    }
+
+    private void copyJson(final @NotNull String json) throws IOException {
+        final JsonReader reader = createJsonReader(json);
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    jsonWriter.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    jsonWriter.endObject();
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    jsonWriter.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    jsonWriter.endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    jsonWriter.name(reader.nextName());
+                    break;
+                case STRING:
+                    jsonWriter.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    // keeps the number exactly as it was received
+                    jsonWriter.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    jsonWriter.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    jsonWriter.nullValue();
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected JSON token " + reader.peek());
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Checks whether the payload is a single JSON value. Payloads that can not start a JSON value are rejected without
+     * parsing, all others are validated by skipping through them without building a tree.
+     */
+    static boolean isJson(final @NotNull String payload) {
+        int start = 0;
+        while (start < payload.length() && Character.isWhitespace(payload.charAt(start))) {
+            start++;
+        }
+        if (start == payload.length()) {
+            return false;
+        }
+        final char first = payload.charAt(start);
+        if (first != '{' && first != '[' && first != '"' && first != '-' && first != 't' && first != 'f' &&
+                first != 'n' && (first < '0' || first > '9')) {
+            return false;
+        }
+        final JsonReader reader = createJsonReader(payload);
+        try {
+            reader.skipValue();
+            return reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (final IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private @NotNull String getReceivedAt() {
+        final long second = System.currentTimeMillis() / 1000;
+        if (second != receivedAtSecond) {
+            receivedAt = RECEIVED_AT_FORMATTER.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(second),
+                    ZoneId.systemDefault()));
+            receivedAtSecond = second;
+        }
+        return receivedAt;
+    }
+
+    private @NotNull JsonWriter createJsonWriter() {
+        final JsonWriter writer = new JsonWriter(buffer);
+        // lenient to write one top-level value per publish into the same writer
+        writer.setStrictness(Strictness.LENIENT);
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+        if (!compact) {
+            writer.setIndent("  ");
+        }
+        return writer;
+    }
+
+    private static @NotNull JsonReader createJsonReader(final @NotNull String json) {
+        final JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setStrictness(Strictness.LENIENT);
+        return reader;
+    }
+}
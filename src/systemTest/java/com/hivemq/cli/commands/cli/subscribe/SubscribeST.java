@@ -43,6 +43,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
@@ -50,6 +51,7 @@ import java.util.concurrent.TimeUnit;
 
 import static com.hivemq.cli.utils.broker.assertions.ConnectAssertion.assertConnectPacket;
 import static com.hivemq.cli.utils.broker.assertions.SubscribeAssertion.assertSubscribePacket;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -216,9 +218,12 @@ class SubscribeST {
 
         executionResult.awaitStdOut("message");
 
-        final List<String> readLines = Files.readAllLines(messageFile);
-        assertEquals(1, readLines.size());
-        assertEquals("message", readLines.getFirst());
+        // the output file is written asynchronously
+        await().atMost(Duration.ofSeconds(3)).untilAsserted(() -> {
+            final List<String> readLines = Files.readAllLines(messageFile);
+            assertEquals(1, readLines.size());
+            assertEquals("message", readLines.getFirst());
+        });
 
         assertSubscribePacket(hivemq.getSubscribePackets().getFirst(), subscribeAssertion -> {
             final List<Subscription> expectedSubscriptions = List.of(createSubscription("topic", Qos.EXACTLY_ONCE));
@@ -39,11 +39,13 @@ import org.junit.jupiter.params.provider.ValueSource;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static com.hivemq.cli.utils.broker.assertions.SubscribeAssertion.assertSubscribePacket;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class ShellSubscribeST {
@@ -262,9 +264,12 @@ class ShellSubscribeST {
 
         awaitOutput.awaitLog("received PUBLISH ('message')");
 
-        final List<String> readLines = Files.readAllLines(outputFile);
-        assertEquals(1, readLines.size());
-        assertEquals("message", readLines.getFirst());
+        // the output file is written asynchronously
+        await().atMost(Duration.ofSeconds(3)).untilAsserted(() -> {
+            final List<String> readLines = Files.readAllLines(outputFile);
+            assertEquals(1, readLines.size());
+            assertEquals("message", readLines.getFirst());
+        });
     }
 
     @ParameterizedTest
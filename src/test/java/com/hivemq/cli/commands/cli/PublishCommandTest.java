@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.DefaultCLIProperties;
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.PublishLoadOptions;
+import com.hivemq.cli.commands.options.PublishOptions;
+import com.hivemq.cli.ioc.MqttCLI;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.mqtt.PublishStatistics;
+import com.hivemq.cli.mqtt.template.MessageTemplate;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttVersion;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import picocli.CommandLine;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublishCommandTest {
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor = mock(MqttClientExecutor.class);
+    private final @NotNull MqttClient client = mock(MqttClient.class);
+    // tinylog can not be configured again once it logged
+    private final @NotNull MockedStatic<LoggerUtils> loggerUtils = mockStatic(LoggerUtils.class);
+    private final @NotNull StringWriter errors = new StringWriter();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final DefaultCLIProperties defaultCLIProperties = mock(DefaultCLIProperties.class);
+        when(defaultCLIProperties.getMqttVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        when(defaultCLIProperties.getHost()).thenReturn("localhost");
+        when(defaultCLIProperties.getPort()).thenReturn(1883);
+        MqttCLIMain.MQTT_CLI = mock(MqttCLI.class);
+        when(MqttCLIMain.MQTT_CLI.defaultCLIProperties()).thenReturn(defaultCLIProperties);
+
+        when(mqttClientExecutor.connect(any(ConnectOptions.class), any())).thenReturn(client);
+        when(mqttClientExecutor.publish(same(client),
+                any(PublishOptions.class),
+                any(PublishLoadOptions.class))).thenReturn(new PublishStatistics());
+    }
+
+    @AfterEach
+    void tearDown() {
+        MqttCLIMain.MQTT_CLI = null;
+        loggerUtils.close();
+    }
+
+    @Test
+    void template_compiledBeforeConnecting() throws Exception {
+        final int exitCode = execute("-t", "devices/${seq}", "-m", "${int:0:9}", "--count", "1", "--template");
+
+        assertEquals(0, exitCode);
+        final ArgumentCaptor<PublishLoadOptions> publishLoadOptions = ArgumentCaptor.forClass(PublishLoadOptions.class);
+        verify(mqttClientExecutor).publish(same(client), any(PublishOptions.class), publishLoadOptions.capture());
+        final MessageTemplate[] topicTemplates = publishLoadOptions.getValue().getTopicTemplates();
+        assertNotNull(topicTemplates);
+        assertEquals("devices/7", topicTemplates[0].renderString(7, 0));
+        assertNotNull(publishLoadOptions.getValue().getPayloadTemplate());
+    }
+
+    @Test
+    void template_invalid_rejectedBeforeConnecting() throws Exception {
+        final int exitCode = execute("-t", "topic", "-m", "${int:9:0}", "--count", "1", "--template");
+
+        assertEquals(2, exitCode);
+        assertTrue(errors.toString().contains("--template: Invalid range in placeholder ${int:9:0}"), errors::toString);
+        verify(mqttClientExecutor, never()).connect(any(ConnectOptions.class), any());
+    }
+
+    @Test
+    void template_binaryMessage_rejectedBeforeConnecting(final @TempDir @NotNull Path tempDir) throws Exception {
+        final Path messageFile = tempDir.resolve("message.bin");
+        Files.write(messageFile, new byte[]{'$', '{', 's', 'e', 'q', '}', (byte) 0xFF});
+
+        final int exitCode =
+                execute("-t", "topic", "-m:file", messageFile.toString(), "--count", "1", "--template");
+
+        assertEquals(2, exitCode);
+        assertTrue(errors.toString().contains("--template: The message is not valid UTF-8"), errors::toString);
+        verify(mqttClientExecutor, never()).connect(any(ConnectOptions.class), any());
+    }
+
+    @Test
+    void template_withoutLoadMode_notCompiled(final @TempDir @NotNull Path tempDir) throws Exception {
+        final Path messageFile = tempDir.resolve("message.bin");
+        Files.write(messageFile, new byte[]{(byte) 0xFF});
+
+        final int exitCode = execute("-t", "topic", "-m:file", messageFile.toString(), "--template");
+
+        assertEquals(0, exitCode);
+        verify(mqttClientExecutor).publish(same(client), any(PublishOptions.class), (PublishStatistics) any());
+    }
+
+    private int execute(final @NotNull String @NotNull ... args) {
+        final CommandLine commandLine = new CommandLine(new PublishCommand(mqttClientExecutor));
+        commandLine.setErr(new PrintWriter(errors));
+        return commandLine.execute(args);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.cli;
+
+import com.hivemq.cli.DefaultCLIProperties;
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.SubscribeOptions;
+import com.hivemq.cli.ioc.MqttCLI;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.cli.utils.LoggerUtils;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttVersion;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import picocli.CommandLine;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscribeCommandTest {
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor = mock(MqttClientExecutor.class);
+    private final @NotNull MqttClient client = mock(MqttClient.class);
+    // tinylog can not be configured again once it logged
+    private final @NotNull MockedStatic<LoggerUtils> loggerUtils = mockStatic(LoggerUtils.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final DefaultCLIProperties defaultCLIProperties = mock(DefaultCLIProperties.class);
+        when(defaultCLIProperties.getMqttVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        when(defaultCLIProperties.getHost()).thenReturn("localhost");
+        when(defaultCLIProperties.getPort()).thenReturn(1883);
+        MqttCLIMain.MQTT_CLI = mock(MqttCLI.class);
+        when(MqttCLIMain.MQTT_CLI.defaultCLIProperties()).thenReturn(defaultCLIProperties);
+
+        // the clients are disconnected right away, so the command does not stay
+        when(client.getState()).thenReturn(MqttClientState.DISCONNECTED);
+        when(mqttClientExecutor.connect(any(ConnectOptions.class),
+                any(SubscribeOptions.class),
+                anyString())).thenReturn(client);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MqttCLIMain.MQTT_CLI = null;
+        loggerUtils.close();
+    }
+
+    @Test
+    void parallel_clientsWithDistinctIdentifiersAndOwnCallbackExecutors() throws Exception {
+        final int exitCode = new CommandLine(new SubscribeCommand(mqttClientExecutor)).execute("-t",
+                "$share/group/topic",
+                "-i",
+                "subscriber",
+                "--parallel",
+                "3");
+
+        assertEquals(0, exitCode);
+        final ArgumentCaptor<String> identifiers = ArgumentCaptor.forClass(String.class);
+        verify(mqttClientExecutor, times(3)).connect(any(ConnectOptions.class),
+                any(SubscribeOptions.class),
+                identifiers.capture());
+        assertEquals(List.of("subscriber-0", "subscriber-1", "subscriber-2"), identifiers.getAllValues());
+
+        final ArgumentCaptor<Executor> callbackExecutors = ArgumentCaptor.forClass(Executor.class);
+        verify(mqttClientExecutor, times(3)).subscribe(same(client),
+                any(SubscribeOptions.class),
+                callbackExecutors.capture());
+        assertEquals(3, new HashSet<>(callbackExecutors.getAllValues()).size());
+        for (final Executor callbackExecutor : callbackExecutors.getAllValues()) {
+            assertNotNull(callbackExecutor);
+            assertTrue(((ExecutorService) callbackExecutor).isShutdown());
+        }
+    }
+
+    @Test
+    void noParallel_oneClientWithoutCallbackExecutor() throws Exception {
+        final int exitCode = new CommandLine(new SubscribeCommand(mqttClientExecutor)).execute("-t",
+                "topic",
+                "-i",
+                "subscriber");
+
+        assertEquals(0, exitCode);
+        verify(mqttClientExecutor).connect(any(ConnectOptions.class), any(SubscribeOptions.class), same("subscriber"));
+        final ArgumentCaptor<Executor> callbackExecutor = ArgumentCaptor.forClass(Executor.class);
+        verify(mqttClientExecutor).subscribe(same(client), any(SubscribeOptions.class), callbackExecutor.capture());
+        assertNull(callbackExecutor.getValue());
+    }
+}
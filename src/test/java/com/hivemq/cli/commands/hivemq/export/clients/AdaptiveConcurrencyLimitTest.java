@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void onResponse_constantLatency_limitIncreases() throws Exception {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit();
+
+        respond(limit, AdaptiveConcurrencyLimit.INITIAL_LIMIT, LATENCY);
+        assertEquals(AdaptiveConcurrencyLimit.INITIAL_LIMIT + 4, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            respond(limit, limit.getLimit(), LATENCY);
+        }
+        assertEquals(AdaptiveConcurrencyLimit.MAX_LIMIT, limit.getLimit());
+        assertEquals(AdaptiveConcurrencyLimit.MAX_LIMIT, limit.getMaximumLimit());
+    }
+
+    @Test
+    void onResponse_latencyIncreases_limitDecreases() throws Exception {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit();
+        respond(limit, AdaptiveConcurrencyLimit.INITIAL_LIMIT, LATENCY);
+        final int increased = limit.getLimit();
+
+        respond(limit, increased, 3 * LATENCY);
+
+        assertEquals(increased / 2, limit.getLimit());
+        assertEquals(increased / 2, limit.getMinimumLimit());
+    }
+
+    @Test
+    void onOverload_limitHalvedOncePerWindow() throws Exception {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit();
+        for (int i = 0; i < 3; i++) {
+            limit.acquire();
+        }
+
+        limit.onOverload();
+        limit.onOverload();
+        assertEquals(AdaptiveConcurrencyLimit.INITIAL_LIMIT / 2, limit.getLimit());
+        assertEquals(2, limit.getOverloads());
+
+        // the window of the lowered limit completes without adapting the limit again
+        limit.onResponse(LATENCY);
+        respond(limit, limit.getLimit() - 1, LATENCY);
+        assertEquals(AdaptiveConcurrencyLimit.INITIAL_LIMIT / 2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+
+        for (int i = 0; i < 10; i++) {
+            limit.acquire();
+            limit.onOverload();
+            respond(limit, limit.getLimit(), LATENCY);
+        }
+        assertEquals(AdaptiveConcurrencyLimit.MIN_LIMIT, limit.getLimit());
+    }
+
+    @Test
+    void acquire_limitReached_blocksUntilReleased() throws Exception {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit();
+        for (int i = 0; i < AdaptiveConcurrencyLimit.INITIAL_LIMIT; i++) {
+            limit.acquire();
+        }
+
+        final CompletableFuture<Void> acquired = CompletableFuture.runAsync(() -> {
+            try {
+                limit.acquire();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(acquired.isDone());
+
+        limit.onFailure();
+        acquired.get(5, TimeUnit.SECONDS);
+        assertTrue(acquired.isDone());
+        assertEquals(AdaptiveConcurrencyLimit.INITIAL_LIMIT, limit.getInFlight());
+    }
+
+    private static void respond(final AdaptiveConcurrencyLimit limit, final int responses, final long latency)
+            throws InterruptedException {
+        for (int i = 0; i < responses; i++) {
+            limit.acquire();
+            limit.onResponse(latency);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
@@ -401,4 +402,54 @@ class ClientDetailsCsvWriterTaskTest {
 
         assertEquals(51, writtenCsvLines);
     }
+
+    @Test
+    void resumed_truncatedAndAppended() throws Exception {
+        final HivemqOpenapiClientDetails first = new HivemqOpenapiClientDetails();
+        first.setId("first");
+        clientDetailsQueue.add(first);
+        final ExportProgress exportProgress = new ExportProgress("http://localhost:8888");
+        exportProgress.onPage(null, "cursor-2", List.of("first"));
+        clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(clientDetailsFuture,
+                clientDetailsQueue,
+                csvFile,
+                CSVWriter.DEFAULT_SEPARATOR,
+                CSVWriter.DEFAULT_QUOTE_CHARACTER,
+                CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                CSVWriter.DEFAULT_LINE_END,
+                exportProgress,
+                null);
+        when(clientDetailsFuture.isDone()).thenReturn(true);
+        CompletableFuture.runAsync(clientDetailsCsvWriterTask).get();
+
+        final ExportCheckpoint checkpoint = ExportCheckpoint.read(ExportCheckpoint.sidecarOf(csvFile));
+        assertEquals("cursor-2", checkpoint.getCursor());
+        assertEquals(1, checkpoint.getRows());
+        assertEquals(csvFile.length(), checkpoint.getLength());
+
+        // a row which was written after the checkpoint before the export was interrupted
+        try (final FileWriter writer = new FileWriter(csvFile, true)) {
+            writer.write("\"partial");
+        }
+        final HivemqOpenapiClientDetails second = new HivemqOpenapiClientDetails();
+        second.setId("second");
+        clientDetailsQueue.add(second);
+        clientDetailsCsvWriterTask = new ClientDetailsCsvWriterTask(clientDetailsFuture,
+                clientDetailsQueue,
+                csvFile,
+                CSVWriter.DEFAULT_SEPARATOR,
+                CSVWriter.DEFAULT_QUOTE_CHARACTER,
+                CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                CSVWriter.DEFAULT_LINE_END,
+                new ExportProgress(checkpoint),
+                checkpoint);
+        CompletableFuture.runAsync(clientDetailsCsvWriterTask).get();
+
+        assertEquals(2, clientDetailsCsvWriterTask.getWrittenClientDetails());
+        final List<String[]> lines = csvReader.readAll();
+        assertEquals(3, lines.size());
+        assertArrayEquals(EXPORT_CSV_HEADER, lines.get(0));
+        assertEquals("first", lines.get(1)[0]);
+        assertEquals("second", lines.get(2)[0]);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.rest.hivemq.TestClientDetails;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ClientDetailsNdjsonWriterTaskTest {
+
+    @Test
+    void all_and_empty_client_details_success() {
+        final BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue = new LinkedBlockingQueue<>();
+        final HivemqOpenapiClientDetails allClientDetails = TestClientDetails.getAllClientDetails();
+        final HivemqOpenapiClientDetails emptyClientDetails = new HivemqOpenapiClientDetails();
+        emptyClientDetails.setId("line\nbreak");
+        clientDetailsQueue.add(allClientDetails);
+        clientDetailsQueue.add(emptyClientDetails);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        final ClientDetailsNdjsonWriterTask clientDetailsNdjsonWriterTask =
+                new ClientDetailsNdjsonWriterTask(CompletableFuture.completedFuture(null),
+                        clientDetailsQueue,
+                        output,
+                        false);
+        clientDetailsNdjsonWriterTask.run();
+
+        assertEquals(2, clientDetailsNdjsonWriterTask.getWrittenClientDetails());
+        final String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+
+        final JsonObject all = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals(allClientDetails.getId(), all.get("id").getAsString());
+        assertEquals(allClientDetails.getConnectedAt().toString(), all.get("connectedAt").getAsString());
+        assertEquals(allClientDetails.getSessionExpiryInterval(), all.get("sessionExpiryInterval").getAsLong());
+        final JsonObject connection = all.getAsJsonObject("connection");
+        assertEquals(allClientDetails.getConnection().getKeepAlive(), connection.get("keepAlive").getAsInt());
+        assertArrayEquals(allClientDetails.getConnection().getPassword(),
+                Base64.getDecoder().decode(connection.get("password").getAsString()));
+        assertEquals(allClientDetails.getConnection().getProxyInformation().getTlvs().size(),
+                connection.getAsJsonObject("proxyInformation").getAsJsonArray("tlvs").size());
+
+        final JsonObject empty = JsonParser.parseString(lines[1]).getAsJsonObject();
+        assertEquals("line\nbreak", empty.get("id").getAsString());
+        assertEquals(1, empty.size());
+        assertFalse(empty.has("connection"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
+import com.hivemq.cli.rest.hivemq.TestClientDetails;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriterTest.list;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriterTest.readColumn;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriterTest.readFileMetaData;
+import static com.hivemq.cli.commands.hivemq.export.clients.ParquetFileWriterTest.struct;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientDetailsParquetWriterTaskTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void all_and_empty_client_details_success() throws Exception {
+        final File parquetFile = tempDir.resolve("client_details.parquet").toFile();
+        final BlockingQueue<HivemqOpenapiClientDetails> clientDetailsQueue = new LinkedBlockingQueue<>();
+        final HivemqOpenapiClientDetails allClientDetails = TestClientDetails.getAllClientDetails();
+        final HivemqOpenapiClientDetails emptyClientDetails = new HivemqOpenapiClientDetails();
+        emptyClientDetails.setId("empty");
+        clientDetailsQueue.add(allClientDetails);
+        clientDetailsQueue.add(emptyClientDetails);
+
+        final ClientDetailsParquetWriterTask clientDetailsParquetWriterTask =
+                new ClientDetailsParquetWriterTask(CompletableFuture.completedFuture(null),
+                        clientDetailsQueue,
+                        parquetFile);
+        clientDetailsParquetWriterTask.run();
+
+        assertEquals(2, clientDetailsParquetWriterTask.getWrittenClientDetails());
+        final ByteBuffer file =
+                ByteBuffer.wrap(Files.readAllBytes(parquetFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        final Map<Integer, Object> metaData = readFileMetaData(file);
+        assertEquals(2L, metaData.get(3));
+        assertEquals(ClientDetailsCsvWriterTask.EXPORT_CSV_HEADER.length + 1, list(metaData.get(2)).size());
+
+        final List<Object> columnChunks = list(struct(list(metaData.get(4)).get(0)).get(1));
+        assertEquals(Arrays.asList(allClientDetails.getId(), "empty"), readColumn(file, columnChunks.get(0)));
+        assertEquals(Arrays.asList(allClientDetails.getConnectedAt().toInstant().toEpochMilli(), null),
+                readColumn(file, columnChunks.get(3)));
+        assertEquals(Arrays.asList(allClientDetails.getConnection().getKeepAlive(), null),
+                readColumn(file, columnChunks.get(18)));
+    }
+}
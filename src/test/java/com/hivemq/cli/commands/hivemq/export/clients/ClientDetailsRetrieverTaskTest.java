@@ -18,9 +18,12 @@ package com.hivemq.cli.commands.hivemq.export.clients;
 
 import com.hivemq.cli.openapi.hivemq.HivemqOpenapiClientDetails;
 import com.hivemq.cli.openapi.hivemq.MqttClientsApi;
+import com.hivemq.cli.rest.ClientsApiResponses;
 import com.hivemq.cli.rest.HiveMQRestService;
+import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,12 +35,14 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_ALL;
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_CONNECTED;
 import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_DETAILS_PERSISTENT_OFFLINE;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -105,6 +110,70 @@ class ClientDetailsRetrieverTaskTest {
         assertEquals(1, clientDetailsQueue.size());
     }
 
+    @Test
+    void one_detail_in_replication_retried() throws ExecutionException, InterruptedException {
+        clientIdsQueue.add("client-1");
+        server.enqueue(new MockResponse.Builder().code(ClientsApiResponses.HIVEMQ_IN_REPLICATION).build());
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_DETAILS_ALL).build());
+        when(clientIdsFuture.isDone()).thenReturn(true);
+
+        CompletableFuture.runAsync(clientDetailsRetrieverTask).get();
+
+        assertEquals(1, clientDetailsQueue.size());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, clientDetailsRetrieverTask.getConcurrencyLimit().getOverloads());
+        assertEquals(AdaptiveConcurrencyLimit.INITIAL_LIMIT / 2,
+                clientDetailsRetrieverTask.getConcurrencyLimit().getLimit());
+    }
+
+    @Test
+    void concurrency_limit_tracks_server_latency() throws Exception {
+        final AtomicLong latencyMillis = new AtomicLong(50);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public @NotNull MockResponse dispatch(final @NotNull RecordedRequest request) throws InterruptedException {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(latencyMillis.get());
+                } finally {
+                    active.decrementAndGet();
+                }
+                return new MockResponse.Builder().code(HTTP_OK).body(CLIENT_DETAILS_ALL).build();
+            }
+        });
+        final MqttClientsApi concurrentApi = new HiveMQRestService().getMqttClientsApi(server.url("/").toString(),
+                100_000,
+                AdaptiveConcurrencyLimit.MAX_LIMIT);
+        clientDetailsRetrieverTask =
+                new ClientDetailsRetrieverTask(concurrentApi, clientIdsFuture, clientIdsQueue, clientDetailsQueue);
+        final AdaptiveConcurrencyLimit limit = clientDetailsRetrieverTask.getConcurrencyLimit();
+        for (int i = 0; i < 300; i++) {
+            clientIdsQueue.add("client-" + i);
+        }
+        final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(clientDetailsRetrieverTask);
+
+        // while the latency is constant, the limit grows and the requests really are that concurrent
+        while (clientDetailsQueue.size() < 300) {
+            Thread.sleep(10);
+        }
+        final int increasedLimit = limit.getLimit();
+        assertTrue(increasedLimit > AdaptiveConcurrencyLimit.INITIAL_LIMIT, "limit " + increasedLimit);
+        assertTrue(maxActive.get() > 5, "concurrent requests " + maxActive.get());
+
+        // the limit decreases when the latency of the server rises
+        latencyMillis.set(250);
+        for (int i = 0; i < 2 * increasedLimit; i++) {
+            clientIdsQueue.add("client-" + (300 + i));
+        }
+        when(clientIdsFuture.isDone()).thenReturn(true);
+        completableFuture.get();
+
+        assertEquals(300 + 2 * increasedLimit, clientDetailsQueue.size());
+        assertTrue(limit.getLimit() < increasedLimit, "limit " + limit.getLimit() + " after " + increasedLimit);
+    }
+
     @Test
     void details_50_success() throws ExecutionException, InterruptedException {
         for (int i = 0; i < 25; i++) {
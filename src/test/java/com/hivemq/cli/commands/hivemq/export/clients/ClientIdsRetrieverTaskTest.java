@@ -24,6 +24,7 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -38,6 +39,7 @@ import static com.hivemq.cli.rest.hivemq.TestResponseBodies.CLIENT_IDS_WITH_CURS
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ClientIdsRetrieverTaskTest {
 
@@ -86,6 +88,24 @@ class ClientIdsRetrieverTaskTest {
         assertEquals(51, clientIdsQueue.size());
     }
 
+    @Test
+    void resumed_startsAtCheckpointCursor_skipsWrittenClientIds() throws Exception {
+        final ExportProgress exportProgress = new ExportProgress(new ExportCheckpoint("http://localhost:8888",
+                "checkpoint-cursor",
+                false,
+                1,
+                100,
+                Set.of("client-π")));
+        clientIdsRetrieverTask = new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue, exportProgress);
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_IDS_SINGLE_RESULT).build());
+
+        clientIdsRetrieverTask.run();
+
+        assertEquals(0, clientIdsQueue.size());
+        assertTrue(server.takeRequest().getTarget().contains("cursor=checkpoint-cursor"));
+        assertTrue(exportProgress.checkpoint(1, 100).isClientIdsComplete());
+    }
+
     @Test
     void unrecoverable_exception_success() {
         final MockResponse response =
@@ -128,4 +148,32 @@ class ClientIdsRetrieverTaskTest {
         assertEquals(0, clientIdsQueue.size());
         assertEquals(11, polledClientIds.get());
     }
+
+    @Test
+    void next_page_prefetched_while_queue_is_full() throws Exception {
+        clientIdsQueue = new LinkedBlockingQueue<>(1);
+        clientIdsRetrieverTask = new ClientIdsRetrieverTask(mqttClientsApi, clientIdsQueue);
+
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_IDS_WITH_CURSOR).build());
+        server.enqueue(new MockResponse.Builder().code(HTTP_OK).body(CLIENT_IDS_SINGLE_RESULT).build());
+
+        final CompletableFuture<Void> clientIdsRetrieverFuture = CompletableFuture.runAsync(clientIdsRetrieverTask);
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getRequestCount() < 2 && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(10);
+        }
+
+        // the first page blocks on the full queue while the second page was already requested
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, clientIdsQueue.size());
+
+        long polledClientIds = 0;
+        while (!clientIdsRetrieverFuture.isDone() || !clientIdsQueue.isEmpty()) {
+            if (clientIdsQueue.poll(10, TimeUnit.MILLISECONDS) != null) {
+                polledClientIds++;
+            }
+        }
+        clientIdsRetrieverFuture.join();
+        assertEquals(11, polledClientIds);
+    }
 }
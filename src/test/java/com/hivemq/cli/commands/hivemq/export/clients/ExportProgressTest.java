@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportProgressTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void checkpoint_pointsToOldestIncompletePage() {
+        final ExportProgress progress = new ExportProgress("http://localhost:8888");
+        assertEquals(List.of("a", "b"), progress.onPage(null, "cursor-2", List.of("a", "b")));
+        assertEquals(List.of("c", "d"), progress.onPage("cursor-2", "cursor-3", List.of("c", "d")));
+
+        progress.onClientCompleted("c", true);
+        ExportCheckpoint checkpoint = progress.checkpoint(1, 100);
+        assertNull(checkpoint.getCursor());
+        assertEquals(Set.of("c"), checkpoint.getWrittenClientIds());
+
+        progress.onClientCompleted("a", true);
+        progress.onClientCompleted("b", false);
+        checkpoint = progress.checkpoint(2, 200);
+        assertEquals("cursor-2", checkpoint.getCursor());
+        assertEquals(Set.of("c"), checkpoint.getWrittenClientIds());
+        assertFalse(checkpoint.isClientIdsComplete());
+
+        progress.onClientCompleted("d", true);
+        checkpoint = progress.checkpoint(3, 300);
+        assertEquals("cursor-3", checkpoint.getCursor());
+        assertEquals(Set.of(), checkpoint.getWrittenClientIds());
+        assertEquals(3, checkpoint.getRows());
+        assertEquals(300, checkpoint.getLength());
+    }
+
+    @Test
+    void checkpoint_lastPageCompleted_clientIdsComplete() {
+        final ExportProgress progress = new ExportProgress("http://localhost:8888");
+        progress.onPage(null, null, List.of("a"));
+        assertFalse(progress.checkpoint(0, 10).isClientIdsComplete());
+
+        progress.onClientCompleted("a", true);
+
+        assertTrue(progress.checkpoint(1, 20).isClientIdsComplete());
+    }
+
+    @Test
+    void resumed_writtenClientIdsSkipped() throws Exception {
+        final ExportCheckpoint checkpoint =
+                new ExportCheckpoint("http://localhost:8888", "cursor-2", false, 5, 500, Set.of("c", "x,\"y\""));
+        final File sidecar = ExportCheckpoint.sidecarOf(tempDir.resolve("export.csv").toFile());
+        checkpoint.write(sidecar);
+        final ExportProgress progress = new ExportProgress(ExportCheckpoint.read(sidecar));
+        assertEquals("cursor-2", progress.getStartCursor());
+
+        assertEquals(List.of("d"), progress.onPage("cursor-2", "cursor-3", List.of("c", "d")));
+        assertEquals(Set.of("c", "x,\"y\""), progress.checkpoint(5, 500).getWrittenClientIds());
+
+        progress.onClientCompleted("d", true);
+        final ExportCheckpoint next = progress.checkpoint(6, 600);
+        assertEquals("cursor-3", next.getCursor());
+        assertEquals(Set.of("x,\"y\""), next.getWrittenClientIds());
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.commands.hivemq.export.clients;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Decodes the written files with a minimal reader of the Parquet format specification. The expected bytes of a small
+ * file are kept as a fixture in the test resources.
+ */
+class ParquetFileWriterTest {
+
+    @Test
+    void writeRow_typedColumnsWithNulls() throws Exception {
+        assertClientDetails(ByteBuffer.wrap(writeClientDetails()).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void fixture_typedColumnsWithNulls() throws Exception {
+        assertClientDetails(ByteBuffer.wrap(readFixture()).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void writeRow_sameAsFixture() throws Exception {
+        final ByteBuffer written = ByteBuffer.wrap(writeClientDetails()).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer fixture = ByteBuffer.wrap(readFixture()).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(withoutCompression(fixture), withoutCompression(written));
+    }
+
+    @Test
+    void writeRow_rowGroupsOfFixedSize() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final ParquetFileWriter writer = new ParquetFileWriter(output)) {
+            writer.addColumn("value", ParquetFileWriter.ColumnType.INT64);
+            for (long i = 0; i <= ParquetFileWriter.ROW_GROUP_SIZE; i++) {
+                writer.writeRow(i % 3 == 0 ? null : i);
+            }
+            assertEquals(ParquetFileWriter.ROW_GROUP_SIZE + 1, writer.getRows());
+        }
+        final ByteBuffer file = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        final Map<Integer, Object> metaData = readFileMetaData(file);
+        final List<Object> rowGroups = list(metaData.get(4));
+        assertEquals(2, rowGroups.size());
+        assertEquals((long) ParquetFileWriter.ROW_GROUP_SIZE, struct(rowGroups.get(0)).get(3));
+        assertEquals(1L, struct(rowGroups.get(1)).get(3));
+
+        final List<Object> values = readColumn(file, list(struct(rowGroups.get(0)).get(1)).get(0));
+        assertEquals(ParquetFileWriter.ROW_GROUP_SIZE, values.size());
+        assertEquals(null, values.get(30_000));
+        assertEquals(30_001L, values.get(30_001));
+        assertEquals(Arrays.asList(50_000L),
+                readColumn(file, list(struct(rowGroups.get(1)).get(1)).get(0)));
+    }
+
+    @Test
+    void writeRow_wrongNumberOfValues_throws() throws Exception {
+        try (final ParquetFileWriter writer = new ParquetFileWriter(new ByteArrayOutputStream())) {
+            writer.addColumn("a", ParquetFileWriter.ColumnType.STRING);
+            assertThrows(IllegalArgumentException.class, () -> writer.writeRow("a", "b"));
+        }
+    }
+
+    private static byte @NotNull [] writeClientDetails() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final ParquetFileWriter writer = new ParquetFileWriter(output)) {
+            writer.addColumn("id", ParquetFileWriter.ColumnType.STRING);
+            writer.addColumn("connected", ParquetFileWriter.ColumnType.BOOLEAN);
+            writer.addColumn("queued", ParquetFileWriter.ColumnType.INT64);
+            writer.addColumn("at", ParquetFileWriter.ColumnType.TIMESTAMP_MILLIS);
+            writer.addColumn("port", ParquetFileWriter.ColumnType.INT32);
+            writer.addColumn("password", ParquetFileWriter.ColumnType.BINARY);
+            writer.writeRow("client-π", true, 5L, 1_600_000_000_000L, 1883, new byte[]{1, 2});
+            writer.writeRow("b", null, null, null, null, null);
+            writer.writeRow(null, false, -1L, 0L, 8883, new byte[0]);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * The fixture was written by {@link #writeClientDetails()}, it guards the format against changes of the writer
+     * which the reader of this test would follow.
+     */
+    private byte @NotNull [] readFixture() throws IOException {
+        try (final InputStream fixture = getClass().getResourceAsStream("/" + getClass().getSimpleName() +
+                "/client-details.parquet")) {
+            return Objects.requireNonNull(fixture).readAllBytes();
+        }
+    }
+
+    private static void assertClientDetails(final @NotNull ByteBuffer file) throws IOException {
+        final Map<Integer, Object> metaData = readFileMetaData(file);
+        assertEquals(1L, metaData.get(1));
+        assertEquals(3L, metaData.get(3));
+        assertEquals("mqtt-cli", string(metaData.get(6)));
+
+        final List<Object> schema = list(metaData.get(2));
+        assertEquals(7, schema.size());
+        assertEquals(6L, struct(schema.get(0)).get(5));
+        assertSchemaElement(schema.get(1), "id", 6, 0L);
+        assertSchemaElement(schema.get(2), "connected", 0, null);
+        assertSchemaElement(schema.get(3), "queued", 2, null);
+        assertSchemaElement(schema.get(4), "at", 2, 9L);
+        assertSchemaElement(schema.get(5), "port", 1, null);
+        assertSchemaElement(schema.get(6), "password", 6, null);
+
+        final List<Object> rowGroups = list(metaData.get(4));
+        assertEquals(1, rowGroups.size());
+        assertEquals(3L, struct(rowGroups.get(0)).get(3));
+        final List<Object> columnChunks = list(struct(rowGroups.get(0)).get(1));
+
+        assertEquals(Arrays.asList("client-π", "b", null), readColumn(file, columnChunks.get(0)));
+        assertEquals(Arrays.asList(true, null, false), readColumn(file, columnChunks.get(1)));
+        assertEquals(Arrays.asList(5L, null, -1L), readColumn(file, columnChunks.get(2)));
+        assertEquals(Arrays.asList(1_600_000_000_000L, null, 0L), readColumn(file, columnChunks.get(3)));
+        assertEquals(Arrays.asList(1883, null, 8883), readColumn(file, columnChunks.get(4)));
+        final List<Object> passwords = readColumn(file, columnChunks.get(5));
+        assertArrayEquals(new byte[]{1, 2}, ((String) passwords.get(0)).getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(null, ""), passwords.subList(1, 3));
+    }
+
+    /**
+     * @return the metadata and the decompressed pages of the file without the sizes and offsets which depend on the
+     *         compressed bytes, as the deflate output may differ between zlib versions
+     */
+    private static @NotNull List<Object> withoutCompression(final @NotNull ByteBuffer file) throws IOException {
+        final Map<Integer, Object> metaData = readFileMetaData(file);
+        final List<Object> contents = new ArrayList<>();
+        contents.add(metaData);
+        for (final Object rowGroup : list(metaData.get(4))) {
+            for (final Object columnChunk : list(struct(rowGroup).get(1))) {
+                final Map<Integer, Object> columnMetaData = struct(struct(columnChunk).get(3));
+                final ByteBuffer pageBuffer = file.duplicate();
+                pageBuffer.position((int) (long) (Long) columnMetaData.get(9));
+                final Map<Integer, Object> pageHeader = readStruct(pageBuffer);
+                final byte[] compressed = new byte[(int) (long) (Long) pageHeader.remove(3)];
+                pageBuffer.get(compressed);
+                contents.add(pageHeader);
+                contents.add(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+                struct(columnChunk).remove(2);
+                columnMetaData.remove(7);
+                columnMetaData.remove(9);
+            }
+        }
+        return withComparableBinaries(contents);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> @NotNull T withComparableBinaries(final @NotNull T value) {
+        if (value instanceof byte[]) {
+            return (T) Arrays.toString((byte[]) value);
+        } else if (value instanceof Map) {
+            final Map<Integer, Object> fields = new HashMap<>();
+            struct(value).forEach((id, field) -> fields.put(id, withComparableBinaries(field)));
+            return (T) fields;
+        } else if (value instanceof List) {
+            final List<Object> elements = new ArrayList<>();
+            list(value).forEach(element -> elements.add(withComparableBinaries(element)));
+            return (T) elements;
+        }
+        return value;
+    }
+
+    private static void assertSchemaElement(
+            final @NotNull Object element,
+            final @NotNull String name,
+            final int type,
+            final @Nullable Long convertedType) {
+        final Map<Integer, Object> fields = struct(element);
+        assertEquals(name, string(fields.get(4)));
+        assertEquals((long) type, fields.get(1));
+        assertEquals(1L, fields.get(3));
+        assertEquals(convertedType, fields.get(6));
+    }
+
+    static @NotNull Map<Integer, Object> readFileMetaData(final @NotNull ByteBuffer file) {
+        final int length = file.limit();
+        assertEquals("PAR1", new String(file.array(), 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(file.array(), length - 4, 4, StandardCharsets.US_ASCII));
+        final int footerLength = file.getInt(length - 8);
+        final ByteBuffer footer = file.duplicate().position(length - 8 - footerLength).limit(length - 8);
+        final Map<Integer, Object> metaData = readStruct(footer);
+        assertEquals(0, footer.remaining());
+        return metaData;
+    }
+
+    static @NotNull List<Object> readColumn(final @NotNull ByteBuffer file, final @NotNull Object columnChunk)
+            throws IOException {
+        final Map<Integer, Object> columnMetaData = struct(struct(columnChunk).get(3));
+        assertEquals(2L, columnMetaData.get(4)); // GZIP
+        final long physicalType = (Long) columnMetaData.get(1);
+        final ByteBuffer pageBuffer = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        pageBuffer.position((int) (long) (Long) columnMetaData.get(9));
+        final Map<Integer, Object> pageHeader = readStruct(pageBuffer);
+        final int headerLength = pageBuffer.position() - (int) (long) (Long) columnMetaData.get(9);
+        final int uncompressedLength = (int) (long) (Long) pageHeader.get(2);
+        final int compressedLength = (int) (long) (Long) pageHeader.get(3);
+        assertEquals((long) headerLength + compressedLength, columnMetaData.get(7));
+        assertEquals((long) headerLength + uncompressedLength, columnMetaData.get(6));
+
+        final byte[] compressed = new byte[compressedLength];
+        pageBuffer.get(compressed);
+        final byte[] uncompressed = new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+        assertEquals(uncompressedLength, uncompressed.length);
+        final ByteBuffer page = ByteBuffer.wrap(uncompressed).order(ByteOrder.LITTLE_ENDIAN);
+
+        final int count = (int) (long) (Long) struct(pageHeader.get(5)).get(1);
+        final int levelsLength = page.getInt();
+        final int levelsStart = page.position();
+        final long runHeader = readVarint(page);
+        assertEquals(1, runHeader & 1); // bit-packed
+        assertEquals((count + 7) / 8, runHeader >>> 1);
+        final byte[] levels = new byte[(int) (runHeader >>> 1)];
+        page.get(levels);
+        assertEquals(levelsLength, page.position() - levelsStart);
+
+        final List<Object> values = new ArrayList<>();
+        int booleanIndex = 0;
+        for (int i = 0; i < count; i++) {
+            if ((levels[i / 8] & 1 << (i % 8)) == 0) {
+                values.add(null);
+            } else if (physicalType == 0) {
+                values.add((page.get(levelsStart + levelsLength + booleanIndex / 8) & 1 << (booleanIndex % 8)) != 0);
+                booleanIndex++;
+            } else if (physicalType == 1) {
+                values.add(page.getInt());
+            } else if (physicalType == 2) {
+                values.add(page.getLong());
+            } else {
+                final byte[] bytes = new byte[page.getInt()];
+                page.get(bytes);
+                values.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    // Thrift compact protocol, integers are decoded as Long, binaries as byte[]
+
+    private static @NotNull Map<Integer, Object> readStruct(final @NotNull ByteBuffer buffer) {
+        final Map<Integer, Object> fields = new HashMap<>();
+        int lastId = 0;
+        while (true) {
+            final int header = buffer.get() & 0xFF;
+            if (header == 0) {
+                return fields;
+            }
+            final int type = header & 0x0F;
+            final int id = (header >>> 4) != 0 ? lastId + (header >>> 4) : (int) zigzag(readVarint(buffer));
+            fields.put(id, readValue(buffer, type));
+            lastId = id;
+        }
+    }
+
+    private static @NotNull Object readValue(final @NotNull ByteBuffer buffer, final int type) {
+        switch (type) {
+            case 5:
+            case 6:
+                return zigzag(readVarint(buffer));
+            case 8:
+                final byte[] bytes = new byte[(int) readVarint(buffer)];
+                buffer.get(bytes);
+                return bytes;
+            case 9:
+                final int header = buffer.get() & 0xFF;
+                final int size = (header >>> 4) == 15 ? (int) readVarint(buffer) : header >>> 4;
+                final List<Object> list = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer, header & 0x0F));
+                }
+                return list;
+            case 12:
+                return readStruct(buffer);
+            default:
+                throw new IllegalStateException("Unexpected Thrift type " + type);
+        }
+    }
+
+    private static long readVarint(final @NotNull ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigzag(final long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    static @NotNull Map<Integer, Object> struct(final @NotNull Object value) {
+        return (Map<Integer, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static @NotNull List<Object> list(final @NotNull Object value) {
+        return (List<Object>) value;
+    }
+
+    private static @NotNull String string(final @NotNull Object value) {
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteSizeConverterTest {
+
+    private final @NotNull ByteSizeConverter byteSizeConverter = new ByteSizeConverter();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "test", "0", "-1", "1.5MB", "MB", "10TB", "9999999999GB"})
+    void testInvalidString(final @NotNull String s) {
+        final Exception e = assertThrows(Exception.class, () -> byteSizeConverter.convert(s));
+        assertEquals(ByteSizeConverter.WRONG_INPUT_MESSAGE, e.getMessage());
+    }
+
+    @Test
+    void testSuccess() throws Exception {
+        assertEquals(100, byteSizeConverter.convert("100"));
+        assertEquals(100, byteSizeConverter.convert("100B"));
+        assertEquals(2048, byteSizeConverter.convert("2KB"));
+        assertEquals(100L * 1024 * 1024, byteSizeConverter.convert("100mb"));
+        assertEquals(1024L * 1024 * 1024, byteSizeConverter.convert("1GB"));
+    }
+}
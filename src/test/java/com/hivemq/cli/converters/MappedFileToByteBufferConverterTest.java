@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.converters;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileToByteBufferConverterTest {
+
+    private final @NotNull MappedFileToByteBufferConverter converter = new MappedFileToByteBufferConverter();
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void convert_fileIsMapped() throws Exception {
+        final Path file = tempDir.resolve("payload.txt");
+        Files.write(file, "payload".getBytes(StandardCharsets.UTF_8));
+
+        final ByteBuffer payload = converter.convert(file.toString());
+
+        assertTrue(payload.isDirect());
+        assertFalse(payload.hasArray());
+        assertEquals("payload", StandardCharsets.UTF_8.decode(payload).toString());
+    }
+
+    @Test
+    void convert_emptyFile() throws Exception {
+        final Path file = Files.createFile(tempDir.resolve("empty.txt"));
+
+        assertEquals(0, converter.convert(file.toString()).remaining());
+    }
+
+    @Test
+    void convert_missingFile_throws() {
+        assertThrows(FileNotFoundException.class, () -> converter.convert(tempDir.resolve("missing").toString()));
+    }
+}
@@ -20,10 +20,13 @@ import com.hivemq.cli.commands.options.AuthenticationOptions;
 import com.hivemq.cli.commands.options.ConnectOptions;
 import com.hivemq.cli.commands.options.ConnectRestrictionOptions;
 import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.PublishLoadOptions;
 import com.hivemq.cli.commands.options.PublishOptions;
 import com.hivemq.cli.commands.options.SubscribeOptions;
 import com.hivemq.cli.commands.options.UnsubscribeOptions;
 import com.hivemq.cli.commands.options.WillOptions;
+import com.hivemq.cli.utils.MessageStreamReader;
+import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttVersion;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.datatypes.MqttSharedTopicFilter;
@@ -32,6 +35,8 @@ import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.message.auth.Mqtt3SimpleAuth;
 import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3Connect;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
 import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
 import org.jetbrains.annotations.NotNull;
@@ -39,12 +44,16 @@ import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -297,10 +306,116 @@ class AbstractMqttClientExecutorTest {
         assertEquals("Test", StandardCharsets.US_ASCII.decode(simpleAuth.get().getPassword().get()).toString());
     }
 
+    @Test
+    void publish_whenCountIsConfigured_thenPublishesAreDistributedOverTopics() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        final PublishOptions publishOptions = mock();
+        when(publishOptions.getTopics()).thenReturn(new String[]{"a", "b"});
+        when(publishOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE, MqttQos.EXACTLY_ONCE});
+        when(publishOptions.getMessage()).thenReturn(ByteBuffer.wrap("message".getBytes(StandardCharsets.UTF_8)));
+        final PublishLoadOptions publishLoadOptions = mock();
+        when(publishLoadOptions.getCount()).thenReturn(5L);
+        when(publishLoadOptions.getDurationSeconds()).thenReturn(null);
+        when(publishLoadOptions.getRate()).thenReturn(null);
+        when(publishLoadOptions.getMaxInFlight()).thenReturn(2);
+
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        final PublishStatistics statistics = mqttClientExecutor.publish(client, publishOptions, publishLoadOptions);
+
+        assertEquals(List.of("a", "b", "a", "b", "a"), mqttClientExecutor.getPublishedTopics());
+        assertEquals(5, statistics.getSentPublishes());
+        assertEquals(5, statistics.getAcknowledgedPublishes());
+        assertEquals(0, statistics.getFailedPublishes());
+        assertEquals(5, statistics.getAcknowledgementLatency().getTotalCount());
+        assertEquals(2, statistics.getInFlightWindow());
+    }
+
+    @Test
+    void publish_whenMaxInFlightNotConfigured_thenReceiveMaximumOrDefaultIsUsed() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final PublishOptions publishOptions = mock();
+        when(publishOptions.getTopics()).thenReturn(new String[]{"a", "b"});
+        when(publishOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE});
+        when(publishOptions.getMessage()).thenReturn(ByteBuffer.wrap("message".getBytes(StandardCharsets.UTF_8)));
+
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        final PublishStatistics statistics = new PublishStatistics();
+        mqttClientExecutor.publish(client, publishOptions, statistics);
+
+        assertEquals(List.of("a", "b"), mqttClientExecutor.getPublishedTopics());
+        assertEquals(2, statistics.getAcknowledgedPublishes());
+        assertEquals(100, statistics.getInFlightWindow());
+        assertEquals(7, AbstractMqttClientExecutor.inFlightWindowSize(client, 7));
+    }
+
+    @Test
+    void publish_whenMessageStream_thenEveryRecordIsPublishedToAllTopics() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final PublishOptions publishOptions = mock();
+        when(publishOptions.getTopics()).thenReturn(new String[]{"a", "b"});
+        when(publishOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE, MqttQos.AT_LEAST_ONCE});
+        final PublishLoadOptions publishLoadOptions = mock();
+        when(publishLoadOptions.getRate()).thenReturn(null);
+        when(publishLoadOptions.getMaxInFlight()).thenReturn(1);
+        final MessageStreamReader messageStreamReader =
+                new MessageStreamReader(new ByteArrayInputStream("one\ntwo\n".getBytes(StandardCharsets.UTF_8)),
+                        PublishOptions.MessageStreamFormat.lines);
+
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        final PublishStatistics statistics =
+                mqttClientExecutor.publish(client, publishOptions, publishLoadOptions, messageStreamReader);
+
+        assertEquals(List.of("a", "b", "a", "b"), mqttClientExecutor.getPublishedTopics());
+        assertEquals(List.of("one", "one", "two", "two"), mqttClientExecutor.getPublishedPayloads());
+        assertEquals(4, statistics.getAcknowledgedPublishes());
+    }
+
+    @Test
+    void subscribe_whenManyTopics_thenSingleSubscribe() throws Exception {
+        when(connectOptions.getVersion()).thenReturn(MqttVersion.MQTT_3_1_1);
+        final SubscribeOptions subscribeOptions = mock();
+        when(subscribeOptions.getTopics()).thenReturn(new String[]{"a", "b/+", "c/#"});
+        when(subscribeOptions.getQos()).thenReturn(new MqttQos[]{MqttQos.AT_LEAST_ONCE});
+
+        final MqttClient client = mqttClientExecutor.connect(connectOptions);
+        mqttClientExecutor.subscribe(client, subscribeOptions);
+
+        assertEquals(List.of(List.of("a", "b/+", "c/#")), mqttClientExecutor.getSubscribedTopics());
+    }
+
+    @Test
+    void chunkTopicFilters_whenPacketFits_thenSingleChunk() {
+        // fixed header 2, packet identifier 2, properties 1, 3 * (2 + 1 + 1)
+        assertEquals(List.of(3), AbstractMqttClientExecutor.chunkTopicFilters(List.of("a", "b", "c"), 1, 17));
+    }
+
+    @Test
+    void chunkTopicFilters_whenPacketTooLarge_thenChunked() {
+        assertEquals(List.of(2, 1), AbstractMqttClientExecutor.chunkTopicFilters(List.of("a", "b", "c"), 1, 16));
+        assertEquals(List.of(1, 1, 1), AbstractMqttClientExecutor.chunkTopicFilters(List.of("a", "b", "c"), 1, 9));
+    }
+
+    @Test
+    void chunkTopicFilters_whenTopicFilterTooLarge_thenOwnChunk() {
+        assertEquals(List.of(1, 1, 1),
+                AbstractMqttClientExecutor.chunkTopicFilters(List.of("a", "too/large", "c"), 0, 10));
+    }
+
+    @Test
+    void encodedPropertiesLength_userProperties() {
+        assertEquals(1, AbstractMqttClientExecutor.encodedPropertiesLength(null));
+        assertEquals(1 + 1 + 2 + 4 + 2 + 5,
+                AbstractMqttClientExecutor.encodedPropertiesLength(Mqtt5UserProperties.of(Mqtt5UserProperty.of("name",
+                        "value"))));
+    }
+
     static class MqttClientExecutor extends AbstractMqttClientExecutor {
 
         private @Nullable Mqtt5Connect mqtt5ConnectMessage = null;
         private @Nullable Mqtt3Connect mqtt3ConnectMessage = null;
+        private final @NotNull List<String> publishedTopics = new CopyOnWriteArrayList<>();
+        private final @NotNull List<String> publishedPayloads = new CopyOnWriteArrayList<>();
+        private final @NotNull List<List<String>> subscribedTopics = new CopyOnWriteArrayList<>();
 
         @Override
         void mqtt5Connect(final @NotNull Mqtt5Client client, final @NotNull Mqtt5Connect connectMessage) {
@@ -313,35 +428,49 @@ class AbstractMqttClientExecutorTest {
         }
 
         @Override
-        void mqtt5Subscribe(
+        @NotNull CompletableFuture<?> mqtt5Subscribe(
                 final @NotNull Mqtt5Client client,
                 final @NotNull SubscribeOptions subscribeOptions,
-                final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull List<String> topics,
+                final @NotNull List<MqttQos> qos,
+                final @Nullable Executor callbackExecutor) {
+            subscribedTopics.add(List.copyOf(topics));
+            return CompletableFuture.completedFuture(null);
         }
 
         @Override
-        void mqtt3Subscribe(
+        @NotNull CompletableFuture<?> mqtt3Subscribe(
                 final @NotNull Mqtt3Client client,
                 final @NotNull SubscribeOptions subscribeOptions,
-                final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull List<String> topics,
+                final @NotNull List<MqttQos> qos,
+                final @Nullable Executor callbackExecutor) {
+            subscribedTopics.add(List.copyOf(topics));
+            return CompletableFuture.completedFuture(null);
         }
 
         @Override
-        void mqtt5Publish(
+        @NotNull CompletableFuture<?> mqtt5Publish(
                 final @NotNull Mqtt5Client client,
                 final @NotNull PublishOptions publishOptions,
                 final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull MqttQos qos,
+                final @NotNull ByteBuffer payload) {
+            publishedTopics.add(topic);
+            publishedPayloads.add(StandardCharsets.UTF_8.decode(payload.duplicate()).toString());
+            return CompletableFuture.completedFuture(null);
         }
 
         @Override
-        void mqtt3Publish(
+        @NotNull CompletableFuture<?> mqtt3Publish(
                 final @NotNull Mqtt3Client client,
                 final @NotNull PublishOptions publishOptions,
                 final @NotNull String topic,
-                final @NotNull MqttQos qos) {
+                final @NotNull MqttQos qos,
+                final @NotNull ByteBuffer payload) {
+            publishedTopics.add(topic);
+            publishedPayloads.add(StandardCharsets.UTF_8.decode(payload.duplicate()).toString());
+            return CompletableFuture.completedFuture(null);
         }
 
         @Override
@@ -367,5 +496,17 @@ class AbstractMqttClientExecutorTest {
         public @Nullable Mqtt3Connect getMqtt3ConnectMessage() {
             return mqtt3ConnectMessage;
         }
+
+        public @NotNull List<String> getPublishedTopics() {
+            return publishedTopics;
+        }
+
+        public @NotNull List<String> getPublishedPayloads() {
+            return publishedPayloads;
+        }
+
+        public @NotNull List<List<String>> getSubscribedTopics() {
+            return subscribedTopics;
+        }
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkStatisticsTest {
+
+    @Test
+    void connects_are_counted() {
+        final BenchmarkStatistics statistics = new BenchmarkStatistics(3);
+        statistics.onConnected(System.nanoTime(), true);
+        statistics.onConnected(System.nanoTime(), true);
+        statistics.onConnected(System.nanoTime(), false);
+        statistics.finishConnects();
+
+        assertEquals(2, statistics.getConnectedClients());
+        assertEquals(1, statistics.getFailedConnects());
+        assertEquals(2, statistics.getConnAckLatency().getTotalCount());
+        assertNull(statistics.getPublishStatistics());
+    }
+
+    @Test
+    void summary_contains_connects_and_throughput() {
+        final BenchmarkStatistics statistics = new BenchmarkStatistics(1);
+        statistics.onConnected(System.nanoTime(), true);
+        statistics.finishConnects();
+        final PublishStatistics publishStatistics = statistics.startPublishing();
+        publishStatistics.onSent();
+        publishStatistics.onCompleted(System.nanoTime(), true);
+        publishStatistics.finish();
+        statistics.onReceived();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        statistics.printSummary(new PrintStream(outputStream, true, StandardCharsets.UTF_8));
+        final String[] lines = outputStream.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("Connected 1 of 1 clients in "), lines[0]);
+        assertTrue(lines[1].startsWith("CONNACK latency (ms): min="), lines[1]);
+        assertTrue(lines[2].startsWith("Published 1 messages in "), lines[2]);
+        assertTrue(lines[4].startsWith("Received 1 messages ("), lines[4]);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightWindowTest {
+
+    @Test
+    void acquire_whenFull_thenStallIsRecorded() throws Exception {
+        final PublishStatistics statistics = new PublishStatistics();
+        final InFlightWindow window = new InFlightWindow(2, statistics);
+        window.acquire();
+        window.acquire();
+        assertEquals(0, statistics.getStalledNanos());
+
+        CompletableFuture.runAsync(window::release,
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        window.acquire();
+
+        assertTrue(statistics.getStalledNanos() >= TimeUnit.MILLISECONDS.toNanos(40),
+                String.valueOf(statistics.getStalledNanos()));
+        assertEquals(2, statistics.getInFlightWindow());
+    }
+
+    @Test
+    void printSummary_containsStallTime() {
+        final PublishStatistics statistics = new PublishStatistics();
+        new InFlightWindow(10, statistics);
+        statistics.onStalled(TimeUnit.MILLISECONDS.toNanos(1500));
+        statistics.finish();
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        statistics.printSummary(new PrintStream(output, true, StandardCharsets.UTF_8));
+        final String[] lines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].startsWith("In-flight window 10, stalled waiting for acknowledgements for 1.500 s ("),
+                lines[2]);
+    }
+}
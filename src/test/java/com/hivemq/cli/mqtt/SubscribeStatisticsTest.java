@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscribeStatisticsTest {
+
+    @Test
+    void record_countsTotalsAndTopics() {
+        final SubscribeStatistics statistics = new SubscribeStatistics();
+        statistics.record("a", 10, MqttQos.AT_MOST_ONCE, false);
+        statistics.record("a", 20, MqttQos.AT_LEAST_ONCE, true);
+        statistics.record("b", 30, MqttQos.EXACTLY_ONCE, false);
+        statistics.record("a", 40, MqttQos.AT_LEAST_ONCE, false);
+
+        assertEquals(4, statistics.getMessages());
+        assertEquals(100, statistics.getBytes());
+        assertEquals(1, statistics.getRetained());
+        assertEquals(1, statistics.getMessages(MqttQos.AT_MOST_ONCE));
+        assertEquals(2, statistics.getMessages(MqttQos.AT_LEAST_ONCE));
+        assertEquals(1, statistics.getMessages(MqttQos.EXACTLY_ONCE));
+        assertEquals(2, statistics.getTopicCount());
+        assertEquals(10, statistics.getPayloadSizes().getMin());
+        assertEquals(40, statistics.getPayloadSizes().getMax());
+
+        final List<Map.Entry<String, SubscribeStatistics.TopicStatistics>> topTopics = statistics.getTopTopics(1);
+        assertEquals(1, topTopics.size());
+        assertEquals("a", topTopics.get(0).getKey());
+        assertEquals(3, topTopics.get(0).getValue().getMessages());
+    }
+
+    @Test
+    void record_tooManyTopics_countedAsOtherTopics() {
+        final SubscribeStatistics statistics = new SubscribeStatistics();
+        for (int i = 0; i < SubscribeStatistics.MAX_TRACKED_TOPICS + 10; i++) {
+            statistics.record("topic/" + i, 1, MqttQos.AT_MOST_ONCE, false);
+        }
+
+        assertEquals(SubscribeStatistics.MAX_TRACKED_TOPICS + 10, statistics.getMessages());
+        assertEquals(SubscribeStatistics.MAX_TRACKED_TOPICS + 1, statistics.getTopicCount());
+        assertEquals(SubscribeStatistics.OTHER_TOPICS, statistics.getTopTopics(1).get(0).getKey());
+    }
+
+    @Test
+    void printSummary_containsTopTopics() {
+        final SubscribeStatistics statistics = new SubscribeStatistics();
+        statistics.record("a", 10, MqttQos.AT_MOST_ONCE, false);
+        statistics.record("b", 10, MqttQos.AT_MOST_ONCE, true);
+        statistics.record("b", 10, MqttQos.AT_MOST_ONCE, false);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        statistics.printSummary(new PrintStream(output, true, StandardCharsets.UTF_8), 1);
+        final String[] lines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+
+        assertTrue(lines[0].startsWith("Received 3 messages in "), lines[0]);
+        assertEquals("QoS 0: 3, QoS 1: 0, QoS 2: 0, retained: 1", lines[1]);
+        assertEquals("Payload size (bytes): min=10 mean=10.0 p50=10 p90=10 p99=10 max=10", lines[2]);
+        assertEquals(5, lines.length);
+        assertTrue(lines[4].matches(" +2 +[0-9.]+ +0\\.0 +1  b"), lines[4]);
+    }
+}
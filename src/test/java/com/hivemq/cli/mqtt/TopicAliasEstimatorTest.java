@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicAliasEstimatorTest {
+
+    @Test
+    void onPublish_repeatedTopic_savesTopicLength() {
+        final PublishStatistics statistics = new PublishStatistics();
+        final TopicAliasEstimator estimator = new TopicAliasEstimator(2, statistics);
+
+        // 10 bytes topic: the first publish carries the alias as well, the others only the alias
+        estimator.onPublish("sensor/0/t");
+        estimator.onPublish("sensor/0/t");
+        estimator.onPublish("sensor/0/t");
+
+        assertEquals(2, statistics.getAliasedPublishes());
+        assertEquals(-3 + 2 * (10 - 3), statistics.getTopicAliasSavedBytes());
+    }
+
+    @Test
+    void onPublish_moreTopicsThanMaximum_leastRecentlyUsedReplaced() {
+        final PublishStatistics statistics = new PublishStatistics();
+        final TopicAliasEstimator estimator = new TopicAliasEstimator(2, statistics);
+
+        estimator.onPublish("topic/a");
+        estimator.onPublish("topic/b");
+        estimator.onPublish("topic/a");
+        estimator.onPublish("topic/c"); // replaces topic/b
+        estimator.onPublish("topic/a");
+        estimator.onPublish("topic/b");
+
+        assertEquals(2, statistics.getAliasedPublishes());
+        assertEquals(4 * -3 + 2 * (7 - 3), statistics.getTopicAliasSavedBytes());
+    }
+
+    @Test
+    void onPublish_shortTopic_notAliased() {
+        final PublishStatistics statistics = new PublishStatistics();
+        final TopicAliasEstimator estimator = new TopicAliasEstimator(2, statistics);
+
+        estimator.onPublish("abc");
+        estimator.onPublish("abc");
+
+        assertEquals(0, statistics.getAliasedPublishes());
+        assertEquals(0, statistics.getTopicAliasSavedBytes());
+    }
+
+    @Test
+    void printSummary_containsTopicAliases() {
+        final PublishStatistics statistics = new PublishStatistics();
+        final TopicAliasEstimator estimator = new TopicAliasEstimator(16, statistics);
+        estimator.onPublish("topic/a");
+        statistics.onSent();
+        estimator.onPublish("topic/a");
+        statistics.onSent();
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        statistics.printSummary(new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        assertTrue(output.toString(StandardCharsets.UTF_8)
+                .contains("Topic aliases (maximum 16, LRU estimate): 1 of 2 messages would use an alias, " +
+                        "which would save about 1 bytes"));
+    }
+}
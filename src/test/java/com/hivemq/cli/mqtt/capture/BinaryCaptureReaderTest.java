@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCaptureReaderTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void next_allFields() throws Exception {
+        final CaptureReader reader = new BinaryCaptureReader(new ByteArrayInputStream(capture()));
+
+        final CapturedPublish first = reader.next();
+        assertEquals(1_000_000, first.getTimestampMicros());
+        assertEquals("a/b", first.getTopic());
+        assertEquals("payload", StandardCharsets.UTF_8.decode(first.getPayload()).toString());
+        assertEquals(MqttQos.EXACTLY_ONCE, first.getQos());
+        assertTrue(first.isRetain());
+        assertEquals("text/plain", first.getContentType());
+        assertEquals(Mqtt5PayloadFormatIndicator.UTF_8, first.getPayloadFormatIndicator());
+        assertEquals(4_294_967_295L, first.getMessageExpiryInterval());
+        assertEquals("response", first.getResponseTopic());
+        assertEquals("cd", StandardCharsets.UTF_8.decode(first.getCorrelationData()).toString());
+        assertEquals(1, first.getUserProperties().asList().size());
+        assertEquals("value", first.getUserProperties().asList().get(0).getValue().toString());
+
+        final CapturedPublish second = reader.next();
+        assertEquals(2_500_000, second.getTimestampMicros());
+        assertEquals("c", second.getTopic());
+        assertEquals(0, second.getPayload().remaining());
+        assertEquals(MqttQos.AT_MOST_ONCE, second.getQos());
+        assertFalse(second.isRetain());
+        assertNull(second.getContentType());
+        assertNull(second.getMessageExpiryInterval());
+        assertNull(second.getCorrelationData());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_truncatedRecord_throws() throws Exception {
+        final byte[] capture = capture();
+        final CaptureReader reader =
+                new BinaryCaptureReader(new ByteArrayInputStream(Arrays.copyOf(capture, capture.length - 1)));
+
+        reader.next();
+        assertThrows(EOFException.class, reader::next);
+    }
+
+    @Test
+    void constructor_wrongVersion_throws() {
+        final byte[] capture = capture();
+        capture[4] = 2;
+
+        assertThrows(IOException.class, () -> new BinaryCaptureReader(new ByteArrayInputStream(capture)));
+    }
+
+    @Test
+    void open_detectsFormat() throws Exception {
+        final Path binary = tempDir.resolve("capture.bin");
+        Files.write(binary, capture());
+        final Path json = tempDir.resolve("capture.ndjson");
+        Files.write(json, "{\"topic\":\"t\"}".getBytes(StandardCharsets.UTF_8));
+
+        try (final CaptureReader reader = CaptureReader.open(binary.toString(), false)) {
+            assertInstanceOf(BinaryCaptureReader.class, reader);
+            assertEquals("a/b", reader.next().getTopic());
+        }
+        try (final CaptureReader reader = CaptureReader.open(json.toString(), false)) {
+            assertInstanceOf(JsonCaptureReader.class, reader);
+            assertEquals("t", reader.next().getTopic());
+        }
+    }
+
+    private static byte @NotNull [] capture() {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(BinaryCaptureFormat.MAGIC);
+            output.writeByte(BinaryCaptureFormat.VERSION);
+
+            final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+            final DataOutputStream record = new DataOutputStream(recordBytes);
+            record.writeLong(1_000_000);
+            record.writeByte(0xFE);
+            writeString(record, "a/b");
+            writeString(record, "text/plain");
+            record.writeByte(1);
+            record.writeInt(-1);
+            writeString(record, "response");
+            record.writeInt(2);
+            record.write("cd".getBytes(StandardCharsets.UTF_8));
+            record.writeInt(1);
+            writeString(record, "name");
+            writeString(record, "value");
+            record.writeInt(7);
+            record.write("payload".getBytes(StandardCharsets.UTF_8));
+            output.writeInt(recordBytes.size());
+            recordBytes.writeTo(output);
+
+            recordBytes.reset();
+            record.writeLong(2_500_000);
+            record.writeByte(0);
+            writeString(record, "c");
+            record.writeInt(0);
+            record.writeInt(0);
+            output.writeInt(recordBytes.size());
+            recordBytes.writeTo(output);
+            return bytes.toByteArray();
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void writeString(final @NotNull DataOutputStream output, final @NotNull String string)
+            throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+}
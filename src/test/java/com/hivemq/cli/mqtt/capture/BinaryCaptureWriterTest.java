@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCaptureWriterTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void write_readBack() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final Mqtt5Publish publish = Mqtt5Publish.builder()
+                .topic("a/b")
+                .qos(MqttQos.EXACTLY_ONCE)
+                .payload(new byte[]{0, 1, 2, (byte) 0xFF})
+                .retain(true)
+                .contentType("application/octet-stream")
+                .payloadFormatIndicator(Mqtt5PayloadFormatIndicator.UNSPECIFIED)
+                .messageExpiryInterval(120)
+                .responseTopic("response")
+                .correlationData(new byte[]{(byte) 0xCA, (byte) 0xFE})
+                .userProperties(Mqtt5UserProperties.builder().add("k1", "v1").add("k2", "v2").build())
+                .build();
+        final BinaryCaptureWriter writer = new BinaryCaptureWriter(file);
+        writer.write(publish);
+        writer.write(Mqtt3Publish.builder().topic("c").qos(MqttQos.AT_LEAST_ONCE).build());
+        writer.close();
+
+        try (final CaptureReader reader = CaptureReader.open(file.toString(), false)) {
+            final CapturedPublish first = reader.next();
+            assertNotNull(first);
+            final Mqtt5Publish replayed = first.toMqtt5Publish();
+            assertEquals(publish.getTopic(), replayed.getTopic());
+            assertEquals(publish.getPayload(), replayed.getPayload());
+            assertEquals(publish.getQos(), replayed.getQos());
+            assertEquals(publish.isRetain(), replayed.isRetain());
+            assertEquals(publish.getContentType(), replayed.getContentType());
+            assertEquals(publish.getPayloadFormatIndicator(), replayed.getPayloadFormatIndicator());
+            assertEquals(publish.getMessageExpiryInterval(), replayed.getMessageExpiryInterval());
+            assertEquals(publish.getResponseTopic(), replayed.getResponseTopic());
+            assertEquals(publish.getCorrelationData(), replayed.getCorrelationData());
+            assertEquals(publish.getUserProperties(), replayed.getUserProperties());
+
+            final CapturedPublish second = reader.next();
+            assertNotNull(second);
+            assertEquals("c", second.getTopic());
+            assertEquals(MqttQos.AT_LEAST_ONCE, second.getQos());
+            assertEquals(0, second.getPayload().remaining());
+            assertNull(second.getContentType());
+            assertTrue(second.getTimestampMicros() >= first.getTimestampMicros());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void write_recordLargerThanBuffer() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final byte[] payload = new byte[1024 * 1024];
+        payload[payload.length - 1] = 42;
+        final BinaryCaptureWriter writer = new BinaryCaptureWriter(file);
+        writer.write(Mqtt5Publish.builder().topic("small").build());
+        writer.write(Mqtt5Publish.builder().topic("large").payload(payload).build());
+        writer.write(Mqtt5Publish.builder().topic("small").build());
+        writer.close();
+
+        try (final CaptureReader reader = CaptureReader.open(file.toString(), false)) {
+            assertEquals("small", reader.next().getTopic());
+            final CapturedPublish large = reader.next();
+            assertEquals(ByteBuffer.wrap(payload), large.getPayload());
+            assertEquals("small", reader.next().getTopic());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void write_flushedAfterIntervalWithoutFurtherPublishes() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final BinaryCaptureWriter writer = new BinaryCaptureWriter(file);
+        try {
+            writer.write(Mqtt5Publish.builder().topic("idle").build());
+            assertEquals(0, Files.size(file));
+
+            final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                    5 * BinaryCaptureWriter.FLUSH_INTERVAL_MILLIS);
+            while (Files.size(file) == 0 && System.nanoTime() - deadlineNanos < 0) {
+                Thread.sleep(50);
+            }
+            try (final CaptureReader reader = CaptureReader.open(file.toString(), false)) {
+                assertEquals("idle", reader.next().getTopic());
+                assertNull(reader.next());
+            }
+            final CaptureIndex index = CaptureIndex.read(file);
+            assertNotNull(index);
+            assertEquals(1, index.size());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void write_appendsToExistingCapture() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        for (final String topic : new String[]{"first", "second"}) {
+            final BinaryCaptureWriter writer = new BinaryCaptureWriter(file);
+            writer.write(Mqtt5Publish.builder().topic(topic).build());
+            writer.close();
+        }
+
+        try (final CaptureReader reader = CaptureReader.open(file.toString(), false)) {
+            assertEquals("first", reader.next().getTopic());
+            assertEquals("second", reader.next().getTopic());
+            assertNull(reader.next());
+        }
+        final CaptureIndex index = CaptureIndex.read(file);
+        assertNotNull(index);
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void constructor_noCapture_throws() throws Exception {
+        final Path file = tempDir.resolve("capture.txt");
+        Files.write(file, "text".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> new BinaryCaptureWriter(file));
+    }
+
+    @Test
+    void index_seeksToSkippedTime() throws Exception {
+        final Path file = tempDir.resolve("capture.bin");
+        final long startMicros = 1_700_000_000_000_000L;
+        final BinaryCaptureWriter writer = new BinaryCaptureWriter(file) {
+            private long records = 0;
+
+            @Override
+            long currentTimeMicros() {
+                // one publish every 100 ms
+                return startMicros + records++ * 100_000;
+            }
+        };
+        for (int i = 0; i < 50; i++) {
+            writer.write(Mqtt5Publish.builder().topic("topic/" + i).build());
+        }
+        writer.close();
+
+        final CaptureIndex index = CaptureIndex.read(file);
+        assertNotNull(index);
+        assertEquals(5, index.size());
+        assertEquals(startMicros, index.getFirstTimestampMicros());
+        assertEquals(BinaryCaptureFormat.HEADER_LENGTH, index.findOffset(startMicros));
+
+        try (final CaptureReader reader = CaptureReader.open(file.toString(), false, 2_050_000)) {
+            final CapturedPublish publish = reader.next();
+            assertNotNull(publish);
+            assertEquals("topic/21", publish.getTopic());
+            assertEquals(startMicros + 2_100_000, publish.getTimestampMicros());
+        }
+    }
+}
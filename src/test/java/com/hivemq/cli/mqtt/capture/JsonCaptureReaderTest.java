@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.capture;
+
+import com.hivemq.cli.utils.json.JsonMqttPublishWriter;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCaptureReaderTest {
+
+    @Test
+    void next_writtenPublishes_roundTrip() throws Exception {
+        final Mqtt5Publish publish = Mqtt5Publish.builder()
+                .topic("a/b")
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .payload("{\"temperature\": 21.50}".getBytes(StandardCharsets.UTF_8))
+                .retain(true)
+                .contentType("application/json")
+                .payloadFormatIndicator(Mqtt5PayloadFormatIndicator.UTF_8)
+                .messageExpiryInterval(60)
+                .responseTopic("response")
+                .correlationData("correlation".getBytes(StandardCharsets.UTF_8))
+                .userProperties(Mqtt5UserProperties.builder().add("name", "value").build())
+                .build();
+        final String capture = new JsonMqttPublishWriter(false, true).write(publish) + "\n" +
+                new JsonMqttPublishWriter(false, false).write(Mqtt5Publish.builder()
+                        .topic("c")
+                        .payload("text".getBytes(StandardCharsets.UTF_8))
+                        .build());
+
+        final CaptureReader reader = reader(capture, false);
+        final CapturedPublish first = reader.next();
+        final CapturedPublish second = reader.next();
+        assertNull(reader.next());
+
+        assertEquals("a/b", first.getTopic());
+        assertEquals("{\"temperature\":21.50}", StandardCharsets.UTF_8.decode(first.getPayload()).toString());
+        assertEquals(publish.getQos(), first.getQos());
+        assertTrue(first.isRetain());
+        assertEquals(publish.getContentType(), first.toMqtt5Publish().getContentType());
+        assertEquals(publish.getPayloadFormatIndicator(), first.toMqtt5Publish().getPayloadFormatIndicator());
+        assertEquals(publish.getMessageExpiryInterval(), first.toMqtt5Publish().getMessageExpiryInterval());
+        assertEquals(publish.getResponseTopic(), first.toMqtt5Publish().getResponseTopic());
+        assertEquals(publish.getCorrelationData(), first.toMqtt5Publish().getCorrelationData());
+        assertEquals(publish.getUserProperties(), first.getUserProperties());
+
+        assertEquals("c", second.getTopic());
+        assertEquals("text", StandardCharsets.UTF_8.decode(second.getPayload()).toString());
+        assertEquals(MqttQos.AT_MOST_ONCE, second.getQos());
+        assertFalse(second.isRetain());
+    }
+
+    @Test
+    void next_receivedAt_toMicros() throws Exception {
+        final CapturedPublish publish =
+                reader("{\"topic\":\"t\",\"payload\":\"p\",\"receivedAt\":\"2024-01-02 03:04:05\"}", false).next();
+
+        final long expected =
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5).atZone(ZoneId.systemDefault()).toEpochSecond() * 1_000_000L;
+        assertEquals(expected, publish.getTimestampMicros());
+    }
+
+    @Test
+    void next_withoutReceivedAt_unknownTimestamp() throws Exception {
+        final CapturedPublish publish = reader("{\"topic\":\"t\"}", false).next();
+
+        assertEquals(CapturedPublish.UNKNOWN_TIMESTAMP, publish.getTimestampMicros());
+        assertEquals(0, publish.getPayload().remaining());
+    }
+
+    @Test
+    void next_base64() throws Exception {
+        final CapturedPublish publish = reader("{\"topic\":\"t\",\"payload\":\"AAEC\"}", true).next();
+
+        assertEquals(3, publish.getPayload().remaining());
+        assertEquals(2, publish.getPayload().get(2));
+    }
+
+    @Test
+    void next_missingTopic_throws() {
+        assertThrows(IOException.class, () -> reader("{\"payload\":\"p\"}", false).next());
+    }
+
+    private static @NotNull CaptureReader reader(final @NotNull String capture, final boolean isBase64) {
+        return new JsonCaptureReader(new ByteArrayInputStream(capture.getBytes(StandardCharsets.UTF_8)), isBase64);
+    }
+}
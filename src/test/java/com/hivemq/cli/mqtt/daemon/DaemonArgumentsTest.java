@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DaemonArgumentsTest {
+
+    private final @NotNull CommandLine.Model.CommandSpec spec =
+            new CommandLine(new DaemonPublishRequest()).getCommandSpec();
+
+    @Test
+    void withAbsolutePaths_relativePaths_resolvedAgainstWorkingDirectory() {
+        final List<String> arguments = DaemonArguments.withAbsolutePaths(spec,
+                List.of("-t", "topic", "-m:file", "payload.bin", "--cafile=certs/ca.pem", "-pw:file", "pw.txt"));
+
+        assertEquals(List.of("-t",
+                "topic",
+                "-m:file",
+                absolute("payload.bin"),
+                "--cafile=" + absolute("certs/ca.pem"),
+                "-pw:file",
+                absolute("pw.txt")), arguments);
+    }
+
+    @Test
+    void withAbsolutePaths_noPathOptions_unchanged() {
+        final List<String> arguments = List.of("-t", "certs/ca.pem", "-m", "payload.bin", "-u=user");
+
+        assertEquals(arguments, DaemonArguments.withAbsolutePaths(spec, arguments));
+    }
+
+    @Test
+    void withExplicitPassword_passwordFromEnvironment_sentWithItsValue() {
+        final DaemonPublishRequest request = new DaemonPublishRequest();
+        final List<String> arguments = List.of("-t", "topic", "-m", "message", "-pw:env", "PATH");
+        new CommandLine(request).parseArgs(arguments.toArray(new String[0]));
+
+        assertEquals(List.of("-t", "topic", "-m", "message", "--password=" + System.getenv("PATH")),
+                DaemonArguments.withExplicitPassword(spec,
+                        arguments,
+                        request.getConnectOptions().getAuthenticationOptions().getPassword()));
+    }
+
+    @Test
+    void withExplicitPassword_defaultEnvironmentVariable_sentWithItsValue() {
+        assertEquals(List.of("-t", "topic", "--password=secret"),
+                DaemonArguments.withExplicitPassword(spec, List.of("-pw:env", "-t", "topic"), password("secret")));
+    }
+
+    @Test
+    void withExplicitPassword_interactivePassword_sentWithTheTypedValue() {
+        assertEquals(List.of("-i", "client", "-t", "topic", "--password=typed"),
+                DaemonArguments.withExplicitPassword(spec,
+                        List.of("-i", "client", "-pw", "-t", "topic"),
+                        password("typed")));
+    }
+
+    @Test
+    void withExplicitPassword_passwordOptionsWithValues_replaced() {
+        assertEquals(List.of("-t", "topic", "--password=file content"),
+                DaemonArguments.withExplicitPassword(spec,
+                        List.of("-pw", "old", "--password=older", "-t", "topic", "-pw:file", "/tmp/password"),
+                        password("file content")));
+    }
+
+    @Test
+    void withExplicitPassword_noPassword_unchanged() {
+        final List<String> arguments = List.of("-t", "topic", "-u", "user");
+
+        assertEquals(arguments, DaemonArguments.withExplicitPassword(spec, arguments, null));
+    }
+
+    private static @NotNull ByteBuffer password(final @NotNull String password) {
+        return ByteBuffer.wrap(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static @NotNull String absolute(final @NotNull String path) {
+        return Paths.get(path).toAbsolutePath().toString();
+    }
+}
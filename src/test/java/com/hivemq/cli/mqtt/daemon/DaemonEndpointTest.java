@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DaemonEndpointTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void write_read_roundTrip() throws Exception {
+        final Path file = tempDir.resolve("dir").resolve("daemon");
+        final DaemonEndpoint endpoint = new DaemonEndpoint(1883, DaemonEndpoint.createToken());
+
+        endpoint.write(file);
+        final DaemonEndpoint read = DaemonEndpoint.read(file);
+
+        assertNotNull(read);
+        assertEquals(1883, read.getPort());
+        assertEquals(endpoint.getToken(), read.getToken());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        }
+    }
+
+    @Test
+    void read_missingFile_null() throws Exception {
+        assertNull(DaemonEndpoint.read(tempDir.resolve("daemon")));
+    }
+
+    @Test
+    void createToken_random() {
+        assertEquals(64, DaemonEndpoint.createToken().length());
+        assertNotEquals(DaemonEndpoint.createToken(), DaemonEndpoint.createToken());
+    }
+}
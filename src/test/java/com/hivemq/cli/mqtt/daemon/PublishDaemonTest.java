@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.cli.mqtt.daemon;
+
+import com.hivemq.cli.DefaultCLIProperties;
+import com.hivemq.cli.MqttCLIMain;
+import com.hivemq.cli.commands.options.ConnectOptions;
+import com.hivemq.cli.commands.options.DisconnectOptions;
+import com.hivemq.cli.commands.options.PublishOptions;
+import com.hivemq.cli.ioc.MqttCLI;
+import com.hivemq.cli.mqtt.MqttClientExecutor;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientConfig;
+import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttVersion;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PublishDaemonTest {
+
+    private final @NotNull MqttClientExecutor mqttClientExecutor = mock(MqttClientExecutor.class);
+    private final @NotNull MqttClient client = mock(MqttClient.class);
+    private @NotNull PublishDaemon daemon;
+    private @NotNull DaemonEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final DefaultCLIProperties defaultCLIProperties = mock(DefaultCLIProperties.class);
+        when(defaultCLIProperties.getMqttVersion()).thenReturn(MqttVersion.MQTT_5_0);
+        when(defaultCLIProperties.getHost()).thenReturn("localhost");
+        when(defaultCLIProperties.getPort()).thenReturn(1883);
+        MqttCLIMain.MQTT_CLI = mock(MqttCLI.class);
+        when(MqttCLIMain.MQTT_CLI.defaultCLIProperties()).thenReturn(defaultCLIProperties);
+
+        final MqttClientConfig clientConfig = mock(MqttClientConfig.class);
+        when(clientConfig.getClientIdentifier()).thenReturn(Optional.empty());
+        when(clientConfig.getServerHost()).thenReturn("localhost");
+        when(client.getConfig()).thenReturn(clientConfig);
+        when(client.getState()).thenReturn(MqttClientState.CONNECTED);
+        when(mqttClientExecutor.connect(any(ConnectOptions.class))).thenReturn(client);
+
+        daemon = new PublishDaemon(mqttClientExecutor, DaemonEndpoint.createToken());
+        endpoint = daemon.bind(0);
+        CompletableFuture.runAsync(() -> {
+            try {
+                daemon.serve();
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        daemon.close();
+        MqttCLIMain.MQTT_CLI = null;
+    }
+
+    @Test
+    void publish_invalidToken_rejected() throws Exception {
+        final DaemonEndpoint invalidEndpoint = new DaemonEndpoint(endpoint.getPort(), DaemonEndpoint.createToken());
+
+        final DaemonResponse response = DaemonClient.publish(invalidEndpoint, List.of("-t", "topic", "-m", "message"));
+
+        assertEquals(1, response.getExitCode());
+        assertEquals("Invalid daemon token", response.getMessage());
+        verifyNoInteractions(mqttClientExecutor);
+    }
+
+    @Test
+    void publish_invalidArguments_returnsParameterError() throws Exception {
+        final DaemonResponse response = DaemonClient.publish(endpoint, List.of("-t", "topic", "--unknown"));
+
+        assertEquals(2, response.getExitCode());
+        assertTrue(response.getMessage().contains("--unknown"), response.getMessage());
+        verifyNoInteractions(mqttClientExecutor);
+    }
+
+    @Test
+    void publish_concurrentRequests_publishOverOneConnection() throws Exception {
+        final CountDownLatch publishing = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            publishing.countDown();
+            // only returns if the other request is published at the same time
+            assertTrue(publishing.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(mqttClientExecutor).publish(any(MqttClient.class), any(PublishOptions.class));
+
+        final List<CompletableFuture<DaemonResponse>> responses = List.of(
+                CompletableFuture.supplyAsync(() -> publish("-i", "client", "-t", "topic", "-m", "first")),
+                CompletableFuture.supplyAsync(() -> publish("-i", "client", "-t", "topic", "-m", "second")));
+
+        for (final CompletableFuture<DaemonResponse> response : responses) {
+            assertEquals(0, response.get().getExitCode(), response.get().getMessage());
+        }
+        verify(mqttClientExecutor, times(1)).connect(any(ConnectOptions.class));
+        verify(mqttClientExecutor, times(2)).publish(same(client), any(PublishOptions.class));
+    }
+
+    @Test
+    void publish_slowConnect_otherClientsServedMeanwhile() throws Exception {
+        final CountDownLatch connectSlow = new CountDownLatch(1);
+        final MqttClientConfig clientConfig = client.getConfig();
+        final MqttClient slowClient = mock(MqttClient.class);
+        when(slowClient.getState()).thenReturn(MqttClientState.CONNECTED);
+        when(slowClient.getConfig()).thenReturn(clientConfig);
+        when(mqttClientExecutor.connect(argThat((ConnectOptions options) -> "slow".equals(options.getIdentifier()))))
+                .thenAnswer(invocation -> {
+                    assertTrue(connectSlow.await(10, TimeUnit.SECONDS));
+                    return slowClient;
+                });
+        assertEquals(0, publish("-i", "fast", "-t", "topic", "-m", "first").getExitCode());
+
+        final List<CompletableFuture<DaemonResponse>> slowResponses = List.of(
+                CompletableFuture.supplyAsync(() -> publish("-i", "slow", "-t", "topic", "-m", "first")),
+                CompletableFuture.supplyAsync(() -> publish("-i", "slow", "-t", "topic", "-m", "second")));
+        verify(mqttClientExecutor, timeout(10_000)).connect(
+                argThat((ConnectOptions options) -> "slow".equals(options.getIdentifier())));
+
+        // served while the connect of the other client is pending
+        assertEquals(0, publish("-i", "fast", "-t", "topic", "-m", "second").getExitCode());
+        assertTrue(slowResponses.stream().noneMatch(CompletableFuture::isDone));
+
+        connectSlow.countDown();
+        for (final CompletableFuture<DaemonResponse> response : slowResponses) {
+            assertEquals(0, response.get().getExitCode(), response.get().getMessage());
+        }
+        verify(mqttClientExecutor, times(2)).connect(any(ConnectOptions.class));
+        verify(mqttClientExecutor, times(2)).publish(same(slowClient), any(PublishOptions.class));
+    }
+
+    @Test
+    void publish_connectFailed_sharedWithWaitingRequestsAndRetriedLater() throws Exception {
+        when(mqttClientExecutor.connect(any(ConnectOptions.class))).thenThrow(new IllegalStateException("refused"))
+                .thenReturn(client);
+
+        final DaemonResponse failed = publish("-i", "client", "-t", "topic", "-m", "first");
+        assertEquals(1, failed.getExitCode());
+        assertEquals("Unable to publish: refused", failed.getMessage());
+
+        assertEquals(0, publish("-i", "client", "-t", "topic", "-m", "second").getExitCode());
+        verify(mqttClientExecutor, times(2)).connect(any(ConnectOptions.class));
+    }
+
+    @Test
+    void publish_argumentOrderChanged_reusesConnection() throws Exception {
+        assertEquals(0, publish("-i", "client", "-u", "user", "-t", "topic", "-m", "first").getExitCode());
+        assertEquals(0, publish("-u", "user", "-t", "topic", "-m", "second", "-i", "client").getExitCode());
+
+        verify(mqttClientExecutor, times(1)).connect(any(ConnectOptions.class));
+        verify(mqttClientExecutor, never()).disconnect(any(MqttClient.class), any(DisconnectOptions.class));
+    }
+
+    @Test
+    void publish_credentialsChanged_reconnects() throws Exception {
+        assertEquals(0, publish("-i", "client", "-u", "user", "-pw", "first", "-t", "topic", "-m", "m").getExitCode());
+        assertEquals(0, publish("-i", "client", "-u", "user", "-pw", "second", "-t", "topic", "-m", "m").getExitCode());
+
+        final ArgumentCaptor<ConnectOptions> connectOptions = ArgumentCaptor.forClass(ConnectOptions.class);
+        verify(mqttClientExecutor, times(2)).connect(connectOptions.capture());
+        final ByteBuffer password =
+                connectOptions.getAllValues().get(1).getAuthenticationOptions().getPassword();
+        assertEquals("second", StandardCharsets.UTF_8.decode(Objects.requireNonNull(password)).toString());
+        verify(mqttClientExecutor, times(1)).disconnect(same(client), any(DisconnectOptions.class));
+    }
+
+    private @NotNull DaemonResponse publish(final @NotNull String @NotNull ... arguments) {
+        try {
+            return DaemonClient.publish(endpoint, List.of(arguments));
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
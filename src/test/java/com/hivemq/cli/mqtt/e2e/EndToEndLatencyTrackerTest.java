@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.e2e;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EndToEndLatencyTrackerTest {
+
+    private final EndToEndLatencyTracker tracker = new EndToEndLatencyTracker();
+
+    @Test
+    void in_order_publishes() {
+        for (long sequence = 5; sequence < 10; sequence++) {
+            record(1, "topic", sequence, 1_000_000);
+        }
+
+        assertEquals(5, tracker.getReceived());
+        assertEquals(0, tracker.getMissing());
+        assertEquals(0, tracker.getDuplicates());
+        assertEquals(0, tracker.getReordered());
+        assertEquals(1_000_000, tracker.getTotalLatency().getMax());
+    }
+
+    @Test
+    void gaps_duplicates_and_reordering() {
+        record(1, "topic", 0, 0);
+        record(1, "topic", 3, 0);
+        assertEquals(2, tracker.getMissing());
+
+        record(1, "topic", 1, 0);
+        assertEquals(1, tracker.getMissing());
+        assertEquals(1, tracker.getReordered());
+
+        record(1, "topic", 1, 0);
+        record(1, "topic", 3, 0);
+        assertEquals(2, tracker.getDuplicates());
+        assertEquals(1, tracker.getMissing());
+    }
+
+    @Test
+    void sequences_are_tracked_per_publisher_and_topic() {
+        record(1, "a", 0, 0);
+        record(1, "b", 0, 0);
+        record(2, "a", 0, 0);
+        record(1, "a", 1, 0);
+
+        assertEquals(0, tracker.getMissing());
+        assertEquals(0, tracker.getDuplicates());
+    }
+
+    @Test
+    void only_the_latest_gaps_are_remembered() {
+        record(1, "topic", 0, 0);
+        record(1, "topic", EndToEndLatencyTracker.MAX_TRACKED_GAPS + 11, 0);
+        assertEquals(EndToEndLatencyTracker.MAX_TRACKED_GAPS + 10, tracker.getMissing());
+
+        record(1, "topic", 11, 0);
+        assertEquals(1, tracker.getReordered());
+        record(1, "topic", 10, 0);
+        assertEquals(1, tracker.getDuplicates());
+    }
+
+    private void record(final long publisherId, final String topic, final long sequence, final long latencyNanos) {
+        tracker.record(new EndToEndStamp(publisherId, sequence, 1_000_000_000L), topic, 1_000_000_000L + latencyNanos);
+    }
+}
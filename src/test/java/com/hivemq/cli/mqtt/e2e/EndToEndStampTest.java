@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.e2e;
+
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EndToEndStampTest {
+
+    @Test
+    void payload_header_round_trip() {
+        final EndToEndStamp stamp = new EndToEndStamp(0xCAFEL, 42, 123_456_789L);
+        final ByteBuffer payload = ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8));
+
+        final ByteBuffer stampedPayload = stamp.prependToPayload(payload);
+
+        assertEquals(EndToEndStamp.HEADER_LENGTH + 5, stampedPayload.remaining());
+        final EndToEndStamp decodedStamp = EndToEndStamp.fromPayload(stampedPayload);
+        assertNotNull(decodedStamp);
+        assertEquals(0xCAFEL, decodedStamp.getPublisherId());
+        assertEquals(42, decodedStamp.getSequence());
+        assertEquals(123_456_789L, decodedStamp.getTimestampNanos());
+        assertEquals("hello", StandardCharsets.UTF_8.decode(EndToEndStamp.skipHeader(stampedPayload)).toString());
+        assertEquals(0, stampedPayload.position());
+    }
+
+    @Test
+    void payload_without_header() {
+        final byte[] bytes = new byte[EndToEndStamp.HEADER_LENGTH];
+        assertNull(EndToEndStamp.fromPayload(ByteBuffer.wrap(bytes)));
+        assertNull(EndToEndStamp.fromPayload(ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void user_properties_round_trip() {
+        final Mqtt5UserProperties existingProperties = Mqtt5UserProperties.builder().add("key", "value").build();
+        final EndToEndStamp stamp = new EndToEndStamp(-1L, 7, 987_654_321L);
+
+        final Mqtt5UserProperties userProperties = stamp.addToUserProperties(existingProperties);
+
+        assertEquals(4, userProperties.asList().size());
+        final EndToEndStamp decodedStamp = EndToEndStamp.fromUserProperties(userProperties);
+        assertNotNull(decodedStamp);
+        assertEquals(-1L, decodedStamp.getPublisherId());
+        assertEquals(7, decodedStamp.getSequence());
+        assertEquals(987_654_321L, decodedStamp.getTimestampNanos());
+    }
+
+    @Test
+    void user_properties_without_stamp() {
+        assertNull(EndToEndStamp.fromUserProperties(Mqtt5UserProperties.of()));
+    }
+}
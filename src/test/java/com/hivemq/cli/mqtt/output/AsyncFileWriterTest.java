@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputFileOptions;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFileWriterTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void lines_are_written_in_order() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer = new AsyncFileWriter(file, options("--output-flush-size", "64"));
+        final List<String> expectedLines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expectedLines.add("message-" + i);
+            writer.writeLine("message-" + i);
+        }
+        writer.close();
+
+        assertEquals(expectedLines, Files.readAllLines(file.toPath()));
+        assertEquals(1000, writer.getWrittenLines());
+        assertEquals(0, writer.getDroppedLines());
+    }
+
+    @Test
+    void lines_larger_than_flush_size_are_written() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer = new AsyncFileWriter(file, options("--output-flush-size", "4"));
+        writer.writeLine("a");
+        writer.writeLine("larger than the flush size");
+        writer.writeLine("b");
+        writer.close();
+
+        assertEquals(List.of("a", "larger than the flush size", "b"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    void lines_are_appended_to_existing_file() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        Files.writeString(file.toPath(), "existing" + System.lineSeparator());
+        final AsyncFileWriter writer = new AsyncFileWriter(file, options());
+        writer.writeLine("new");
+        writer.close();
+
+        assertEquals(List.of("existing", "new"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    void lines_are_written_after_flush_interval() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer = new AsyncFileWriter(file, options("--output-flush-interval", "10"));
+        writer.writeLine("message");
+
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (Files.size(file.toPath()) == 0 && System.currentTimeMillis() < deadline) {
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("message"), Files.readAllLines(file.toPath()));
+        writer.close();
+    }
+
+    @Test
+    void callbacks_are_called_after_lines_are_written() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer = new AsyncFileWriter(file, options("--output-flush-size", "8"));
+        final List<Long> writtenSizes = new CopyOnWriteArrayList<>();
+        final CountDownLatch written = new CountDownLatch(2);
+        for (final String line : new String[]{"a", "larger than the flush size"}) {
+            writer.writeLine(line, () -> {
+                writtenSizes.add(file.length());
+                written.countDown();
+            });
+        }
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        final long lineSeparatorLength = System.lineSeparator().length();
+        assertEquals(List.of(1 + lineSeparatorLength, 27 + 2 * lineSeparatorLength), writtenSizes);
+        writer.close();
+    }
+
+    @Test
+    void lines_after_close_are_dropped() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer =
+                new AsyncFileWriter(file, options("--output-backpressure", "drop", "--output-queue-size", "1"));
+        writer.close();
+        writer.writeLine("message");
+
+        assertEquals(1, writer.getDroppedLines());
+        assertTrue(Files.readAllLines(file.toPath()).isEmpty());
+    }
+
+    @Test
+    void file_is_rotated_by_size() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer =
+                new AsyncFileWriter(file, options("--output-rotate-size", "20", "--output-flush-size", "10"));
+        final List<String> expectedLines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expectedLines.add("message-" + i);
+            writer.writeLine("message-" + i);
+        }
+        writer.close();
+
+        final List<File> rotatedFiles = OutputFileRotation.listRotatedFiles(file);
+        assertTrue(rotatedFiles.size() >= 4, rotatedFiles.toString());
+        final List<String> lines = new ArrayList<>();
+        for (final File rotatedFile : rotatedFiles) {
+            assertTrue(rotatedFile.length() <= 20, rotatedFile + " has " + rotatedFile.length() + " bytes");
+            lines.addAll(Files.readAllLines(rotatedFile.toPath()));
+        }
+        lines.addAll(Files.readAllLines(file.toPath()));
+        assertEquals(expectedLines, lines);
+    }
+
+    @Test
+    void rotated_files_are_compressed_and_expired() throws Exception {
+        final File file = tempDir.resolve("output.txt").toFile();
+        final AsyncFileWriter writer = new AsyncFileWriter(file,
+                options("--output-rotate-size",
+                        "10",
+                        "--output-flush-size",
+                        "10",
+                        "--output-compress",
+                        "gzip",
+                        "--output-retain",
+                        "2"));
+        for (int i = 0; i < 10; i++) {
+            writer.writeLine("message-" + i);
+        }
+        writer.close();
+
+        final List<File> rotatedFiles = OutputFileRotation.listRotatedFiles(file);
+        assertEquals(2, rotatedFiles.size(), rotatedFiles.toString());
+        final File newestRotatedFile = rotatedFiles.get(1);
+        assertTrue(newestRotatedFile.getName().endsWith(".gz"), newestRotatedFile.getName());
+        try (final InputStream in = new GZIPInputStream(Files.newInputStream(newestRotatedFile.toPath()))) {
+            assertEquals("message-8" + System.lineSeparator(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("message-9"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    void options_are_validated() {
+        assertThrows(CommandLine.ParameterException.class, () -> options("--output-queue-size", "0"));
+        assertThrows(CommandLine.ParameterException.class, () -> options("--output-flush-interval", "-1"));
+        assertEquals(OutputFileOptions.FsyncPolicy.flush, options("--output-fsync", "flush").getFsyncPolicy());
+    }
+
+    private static @NotNull OutputFileOptions options(final @NotNull String... args) {
+        final OutputFileOptions options = new OutputFileOptions();
+        new CommandLine(options).parseArgs(args);
+        return options;
+    }
+}
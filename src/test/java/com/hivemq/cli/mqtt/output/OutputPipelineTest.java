@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.output;
+
+import com.hivemq.cli.commands.options.OutputPipelineOptions;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputPipelineTest {
+
+    @Test
+    void written_messagesAreOutputInOrderBeforeTheyAreAcknowledged() {
+        final OutputPipeline pipeline = new OutputPipeline(options("--pipeline"));
+        final List<Integer> output = new ArrayList<>();
+        final AtomicInteger acknowledged = new AtomicInteger();
+        final AtomicInteger acknowledgedBeforeWritten = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            final int message = i;
+            pipeline.submit(onWritten -> {
+                output.add(message);
+                onWritten.run();
+            }, () -> {
+                if (acknowledged.incrementAndGet() > output.size()) {
+                    acknowledgedBeforeWritten.incrementAndGet();
+                }
+            });
+        }
+        pipeline.close();
+
+        assertEquals(1000, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i, output.get(i));
+        }
+        assertEquals(1000, acknowledged.get());
+        assertEquals(0, acknowledgedBeforeWritten.get());
+        assertEquals(1000, pipeline.getWrittenMessages());
+        assertEquals(0, pipeline.getDroppedMessages());
+    }
+
+    @Test
+    void enqueued_messagesAreAcknowledgedBeforeTheyAreOutput() throws Exception {
+        final OutputPipeline pipeline = new OutputPipeline(options("--pipeline", "--pipeline-ack", "enqueued"));
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger acknowledged = new AtomicInteger();
+        pipeline.submit(onWritten -> await(blocked), acknowledged::incrementAndGet);
+        pipeline.submit(onWritten -> {
+        }, acknowledged::incrementAndGet);
+
+        assertEquals(2, acknowledged.get());
+        blocked.countDown();
+        pipeline.close();
+        assertEquals(2, pipeline.getWrittenMessages());
+    }
+
+    @Test
+    void drop_fullQueue_messagesAreDroppedAndAcknowledged() throws Exception {
+        final OutputPipeline pipeline = new OutputPipeline(options("--pipeline",
+                "--pipeline-queue-size",
+                "1",
+                "--pipeline-backpressure",
+                "drop"));
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger acknowledged = new AtomicInteger();
+        pipeline.submit(onWritten -> {
+            writing.countDown();
+            await(blocked);
+            onWritten.run();
+        }, acknowledged::incrementAndGet);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        pipeline.submit(Runnable::run, acknowledged::incrementAndGet);
+        pipeline.submit(Runnable::run, acknowledged::incrementAndGet);
+
+        assertEquals(1, pipeline.getDroppedMessages());
+        assertEquals(1, pipeline.getQueuedMessages());
+        assertEquals(1, acknowledged.get());
+        blocked.countDown();
+        pipeline.close();
+        assertEquals(3, acknowledged.get());
+        assertEquals(2, pipeline.getWrittenMessages());
+    }
+
+    @Test
+    void options_areValidated() {
+        assertThrows(CommandLine.ParameterException.class, () -> options("--pipeline-queue-size", "0"));
+        assertEquals(OutputPipelineOptions.AckPolicy.written, options("--pipeline").getAckPolicy());
+    }
+
+    private static void await(final @NotNull CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static @NotNull OutputPipelineOptions options(final @NotNull String... args) {
+        final OutputPipelineOptions options = new OutputPipelineOptions();
+        new CommandLine(options).parseArgs(args);
+        return options;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.mqtt.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageTemplateTest {
+
+    @Test
+    void render_sequenceAndClientIndex() {
+        final MessageTemplate template = MessageTemplate.compile("sensor/${client}/${seq}");
+
+        assertFalse(template.isConstant());
+        assertEquals("sensor/3/0", template.renderString(0, 3));
+        assertEquals("sensor/12/-42", template.renderString(-42, 12));
+        assertEquals("sensor/0/" + Long.MAX_VALUE, template.renderString(Long.MAX_VALUE, 0));
+        assertEquals("sensor/0/" + Long.MIN_VALUE, template.renderString(Long.MIN_VALUE, 0));
+    }
+
+    @Test
+    void render_withoutPlaceholders_isConstant() {
+        final MessageTemplate template = MessageTemplate.compile("{\"temperature\": 21.5, \"price\": \"$5\"}");
+
+        assertTrue(template.isConstant());
+        assertEquals("{\"temperature\": 21.5, \"price\": \"$5\"}", template.renderString(7, 1));
+    }
+
+    @Test
+    void render_randomValuesInRange() {
+        final MessageTemplate template = MessageTemplate.compile("${int:-5:5};${float:-1:1:3};${float:20:25}");
+        for (int i = 0; i < 1000; i++) {
+            final String[] values = template.renderString(i, 0).split(";");
+
+            final long integer = Long.parseLong(values[0]);
+            assertTrue(integer >= -5 && integer <= 5, values[0]);
+            assertTrue(values[1].matches("-?[01]\\.[0-9]{3}"), values[1]);
+            final double number = Double.parseDouble(values[1]);
+            assertTrue(number >= -1 && number <= 1, values[1]);
+            assertTrue(values[2].matches("2[0-5]\\.[0-9]{2}"), values[2]);
+        }
+    }
+
+    @Test
+    void render_timestampAndUuid() {
+        final MessageTemplate template = MessageTemplate.compile("${timestamp} ${uuid}");
+        final long before = System.currentTimeMillis();
+
+        final String[] values = template.renderString(0, 0).split(" ");
+
+        final long timestamp = Long.parseLong(values[0]);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+        final UUID uuid = UUID.fromString(values[1]);
+        assertEquals(values[1], uuid.toString());
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void render_intoBuffer_returnsLength() {
+        final MessageTemplate template = MessageTemplate.compile("ü${seq}");
+        final byte[] buffer = new byte[template.getMaximumLength()];
+
+        final int length = template.render(buffer, 123, 0);
+
+        assertEquals("ü123", new String(buffer, 0, length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void compile_invalidPlaceholders_throw() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("a/${seq"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${unknown}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${seq:1}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${int:5:1}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${int:a:1}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${float:0:1:10}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${float:0:1e12:9}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("${float:-1e16:0:0}"));
+    }
+}
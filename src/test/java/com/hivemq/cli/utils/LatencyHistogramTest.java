@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void empty_histogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void small_values_are_exact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(90, histogram.getValueAtPercentile(90));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void large_values_within_relative_error() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.recordValue(i * 1_000_000L);
+        }
+
+        assertEquals(10_000_000_000L, histogram.getMax());
+        assertWithinRelativeError(5_000_000_000L, histogram.getValueAtPercentile(50));
+        assertWithinRelativeError(9_900_000_000L, histogram.getValueAtPercentile(99));
+        assertWithinRelativeError(9_990_000_000L, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    void bucket_indices_are_continuous() {
+        for (long value = 0; value < 1_000_000; value++) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            assertEquals(index, LatencyHistogram.indexOf(LatencyHistogram.highestEquivalentValue(index)));
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestEquivalentValue(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    void negative_values_are_recorded_as_zero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5);
+
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void summary_contains_percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1_000L);
+        }
+
+        assertTrue(histogram.toSummaryString()
+                .matches("min=0\\.001 mean=0\\.50\\d p50=0\\.50\\d p90=0\\.90\\d p99=0\\.99\\d p99\\.9=(0\\.999|1\\.000) max=1\\.000"),
+                histogram.toSummaryString());
+    }
+
+    @Test
+    void percentile_distribution_in_hgrm_format() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i * 1_000_000L);
+        }
+
+        final StringWriter stringWriter = new StringWriter();
+        histogram.outputPercentileDistribution(new PrintWriter(stringWriter));
+        final String[] lines = stringWriter.toString().split("\n");
+
+        assertEquals("       Value     Percentile TotalCount 1/(1-Percentile)", lines[0]);
+        assertEquals("", lines[1]);
+        assertTrue(lines[2].matches(" +1\\.00\\d 0\\.000000000000 +1 +1\\.00"), lines[2]);
+        assertTrue(lines[3].matches(" +10\\.0\\d\\d 0\\.100000000000 +10 +1\\.11"), lines[3]);
+        assertEquals("     100.000 1.000000000000        100", lines[lines.length - 4]);
+        assertTrue(lines[lines.length - 3].startsWith("#[Mean    =       50.500, StdDeviation   ="));
+        assertEquals("#[Max     =      100.000, Total count    =          100]", lines[lines.length - 2]);
+        assertTrue(lines[lines.length - 1].startsWith("#[Buckets ="));
+    }
+
+    @Test
+    void percentile_distribution_in_json_format() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i * 1_000_000L);
+        }
+
+        final StringWriter stringWriter = new StringWriter();
+        histogram.writeJson(new JsonWriter(stringWriter));
+        final JsonObject json = JsonParser.parseString(stringWriter.toString()).getAsJsonObject();
+
+        assertEquals("ms", json.get("unit").getAsString());
+        assertEquals(100, json.get("totalCount").getAsLong());
+        assertEquals(50.5, json.get("mean").getAsDouble());
+        assertEquals(100.0, json.get("max").getAsDouble());
+        assertEquals(99.0, json.getAsJsonObject("percentiles").get("99.0").getAsDouble(), 99.0 * 0.004);
+        final JsonObject lastStep =
+                json.getAsJsonArray("distribution").get(json.getAsJsonArray("distribution").size() - 1).getAsJsonObject();
+        assertEquals(100.0, lastStep.get("percentile").getAsDouble());
+        assertEquals(100, lastStep.get("totalCount").getAsLong());
+    }
+
+    private static void assertWithinRelativeError(final long expected, final long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected * 0.004, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import com.hivemq.cli.commands.options.PublishOptions;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageStreamReaderTest {
+
+    @TempDir
+    private @NotNull Path tempDir;
+
+    @Test
+    void lines_emptyLinesSkipped_carriageReturnRemoved() throws Exception {
+        final MessageStreamReader reader = new MessageStreamReader(new ByteArrayInputStream(
+                "first\r\n\nsecond\nlast".getBytes(StandardCharsets.UTF_8)), PublishOptions.MessageStreamFormat.lines);
+
+        assertEquals(List.of("first", "second", "last"), readAll(reader));
+    }
+
+    @Test
+    void lines_longerThanBuffer() throws Exception {
+        final String line = "x".repeat(100_000);
+        final MessageStreamReader reader = new MessageStreamReader(new ByteArrayInputStream((line + "\n" + line +
+                "\n").getBytes(StandardCharsets.UTF_8)), PublishOptions.MessageStreamFormat.lines);
+
+        assertEquals(List.of(line, line), readAll(reader));
+    }
+
+    @Test
+    void prefixed_binaryRecords() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        for (final String record : new String[]{"a\nb", "", "c"}) {
+            output.writeInt(record.length());
+            output.write(record.getBytes(StandardCharsets.UTF_8));
+        }
+        final MessageStreamReader reader = new MessageStreamReader(new ByteArrayInputStream(bytes.toByteArray()),
+                PublishOptions.MessageStreamFormat.prefixed);
+
+        assertEquals(List.of("a\nb", "", "c"), readAll(reader));
+    }
+
+    @Test
+    void prefixed_truncatedRecord_throws() throws Exception {
+        final MessageStreamReader reader = new MessageStreamReader(new ByteArrayInputStream(new byte[]{0, 0, 0, 5, 1}),
+                PublishOptions.MessageStreamFormat.prefixed);
+
+        assertThrows(EOFException.class, reader::next);
+    }
+
+    @Test
+    void open_file() throws Exception {
+        final Path file = tempDir.resolve("messages.txt");
+        Files.write(file, "one\ntwo\n".getBytes(StandardCharsets.UTF_8));
+
+        try (final MessageStreamReader reader = MessageStreamReader.open(file.toString(),
+                PublishOptions.MessageStreamFormat.lines)) {
+            assertEquals(List.of("one", "two"), readAll(reader));
+        }
+        assertThrows(FileNotFoundException.class,
+                () -> MessageStreamReader.open(tempDir.resolve("missing").toString(),
+                        PublishOptions.MessageStreamFormat.lines));
+    }
+
+    private static @NotNull List<String> readAll(final @NotNull MessageStreamReader reader) throws Exception {
+        final List<String> records = new ArrayList<>();
+        ByteBuffer record;
+        while ((record = reader.next()) != null) {
+            records.add(StandardCharsets.UTF_8.decode(record).toString());
+        }
+        assertNull(reader.next());
+        return records;
+    }
+}
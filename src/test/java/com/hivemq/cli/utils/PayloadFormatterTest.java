@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PayloadFormatterTest {
+
+    @Test
+    void utf8_sameAsFormatPayload() {
+        final PayloadFormatter formatter = new PayloadFormatter(false);
+        final byte[] payload = "hello wörld ✓ 😀".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("hello wörld ✓ 😀", formatter.format(ByteBuffer.wrap(payload).asReadOnlyBuffer()));
+        assertEquals("", formatter.format(Optional.empty()));
+    }
+
+    @Test
+    void base64_allPaddingLengths_sameAsFormatPayload() {
+        final PayloadFormatter formatter = new PayloadFormatter(true);
+        for (int length = 0; length < 10; length++) {
+            final byte[] payload = new byte[length];
+            new Random(length).nextBytes(payload);
+
+            assertEquals(MqttPublishUtils.formatPayload(payload, true),
+                    formatter.format(ByteBuffer.wrap(payload).asReadOnlyBuffer()));
+        }
+    }
+
+    @Test
+    void randomPayloads_directBuffers_sameAsFormatPayload() {
+        final Random random = new Random(42);
+        final PayloadFormatter utf8Formatter = new PayloadFormatter(false);
+        final PayloadFormatter base64Formatter = new PayloadFormatter(true);
+        for (int i = 0; i < 200; i++) {
+            final byte[] payload = new byte[random.nextInt(2_000)];
+            random.nextBytes(payload);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length).put(payload).flip();
+
+            assertEquals(MqttPublishUtils.formatPayload(payload, false), utf8Formatter.format(buffer));
+            assertEquals(MqttPublishUtils.formatPayload(payload, true), base64Formatter.format(buffer));
+            assertEquals(0, buffer.position());
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
@@ -192,6 +193,19 @@ class TlsUtilTest {
         assertNotNull(privateKey);
     }
 
+    @Test
+    void convert_ENCRYPTED_RSA_KEY_NOT_INTERACTIVE_FAILURE() {
+        PasswordUtils.setInteractive(false);
+        try {
+            final Exception e = assertThrows(IOException.class,
+                    () -> TlsUtil.getPrivateKeyFromFile(pathToEncryptedRSAKey, null));
+            assertEquals("Unable to prompt for the password ('Enter private key password:'), pass it with its option " +
+                    "instead", e.getMessage());
+        } finally {
+            PasswordUtils.setInteractive(true);
+        }
+    }
+
     @Test
     void convert_DECRYPTED_RSA_KEY_SUCCESS() throws Exception {
         final PrivateKey privateKey = TlsUtil.getPrivateKeyFromFile(pathToDecryptedRSAKey, null);
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-present HiveMQ and the HiveMQ Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hivemq.cli.utils.json;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperties;
+import com.hivemq.client.mqtt.mqtt5.datatypes.Mqtt5UserProperty;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonMqttPublishWriterTest {
+
+    @Test
+    void mqtt5_pretty_sameAsJsonMqttPublish() {
+        final Mqtt5Publish publish = Mqtt5Publish.builder()
+                .topic("myTopic")
+                .qos(MqttQos.EXACTLY_ONCE)
+                .payload("{\"a\":[1,2.50,{\"b\":null}],\"c\":\"x=<y>\"}".getBytes(StandardCharsets.UTF_8))
+                .retain(true)
+                .contentType("application/json")
+                .payloadFormatIndicator(Mqtt5PayloadFormatIndicator.UTF_8)
+                .messageExpiryInterval(1337)
+                .responseTopic("myResponseTopic")
+                .correlationData("correlation".getBytes(StandardCharsets.UTF_8))
+                .userProperties(Mqtt5UserProperties.of(Mqtt5UserProperty.of("name1", "value1"),
+                        Mqtt5UserProperty.of("name1", "value2")))
+                .build();
+
+        final String expected = new JsonMqttPublish(publish, false).toString();
+        final String actual = new JsonMqttPublishWriter(false, false).write(publish);
+
+        assertEquals(withoutReceivedAt(expected), withoutReceivedAt(actual));
+    }
+
+    @Test
+    void mqtt3_pretty_sameAsJsonMqttPublish() {
+        final Mqtt3Publish publish = Mqtt3Publish.builder()
+                .topic("myTopic")
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .payload("hello world".getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        final String expected = new JsonMqttPublish(publish, true).toString();
+        final String actual = new JsonMqttPublishWriter(true, false).write(publish);
+
+        assertEquals(withoutReceivedAt(expected), withoutReceivedAt(actual));
+    }
+
+    @Test
+    void compact_singleLinePerPublish() {
+        final JsonMqttPublishWriter writer = new JsonMqttPublishWriter(false, true);
+        final Mqtt5Publish first = Mqtt5Publish.builder()
+                .topic("first")
+                .payload("{\n  \"temperature\": 21.5\n}".getBytes(StandardCharsets.UTF_8))
+                .build();
+        final Mqtt5Publish second = Mqtt5Publish.builder().topic("second").payload("plain text".getBytes()).build();
+
+        final String firstLine = writer.write(first);
+        final String secondLine = writer.write(second);
+
+        assertFalse(firstLine.contains("\n"));
+        assertTrue(firstLine.startsWith("{\"topic\":\"first\",\"payload\":{\"temperature\":21.5},\"qos\":\"AT_MOST_ONCE\""),
+                firstLine);
+        final JsonObject secondJson = JsonParser.parseString(secondLine).getAsJsonObject();
+        assertEquals("second", secondJson.get("topic").getAsString());
+        assertEquals("plain text", secondJson.get("payload").getAsString());
+    }
+
+    @Test
+    void isJson() {
+        assertTrue(JsonMqttPublishWriter.isJson("{\"a\": 1}"));
+        assertTrue(JsonMqttPublishWriter.isJson("  [1, 2]  "));
+        assertTrue(JsonMqttPublishWriter.isJson("-1.5e3"));
+        assertTrue(JsonMqttPublishWriter.isJson("true"));
+        assertTrue(JsonMqttPublishWriter.isJson("\"quoted\""));
+        assertFalse(JsonMqttPublishWriter.isJson(""));
+        assertFalse(JsonMqttPublishWriter.isJson("hello"));
+        assertFalse(JsonMqttPublishWriter.isJson("{\"a\": 1"));
+        assertFalse(JsonMqttPublishWriter.isJson("{\"a\": 1} {\"b\": 2}"));
+        assertFalse(JsonMqttPublishWriter.isJson("1 2"));
+    }
+
+    private static @NotNull String withoutReceivedAt(final @NotNull String json) {
+        return json.replaceAll("\"receivedAt\": \"[^\"]*\"", "\"receivedAt\": \"\"");
+    }
+}